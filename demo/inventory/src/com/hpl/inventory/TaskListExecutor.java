@@ -40,6 +40,8 @@ import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
 
+import com.hpl.mds.IsolationContext;
+
 
 public class TaskListExecutor implements Runnable {
 
@@ -47,7 +49,8 @@ public class TaskListExecutor implements Runnable {
     private final List<Runnable> taskList;
 
     public TaskListExecutor(int poolSize, List<Runnable> taskList) {
-        this.pool = Executors.newFixedThreadPool(poolSize);
+        // tasks run in the creator's context, whichever pool thread runs them
+        this.pool = IsolationContext.wrapInCurrent(Executors.newFixedThreadPool(poolSize));
         this.taskList = taskList;
     }
 
@@ -121,6 +121,18 @@ namespace mds {
         }
 
         managed_value<managed_array<K>> create_array(const size_type s, const gc_ptr<iso_context> &ctxt) const;
+
+        /*
+         * An array whose elements start out in a flat buffer rather than
+         * each in its own msv.  init, if not null, points to s values to
+         * start with; otherwise they start out zero.  See managed_array.
+         */
+        template <typename T,
+                  typename V = kind_mv<K>,
+                  typename = std::enable_if_t<std::is_arithmetic<V>::value>>
+        managed_value<managed_array<K>> create_dense_array(const size_type s,
+                                                           const gc_ptr<iso_context> &ctxt,
+                                                           const T *init) const;
     };
 
 
@@ -168,6 +180,21 @@ namespace mds {
         }
     };
 
+    /*
+     * A dense array (one with a non-null dense_gc) keeps a flat buffer
+     * of base values alongside the usual per-element msvs.  The buffer
+     * is filled when the array is created and never changes after
+     * that.  An element's msv is only created when something writes it,
+     * and reads return the base value until then.  A read-mostly array
+     * of primitives thus costs a pointer and a value per element rather
+     * than a pointer and an msv, and scanning it reads the buffer in
+     * order.
+     *
+     * The msv finds the base value through its conflict generator and
+     * reads it where no branch has a value of its own, so a
+     * read-modify-write of it is seen by the merge as reading that
+     * value, just as one of a sparse element reads the default.
+     */
     template <kind K>
     class managed_array : public managed_array_base
     {
@@ -175,6 +202,7 @@ namespace mds {
       //      a matter of mirroring the types found in gc_array
       using atomic_msv  = std::atomic<gc_ptr<msv<K>>>;
       using rep_type    = gc_array<atomic_msv>;
+      using dense_type  = gc_array<kind_mv<K>>;
 
       public:
         using size_type = typename rep_type::size_type;
@@ -184,6 +212,7 @@ namespace mds {
       
       private:
         gc_ptr<rep_type>                  array_gc;
+        gc_ptr<dense_type>                dense_gc;
 
       public:
         managed_array(
@@ -198,6 +227,20 @@ namespace mds {
         array_gc{a}
         {}
 
+        managed_array(
+          gc_token &gc,
+          const gc_ptr<const array_type<K>> &at,
+          const size_type s,
+          gc_ptr<rep_type> &a,
+          gc_ptr<dense_type> &d
+        ) :
+        managed_array_base{gc, K},
+        a_type{at},
+        size{s},
+        array_gc{a},
+        dense_gc{d}
+        {}
+
         // su - descriptor allows gc to find fields it cares about
         static const auto &descriptor() {
           static gc_descriptor d =
@@ -205,10 +248,19 @@ namespace mds {
 	    .template WITH_SUPER(managed_array_base)
             .template WITH_FIELD(&managed_array::a_type)
 	    .template WITH_FIELD(&managed_array::size)
-	    .template WITH_FIELD(&managed_array::array_gc);
+	    .template WITH_FIELD(&managed_array::array_gc)
+	    .template WITH_FIELD(&managed_array::dense_gc);
           return d;
         }
 
+        bool is_dense() const {
+          return dense_gc != nullptr;
+        }
+
+        kind_mv<K> base_value(index_type i) const {
+          return dense_gc == nullptr ? kind_mv<K>{} : dense_gc->at(i);
+        }
+
         gc_ptr<msv<K>> lookup(index_type i, bool create_if_null = false) const;
 
         // su - need to have analogues of the record_field operations here.
@@ -327,6 +379,29 @@ namespace mds {
       return managed_value<managed_array<K>>{a, b};
     }
 
+    template <kind K>
+    template <typename T, typename V, typename>
+    inline managed_value<managed_array<K>>
+    array_type<K>::create_dense_array(const size_type s,
+                                      const gc_ptr<iso_context> &ctxt,
+                                      const T *init) const
+    {
+      using atomic_msv  = std::atomic<gc_ptr<msv<K>>>;
+      using rep_type    = gc_array<atomic_msv>;
+      using dense_type  = gc_array<kind_mv<K>>;
+
+      gc_ptr<rep_type> array_gc = make_gc_array<atomic_msv>(s);
+      gc_ptr<dense_type> dense_gc = make_gc_array<kind_mv<K>>(s);
+      if (init != nullptr) {
+        for (size_type i = 0; i < s; i++) {
+          dense_gc->at(i) = static_cast<kind_mv<K>>(init[i]);
+        }
+      }
+      gc_ptr<managed_array<K>> a = make_gc<managed_array<K>>(GC_THIS, s, array_gc, dense_gc);
+      gc_ptr<branch> b = ctxt->shadow(top_level_branch);
+      return managed_value<managed_array<K>>{a, b};
+    }
+
     template <kind K> inline
     gc_ptr<msv<K>> 
     managed_array<K>::lookup(index_type i, bool create_if_null) const {
@@ -365,7 +440,7 @@ namespace mds {
 
       gc_ptr<msv<K>> val = lookup(i, false);
       if (val == nullptr) {
-        return kind_mv<K>{};
+        return base_value(i);
       }
 
       gc_ptr<branch> sb = ctxt->shadow(b);
@@ -380,7 +455,7 @@ namespace mds {
  
       gc_ptr<msv<K>> val = lookup(i, false);
       if (val == nullptr) {
-        return kind_mv<K>{};
+        return base_value(i);
       }
 
       gc_ptr<branch> sb = ctxt->shadow(b);
@@ -393,6 +468,9 @@ namespace mds {
                                 const gc_ptr<branch> &b,
                                 const gc_ptr<iso_context> &ctxt) const {
  
+      if (dense_gc != nullptr) {
+        return true;
+      }
       gc_ptr<msv<K>> val = lookup(i, false);
       if (val == nullptr) {
         return false;
@@ -416,6 +494,13 @@ namespace mds {
       return val->modify(sb, ctxt, op, resolving, arg);
     }
 
+    template <kind K>
+    inline
+    kind_mv<K>
+    array_elmt_conflict<K>::generator::base_value() const {
+      return _array->base_value(_i);
+    }
+
     template <kind K>
     gc_ptr<array_type<K>>
     managed_type<K>::in_array() const {
@@ -327,6 +327,11 @@ namespace mds {
       }
       
       conflict_generator(gc_token &gc, discriminator_type d) : base{gc, d} {}
+
+      bool is_a(discriminator_type d) const {
+	return _discrim == d;
+      }
+
       static const auto &descriptor() {
 	static gc_descriptor d =
 	  GC_DESC(conflict_generator)
@@ -467,6 +472,12 @@ namespace mds {
 				       const gc_sub_ptr<std::atomic<gc_ptr<conflict>>> &loc) const {
 	  return make_gc<array_elmt_conflict>(b, loc, _array, _i);
 	}
+
+	/*
+	 * The element's value before anything wrote it.  Defined with
+	 * managed_array.
+	 */
+	kind_mv<K> base_value() const;
       };
     };
 
@@ -450,6 +450,19 @@ namespace mds {
           return rr.resulting_value()->merge(merge_time, holder);
         }
 
+        /*
+         * Whether a merge of this state would have to do more than
+         * report conflicts already noted.  Contingent conflicts only
+         * come from writes.
+         */
+        bool has_contingent_conflicts() const {
+          return _contingent_conflicts != nullptr;
+        }
+
+        const gc_ptr<conflict_list> &conflicts() const {
+          return _conflicts;
+        }
+
         bool before_merge(timestamp_t ts) const {
           return ts < _last_merge_time;
         }
@@ -498,6 +511,12 @@ namespace mds {
       snapshot _parent;
       std::atomic<gc_ptr<const state_t> > _state;
       std::atomic<gc_ptr<merge_blocker> > _merge_blockers{nullptr};
+      /*
+       * Writes made in this context, counting each successful merge
+       * of a child that wrote as one.  Frozen reads don't count.
+       * Merges only need to be run for contexts that have any.
+       */
+      std::atomic<std::uint64_t> _n_writes{0};
       using shadow_map_type = small_gc_cuckoo_map<gc_ptr<branch>, gc_ptr<branch>>;
       const gc_ptr<shadow_map_type> _shadow_map;
       const view_type _view_type;
@@ -523,6 +542,7 @@ namespace mds {
 	  .WITH_FIELD(&iso_context::_parent)
 	  .WITH_FIELD(&iso_context::_state)
 	  .WITH_FIELD(&iso_context::_merge_blockers)
+	  .WITH_FIELD(&iso_context::_n_writes)
 	  .WITH_FIELD(&iso_context::_shadow_map)
 	  .WITH_FIELD(&iso_context::_view_type)
 	  .WITH_FIELD(&iso_context::_mod_type);
@@ -740,15 +760,53 @@ namespace mds {
         return as_of(most_recent, vt, mt);
       }
 
+      void note_write() {
+        _n_writes++;
+      }
+
+      std::uint64_t n_writes() const {
+        return _n_writes;
+      }
+
+      /*
+       * True if publishing would succeed without making anything new
+       * visible in the parent: nothing was written and there are no
+       * conflicts.
+       */
+      bool has_nothing_to_merge() const {
+        gc_ptr<const state_t> s = _state;
+        return _n_writes == 0 && s->conflicts() == nullptr && !s->has_contingent_conflicts();
+      }
+
       /*
        * Returns null conflicts if merge succeeded, conflicts otherwise.
        * Throws unmergeable_context_ex if not mergeable.
+       *
+       * The merge itself doesn't look at the values written; they
+       * were put on our branches as they were written and conflicts
+       * were noted then.  So if we already have conflicts, or if we
+       * haven't written anything (and so have no contingent
+       * conflicts and nothing for the parent to see), all there is to
+       * do is report the conflicts, and we don't install a merge
+       * task, which would make writers in this context wait.  We
+       * still take a new timestamp, since the merge result's
+       * snapshots are taken as of it.
        */
       merge_result merge() {
         if (!is_mergeable()) {
           throw unmergeable_context_ex{};
         }
-        return merge_task::perform(GC_THIS);
+        gc_ptr<const state_t> s = _state;
+        if (s->conflicts() != nullptr
+            || (_n_writes == 0 && !s->has_contingent_conflicts()))
+          {
+            return merge_result(GC_THIS, ++(*current_version), s->conflicts());
+          }
+        merge_result mr = merge_task::perform(GC_THIS);
+        if (mr.conflicts == nullptr && _parent.context != nullptr) {
+          _parent.context->note_write();
+        }
+        return mr;
       }
 
       bool was_merged_after(timestamp_t ts) const {
@@ -567,7 +567,8 @@ namespace mds {
 
 
         state_chain_pair close_merged_branches(to_merge_set &queue,
-					       const gc_ptr<branch> &write_branch) const;
+					       const gc_ptr<branch> &write_branch,
+					       const val_type &initial) const;
 
 
 	const_iterator begin() const {
@@ -993,7 +994,7 @@ namespace mds {
           gc_ptr<state> s = _state;
           gc_ptr<branch_value> bv;
           std::tie(std::ignore, bv) = s->current_value(b, before);
-          return bv == nullptr ? val_type{} : bv->val;
+          return bv == nullptr ? _msv->initial_value() : bv->val;
         }
 
         void cache_state() {
@@ -1310,6 +1311,22 @@ namespace mds {
       typename write_task::atomic_holder _pre_write_task;
       gc_ptr<conflict_generator> _conflict_generator;
 
+      /*
+       * The value read where no branch has one.  That's the kind's
+       * default, except for an element of a dense array, which starts
+       * out with its base value.  Only the array knows that, so we ask
+       * it through the conflict generator rather than carry the value
+       * in every msv.
+       */
+      val_type initial_value() const {
+        using elmt_generator = typename array_elmt_conflict<K>::generator;
+        const conflict_generator *cg = _conflict_generator.pointer();
+        if (cg != nullptr && cg->is_a(elmt_generator::discrim)) {
+          return static_cast<const elmt_generator *>(cg)->base_value();
+        }
+        return val_type{};
+      }
+
       gc_ptr<conflict> generate_conflict(const gc_ptr<branch> &b, 
 					 const gc_ptr<branch_value_chain> &bvc)	{
 	using locref = gc_sub_ptr<std::atomic<gc_ptr<conflict>>>;
@@ -1383,7 +1400,7 @@ namespace mds {
 	      }
 	    }
 	  } else {
-	    scp = s->close_merged_branches(need_close, write_branch);
+	    scp = s->close_merged_branches(need_close, write_branch, initial_value());
 	  }
 	}
 	if (!install_new_state(s, scp.state_to_use)) {
@@ -1441,7 +1458,7 @@ namespace mds {
 	if (!is_valid) {
 	  v = read_loop(b, as_of);
 	}
-        return v == nullptr ? val_type{} : ctxt->shadowed_val(v->val);
+        return v == nullptr ? ctxt->shadowed_val(initial_value()) : ctxt->shadowed_val(v->val);
       }
 
       static const auto &descriptor() {
@@ -1478,6 +1495,13 @@ namespace mds {
         if (b->context->is_read_only()) {
           throw read_only_context_ex{};
         }
+        /*
+         * Noted here rather than in modify(write_chain, ...), which
+         * read_frozen() also uses, so that only real writes count.  And
+         * before the task is installed, so a merge that doesn't see it
+         * can't have had the write to take into account.
+         */
+        b->context->note_write();
         state_chain_pair scp = close_merged_branches(b);
         gc_ptr<branch_value_chain> write_chain = scp.chain;
         return ctxt->shadowed_val(modify(write_chain, op, resolvep, ctxt->shadowed_val(arg)));
@@ -1522,7 +1546,8 @@ namespace mds {
     typename msv<K>::state_chain_pair
     msv<K>::state::
     close_merged_branches(to_merge_set &queue,
-			  const gc_ptr<branch> &write_branch) const {
+			  const gc_ptr<branch> &write_branch,
+			  const val_type &initial) const {
       using namespace std;
       /*
        * There are almost certainly more efficient ways to do this,
@@ -1629,7 +1654,7 @@ namespace mds {
 	    if (prior != nullptr && prior->timestamp == ts) {
 	      prior = prior->next;
 	    }
-	    val_type on_child = (last_val.pointer() == nullptr) ? val_type{} : last_val->val;
+	    val_type on_child = (last_val.pointer() == nullptr) ? initial : last_val->val;
 	    val_type for_parent = val_after_merge(on_child);
 	    gc_ptr<branch_value> new_bv = make_gc<branch_value>(ts, for_parent, prior);
 	    
@@ -212,6 +212,19 @@ namespace mds {
       }
     }
 
+    /*
+     * The interned string with these characters, or null if there
+     * isn't one yet.  Unlike intern(), this never adds one, so a lookup
+     * by a string that was never stored leaves nothing behind.
+     */
+    template <typename Iter>
+    value_type find(const Iter &from, const Iter &to) {
+      if (from == to) {
+        return _empty_string;
+      }
+      return _map->get(compute_key(from, to));
+    }
+
     value_type intern(const char *chars, std::size_t len) {
       return chars == nullptr ? _empty_string : intern(chars, chars+len);
     }
@@ -270,6 +283,11 @@ namespace mds {
     inline gc_ptr<interned_string> intern(const char16_t *chars, std::size_t len) {
       return string_table->intern(chars, len);
     }
+
+    inline gc_ptr<interned_string> find_interned(const char16_t *chars, std::size_t len) {
+      return string_table->find(chars, chars+len);
+    }
+
     // This is assumed to be a literal string (with a null byte at the end)
     template <std::size_t N>
     inline gc_ptr<interned_string> intern(const char16_t (&chars)[N]) {
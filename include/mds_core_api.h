@@ -46,6 +46,8 @@
 #include <mutex>
 #include <locale>
 #include <stack>
+#include <atomic>
+#include <stdexcept>
 #include <type_traits>
 
 namespace mds {
@@ -807,6 +809,14 @@ namespace mds {
      ensure_process_registered();
      return interned_string_handle{core::intern(chars, len)};
    }
+
+   /*
+    * A null handle if the string hasn't been interned.
+    */
+   inline interned_string_handle find_interned(const char16_t *chars, std::size_t len) {
+     ensure_process_registered();
+     return interned_string_handle{core::find_interned(chars, len)};
+   }
    // This is assumed to be a literal string (with a null byte at the end)
    template <std::size_t N>
    inline interned_string_handle intern(const char16_t (&chars)[N]) {
@@ -900,6 +910,14 @@ namespace mds {
        return is_null() ? false : pointer()->is_mergeable();
      }
 
+     /*
+      * True if a publish would trivially succeed, since nothing has
+      * been written and there are no conflicts.
+      */
+     bool has_nothing_to_publish() const {
+       return is_null() ? true : pointer()->has_nothing_to_merge();
+     }
+
      iso_context_handle parent() const {
        return is_null() ? iso_context_handle{} : pointer()->parent();
      }
@@ -1304,11 +1322,62 @@ namespace mds {
        return pointer()->div(i, branch(), ctxt.pointer(), val, resolving);
      }
 
+     bool is_dense() const {
+       return pointer()->is_dense();
+     }
+
      bool has_value(const iso_context_handle &ctxt,
                     const array_index_type i) const {
        return is_null() ? false : pointer()->has_value(i, branch(), ctxt.pointer());
      }
 
+     /*
+      * Bulk forms of read() and write() over [from, from+n).  The array, branch,
+      * and context are resolved once for the whole range rather than once per
+      * element.  T is the caller's element type (e.g., a JNI primitive type).
+      */
+     template <typename T>
+     void read_range(const iso_context_handle &ctxt,
+                     const array_index_type from,
+                     const std::size_t n,
+                     T *dst) const {
+       const auto &p = pointer();
+       const auto &b = branch();
+       const auto &c = ctxt.pointer();
+       for (std::size_t i = 0; i < n; i++) {
+         api_type<K> v = p->read(from+i, b, c);
+         dst[i] = static_cast<T>(v);
+       }
+     }
+
+     template <typename T>
+     void write_range(const iso_context_handle &ctxt,
+                      const array_index_type from,
+                      const std::size_t n,
+                      const T *src,
+                      res_mode resolving = non_resolving) const {
+       const auto &p = pointer();
+       const auto &b = branch();
+       const auto &c = ctxt.pointer();
+       for (std::size_t i = 0; i < n; i++) {
+         p->write(from+i, b, c, to_core_val<K>(static_cast<api_type<K>>(src[i])), resolving);
+       }
+     }
+
+     void fill(const iso_context_handle &ctxt,
+               const array_index_type from,
+               const array_index_type to,
+               const api_type<K> &val,
+               res_mode resolving = non_resolving) const {
+       const auto &p = pointer();
+       const auto &b = branch();
+       const auto &c = ctxt.pointer();
+       const auto cv = to_core_val<K>(val);
+       for (array_index_type i = from; i < to; i++) {
+         p->write(i, b, c, cv, resolving);
+       }
+     }
+
      array_size_type<K> size() {
        return pointer()->size;
      }
@@ -1489,6 +1558,20 @@ namespace mds {
        return pointer()->create_array(s, ctxt.pointer());
      }
 
+     /*
+      * An array that keeps its elements' starting values in a flat
+      * buffer and only creates per-element state for elements that are
+      * written.  init, if not null, points to s starting values.  Only
+      * for arithmetic kinds.
+      */
+     template <typename T>
+     managed_array_handle<K>
+     create_dense_array(array_size_type<K> s,
+                        iso_context_handle ctxt,
+                        const T *init) const {
+       return pointer()->create_dense_array(s, ctxt.pointer(), init);
+     }
+
      template <bool CP>
      bool is_same_as(const array_type_handle_cp<K, CP> &rhs) const {
        if (pointer() == rhs.pointer()) {
@@ -2316,6 +2399,111 @@ namespace mds {
      return pointer()->field_in(rtype.pointer(), name.pointer(), create_if_absent);
    }
 
+   /*
+    * Backing storage shared by handle_store and unique_handle_store.  Slots live in fixed-size
+    * chunks hung off a fixed directory, so a slot never moves once it has been handed out and
+    * reading it doesn't require a lock.  Chunks are never freed (the stores live as long as the
+    * process does), so readers don't need any epoch or hazard-pointer protection.
+    *
+    * A slot is only written while its index is not visible to any other thread (it has just
+    * been allocated or taken off a free list), and callers only present indices they hold a
+    * reference to, so reads and writes of slot contents never race.
+    *
+    * Freed indices go onto one of several free-list shards, each with its own lock.  A thread
+    * prefers its own shard, looks (without blocking) at the others when its own is empty, and
+    * only extends the high-water mark when there's nothing free anywhere.
+    */
+   template <typename E>
+   class chunked_slots {
+   public:
+     using index_type = std::size_t;
+     static constexpr std::size_t chunk_bits = 12;
+     static constexpr std::size_t chunk_size = std::size_t{1} << chunk_bits;
+     static constexpr std::size_t max_chunks = std::size_t{1} << 14;
+     static constexpr std::size_t n_shards = 16;
+   private:
+     struct chunk {
+       E slots[chunk_size];
+     };
+     struct alignas(64) free_shard {
+       std::mutex mutex;
+       std::vector<index_type> indices;
+     };
+     std::atomic<chunk *> _chunks[max_chunks] {};
+     std::atomic<index_type> _next{1};
+     std::atomic<std::size_t> _n_free{0};
+     free_shard _shards[n_shards];
+
+     static std::size_t home_shard() {
+       static std::atomic<std::size_t> next_shard{0};
+       thread_local std::size_t s = next_shard.fetch_add(1, std::memory_order_relaxed) % n_shards;
+       return s;
+     }
+
+     void ensure_chunk(index_type i) {
+       std::atomic<chunk *> &c = _chunks[(i-1) >> chunk_bits];
+       if (c.load(std::memory_order_acquire) == nullptr) {
+         chunk *expected = nullptr;
+         chunk *fresh = new chunk;
+         if (!c.compare_exchange_strong(expected, fresh, std::memory_order_acq_rel)) {
+           delete fresh;
+         }
+       }
+     }
+
+     bool pop_free(free_shard &s, index_type &i) {
+       if (s.indices.empty()) {
+         return false;
+       }
+       i = s.indices.back();
+       s.indices.pop_back();
+       _n_free.fetch_sub(1, std::memory_order_relaxed);
+       return true;
+     }
+   public:
+     /*
+      * i must have been returned by allocate().
+      */
+     E &operator[](index_type i) {
+       chunk *c = _chunks[(i-1) >> chunk_bits].load(std::memory_order_acquire);
+       return c->slots[(i-1) & (chunk_size-1)];
+     }
+
+     index_type allocate() {
+       if (_n_free.load(std::memory_order_relaxed) != 0) {
+         std::size_t home = home_shard();
+         index_type i;
+         {
+           free_shard &s = _shards[home];
+           std::lock_guard<std::mutex> lock{s.mutex};
+           if (pop_free(s, i)) {
+             return i;
+           }
+         }
+         for (std::size_t k = 1; k < n_shards; k++) {
+           free_shard &s = _shards[(home+k) % n_shards];
+           std::unique_lock<std::mutex> lock{s.mutex, std::try_to_lock};
+           if (lock.owns_lock() && pop_free(s, i)) {
+             return i;
+           }
+         }
+       }
+       index_type i = _next.fetch_add(1, std::memory_order_relaxed);
+       if (((i-1) >> chunk_bits) >= max_chunks) {
+         throw std::length_error("handle store exhausted");
+       }
+       ensure_chunk(i);
+       return i;
+     }
+
+     void release(index_type i) {
+       free_shard &s = _shards[home_shard()];
+       std::lock_guard<std::mutex> lock{s.mutex};
+       s.indices.push_back(i);
+       _n_free.fetch_add(1, std::memory_order_relaxed);
+     }
+   };
+
    /*
     * This is a convenience class to allow stashing handles someplace so that you can refer to them
     * by an index, suitable for storing in a Java object.  If you do so, remember to call free() when the
@@ -2323,17 +2511,17 @@ namespace mds {
     * directly, it will be more efficient.  No effort is made to determine that the handle is not already
     * in the store.  What is returned is a copy of the handle, so modifications are not preserved.
     *
+    * get() takes no locks, so it's safe to call on hot paths from many threads at once.
+    *
     * index 0 is reserved to indicate a value of T{} (null handle, null pointer, or zero value).
-    * Otherwise, index i refers to the (i-1)th element of the vector.
+    * Otherwise, index i refers to the ith slot of the store.
     */
    template <typename T>
    class handle_store {
    public:
      using index_type = std::size_t;
    private:
-     std::stack<std::size_t> _free_list;
-     std::vector<T> _handles;
-     mutable std::mutex _mutex;
+     chunked_slots<T> _handles;
      static handle_store &_store() {
        static handle_store hs;
        return hs;
@@ -2342,24 +2530,15 @@ namespace mds {
        if (handle == T{}) {
          return 0;
        }
-       std::lock_guard<std::mutex> lock{_mutex};
-       if (_free_list.empty()) {
-         _handles.push_back(handle);
-         index_type i = _handles.size();
-         return i;
-       } else {
-         index_type i = _free_list.top();
-         _free_list.pop();
-         _handles[i-1] = handle;
-         return i;
-       }
+       index_type i = _handles.allocate();
+       _handles[i] = handle;
+       return i;
      }
 
      void _free(index_type i) {
        if (i != 0) {
-         std::lock_guard<std::mutex> lock{_mutex};
-         _free_list.push(i);
-         _handles[i-1] = T{};
+         _handles[i] = T{};
+         _handles.release(i);
        }
      }
 
@@ -2367,8 +2546,7 @@ namespace mds {
        if (i == 0) {
          return T{};
        }
-       std::lock_guard<std::mutex> lock{_mutex};
-       return _handles[i-1];
+       return _handles[i];
      }
    public:
      static index_type store(const T &handle) {
@@ -2400,11 +2578,14 @@ namespace mds {
     * that the reference count should not be incremented if the handle exists in the table.  The return value from
     * store() includes an indication of whether the handle was added to the store by this operation.
     *
+    * get() and add_ref() take no locks.  The handle-to-index map is split into shards by hash, and store()
+    * locks only the shard for its handle.  free() only takes that lock when the count is about to hit zero.
+    *
     * No effort is made to determine that the handle is not already
     * in the store.  What is returned is a copy of the handle, so modifications are not preserved.
     *
     * index 0 is reserved to indicate a value of T{} (null handle, null pointer, or zero value).
-    * Otherwise, index i refers to the (i-1)th element of the vector.
+    * Otherwise, index i refers to the ith slot of the store.
     */
    template <typename T>
    class unique_handle_store {
@@ -2419,71 +2600,83 @@ namespace mds {
        }
      };
    private:
+     static constexpr std::size_t n_known_shards = 16;
      struct counted_handle {
-       std::size_t count;
+       std::atomic<std::size_t> count{0};
        T handle;
-       counted_handle(const T &h) : count{0}, handle{h} {}
      };
-     std::stack<std::size_t> _free_list;
-     std::vector<counted_handle> _handles;
-     std::unordered_map<T,index_type> _known;
-     mutable std::mutex _mutex;
+     struct alignas(64) known_shard {
+       std::mutex mutex;
+       std::unordered_map<T,index_type> known;
+     };
+     chunked_slots<counted_handle> _handles;
+     known_shard _known[n_known_shards];
      static unique_handle_store &_store() {
        static unique_handle_store hs;
        return hs;
      }
+     known_shard &_shard_for(const T &handle) {
+       return _known[std::hash<T>{}(handle) % n_known_shards];
+     }
      return_type _store(const T &handle, bool inc_if_existsp) {
        if (handle == T{}) {
          return return_type{false, 0};
        }
-       std::lock_guard<std::mutex> lock{_mutex};
-       index_type &i = _known[handle];
-       bool is_new = i==0;
+       known_shard &s = _shard_for(handle);
+       std::lock_guard<std::mutex> lock{s.mutex};
+       auto p = s.known.find(handle);
+       bool is_new = p == s.known.end();
+       index_type i;
        if (is_new) {
          // This one was not in the map.
-         if (_free_list.empty()) {
-           _handles.push_back(handle);
-           i = _handles.size();
-         } else {
-           i = _free_list.top();
-           _free_list.pop();
-           _handles[i-1] = handle;
-         }
+         i = _handles.allocate();
+         _handles[i].handle = handle;
+         s.known.emplace(handle, i);
+       } else {
+         i = p->second;
        }
        if (is_new || inc_if_existsp) {
-         _handles[i-1].count++;
+         _handles[i].count.fetch_add(1, std::memory_order_relaxed);
        }
        return return_type{is_new, i};
      }
 
      bool _free(index_type i) {
-       if (i != 0) {
-         std::lock_guard<std::mutex> lock{_mutex};
-         counted_handle &h = _handles[i-1];
-         if (--h.count == 0) {
-           _free_list.push(i);
-           _known.erase(h.handle);
-           h.handle = T{};
-           return true;
-         } else {
+       if (i == 0) {
+         return false;
+       }
+       counted_handle &h = _handles[i];
+       // As long as we aren't the last reference, nobody else can be
+       // trying to remove the entry, so we don't need the shard lock.
+       std::size_t c = h.count.load(std::memory_order_relaxed);
+       while (c > 1) {
+         if (h.count.compare_exchange_weak(c, c-1, std::memory_order_acq_rel,
+                                           std::memory_order_relaxed)) {
            return false;
          }
        }
-       return false;
+       known_shard &s = _shard_for(h.handle);
+       std::lock_guard<std::mutex> lock{s.mutex};
+       if (h.count.fetch_sub(1, std::memory_order_acq_rel) != 1) {
+         // Somebody store()d it again since we looked.
+         return false;
+       }
+       s.known.erase(h.handle);
+       h.handle = T{};
+       _handles.release(i);
+       return true;
      }
 
      T _get(index_type i) {
        if (i == 0) {
          return T{};
        }
-       std::lock_guard<std::mutex> lock{_mutex};
-       return _handles[i-1].handle;
+       return _handles[i].handle;
      }
 
      void _add_ref(index_type i) {
        if (i != 0) {
-	 std::lock_guard<std::mutex> lock{_mutex};
-	 _handles[i-1].count++;
+	 _handles[i].count.fetch_add(1, std::memory_order_relaxed);
        }
      }
    public:
@@ -189,6 +189,11 @@ public class RecordInfo {
         private Visibility mulVisibility;
         private Visibility divVisibility;
 
+        /**
+         * Whether increments and decrements are merged as deltas
+         */
+        private boolean commutative;
+
         public FieldInfo(VarInfo varInfo, String mdsName, String getterNameFormat) {
             this.varInfo = varInfo;
             this.mdsName = mdsName;
@@ -251,6 +256,14 @@ public class RecordInfo {
             return divVisibility;
         }
 
+        public void setCommutative(boolean commutative) {
+            this.commutative = commutative;
+        }
+
+        public boolean isCommutative() {
+            return commutative;
+        }
+
         public void setModifiersVisibility(Visibility modifiersVisibility) {
             this.modifiersVisibility = modifiersVisibility;
         }
@@ -554,6 +554,7 @@ public class FieldRenderer {
         template.add("name", fieldInfo.getVarInfo().getName());
         template.add("creationMethod", creationMethod);
         template.add("methodArgs", new String[] { getMDSName(fieldInfo) });
+        template.add("commutative", fieldInfo.isCommutative());
         addFieldDef(template.render());
     }
 
@@ -35,6 +35,7 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.tools.Diagnostic.Kind;
 
+import com.hpl.mds.annotations.Commutative;
 import com.hpl.mds.annotations.Emitted;
 import com.hpl.mds.annotations.processor.RecordInfo;
 import com.hpl.mds.annotations.processor.RecordInfo.DataType;
@@ -112,6 +113,7 @@ public class FieldParser {
             String getterNameFormat = getFieldGetterNameFormat(method, varInfo.getType(), schemaContext);
             FieldInfo fieldInfo = new FieldInfo(varInfo, mdsName, getterNameFormat);
             parseFieldVisibility(fieldInfo, method, schemaContext);
+            parseFieldCommutative(fieldInfo, method);
             recordInfo.addField(fieldInfo);
         } catch (ProcessingException e) {
             messager.printMessage(Kind.ERROR, "Ignoring Field, " + e.getMessage(), e.getElement());
@@ -198,6 +200,35 @@ public class FieldParser {
         return fieldName;
     }
 
+    /**
+     * Parses the {@link Commutative} annotation of a field, which only applies
+     * to numeric fields
+     * 
+     * @param fieldInfo
+     *            to store the parsed value
+     * @param field
+     *            field with the annotations
+     */
+    private void parseFieldCommutative(FieldInfo fieldInfo, Element field) {
+        if (field.getAnnotation(Commutative.class) == null) {
+            return;
+        }
+        switch (fieldInfo.getVarInfo().getType()) {
+        case BYTE:
+        case SHORT:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+            fieldInfo.setCommutative(true);
+            break;
+        default:
+            messager.printMessage(Kind.ERROR,
+                    "Ignoring annotation, " + Commutative.class.getSimpleName() + " only applies to numeric fields",
+                    field);
+        }
+    }
+
     /**
      * Parses the visibility annotations of a field
      * 
@@ -205,6 +205,11 @@ public class AnnotationProcessorErrorTest {
         compileFieldError("FieldChar", "Unsupported datatype:CHAR");
     }
 
+    @Test
+    public void shouldLogErrorWithCommutativeNonNumericField() throws Exception {
+        compileSchema("FieldCommutativeString", "Ignoring annotation, Commutative only applies to numeric fields");
+    }
+
     @Test
     public void shouldLogErrorWhenSchemaExtendsRecord() throws Exception {
         OutputStream err = new ByteArrayOutputStream();
@@ -108,6 +108,7 @@ public class Generator {
     generate("ManagedMap");
     generate("ManagedMapFromString");
     generate("RecordType");
+    generate("RecordProjectionImpl");
     generate("Field");
 //    generate("NameService");
     generate("Namespace");
@@ -121,6 +122,7 @@ public class Generator {
     generate("MDS");
     generate("PubResultProxy");
     generate("JNI_pr_merge_result");
+    generate("JNI_RecordProjectionImpl");
   }
 
 }
@@ -238,6 +238,34 @@ public class Types {
     public boolean isNeedCastFromInt() {
       return this==BYTE || this == SHORT;
     }
+
+    /*
+     * The primitive java.util.stream streams elements as: int for the
+     * integral types narrower than long, double for float.
+     */
+    public String getStreamPrim() {
+      return this == LONG ? "long" : isIntegral() ? "int" : "double";
+    }
+
+    public String getStreamShort() {
+      return this == LONG ? "Long" : isIntegral() ? "Int" : "Double";
+    }
+
+    public boolean isStreamDirect() {
+      return primName.equals(getStreamPrim());
+    }
+
+    /*
+     * Counter deltas are kept as long for the integral types and as
+     * double for the floating ones.
+     */
+    public String getDeltaPrim() {
+      return isIntegral() ? "long" : "double";
+    }
+
+    public boolean isDeltaDirect() {
+      return primName.equals(getDeltaPrim());
+    }
     
   }
 }
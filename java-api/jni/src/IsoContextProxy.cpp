@@ -34,6 +34,7 @@
 #include "mds_core_api.h"                           // MDS Core API
 #include "pr_merge_result.h"
 #include "mds_jni.h"
+#include <vector>
 
 using namespace mds;
 using namespace mds::api;
@@ -193,6 +194,23 @@ Java_com_hpl_mds_impl_IsoContextProxy_isReadOnly
 }
 
 
+/*
+ * Class:     com_hpl_mds_impl_IsoContextProxy
+ * Method:    hasNothingToPublish
+ * Signature: (J)Z
+ */
+JNIEXPORT
+jboolean
+JNICALL
+Java_com_hpl_mds_impl_IsoContextProxy_hasNothingToPublish
+  (JNIEnv *jEnv, jclass, jlong handleIndex)
+{
+  return exception_handler_wr(jEnv, [=]{
+	indexed<iso_context_handle> self { handleIndex };
+	return self->has_nothing_to_publish();
+  });
+}
+
 
 /*
  * Class:     com_hpl_mds_impl_IsoContextProxy
@@ -214,6 +232,45 @@ Java_com_hpl_mds_impl_IsoContextProxy_publish
   });
 }
 
+/*
+ * Class:     com_hpl_mds_impl_IsoContextProxy
+ * Method:    publishAll
+ * Signature: ([J[J[Ljava/lang/Throwable;)V
+ *
+ * A context whose publish throws doesn't stop the rest.  What it threw
+ * goes in its slot of errors instead.
+ */
+JNIEXPORT
+void
+JNICALL
+Java_com_hpl_mds_impl_IsoContextProxy_publishAll
+  (JNIEnv *jEnv, jclass,
+   jlongArray handleIndices,
+   jlongArray pubResHandles,
+   jobjectArray errors)
+{
+  exception_handler(jEnv, [=]{
+	jsize n = jEnv->GetArrayLength(handleIndices);
+	std::vector<jlong> hs(n);
+	std::vector<jlong> prs(n);
+	jEnv->GetLongArrayRegion(handleIndices, 0, n, hs.data());
+	jEnv->GetLongArrayRegion(pubResHandles, 0, n, prs.data());
+	for (jsize i = 0; i < n; i++) {
+	  exception_handler(jEnv, [=]{
+	      indexed<iso_context_handle> self { hs[i] };
+	      indexed<pr_merge_result *> mr { prs[i] };
+	      self->publish(**mr);
+	    });
+	  if (jEnv->ExceptionCheck()) {
+	    jthrowable ex = jEnv->ExceptionOccurred();
+	    jEnv->ExceptionClear();
+	    jEnv->SetObjectArrayElement(errors, i, ex);
+	    jEnv->DeleteLocalRef(ex);
+	  }
+	}
+  });
+}
+
 /*
  * Class:     com_hpl_mds_impl_IsoContextProxy
  * Method:    clearConflicts
@@ -56,6 +56,15 @@ extern "C"
       });
   }
 
+  JNIEXPORT
+  void
+  JNICALL
+  Java_com_hpl_mds_impl_ManagedRecordProxy_releaseBatch (JNIEnv *jEnv, jclass,
+                                                         jlongArray handleIndices)
+  {
+    exception_handler (jEnv, release_batch<managed_record_handle>, jEnv, handleIndices);
+  }
+
   JNIEXPORT
   jlong
   JNICALL
@@ -0,0 +1,77 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+#include <jni.h>
+#include <vector>
+#include "mds-debug.h"
+#include "mds_core_api.h"                           // MDS Core API
+#include "mds_jni.h"
+
+using namespace mds;
+using namespace mds::api;
+using namespace mds::jni;
+
+extern "C"
+{
+  /*
+   * Follows the next links of a ManagedSkipListMapProxy's lowest list from
+   * the given node, filling handles with the nodes after it until it's full
+   * or the list ends, and returns how many there were.  Fields are read
+   * frozen, as Field.get() does.
+   */
+  JNIEXPORT
+  jint
+  JNICALL
+  Java_com_hpl_mds_impl_ManagedSkipListMapProxy_scan (JNIEnv *jEnv, jclass,
+						      jlong nodeHIndex,
+						      jlong ctxtHIndex,
+						      jlong nextFieldHIndex,
+						      jlongArray handles)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	indexed<managed_record_handle> node
+	  { nodeHIndex};
+	indexed<iso_context_handle> ctxt
+	  { ctxtHIndex};
+	indexed<record_field_handle<kind::RECORD>> next_field
+	  { nextFieldHIndex};
+	std::size_t max = jEnv->GetArrayLength (handles);
+	std::vector<jlong> out;
+	out.reserve (max);
+	api_type<kind::RECORD> e = next_field->read_frozen (*ctxt, *node);
+	while (out.size () < max && !(e == nullptr))
+	  {
+	    indexed<managed_record_handle> r
+	      { e};
+	    out.push_back (r.return_index ());
+	    e = next_field->read_frozen (*ctxt, e);
+	  }
+	jEnv->SetLongArrayRegion (handles, 0, out.size (), out.data ());
+	return static_cast<jint> (out.size ());
+      });
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+#include <jni.h>
+#include "mds-debug.h"
+#include "mds_core_api.h"                           // MDS Core API
+#include "mds_jni.h"
+
+using namespace mds;
+using namespace mds::api;
+using namespace mds::jni;
+
+extern "C"
+{
+  /*
+   * Walks the chain in one bucket of a string-keyed ManagedHashMapProxy
+   * and returns the entry whose key is the given string, or a null handle.
+   * Strings are interned, so keys are compared by pointer.  Fields are read
+   * frozen, as Field.get() does.
+   */
+  JNIEXPORT
+  jlong
+  JNICALL
+  Java_com_hpl_mds_impl_ManagedStringHashMapProxy_findEntry (JNIEnv *jEnv, jclass,
+							     jlong bucketsHIndex,
+							     jlong ctxtHIndex,
+							     jlong index,
+							     jlong keyFieldHIndex,
+							     jlong nextFieldHIndex,
+							     jlong keyHIndex)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	indexed<managed_array_handle<kind::RECORD>> buckets
+	  { bucketsHIndex};
+	indexed<iso_context_handle> ctxt
+	  { ctxtHIndex};
+	indexed<record_field_handle<kind::STRING>> key_field
+	  { keyFieldHIndex};
+	indexed<record_field_handle<kind::RECORD>> next_field
+	  { nextFieldHIndex};
+	indexed<interned_string_handle> key
+	  { keyHIndex};
+	api_type<kind::RECORD> e = buckets->read (*ctxt, index);
+	while (!(e == nullptr))
+	  {
+	    api_type<kind::STRING> k = key_field->read_frozen (*ctxt, e);
+	    if (k.pointer () == key->pointer ())
+	      {
+		break;
+	      }
+	    e = next_field->read_frozen (*ctxt, e);
+	  }
+	indexed<managed_record_handle> r
+	  { e};
+	return r.return_index ();
+      });
+  }
+}
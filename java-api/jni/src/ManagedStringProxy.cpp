@@ -54,6 +54,15 @@ extern "C"
       });
   }
 
+  JNIEXPORT
+  void
+  JNICALL
+  Java_com_hpl_mds_impl_ManagedStringProxy_releaseBatch (JNIEnv *jEnv, jclass,
+                                                         jlongArray handleIndices)
+  {
+    exception_handler (jEnv, release_batch<interned_string_handle>, jEnv, handleIndices);
+  }
+
   /* Class:     com_hpl_mds_impl_ManagedStringProxy
    * Method:    sameString
    * Signature: (JJ)Z
@@ -167,6 +176,46 @@ extern "C"
   });
   }
 
+  /*
+   * Class:     com_hpl_mds_impl_ManagedStringProxy
+   * Method:    findInterned
+   * Signature: (Ljava/lang/String;)J
+   *
+   * Like intern, but returns 0 rather than adding a string that isn't
+   * there.
+   */
+  JNIEXPORT
+  jlong
+  JNICALL
+  Java_com_hpl_mds_impl_ManagedStringProxy_findInterned (JNIEnv *jEnv, jclass,
+							 jstring s)
+  {
+    if (s == nullptr)
+      {
+	return 0;
+      }
+    return exception_handler_wr (
+	jEnv, [&]
+	  {
+	    std::size_t len = jEnv->GetStringLength(s);
+	    const jchar *chars = jEnv->GetStringCritical(s, nullptr);
+	    if (chars == nullptr)
+	      {
+		return 0l; // exception thrown
+	      }
+	    const char16_t *wcs = reinterpret_cast<const char16_t *>(chars);
+	    interned_string_handle istring = find_interned(wcs, len);
+	    jEnv->ReleaseStringCritical(s, chars);
+	    if (istring.is_null())
+	      {
+		return 0l;
+	      }
+	    indexed<interned_string_handle> msp
+	      { istring};
+	    return msp.return_index();
+	  });
+  }
+
   /*
    * Class:     com_hpl_mds_impl_ManagedStringProxy
    * Method:    toString
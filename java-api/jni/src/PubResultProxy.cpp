@@ -144,6 +144,93 @@ extern "C"
       });
   }
 
+  JNIEXPORT jint JNICALL
+  Java_com_hpl_mds_impl_PubResultProxy_numConflictsFound (JNIEnv *jEnv,
+							  jclass,
+							  jlong hindex)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	indexed<pr_merge_result *> mr
+	  { hindex};
+	return (*mr)->num_found ();
+      });
+  }
+
+  /*
+   * Class:     com_hpl_mds_impl_PubResultProxy
+   * Method:    countConflicts
+   * Signature: (JJJ)I
+   */
+  JNIEXPORT jint JNICALL
+  Java_com_hpl_mds_impl_PubResultProxy_countConflicts (JNIEnv *jEnv, jclass,
+						       jlong hindex,
+						       jlong recTypeHandle,
+						       jlong fieldHandle)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	indexed<pr_merge_result *> mr
+	  { hindex};
+	return (*mr)->count (recTypeHandle, fieldHandle);
+      });
+  }
+
+  /*
+   * Class:     com_hpl_mds_impl_PubResultProxy
+   * Method:    fetchConflicts
+   * Signature: (JIJJ[J)J
+   */
+  JNIEXPORT jlong JNICALL
+  Java_com_hpl_mds_impl_PubResultProxy_fetchConflicts (JNIEnv *jEnv, jclass,
+						       jlong hindex,
+						       jint from,
+						       jlong recTypeHandle,
+						       jlong fieldHandle,
+						       jlongArray batch)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	indexed<pr_merge_result *> mr
+	  { hindex};
+	jsize len = jEnv->GetArrayLength (batch);
+	jlong *elts = jEnv->GetLongArrayElements (batch, nullptr);
+	if (elts == nullptr)
+	  {
+	    return static_cast<jlong> (0);
+	  }
+	jlong r = (*mr)->fetch (from, recTypeHandle, fieldHandle, elts, len);
+	jEnv->ReleaseLongArrayElements (batch, elts, 0);
+	return r;
+      });
+  }
+
+  /*
+   * Class:     com_hpl_mds_impl_PubResultProxy
+   * Method:    resolveConflicts
+   * Signature: (J[I)I
+   */
+  JNIEXPORT jint JNICALL
+  Java_com_hpl_mds_impl_PubResultProxy_resolveConflicts (JNIEnv *jEnv, jclass,
+							 jlong hindex,
+							 jintArray policies)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	indexed<pr_merge_result *> mr
+	  { hindex};
+	jsize n = jEnv->GetArrayLength (policies);
+	jint *elts = jEnv->GetIntArrayElements (policies, nullptr);
+	if (elts == nullptr)
+	  {
+	    return 0;
+	  }
+	int resolved = (*mr)->resolve_conflicts (jEnv, elts, n);
+	jEnv->ReleaseIntArrayElements (policies, elts, JNI_ABORT);
+	return resolved;
+      });
+  }
+
   /*
    * Class:     com_hpl_mds_impl_PubResultProxy
    * Method:    sourceContextIndex
@@ -25,6 +25,7 @@
  */
 
 #include <jni.h>
+#include <vector>
 #include "mds-debug.h"
 #include "mds_core_api.h"                           // MDS Core API
 #include "mds_jni.h"
@@ -55,6 +56,15 @@ extern "C"
   {
     exception_handler (jEnv, release<kind::RECORD>, handleIndex);
   }
+
+  JNIEXPORT
+  void
+  JNICALL
+  Java_com_hpl_mds_impl_RecordArrayProxy_releaseBatch (JNIEnv *jEnv, jclass,
+                                                       jlongArray handleIndices)
+  {
+    exception_handler (jEnv, release_batch<managed_array_handle<kind::RECORD>>, jEnv, handleIndices);
+  }
   JNIEXPORT
   jboolean
   JNICALL
@@ -122,6 +132,38 @@ extern "C"
 	return r.return_index ();
       });
   }
+  /*
+   * Fills handles with the elements in [from, from+len), for
+   * RecordArrayProxy.getRange().
+   */
+  JNIEXPORT
+  void
+  JNICALL
+  Java_com_hpl_mds_impl_RecordArrayProxy_readHandles (JNIEnv *jEnv, jclass,
+						      jlong handleIndex,
+						      jlong ctxtHIndex,
+						      jlong from,
+						      jlongArray handles,
+						      jint len)
+  {
+    exception_handler (jEnv, [=]
+      {
+	indexed<managed_array_handle<kind::RECORD>> a
+	  { handleIndex};
+	indexed<iso_context_handle> ctxt
+	  { ctxtHIndex};
+	std::vector<jlong> out;
+	out.reserve (len);
+	for (jint i = 0; i < len; i++)
+	  {
+	    api_type<kind::RECORD> val = a->read (*ctxt, from + i);
+	    indexed<managed_record_handle> r
+	      { val};
+	    out.push_back (r.return_index ());
+	  }
+	jEnv->SetLongArrayRegion (handles, 0, len, out.data ());
+      });
+  }
   JNIEXPORT
   jlong
   JNICALL
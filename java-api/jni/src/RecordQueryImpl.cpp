@@ -0,0 +1,414 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+#include <jni.h>
+#include <algorithm>
+#include <cstring>
+#include <functional>
+#include <utility>
+#include <vector>
+#include "mds-debug.h"
+#include "mds_core_api.h"                           // MDS Core API
+#include "mds_jni.h"
+
+using namespace mds;
+using namespace mds::api;
+using namespace mds::jni;
+
+namespace
+{
+  /*
+   * The kinds of field a query reads, in the order of
+   * RecordQueryImpl.NumKind.
+   */
+  enum class num_kind : jint
+  {
+    BYTE, SHORT, INT, LONG, FLOAT, DOUBLE
+  };
+
+  /*
+   * As in RecordQueryImpl: each condition is field handle, kind, op and
+   * value, and AS_DOUBLE is or'ed into the op to compare as doubles.
+   */
+  constexpr jsize filter_stride = 4;
+  constexpr jlong as_double = 0x10;
+
+  enum class compare : jlong
+  {
+    LT, LE, EQ, NE, GE, GT
+  };
+
+  inline jlong
+  double_bits (jdouble d)
+  {
+    jlong l;
+    std::memcpy (&l, &d, sizeof l);
+    return l;
+  }
+
+  inline jdouble
+  bits_double (jlong l)
+  {
+    jdouble d;
+    std::memcpy (&d, &l, sizeof d);
+    return d;
+  }
+
+  /*
+   * A field's value, exactly for integral kinds and as a double for all.
+   */
+  struct num_value
+  {
+    jlong l;
+    jdouble d;
+  };
+
+  using reader = std::function<num_value (const iso_context_handle &, const api_type<kind::RECORD> &)>;
+
+  /*
+   * Looks the field up once, rather than for each record read.
+   */
+  template<kind KIND>
+    reader
+    reader_for (jlong hIndex)
+    {
+      indexed<record_field_handle<KIND>> h
+	{ hIndex};
+      record_field_handle<KIND> field = *h;
+      return [field](const iso_context_handle &ctxt, const api_type<kind::RECORD> &rec) mutable
+	{
+	  api_type<KIND> v = field.read_frozen (ctxt, rec);
+	  return num_value
+	    { static_cast<jlong> (v), static_cast<jdouble> (v)};
+	};
+    }
+
+  reader
+  reader_for (jlong kindCode, jlong hIndex)
+  {
+    switch (static_cast<num_kind> (kindCode))
+      {
+      case num_kind::BYTE:
+	return reader_for<kind::BYTE> (hIndex);
+      case num_kind::SHORT:
+	return reader_for<kind::SHORT> (hIndex);
+      case num_kind::INT:
+	return reader_for<kind::INT> (hIndex);
+      case num_kind::LONG:
+	return reader_for<kind::LONG> (hIndex);
+      case num_kind::FLOAT:
+	return reader_for<kind::FLOAT> (hIndex);
+      case num_kind::DOUBLE:
+	return reader_for<kind::DOUBLE> (hIndex);
+      }
+    throw core::unimplemented
+      {};
+  }
+
+  inline bool
+  is_integral (jlong kindCode)
+  {
+    return static_cast<num_kind> (kindCode) < num_kind::FLOAT;
+  }
+
+  template<typename T>
+    inline bool
+    test (compare op, T x, T y)
+    {
+      switch (op)
+	{
+	case compare::LT:
+	  return x < y;
+	case compare::LE:
+	  return x <= y;
+	case compare::EQ:
+	  return x == y;
+	case compare::NE:
+	  return x != y;
+	case compare::GE:
+	  return x >= y;
+	default:
+	  return x > y;
+	}
+    }
+
+  class condition
+  {
+    reader read;
+    compare op;
+    bool doubles;
+    jlong arg;
+
+  public:
+    condition (const jlong *f)
+      : read (reader_for (f[1], f[0])),
+	op (static_cast<compare> (f[2] & ~as_double)),
+	doubles ((f[2] & as_double) != 0),
+	arg (f[3])
+    {}
+
+    bool
+    operator() (const iso_context_handle &ctxt, const api_type<kind::RECORD> &rec) const
+    {
+      num_value v = read (ctxt, rec);
+      return doubles ? test (op, v.d, bits_double (arg)) : test (op, v.l, arg);
+    }
+  };
+
+  std::vector<condition>
+  conditions (JNIEnv *jEnv, jlongArray filters)
+  {
+    jsize n = jEnv->GetArrayLength (filters);
+    std::vector<jlong> f (n);
+    jEnv->GetLongArrayRegion (filters, 0, n, f.data ());
+    std::vector<condition> cs;
+    cs.reserve (n / filter_stride);
+    for (jsize i = 0; i < n; i += filter_stride)
+      {
+	cs.emplace_back (&f[i]);
+      }
+    return cs;
+  }
+
+  /*
+   * Calls fn on each non-null record in [from, to) that meets all the
+   * conditions.  Fields are read frozen, as Field.get() does.
+   */
+  template<typename Fn>
+    void
+    for_each_match (jlong arrayHIndex, jlong ctxtHIndex, jlong from, jlong to,
+		    const std::vector<condition> &cs, Fn &&fn)
+    {
+      indexed<managed_array_handle<kind::RECORD>> a
+	{ arrayHIndex};
+      indexed<iso_context_handle> ctxt
+	{ ctxtHIndex};
+      iso_context_handle c = *ctxt;
+      for (jlong i = from; i < to; i++)
+	{
+	  api_type<kind::RECORD> rec = a->read (c, i);
+	  if (rec == nullptr)
+	    {
+	      continue;
+	    }
+	  bool ok = true;
+	  for (const condition &cond : cs)
+	    {
+	      if (!cond (c, rec))
+		{
+		  ok = false;
+		  break;
+		}
+	    }
+	  if (ok)
+	    {
+	      fn (c, rec, i);
+	    }
+	}
+    }
+
+  /*
+   * Keeps the n best (index, value) pairs seen, best first when done.
+   */
+  template<typename T>
+    class best_n
+    {
+      using entry = std::pair<T, jlong>;
+      std::vector<entry> heap;
+      std::size_t n;
+      bool largest;
+
+      bool
+      better (const entry &a, const entry &b) const
+      {
+	return largest ? a.first > b.first : a.first < b.first;
+      }
+
+    public:
+      best_n (std::size_t n, bool largest)
+	: n (n), largest (largest)
+      {
+	heap.reserve (n);
+      }
+
+      void
+      offer (T value, jlong index)
+      {
+	// With better() as the ordering, the heap's front is the worst kept.
+	auto cmp = [this](const entry &a, const entry &b)
+	  { return better (a, b);};
+	entry e
+	  { value, index};
+	if (heap.size () < n)
+	  {
+	    heap.push_back (e);
+	    std::push_heap (heap.begin (), heap.end (), cmp);
+	  }
+	else if (n > 0 && better (e, heap.front ()))
+	  {
+	    std::pop_heap (heap.begin (), heap.end (), cmp);
+	    heap.back () = e;
+	    std::push_heap (heap.begin (), heap.end (), cmp);
+	  }
+      }
+
+      jint
+      copy_out (JNIEnv *jEnv, jlongArray indices, jlongArray values, jlong (*bits) (T))
+      {
+	std::sort (heap.begin (), heap.end (), [this](const entry &a, const entry &b)
+	  { return better (a, b);});
+	std::vector<jlong> is, vs;
+	for (const entry &e : heap)
+	  {
+	    is.push_back (e.second);
+	    vs.push_back (bits (e.first));
+	  }
+	jEnv->SetLongArrayRegion (indices, 0, is.size (), is.data ());
+	jEnv->SetLongArrayRegion (values, 0, vs.size (), vs.data ());
+	return static_cast<jint> (heap.size ());
+      }
+    };
+
+  inline jlong
+  long_bits (jlong l)
+  {
+    return l;
+  }
+}
+
+extern "C"
+{
+  /*
+   * Fills summary with the count, sum, min and max of the field over the
+   * records in [from, to) of a record array that meet the conditions.
+   * Floating values are returned as their bits.  With no field (a
+   * fieldHIndex of 0), only the count is filled in.
+   */
+  JNIEXPORT
+  void
+  JNICALL
+  Java_com_hpl_mds_impl_RecordQueryImpl_summarize (JNIEnv *jEnv, jclass,
+						   jlong arrayHIndex,
+						   jlong ctxtHIndex,
+						   jlong from,
+						   jlong to,
+						   jlongArray filters,
+						   jlong fieldHIndex,
+						   jint fieldKind,
+						   jlongArray summary)
+  {
+    exception_handler (jEnv, [=]
+      {
+	std::vector<condition> cs = conditions (jEnv, filters);
+	jlong out[4] = {};
+	if (fieldHIndex == 0)
+	  {
+	    for_each_match (arrayHIndex, ctxtHIndex, from, to, cs,
+			    [&](const iso_context_handle &, const api_type<kind::RECORD> &, jlong)
+			      { out[0]++;});
+	  }
+	else if (is_integral (fieldKind))
+	  {
+	    reader read = reader_for (fieldKind, fieldHIndex);
+	    jlong sum = 0, min = 0, max = 0;
+	    for_each_match (arrayHIndex, ctxtHIndex, from, to, cs,
+			    [&](const iso_context_handle &c, const api_type<kind::RECORD> &rec, jlong)
+			      {
+				jlong v = read (c, rec).l;
+				sum += v;
+				min = out[0] == 0 ? v : std::min (min, v);
+				max = out[0] == 0 ? v : std::max (max, v);
+				out[0]++;
+			      });
+	    out[1] = sum;
+	    out[2] = min;
+	    out[3] = max;
+	  }
+	else
+	  {
+	    reader read = reader_for (fieldKind, fieldHIndex);
+	    jdouble sum = 0, min = 0, max = 0;
+	    for_each_match (arrayHIndex, ctxtHIndex, from, to, cs,
+			    [&](const iso_context_handle &c, const api_type<kind::RECORD> &rec, jlong)
+			      {
+				jdouble v = read (c, rec).d;
+				sum += v;
+				min = out[0] == 0 ? v : std::min (min, v);
+				max = out[0] == 0 ? v : std::max (max, v);
+				out[0]++;
+			      });
+	    out[1] = double_bits (sum);
+	    out[2] = double_bits (min);
+	    out[3] = double_bits (max);
+	  }
+	jEnv->SetLongArrayRegion (summary, 0, 4, out);
+      });
+  }
+
+  /*
+   * Fills indices and values with the records in [from, to) of a record
+   * array that meet the conditions and have the largest (or smallest)
+   * values of the field, best first, as many as indices holds, and returns
+   * how many there were.
+   */
+  JNIEXPORT
+  jint
+  JNICALL
+  Java_com_hpl_mds_impl_RecordQueryImpl_top (JNIEnv *jEnv, jclass,
+					     jlong arrayHIndex,
+					     jlong ctxtHIndex,
+					     jlong from,
+					     jlong to,
+					     jlongArray filters,
+					     jlong fieldHIndex,
+					     jint fieldKind,
+					     jboolean largest,
+					     jlongArray indices,
+					     jlongArray values)
+  {
+    return exception_handler_wr (jEnv, [=]
+      {
+	std::vector<condition> cs = conditions (jEnv, filters);
+	reader read = reader_for (fieldKind, fieldHIndex);
+	std::size_t n = jEnv->GetArrayLength (indices);
+	if (is_integral (fieldKind))
+	  {
+	    best_n<jlong> best
+	      { n, largest == JNI_TRUE};
+	    for_each_match (arrayHIndex, ctxtHIndex, from, to, cs,
+			    [&](const iso_context_handle &c, const api_type<kind::RECORD> &rec, jlong i)
+			      { best.offer (read (c, rec).l, i);});
+	    return best.copy_out (jEnv, indices, values, long_bits);
+	  }
+	best_n<jdouble> best
+	  { n, largest == JNI_TRUE};
+	for_each_match (arrayHIndex, ctxtHIndex, from, to, cs,
+			[&](const iso_context_handle &c, const api_type<kind::RECORD> &rec, jlong i)
+			  { best.offer (read (c, rec).d, i);});
+	return best.copy_out (jEnv, indices, values, double_bits);
+      });
+  }
+}
@@ -263,6 +263,65 @@ namespace mds
 	  h->roll_back (*ctxt, i);
 	}
 
+      template<kind KIND, typename JT>
+	inline void
+	read_range (JNIEnv *jEnv, api_type<kind::LONG> handleIndex,
+		    api_type<kind::LONG> ctxtHIndex, api_type<kind::LONG> from,
+		    jarray dst, jint off, jint len)
+	{
+	  indexed<managed_array_handle<KIND>> a
+	    { handleIndex };
+	  indexed<iso_context_handle> ctxt
+	    { ctxtHIndex };
+	  JT buf[array_region_chunk];
+	  for (jint done = 0; done < len; done += array_region_chunk)
+	    {
+	      jsize n = std::min (array_region_chunk, len - done);
+	      a->read_range (*ctxt, from + done, n, buf);
+	      array_region<JT>::set (jEnv, dst, off + done, n, buf);
+	      if (jEnv->ExceptionCheck ())
+		{
+		  return;
+		}
+	    }
+	}
+
+      template<kind KIND, typename JT>
+	inline void
+	write_range (JNIEnv *jEnv, api_type<kind::LONG> handleIndex,
+		     api_type<kind::LONG> ctxtHIndex, api_type<kind::LONG> from,
+		     jarray src, jint off, jint len)
+	{
+	  indexed<managed_array_handle<KIND>> a
+	    { handleIndex };
+	  indexed<iso_context_handle> ctxt
+	    { ctxtHIndex };
+	  JT buf[array_region_chunk];
+	  for (jint done = 0; done < len; done += array_region_chunk)
+	    {
+	      jsize n = std::min (array_region_chunk, len - done);
+	      array_region<JT>::get (jEnv, src, off + done, n, buf);
+	      if (jEnv->ExceptionCheck ())
+		{
+		  return;
+		}
+	      a->write_range (*ctxt, from + done, n, buf);
+	    }
+	}
+
+      template<kind KIND>
+	inline void
+	fill_range (api_type<kind::LONG> handleIndex,
+		    api_type<kind::LONG> ctxtHIndex, api_type<kind::LONG> from,
+		    api_type<kind::LONG> to, api_type<KIND> val)
+	{
+	  indexed<managed_array_handle<KIND>> a
+	    { handleIndex };
+	  indexed<iso_context_handle> ctxt
+	    { ctxtHIndex };
+	  a->fill (*ctxt, from, to, val);
+	}
+
       template<kind KIND, ARITH_OP OP>
 	inline api_type<KIND>
 	modify_value (api_type<kind::LONG> hIndex,
@@ -93,6 +93,30 @@ namespace mds
 	  return arr.return_index ();
 	}
 
+      template<kind KIND, typename JT>
+	inline api_type<kind::LONG>
+	create_dense_array (JNIEnv *jEnv, api_type<kind::LONG> ctxtHIndex,
+			    api_type<kind::LONG> size, jarray src, jint off)
+	{
+	  indexed<iso_context_handle> ctxt
+	    { ctxtHIndex };
+	  if (src == nullptr)
+	    {
+	      indexed<managed_array_handle<KIND>> arr
+		{ managed_array_handle_by_kind<KIND> ().create_dense_array (size, *ctxt, static_cast<const JT *>(nullptr)) };
+	      return arr.return_index ();
+	    }
+	  critical_array elts
+	    { jEnv, src, JNI_ABORT };
+	  if (!elts)
+	    {
+	      return 0;
+	    }
+	  indexed<managed_array_handle<KIND>> arr
+	    { managed_array_handle_by_kind<KIND> ().create_dense_array (size, *ctxt, elts.as<const JT> () + off) };
+	  return arr.return_index ();
+	}
+
     }
   }
 }
@@ -172,6 +172,47 @@ namespace mds
 	  return h->read(*ctxt, *rec);
 	}
 
+      /*
+       * Variants of get_value, peek_value, and set_value that take a
+       * pinned context (see pin_context()) rather than a context handle
+       * index.  Only used for primitive kinds.
+       */
+      template<kind KIND>
+	inline api_type<KIND>
+	get_value_pinned (api_type<kind::LONG> hIndex, api_type<kind::LONG> pinned,
+			  api_type<kind::LONG> recHIndex)
+	{
+	  indexed<record_field_handle<KIND> > h
+	    { hIndex };
+	  indexed<managed_record_handle> rec
+	    { recHIndex };
+	  return h->read_frozen(pinned_context (pinned), *rec);
+	}
+
+      template<kind KIND>
+	inline api_type<KIND>
+	peek_value_pinned (api_type<kind::LONG> hIndex, api_type<kind::LONG> pinned,
+			   api_type<kind::LONG> recHIndex)
+	{
+	  indexed<record_field_handle<KIND> > h
+	    { hIndex };
+	  indexed<managed_record_handle> rec
+	    { recHIndex };
+	  return h->read(pinned_context (pinned), *rec);
+	}
+
+      template<kind KIND>
+	inline api_type<KIND>
+	set_value_pinned (api_type<kind::LONG> hIndex, api_type<kind::LONG> pinned,
+			  api_type<kind::LONG> recHIndex, api_type<KIND> valArg)
+	{
+	  indexed<record_field_handle<KIND>> h
+	    { hIndex };
+	  indexed<managed_record_handle> rec
+	    { recHIndex };
+	  return h->write (pinned_context (pinned), *rec, valArg);
+	}
+
       template<>
 	inline typename str_to_long<kind::STRING>::type
 	get_value<kind::STRING> (api_type<kind::LONG> hIndex,
@@ -306,6 +347,26 @@ namespace mds
 	  h->roll_back (*ctxt, *rec);
 	}
 
+      /*
+       * Resolves a conflict on a counter that the context only added
+       * delta to: takes the parent's value and adds delta to that.
+       */
+      template<kind KIND>
+	inline void
+	rebase_value (api_type<kind::LONG> hIndex,
+		      api_type<kind::LONG> ctxtHIndex,
+		      api_type<kind::LONG> recHIndex, api_type<KIND> delta)
+	{
+	  indexed<record_field_handle<KIND>> h
+	    { hIndex };
+	  indexed<iso_context_handle> ctxt
+	    { ctxtHIndex };
+	  indexed<managed_record_handle> rec
+	    { recHIndex };
+	  h->set_to_parent (*ctxt, *rec, res_mode::resolving);
+	  h->add (*ctxt, *rec, delta, res_mode::resolving);
+	}
+
       template<kind KIND, ARITH_OP OP>
 	inline api_type<kind::BOOL>
 	modify_value (api_type<kind::LONG> hIndex,
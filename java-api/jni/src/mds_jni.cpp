@@ -245,6 +245,12 @@ mds::jni::throwUnknownEx(JNIEnv *env) {
     jex.raise(env);
 }
 
+void
+mds::jni::throwIllegalArgumentEx(JNIEnv *env) {
+  static java_ex jex(env,"java/lang/IllegalArgumentException");
+  jex.raise(env);
+}
+
 void
 mds::jni::stubNotImplemented(JNIEnv *env) {
   static jclass c = find_class(env, "com/hpl/mds/impl/Stub");
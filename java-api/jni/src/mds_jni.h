@@ -73,6 +73,7 @@ namespace mds {
     void throwUnmergeableContextEx(JNIEnv *jEnv);
     void throwUnimplementedEx(JNIEnv *jEnv);
     void throwUnknownEx(JNIEnv *jEnv);
+    void throwIllegalArgumentEx(JNIEnv *jEnv);
     void stubNotImplemented(JNIEnv *jEnv);
     void exception_converter(JNIEnv *jEnv);
 
@@ -316,6 +317,150 @@ namespace mds {
       }
     };
 
+    /*
+     * A pinned context is a heap copy of an iso_context_handle whose address
+     * is held by a Java PinnedContext.  Natives that take one can use the
+     * context directly, without going through the handle store.
+     */
+    inline jlong pin_context(const mds::api::iso_context_handle &ctxt) {
+      return reinterpret_cast<jlong>(new mds::api::iso_context_handle(ctxt));
+    }
+
+    inline const mds::api::iso_context_handle &pinned_context(jlong pinned) {
+      return *reinterpret_cast<const mds::api::iso_context_handle *>(pinned);
+    }
+
+    inline void unpin_context(jlong pinned) {
+      delete reinterpret_cast<mds::api::iso_context_handle *>(pinned);
+    }
+
+    /*
+     * Holds a Java primitive array pinned with GetPrimitiveArrayCritical
+     * for the duration of a bulk copy.  No JNI calls may be made while
+     * one of these is live, and it's released (even on exception)
+     * before exception_handler converts anything into a Java exception.
+     */
+    class critical_array {
+      JNIEnv *jEnv;
+      jarray array;
+      jint mode;
+      void *elts;
+    public:
+      critical_array(JNIEnv *env, jarray a, jint m)
+        : jEnv(env), array(a), mode(m),
+          elts(env->GetPrimitiveArrayCritical(a, nullptr))
+      {}
+      critical_array(const critical_array &) = delete;
+      ~critical_array() {
+        if (elts != nullptr) {
+          jEnv->ReleasePrimitiveArrayCritical(array, elts, mode);
+        }
+      }
+      template <typename T>
+      T *as() const {
+        return static_cast<T *>(elts);
+      }
+      explicit operator bool() const {
+        return elts != nullptr;
+      }
+    };
+
+    /*
+     * Copies between part of a Java primitive array and native memory
+     * with Get/Set<Prim>ArrayRegion.  Unlike critical_array, this
+     * doesn't hold off the GC, so it's what to use around core
+     * operations that may block (writes, which can wait on or help
+     * other tasks).  Callers go through a bounded buffer, a chunk at a
+     * time.
+     */
+    template <typename JT> struct array_region;
+    template <> struct array_region<jboolean> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jboolean *buf) {
+        env->GetBooleanArrayRegion(static_cast<jbooleanArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jboolean *buf) {
+        env->SetBooleanArrayRegion(static_cast<jbooleanArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jbyte> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jbyte *buf) {
+        env->GetByteArrayRegion(static_cast<jbyteArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jbyte *buf) {
+        env->SetByteArrayRegion(static_cast<jbyteArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jchar> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jchar *buf) {
+        env->GetCharArrayRegion(static_cast<jcharArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jchar *buf) {
+        env->SetCharArrayRegion(static_cast<jcharArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jshort> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jshort *buf) {
+        env->GetShortArrayRegion(static_cast<jshortArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jshort *buf) {
+        env->SetShortArrayRegion(static_cast<jshortArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jint> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jint *buf) {
+        env->GetIntArrayRegion(static_cast<jintArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jint *buf) {
+        env->SetIntArrayRegion(static_cast<jintArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jlong> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jlong *buf) {
+        env->GetLongArrayRegion(static_cast<jlongArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jlong *buf) {
+        env->SetLongArrayRegion(static_cast<jlongArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jfloat> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jfloat *buf) {
+        env->GetFloatArrayRegion(static_cast<jfloatArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jfloat *buf) {
+        env->SetFloatArrayRegion(static_cast<jfloatArray>(a), off, len, buf);
+      }
+    };
+    template <> struct array_region<jdouble> {
+      static void get(JNIEnv *env, jarray a, jsize off, jsize len, jdouble *buf) {
+        env->GetDoubleArrayRegion(static_cast<jdoubleArray>(a), off, len, buf);
+      }
+      static void set(JNIEnv *env, jarray a, jsize off, jsize len, const jdouble *buf) {
+        env->SetDoubleArrayRegion(static_cast<jdoubleArray>(a), off, len, buf);
+      }
+    };
+
+    constexpr jsize array_region_chunk = 1024;
+
+    /*
+     * Releases every handle index in a Java long[], as if release()
+     * had been called on an indexed<H> for each.  This is what the
+     * releaseBatch() natives use, so that the proxy reclaimer can give
+     * back a whole drained batch with one JNI call.
+     */
+    template <typename H>
+    inline void release_batch(JNIEnv *jEnv, jlongArray indices) {
+      using hs_type = mds::api::unique_handle_store<typename handle_store_traits<H>::storage_type>;
+      jsize n = jEnv->GetArrayLength(indices);
+      jlong *elts = jEnv->GetLongArrayElements(indices, nullptr);
+      if (elts == nullptr) {
+        return;
+      }
+      for (jsize i = 0; i < n; i++) {
+        hs_type::free(elts[i]);
+      }
+      jEnv->ReleaseLongArrayElements(indices, elts, JNI_ABORT);
+    }
+
   }
 }
 
@@ -30,13 +30,13 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 
-import com.hpl.mds.impl.Stub;
+import com.hpl.mds.impl.UsageImpl;
 import com.hpl.mds.usage.Operation;
 import com.hpl.mds.usage.UsagePlan;
 import com.hpl.mds.usage.UsageScope;
 
 public interface ManagedCollection<M extends ManagedObject> extends ManagedContainer, Collection<M> {
-  public static final Operation<ForManagedCollection> ITERATE = Stub.notImplemented();
+  public static final Operation<ForManagedCollection> ITERATE = new Operation<>("ManagedCollection.ITERATE");
   
   public static interface Type<M extends ManagedObject, C extends ManagedCollection<M>> extends ManagedType<C> {
     public ManagedType<M> eltType();
@@ -50,8 +50,7 @@ public interface ManagedCollection<M extends ManagedObject> extends ManagedConta
   public interface Usage extends UsageOps<ForManagedCollection, Usage> {}
   
   static Usage usage() {
-    // TODO
-    return Stub.notImplemented();
+    return UsageImpl.create(Usage.class);
   }
   
   
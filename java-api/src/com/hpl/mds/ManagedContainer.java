@@ -26,7 +26,7 @@
 
 package com.hpl.mds;
 
-import com.hpl.mds.impl.Stub;
+import com.hpl.mds.impl.UsageImpl;
 import com.hpl.mds.usage.GrowthBound;
 import com.hpl.mds.usage.GrowthRate;
 import com.hpl.mds.usage.Operation;
@@ -36,8 +36,8 @@ import com.hpl.mds.usage.UsagePlan;
 import com.hpl.mds.usage.UsageScope;
 
 public interface ManagedContainer extends ManagedComposite {
-  public static final Operation<ForManagedContainer> CLEAR = Stub.notImplemented();
-  public static final UsageMode<ForManagedContainer> STREAM = Stub.notImplemented();
+  public static final Operation<ForManagedContainer> CLEAR = new Operation<>("ManagedContainer.CLEAR");
+  public static final UsageMode<ForManagedContainer> STREAM = new UsageMode<>("ManagedContainer.STREAM");
   
   public interface ForManagedContainer extends ManagedObject.ForManagedObject {}
   
@@ -66,8 +66,7 @@ public interface ManagedContainer extends ManagedComposite {
   public interface Usage extends UsageOps<ForManagedContainer, Usage> {}
   
   static Usage usage() {
-    // TODO
-    return Stub.notImplemented();
+    return UsageImpl.create(Usage.class);
   }
   
 //Could do statics for each method of UsageOps that simply return usage().foo() as a Usage, but that would have to
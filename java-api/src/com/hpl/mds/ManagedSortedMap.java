@@ -0,0 +1,74 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.hpl.mds.impl.ManagedSkipListMapTypeProxy;
+import com.hpl.mds.naming.Namespace;
+
+/*
+ * A ManagedMap kept in the natural order of its keys, which must be
+ * Comparable (as managed strings and numbers are).  Range views (subMap(),
+ * headMap() and tailMap()) are views of the map itself: iterating over one
+ * reads only the entries in its range, in whatever context it's done, so a
+ * range read in a snapshot is a range of the snapshot.
+ */
+public interface ManagedSortedMap<K extends ManagedObject, V extends ManagedObject>
+  extends ManagedMap<K,V>, SortedMap<K,V> {
+
+  interface Type<K extends ManagedObject, V extends ManagedObject> extends ManagedMap.Type<K,V> {
+    @Override
+    ManagedSortedMap<K,V> create();
+    @Override
+    ManagedSortedMap<K,V> create(ManagedMap.Usage hints);
+    @Override
+    ManagedSortedMap<K,V> create(ManagedContainer.Usage hints);
+    @Override
+    ManagedSortedMap<K,V> lookupName(Namespace ns, CharSequence name);
+  }
+
+  static <K extends ManagedObject, V extends ManagedObject>
+  Type<K,V> typeFor(ManagedType<K> keyType, ManagedType<V> valueType) {
+    return ManagedSkipListMapTypeProxy.forTypes(keyType, valueType);
+  }
+
+  static <K extends ManagedObject, V extends ManagedObject>
+  ManagedSortedMap<K,V> create(ManagedType<K> keyType, ManagedType<V> valueType) {
+    return typeFor(keyType, valueType).create();
+  }
+
+  @Override
+  Type<K,V> type();
+
+  /*
+   * The entries from the greatest key down, e.g., for the top N.
+   */
+  Iterator<Map.Entry<K,V>> descendingIterator();
+}
@@ -0,0 +1,207 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.hpl.mds.impl.IsoContextProxy;
+import com.hpl.mds.impl.Metrics;
+
+/*
+ * A snapshot of the process-wide publish, isolated-call, conflict and task
+ * rerun metrics.  The same numbers are live in JMX as com.hpl.mds:type=MdsStats,
+ * next to the heap figures from MemStats.  All zero if metrics are turned
+ * off (-Dmds.metrics=false).
+ */
+public class MdsStats {
+
+  /**
+   * The JMX view.  Times are in microseconds unless the name says otherwise.
+   */
+  public interface MXBean {
+    long getContextsCreated();
+    long getPublishes();
+    long getPublishFailures();
+    long getPublishesWithoutMerge();
+    double getPublishMeanMicros();
+    double getPublishP50Micros();
+    double getPublishP99Micros();
+    double getPublishMaxMicros();
+    double getContextAgeAtPublishP50Micros();
+    double getContextAgeAtPublishP99Micros();
+    long getConflicts();
+    // these three only with -Dmds.metrics.conflictFields=true
+    long getArrayConflicts();
+    Map<String, Long> getConflictsByField();
+    Map<String, Long> getConflictsByRecordType();
+    long getIsolatedCalls();
+    long getIsolatedCallFailures();
+    double getIsolatedCallP50Micros();
+    double getIsolatedCallP99Micros();
+    double getAttemptsPerCallMean();
+    long getAttemptsPerCallP99();
+    long getAttemptsPerCallMax();
+    double getBackoffMillis();
+    long getReruns();
+    long getTasksRerun();
+    double getTaskRerunP99Micros();
+    long getBytesInHeap();
+    long getBytesInUse();
+    long getProxiesOutstanding();
+    long getProxiesPendingRelease();
+  }
+
+  /*
+   * The counters for a single context.  Only contexts that have published
+   * have any, and only with -Dmds.metrics.perContext=true; otherwise
+   * they're all zero.
+   */
+  public static class ForContext {
+    private final long _publishes;
+    private final long _publishFailures;
+    private final long _conflicts;
+    private final long _publishNanos;
+
+    ForContext(long publishes, long publishFailures, long conflicts, long publishNanos) {
+      _publishes = publishes;
+      _publishFailures = publishFailures;
+      _conflicts = conflicts;
+      _publishNanos = publishNanos;
+    }
+
+    public long publishes() {
+      return _publishes;
+    }
+
+    public long publishFailures() {
+      return _publishFailures;
+    }
+
+    public long conflicts() {
+      return _conflicts;
+    }
+
+    public Duration publishTime() {
+      return Duration.ofNanos(_publishNanos);
+    }
+
+    public String toString() {
+      return String.format("MdsStats.ForContext[%,d publishes (%,d failed), %,d conflicts, %s publishing]",
+                           publishes(), publishFailures(), conflicts(), publishTime());
+    }
+  }
+
+  public static ForContext forContext(IsolationContext ctxt) {
+    long[] c = ((IsoContextProxy) ctxt).metricsCounts();
+    return new ForContext(c[0], c[1], c[2], c[3]);
+  }
+
+  private final MXBean _bean = Metrics.mxBean();
+  private final long _publishes;
+  private final long _publishFailures;
+  private final long _publishesWithoutMerge;
+  private final long _conflicts;
+  private final long _isolatedCalls;
+  private final long _isolatedCallFailures;
+  private final long _tasksRerun;
+  private final double _publishP99Micros;
+  private final double _isolatedCallP99Micros;
+  private final double _attemptsPerCallMean;
+  private final Map<String, Long> _conflictsByField;
+
+  public MdsStats() {
+    _publishes = _bean.getPublishes();
+    _publishFailures = _bean.getPublishFailures();
+    _publishesWithoutMerge = _bean.getPublishesWithoutMerge();
+    _conflicts = _bean.getConflicts();
+    _isolatedCalls = _bean.getIsolatedCalls();
+    _isolatedCallFailures = _bean.getIsolatedCallFailures();
+    _tasksRerun = _bean.getTasksRerun();
+    _publishP99Micros = _bean.getPublishP99Micros();
+    _isolatedCallP99Micros = _bean.getIsolatedCallP99Micros();
+    _attemptsPerCallMean = _bean.getAttemptsPerCallMean();
+    _conflictsByField = _bean.getConflictsByField();
+  }
+
+  public long publishes() {
+    return _publishes;
+  }
+
+  public long publishFailures() {
+    return _publishFailures;
+  }
+
+  /*
+   * Of the publishes, those of isolated calls that had nothing for the
+   * parent, which didn't need a merge.
+   */
+  public long publishesWithoutMerge() {
+    return _publishesWithoutMerge;
+  }
+
+  public long conflicts() {
+    return _conflicts;
+  }
+
+  public Map<String, Long> conflictsByField() {
+    return _conflictsByField;
+  }
+
+  public long isolatedCalls() {
+    return _isolatedCalls;
+  }
+
+  public long isolatedCallFailures() {
+    return _isolatedCallFailures;
+  }
+
+  public double attemptsPerCall() {
+    return _attemptsPerCallMean;
+  }
+
+  public long tasksRerun() {
+    return _tasksRerun;
+  }
+
+  public double publishP99Micros() {
+    return _publishP99Micros;
+  }
+
+  public double isolatedCallP99Micros() {
+    return _isolatedCallP99Micros;
+  }
+
+  public String toString() {
+    return String.format("MdsStats[%,d publishes (%,d failed, p99 %,.1fus), %,d conflicts, "
+                         + "%,d isolated calls (%,d failed, p99 %,.1fus, %.2f attempts each), %,d tasks rerun]",
+                         publishes(), publishFailures(), publishP99Micros(), conflicts(),
+                         isolatedCalls(), isolatedCallFailures(), isolatedCallP99Micros(),
+                         attemptsPerCall(), tasksRerun());
+  }
+
+}
@@ -26,6 +26,8 @@
 
 package com.hpl.mds;
 
+import java.time.Duration;
+
 import com.hpl.mds.impl.MergeReportImpl;
 
 public interface MergeReport {
@@ -37,6 +39,18 @@ public interface MergeReport {
 	void noteSuccess();
 	void noteFailure();
 
+	/** The number of attempts made, if the report counts them. */
+	default int attempts() {
+		return 0;
+	}
+
+	/** The total time spent backing off between attempts. */
+	default Duration backoffTime() {
+		return Duration.ZERO;
+	}
+
+	default void noteBackoff(long nanos) {}
+
 	static MergeReport create() {
 		return MergeReportImpl.create();
 	}
@@ -0,0 +1,81 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds;
+
+import com.hpl.mds.impl.ProxyReclaimer;
+
+/*
+ * A snapshot of how many native handle indices are held by Java proxies
+ * and how far behind the proxy reclaimer is in giving them back.
+ */
+public class ProxyStats {
+
+  private final long _registered;
+  private final long _released;
+  private final long _disowned;
+  private final long _batches;
+  private final long _pendingRelease;
+
+  public ProxyStats() {
+    _released = ProxyReclaimer.released();
+    _disowned = ProxyReclaimer.disowned();
+    _batches = ProxyReclaimer.batches();
+    _pendingRelease = ProxyReclaimer.pendingRelease();
+    // Read last so that outstanding() can't go negative.
+    _registered = ProxyReclaimer.registered();
+  }
+
+  public long registered() {
+    return _registered;
+  }
+
+  public long released() {
+    return _released;
+  }
+
+  public long disowned() {
+    return _disowned;
+  }
+
+  public long batches() {
+    return _batches;
+  }
+
+  public long pendingRelease() {
+    return _pendingRelease;
+  }
+
+  public long outstanding() {
+    return _registered - _released - _disowned;
+  }
+
+  public String toString() {
+    return String.format("ProxyStats[%,d outstanding, %,d pending release, %,d released in %,d batches]",
+                         outstanding(), pendingRelease(), released(), batches());
+  }
+
+}
@@ -29,6 +29,8 @@ package com.hpl.mds;
 import java.time.Duration;
 import java.time.Instant;
 
+import com.hpl.mds.conflicts.ConflictResolver;
+import com.hpl.mds.conflicts.FieldConflict;
 import com.hpl.mds.impl.PubOptionImpl;
 
 public interface PubOption {
@@ -43,4 +45,76 @@ public interface PubOption {
   static PubOption reRunUntil(Instant time) {
     return PubOptionImpl.reRunUntil(time);
   }
+
+  /**
+   * Waits between retries, for a random time up to a limit that starts at
+   * initial and doubles after each failure, but never exceeds max.  Doesn't
+   * itself cause retries; use it alongside one of the reRun options.
+   */
+  static PubOption withBackoff(Duration initial, Duration max) {
+    return PubOptionImpl.withBackoff(initial, max);
+  }
+
+  /**
+   * Reruns up to maxTimes, but fewer the more often attempts using this
+   * option have recently failed (never fewer than once).  Keep the option and
+   * reuse it, as the failure rate is tracked per option.
+   */
+  static PubOption reRunAdaptively(int maxTimes) {
+    return PubOptionImpl.reRunAdaptively(maxTimes);
+  }
+
+  /**
+   * Lets at most maxConcurrent attempts throttled on the given record type
+   * run at once; others wait for a slot before starting.  The first throttle
+   * for a type sets the limit, and asking for a different one later throws
+   * IllegalArgumentException.  A throttled call nested in another on the
+   * same thread runs in its caller's slot.
+   */
+  static PubOption throttle(RecordType<?> type, int maxConcurrent) {
+    return PubOptionImpl.throttle(type, maxConcurrent);
+  }
+
+  /**
+   * Publishes together with other threads publishing at about the same time:
+   * one of them publishes the whole group in a single pass while the others
+   * wait for their results.  Worth using when many short tasks publish
+   * sibling contexts into the same parent.
+   */
+  static PubOption groupCommit() {
+    return PubOptionImpl.groupCommit();
+  }
+
+  /**
+   * For isolated calls that only read: runs the call in a read-only
+   * snapshot of the context, taken when it starts, rather than in a child
+   * to be published.  The call sees a consistent view, is never published,
+   * and so never fails or reruns; writing throws.  Calls that happen not to
+   * write are already published without a merge, but still get a child
+   * that could have been written to.
+   */
+  static PubOption readOnly() {
+    return PubOptionImpl.readOnly();
+  }
+
+  /**
+   * Resolves field conflicts found by a failed publish with the given
+   * resolver and, if that resolves them all, publishes again.  The built-in
+   * resolvers in ConflictResolver are applied natively; any other is called
+   * once per conflict, and must call one of the conflict's resolveTo()
+   * methods (or markResolved()) for it to count as resolved.  A conflict is
+   * only valid during the call.
+   */
+  static PubOption resolveConflicts(ConflictResolver<? super FieldConflict<?,?>> resolver) {
+    return PubOptionImpl.resolveConflicts(null, resolver);
+  }
+
+  /**
+   * As resolveConflicts(resolver), but only for conflicts on the given
+   * field.  A field's own resolver is used in preference to a general one.
+   */
+  static <RT extends ManagedRecord, FT extends ManagedObject>
+  PubOption resolveConflicts(Field<RT,FT> field, ConflictResolver<? super FieldConflict<RT,FT>> resolver) {
+    return PubOptionImpl.resolveConflicts(field, resolver);
+  }
 }
@@ -34,6 +34,7 @@ public interface PubResult {
   IsolationContext targetSnapshotAtMerge();
   IsolationContext lastCommonSnapshot();
   boolean succeeded();
+  int numConflicts();
   int numConflictsResolved();
   int numConflictsRemaining();
 }
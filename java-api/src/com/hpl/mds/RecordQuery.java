@@ -0,0 +1,114 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds;
+
+import java.util.List;
+
+import com.hpl.mds.impl.RecordQueryImpl;
+
+/*
+ * A filtered aggregate over the records in a ManagedArray, ManagedList or
+ * ManagedSet, e.g.,
+ *
+ *   RecordQuery.over(products)
+ *     .where(Product.NBR_SOLD, Compare.GT, 0)
+ *     .top(10, Product.REVENUE);
+ *
+ * The conditions are on numeric fields, and are all met by the records
+ * counted.  Where the records are in managed arrays (arrays, and lists that
+ * aren't linked), the whole query is done by the native layer, a call per
+ * array rather than a call per field read, and only the results come back.
+ * Otherwise, or when run within a task, it walks the records in Java.
+ *
+ * The query reads in the current context.  For a consistent answer while
+ * others are publishing, run it in a snapshot, as by
+ * IsolationContext.inReadOnlySnapshot().
+ */
+public interface RecordQuery<R extends ManagedRecord> {
+
+  enum Compare {
+    LT, LE, EQ, NE, GE, GT
+  }
+
+  /*
+   * The count, sum, minimum and maximum of a numeric field over the
+   * records matched.  Sums of byte, short, int and long fields are longs,
+   * those of float and double fields doubles.  As with
+   * java.util.LongSummaryStatistics, the minimum and maximum of nothing are
+   * the largest and smallest values.
+   */
+  interface Summary {
+    long count();
+    boolean isIntegral();
+    long longSum();
+    long longMin();
+    long longMax();
+    double sum();
+    double min();
+    double max();
+
+    default double average() {
+      return count() == 0 ? 0 : sum() / count();
+    }
+  }
+
+  static <R extends ManagedRecord> RecordQuery<R> over(ManagedArray<R> records) {
+    return RecordQueryImpl.over(records);
+  }
+
+  static <R extends ManagedRecord> RecordQuery<R> over(ManagedList<R> records) {
+    return RecordQueryImpl.over(records);
+  }
+
+  static <R extends ManagedRecord> RecordQuery<R> over(ManagedSet<R> records) {
+    return RecordQueryImpl.over(records);
+  }
+
+  /*
+   * A query over the records this one matches that also meet the
+   * condition.  An integral field compared with a long is compared exactly;
+   * anything else is compared as doubles.
+   */
+  RecordQuery<R> where(Field<R, ? extends ManagedNumber> field, Compare op, long value);
+  RecordQuery<R> where(Field<R, ? extends ManagedNumber> field, Compare op, double value);
+
+  long count();
+
+  Summary summarize(Field<R, ? extends ManagedNumber> field);
+
+  /*
+   * The (at most) n records matched with the largest values of the field,
+   * largest first.
+   */
+  List<R> top(int n, Field<R, ? extends ManagedNumber> field);
+
+  /*
+   * The (at most) n records matched with the smallest values of the field,
+   * smallest first.
+   */
+  List<R> bottom(int n, Field<R, ? extends ManagedNumber> field);
+}
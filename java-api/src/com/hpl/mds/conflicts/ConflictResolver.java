@@ -26,8 +26,52 @@
 
 package com.hpl.mds.conflicts;
 
+import com.hpl.mds.impl.ConflictPolicy;
 
 public interface ConflictResolver<C extends Conflict> {
   void resolve(C conflict);
 
+  /*
+   * The built-in resolvers.  Given to publish() (by way of
+   * PubOption.resolveConflicts()), they are applied natively during the
+   * publish, so a conflict they resolve doesn't cost a rerun.
+   */
+
+  /**
+   * Keeps the value written by the context being published.
+   */
+  static ConflictResolver<FieldConflict<?,?>> lastWriterWins() {
+    return ConflictPolicy.LAST_WRITER_WINS;
+  }
+
+  /**
+   * Keeps the value in the parent, dropping the context's write.
+   */
+  static ConflictResolver<FieldConflict<?,?>> parentWins() {
+    return ConflictPolicy.PARENT_WINS;
+  }
+
+  /**
+   * Adds the context's change since the last common snapshot to the
+   * parent's value.  Numeric fields only.
+   */
+  static ConflictResolver<FieldConflict<?,?>> sum() {
+    return ConflictPolicy.SUM;
+  }
+
+  /**
+   * Keeps the greater of the context's and the parent's values.  Numeric
+   * fields only.
+   */
+  static ConflictResolver<FieldConflict<?,?>> max() {
+    return ConflictPolicy.MAX;
+  }
+
+  /**
+   * Keeps the lesser of the context's and the parent's values.  Numeric
+   * fields only.
+   */
+  static ConflictResolver<FieldConflict<?,?>> min() {
+    return ConflictPolicy.MIN;
+  }
 }
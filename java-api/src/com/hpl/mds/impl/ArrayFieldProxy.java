@@ -39,6 +39,7 @@ import com.hpl.mds.RecordType;
 public abstract class ArrayFieldProxy<RT extends ManagedRecord, ET extends ManagedObject> extends FieldProxy<RT, ManagedArray<ET>> implements ArrayField<RT,ET> {
 
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(ArrayFieldProxy::release);
   
   protected ArrayFieldProxy(long handleIndex, RecordTypeProxy<RT> recType, ManagedStringProxy name) {
     super(handleIndex, recType, name);
@@ -50,6 +51,10 @@ public abstract class ArrayFieldProxy<RT extends ManagedRecord, ET extends Manag
   
   private static native void setToParent(long handle, long ctxtHandle, long recHandle);
   private static native void rollback(long handle, long ctxtHandle, long recHandle);
+
+  static String describe(long handle) {
+    return describe(handle, ArrayFieldProxy::getRecTypeHandle, ArrayFieldProxy::getNameHandle);
+  }
   
       
   public void setToParent(RT rec) {
@@ -65,8 +70,8 @@ public abstract class ArrayFieldProxy<RT extends ManagedRecord, ET extends Manag
 
   
   @Override
-  void releaseHandleIndex(long index) {
-    release(index);
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
   
   @Override
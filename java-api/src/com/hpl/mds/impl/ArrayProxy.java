@@ -136,4 +136,7 @@ public abstract class ArrayProxy<ET extends ManagedObject> extends Proxy impleme
 
 	public abstract Change<ET> createChange(long index);
 
+	// the class of the Changes createChange() returns, for Location
+	abstract Class<?> changeClass();
+
 }
@@ -0,0 +1,406 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import com.hpl.mds.IsolationContext.Use;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+
+/*
+ * Spliterators over index ranges of managed arrays (and of lists that can
+ * be indexed cheaply).  They split by halving
+ * the range and read the elements a chunk at a time: by getRange() for
+ * primitive arrays and by a single native call for record arrays.
+ *
+ * Each one reads in the isolation context that was current when it was
+ * made, and calls the action there, too.  The worker threads of a parallel
+ * stream don't inherit the caller's context (they're not the caller's
+ * children), so without this they'd read the global one.
+ */
+public final class ArraySpliterators {
+
+  static final int CHUNK_SIZE = 256;
+  static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+  private ArraySpliterators() {
+  }
+
+  /*
+   * Each of these fills dst[0, len) with the elements from index from on.
+   */
+  @FunctionalInterface
+  public interface IntRange {
+    void read(long from, int[] dst, int len);
+  }
+
+  @FunctionalInterface
+  public interface LongRange {
+    void read(long from, long[] dst, int len);
+  }
+
+  @FunctionalInterface
+  public interface DoubleRange {
+    void read(long from, double[] dst, int len);
+  }
+
+  @FunctionalInterface
+  public interface ObjectRange {
+    void read(long from, Object[] dst, int len);
+  }
+
+  public static Spliterator.OfInt ofInt(long from, long to, IntRange reader) {
+    return new IntSpliterator(IsoContextProxy.current(), from, to, reader);
+  }
+
+  public static Spliterator.OfLong ofLong(long from, long to, LongRange reader) {
+    return new LongSpliterator(IsoContextProxy.current(), from, to, reader);
+  }
+
+  public static Spliterator.OfDouble ofDouble(long from, long to, DoubleRange reader) {
+    return new DoubleSpliterator(IsoContextProxy.current(), from, to, reader);
+  }
+
+  public static <T> Spliterator<T> of(long from, long to, ObjectRange reader) {
+    return new ObjectSpliterator<>(IsoContextProxy.current(), from, to, reader);
+  }
+
+  public static <T extends ManagedObject> Spliterator<T> of(ManagedArray<T> array, long from, long to) {
+    if (from < 0 || from > to || to > array.longSize()) {
+      throw new IndexOutOfBoundsException(String.format("[%d, %d) not in [0, %d)", from, to, array.longSize()));
+    }
+    ObjectRange reader;
+    if (array instanceof RecordArrayProxy) {
+      RecordArrayProxy<?> records = (RecordArrayProxy<?>)array;
+      reader = (start, dst, len) -> records.getRange(start, dst, 0, len);
+    } else {
+      reader = (start, dst, len) -> {
+        for (int i = 0; i < len; i++) {
+          dst[i] = array.get(start + i);
+        }
+      };
+    }
+    return of(from, to, reader);
+  }
+
+  /*
+   * What's common to them all.  The buffer holds the elements before next_
+   * not yet handed out.  Only the unbuffered part of the range is split, so
+   * a spliterator that's started reading doesn't split until it's used up
+   * its buffer.
+   */
+  private abstract static class Base {
+    final IsoContextProxy ctxt_;
+    long next_;
+    final long fence_;
+    int pos_;
+    int count_;
+
+    Base(IsoContextProxy ctxt, long from, long to) {
+      ctxt_ = ctxt;
+      next_ = from;
+      fence_ = to;
+    }
+
+    /*
+     * Null, which try-with-resources allows, if we're already there.
+     */
+    final Use enter() {
+      return IsoContextProxy.current() == ctxt_ ? null : ctxt_.use();
+    }
+
+    /*
+     * Reads the next chunk, if there is one.
+     */
+    final boolean refill() {
+      if (next_ >= fence_) {
+        return false;
+      }
+      int len = (int)Math.min(CHUNK_SIZE, fence_ - next_);
+      fill(next_, len);
+      next_ += len;
+      pos_ = 0;
+      count_ = len;
+      return true;
+    }
+
+    abstract void fill(long from, int len);
+
+    /*
+     * The midpoint at which to split off [next_, mid), or -1.
+     */
+    final long splitPoint() {
+      if (pos_ < count_) {
+        return -1;
+      }
+      long mid = (next_ + fence_) >>> 1;
+      return mid - next_ < CHUNK_SIZE ? -1 : mid;
+    }
+
+    public long estimateSize() {
+      return (count_ - pos_) + (fence_ - next_);
+    }
+  }
+
+  private static final class IntSpliterator extends Base implements Spliterator.OfInt {
+    private final IntRange reader_;
+    private int[] buffer_;
+
+    IntSpliterator(IsoContextProxy ctxt, long from, long to, IntRange reader) {
+      super(ctxt, from, to);
+      reader_ = reader;
+    }
+
+    @Override
+    void fill(long from, int len) {
+      if (buffer_ == null) {
+        buffer_ = new int[CHUNK_SIZE];
+      }
+      reader_.read(from, buffer_, len);
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+      try (Use u = enter()) {
+        if (pos_ == count_ && !refill()) {
+          return false;
+        }
+        action.accept(buffer_[pos_++]);
+        return true;
+      }
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+      try (Use u = enter()) {
+        do {
+          while (pos_ < count_) {
+            action.accept(buffer_[pos_++]);
+          }
+        } while (refill());
+      }
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+      long mid = splitPoint();
+      if (mid < 0) {
+        return null;
+      }
+      Spliterator.OfInt prefix = new IntSpliterator(ctxt_, next_, mid, reader_);
+      next_ = mid;
+      return prefix;
+    }
+
+    @Override
+    public int characteristics() {
+      return CHARACTERISTICS | NONNULL;
+    }
+  }
+
+  private static final class LongSpliterator extends Base implements Spliterator.OfLong {
+    private final LongRange reader_;
+    private long[] buffer_;
+
+    LongSpliterator(IsoContextProxy ctxt, long from, long to, LongRange reader) {
+      super(ctxt, from, to);
+      reader_ = reader;
+    }
+
+    @Override
+    void fill(long from, int len) {
+      if (buffer_ == null) {
+        buffer_ = new long[CHUNK_SIZE];
+      }
+      reader_.read(from, buffer_, len);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      try (Use u = enter()) {
+        if (pos_ == count_ && !refill()) {
+          return false;
+        }
+        action.accept(buffer_[pos_++]);
+        return true;
+      }
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      try (Use u = enter()) {
+        do {
+          while (pos_ < count_) {
+            action.accept(buffer_[pos_++]);
+          }
+        } while (refill());
+      }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+      long mid = splitPoint();
+      if (mid < 0) {
+        return null;
+      }
+      Spliterator.OfLong prefix = new LongSpliterator(ctxt_, next_, mid, reader_);
+      next_ = mid;
+      return prefix;
+    }
+
+    @Override
+    public int characteristics() {
+      return CHARACTERISTICS | NONNULL;
+    }
+  }
+
+  private static final class DoubleSpliterator extends Base implements Spliterator.OfDouble {
+    private final DoubleRange reader_;
+    private double[] buffer_;
+
+    DoubleSpliterator(IsoContextProxy ctxt, long from, long to, DoubleRange reader) {
+      super(ctxt, from, to);
+      reader_ = reader;
+    }
+
+    @Override
+    void fill(long from, int len) {
+      if (buffer_ == null) {
+        buffer_ = new double[CHUNK_SIZE];
+      }
+      reader_.read(from, buffer_, len);
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      try (Use u = enter()) {
+        if (pos_ == count_ && !refill()) {
+          return false;
+        }
+        action.accept(buffer_[pos_++]);
+        return true;
+      }
+    }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      try (Use u = enter()) {
+        do {
+          while (pos_ < count_) {
+            action.accept(buffer_[pos_++]);
+          }
+        } while (refill());
+      }
+    }
+
+    @Override
+    public Spliterator.OfDouble trySplit() {
+      long mid = splitPoint();
+      if (mid < 0) {
+        return null;
+      }
+      Spliterator.OfDouble prefix = new DoubleSpliterator(ctxt_, next_, mid, reader_);
+      next_ = mid;
+      return prefix;
+    }
+
+    @Override
+    public int characteristics() {
+      return CHARACTERISTICS | NONNULL;
+    }
+  }
+
+  private static final class ObjectSpliterator<T> extends Base implements Spliterator<T> {
+    private final ObjectRange reader_;
+    private Object[] buffer_;
+
+    ObjectSpliterator(IsoContextProxy ctxt, long from, long to, ObjectRange reader) {
+      super(ctxt, from, to);
+      reader_ = reader;
+    }
+
+    @Override
+    void fill(long from, int len) {
+      if (buffer_ == null) {
+        buffer_ = new Object[CHUNK_SIZE];
+      }
+      reader_.read(from, buffer_, len);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T take() {
+      T elt = (T)buffer_[pos_];
+      // so that the buffer doesn't keep proxies alive
+      buffer_[pos_++] = null;
+      return elt;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      try (Use u = enter()) {
+        if (pos_ == count_ && !refill()) {
+          return false;
+        }
+        action.accept(take());
+        return true;
+      }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      try (Use u = enter()) {
+        do {
+          while (pos_ < count_) {
+            action.accept(take());
+          }
+        } while (refill());
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      long mid = splitPoint();
+      if (mid < 0) {
+        return null;
+      }
+      Spliterator<T> prefix = new ObjectSpliterator<>(ctxt_, next_, mid, reader_);
+      next_ = mid;
+      return prefix;
+    }
+
+    @Override
+    public int characteristics() {
+      return CHARACTERISTICS;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.hpl.mds.MergeReport;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.exceptions.FailedTransactionException;
+import com.hpl.mds.impl.PubOptionImpl.KeepGoing;
+import com.hpl.mds.impl.PubOptionImpl.ReRunOption;
+
+/*
+ * callIsolated() as a chain of attempts handed to an executor, completing
+ * a future rather than returning.  Each attempt runs, in a fresh child of
+ * the parent context, as a task of its own, and between attempts nothing
+ * holds a thread: backoffs and waits for a throttle's permit are timed by
+ * a single shared scheduler thread, which only hands the next attempt back
+ * to the executor.
+ */
+final class AsyncIsolatedCall<R> {
+  // how long to wait before asking a throttle again
+  private static final long ADMISSION_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private static final ScheduledExecutorService scheduler_ = createScheduler();
+
+  private final IsoContextProxy parent_;
+  private final Supplier<? extends R> func_;
+  private final MergeReport mr_;
+  private final Collection<? extends PubOption> options_;
+  private final boolean readOnly_;
+  private final Executor exec_;
+  private final List<ReRunOption.Control> controls_;
+  private final CompletableFuture<R> future_ = new CompletableFuture<>();
+  private final Runnable attempt_;
+  private final long start_ = Metrics.ENABLED ? System.nanoTime() : 0;
+  private int attempts_;
+  private long backoff_;
+
+  private static ScheduledExecutorService createScheduler() {
+    ScheduledThreadPoolExecutor s = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "mds-async-retry");
+        t.setDaemon(true);
+        return t;
+      });
+    s.setRemoveOnCancelPolicy(true);
+    return s;
+  }
+
+  private AsyncIsolatedCall(IsoContextProxy parent, Supplier<? extends R> func, MergeReport mr,
+                            Executor exec, Collection<? extends PubOption> options) {
+    parent_ = parent;
+    func_ = func;
+    mr_ = mr;
+    options_ = options;
+    readOnly_ = options.contains(PubOptionImpl.READ_ONLY);
+    exec_ = exec;
+    controls_ = new ArrayList<>(options.size());
+    for (PubOption option : options) {
+      if (option instanceof ReRunOption) {
+        controls_.add(((ReRunOption)option).start());
+      }
+    }
+    // bound once, so every attempt runs in the task current at the call
+    attempt_ = ContextExecutor.bind(parent, this::attempt);
+  }
+
+  static <R> CompletableFuture<R> start(IsoContextProxy parent, Supplier<? extends R> func, MergeReport mr,
+                                        Executor exec, Collection<? extends PubOption> options) {
+    if (mr != null) {
+      mr.reset();
+    }
+    AsyncIsolatedCall<R> call = new AsyncIsolatedCall<>(parent, func, mr, exec, options);
+    call.submit();
+    return call.future_;
+  }
+
+  private void submit() {
+    try {
+      exec_.execute(attempt_);
+    } catch (RejectedExecutionException e) {
+      future_.completeExceptionally(e);
+    }
+  }
+
+  private void submitAfter(long nanos) {
+    scheduler_.schedule(this::submit, nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private boolean admitted() {
+    for (int i = 0; i < controls_.size(); i++) {
+      if (!controls_.get(i).tryBeforeAttempt()) {
+        for (int j = 0; j < i; j++) {
+          controls_.get(j).abandonAttempt();
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void attempt() {
+    if (future_.isDone()) {
+      // cancelled by the caller
+      return;
+    }
+    if (!admitted()) {
+      submitAfter(ADMISSION_RETRY_NANOS);
+      return;
+    }
+    attempts_++;
+    if (mr_ != null) {
+      mr_.beforeRun();
+    }
+    boolean succeeded = false;
+    R val = null;
+    try {
+      IsoContextProxy child = parent_.isolatedChild(readOnly_);
+      val = child.call(func_);
+      succeeded = readOnly_ || child.publishIsolated(options_);
+    } catch (RuntimeException | Error e) {
+      finish(false);
+      future_.completeExceptionally(e);
+      return;
+    } finally {
+      for (ReRunOption.Control c : controls_) {
+        c.afterAttempt(succeeded);
+      }
+    }
+    if (succeeded) {
+      finish(true);
+      future_.complete(val);
+      return;
+    }
+    KeepGoing cont = controls_.stream()
+      .map(ReRunOption.Control::tryAgain)
+      .reduce(KeepGoing.OKAY, KeepGoing::havingSeen);
+    if (cont != KeepGoing.YES) {
+      finish(false);
+      future_.completeExceptionally(new FailedTransactionException());
+      return;
+    }
+    long nanos = 0;
+    for (ReRunOption.Control c : controls_) {
+      nanos = Math.max(nanos, c.backoffNanos());
+    }
+    if (nanos <= 0) {
+      submit();
+    } else {
+      backoff_ += nanos;
+      if (mr_ != null) {
+        mr_.noteBackoff(nanos);
+      }
+      submitAfter(nanos);
+    }
+  }
+
+  private void finish(boolean succeeded) {
+    if (mr_ != null) {
+      if (succeeded) {
+        mr_.noteSuccess();
+      } else {
+        mr_.noteFailure();
+      }
+    }
+    if (Metrics.ENABLED) {
+      Metrics.global().noteIsolatedCall(succeeded, attempts_, System.nanoTime() - start_, backoff_);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import com.hpl.mds.conflicts.ConflictResolver;
+import com.hpl.mds.conflicts.FieldConflict;
+
+/*
+ * The resolvers that publish() can apply natively, without calling back
+ * into Java for each conflict.  The order must match resolution_policy in
+ * pr_merge_result.h: the ordinal is what add_conflict() is told to do.
+ * NONE and CUSTOM aren't handed out; they're the answers for a field with
+ * no resolver and one whose resolver is a Java lambda.
+ */
+public enum ConflictPolicy implements ConflictResolver<FieldConflict<?,?>> {
+  NONE,
+  LAST_WRITER_WINS {
+    @Override
+    public void resolve(FieldConflict<?,?> conflict) {
+      conflict.resolveToSource();
+    }
+  },
+  PARENT_WINS {
+    @Override
+    public void resolve(FieldConflict<?,?> conflict) {
+      conflict.resolveToTarget();
+    }
+  },
+  SUM,
+  MAX,
+  MIN,
+  CUSTOM;
+
+  boolean numericOnly() {
+    return this == SUM || this == MAX || this == MIN;
+  }
+
+  /*
+   * SUM, MAX and MIN do their arithmetic on the unboxed values in
+   * pr_merge_result, so only make sense given to publish().
+   */
+  @Override
+  public void resolve(FieldConflict<?,?> conflict) {
+    throw new UnsupportedOperationException(this+" is only applied by publish()");
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.IsolationContext.Use;
+import com.hpl.mds.task.Task;
+
+/*
+ * An Executor that runs what it's given in a fixed isolation context, and
+ * as part of whatever task was current on the thread that gave it.
+ *
+ * Both are held in InheritableThreadLocals, which only help threads the
+ * submitter creates.  A pooled thread was created by someone else, so it
+ * has whatever context and task its last user left (or the global context
+ * and no task).  Each command sets both for its run and puts back what was
+ * there afterward, so the pool's threads aren't left changed.
+ */
+public class ContextExecutor implements Executor {
+  protected final IsolationContext ctxt_;
+  private final Executor exec_;
+
+  public ContextExecutor(IsolationContext ctxt, Executor exec) {
+    ctxt_ = ctxt;
+    exec_ = exec;
+  }
+
+  /*
+   * Captures the current task now, to be set when the result is run.
+   */
+  static Runnable bind(IsolationContext ctxt, Runnable command) {
+    Task task = Task.current();
+    return () -> {
+      Task prior = Task.current();
+      Task.setCurrent(task);
+      try (Use use = ctxt.use()) {
+        command.run();
+      } finally {
+        Task.setCurrent(prior);
+      }
+    };
+  }
+
+  static <T> Callable<T> bind(IsolationContext ctxt, Callable<T> callable) {
+    Task task = Task.current();
+    return () -> {
+      Task prior = Task.current();
+      Task.setCurrent(task);
+      try (Use use = ctxt.use()) {
+        return callable.call();
+      } finally {
+        Task.setCurrent(prior);
+      }
+    };
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    exec_.execute(bind(ctxt_, command));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s in %s", exec_, ctxt_);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.hpl.mds.IsolationContext;
+
+/*
+ * A ContextExecutor for an ExecutorService.  Everything submitted is bound
+ * as execute() binds it; the rest is the underlying service's.
+ */
+public class ContextExecutorService extends ContextExecutor implements ExecutorService {
+  private final ExecutorService service_;
+
+  public ContextExecutorService(IsolationContext ctxt, ExecutorService service) {
+    super(ctxt, service);
+    service_ = service;
+  }
+
+  private <T> List<Callable<T>> bindAll(Collection<? extends Callable<T>> tasks) {
+    List<Callable<T>> bound = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      bound.add(bind(ctxt_, task));
+    }
+    return bound;
+  }
+
+  @Override
+  public <T> Future<T> submit(Callable<T> task) {
+    return service_.submit(bind(ctxt_, task));
+  }
+
+  @Override
+  public <T> Future<T> submit(Runnable task, T result) {
+    return service_.submit(bind(ctxt_, task), result);
+  }
+
+  @Override
+  public Future<?> submit(Runnable task) {
+    return service_.submit(bind(ctxt_, task));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+    return service_.invokeAll(bindAll(tasks));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+    throws InterruptedException {
+    return service_.invokeAll(bindAll(tasks), timeout, unit);
+  }
+
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+    return service_.invokeAny(bindAll(tasks));
+  }
+
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+    throws InterruptedException, ExecutionException, TimeoutException {
+    return service_.invokeAny(bindAll(tasks), timeout, unit);
+  }
+
+  @Override
+  public void shutdown() {
+    service_.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return service_.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return service_.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return service_.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return service_.awaitTermination(timeout, unit);
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hpl.mds.ManagedRecord;
+
+/*
+ * The increments made to commutative counter fields in one isolation
+ * context that haven't been published yet.
+ *
+ * Made through the heap, an increment reads the counter and writes it,
+ * so two contexts incrementing the same counter conflict when the second
+ * publishes, and whole transactions rerun over what is really just an
+ * addition.  In a context that has a parent to publish into, inc() and
+ * dec() on a commutative field are kept here instead, and never touch the
+ * field in the context.  When the context publishes successfully, they
+ * are added into the parent's deltas, or, at the top (where there is
+ * nobody to conflict with), to the field itself, so the counter ends up
+ * with every increment from every context that published, in whatever
+ * order.  Reads in the context see the field plus the deltas pending in it
+ * and its ancestors.
+ *
+ * Any other use of the counter (a get(), a set(), mult()) doesn't commute
+ * with the deltas: a get() that decides whether to dec() has to conflict
+ * with another that decided the same way.  So it first flushes what's
+ * pending for the counter, in its ancestors and then in the context, into
+ * the field, and from then on the context's inc() and dec() on it are
+ * made in the heap, as for any other field.
+ *
+ * A parent that doesn't keep deltas of its own (the global context, say)
+ * gets them through the merge: just before publishing, the context adds
+ * them to the fields in itself (flushIn()), so they're published with
+ * everything else it wrote or not at all.  If some other context has
+ * changed such a counter meanwhile, the merge finds a conflict, and if
+ * that's all it finds, rebaseIn() sets each counter to the parent's value
+ * plus the delta, resolving the conflicts, and the publish is tried again
+ * without rerunning anything.
+ */
+final class CounterDeltas {
+  /*
+   * What a numeric field proxy provides to have its deltas kept here.
+   */
+  interface Counter {
+    String qualifiedName();
+    boolean isIntegral();
+    void addInto(IsoContextProxy ctxt, ManagedRecord rec, long delta, double fdelta);
+    void rebaseIn(IsoContextProxy ctxt, ManagedRecord rec, long delta, double fdelta);
+  }
+
+  // fields declared commutative, by "RecordType.field", so that every
+  // proxy for the field agrees
+  private static final Set<String> declared_ = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private static final AtomicInteger version_ = new AtomicInteger();
+
+  static void declare(Counter field) {
+    if (declared_.add(field.qualifiedName())) {
+      version_.incrementAndGet();
+    }
+  }
+
+  static boolean isDeclared(Counter field) {
+    return declared_.contains(field.qualifiedName());
+  }
+
+  /*
+   * Bumped on every declaration, so that a proxy can cache whether its
+   * field is commutative and only look again after a change.
+   */
+  static int version() {
+    return version_.get();
+  }
+
+  private static final class Key {
+    final String field;
+    final ManagedRecord rec;
+
+    Key(String field, ManagedRecord rec) {
+      this.field = field;
+      this.rec = rec;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key)o;
+      return field.equals(k.field) && rec.equals(k.rec);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(field, rec);
+    }
+  }
+
+  private static final class Delta {
+    final Counter field;
+    final ManagedRecord rec;
+    long sum;
+    double fsum;
+    // once taken out of deltas_, under the lock, so that nothing is added
+    // to it afterward and lost
+    boolean removed;
+
+    Delta(Counter field, ManagedRecord rec) {
+      this.field = field;
+      this.rec = rec;
+    }
+  }
+
+  private final Map<Key, Delta> deltas_ = new ConcurrentHashMap<>();
+
+  private Delta delta(Counter field, ManagedRecord rec) {
+    return deltas_.computeIfAbsent(new Key(field.qualifiedName(), rec), k -> new Delta(field, rec));
+  }
+
+  /*
+   * Call with d locked.
+   */
+  private void remove(Delta d) {
+    d.removed = true;
+    deltas_.remove(new Key(d.field.qualifiedName(), d.rec), d);
+  }
+
+  /*
+   * Adds by, returning what was pending here before.
+   */
+  long add(Counter field, ManagedRecord rec, long by) {
+    for (;;) {
+      Delta d = delta(field, rec);
+      synchronized (d) {
+        if (!d.removed) {
+          long prior = d.sum;
+          d.sum = prior + by;
+          return prior;
+        }
+      }
+    }
+  }
+
+  double add(Counter field, ManagedRecord rec, double by) {
+    for (;;) {
+      Delta d = delta(field, rec);
+      synchronized (d) {
+        if (!d.removed) {
+          double prior = d.fsum;
+          d.fsum = prior + by;
+          return prior;
+        }
+      }
+    }
+  }
+
+  long pending(Counter field, ManagedRecord rec) {
+    Delta d = deltas_.get(new Key(field.qualifiedName(), rec));
+    if (d == null) {
+      return 0;
+    }
+    synchronized (d) {
+      return d.removed ? 0 : d.sum;
+    }
+  }
+
+  double pendingDouble(Counter field, ManagedRecord rec) {
+    Delta d = deltas_.get(new Key(field.qualifiedName(), rec));
+    if (d == null) {
+      return 0;
+    }
+    synchronized (d) {
+      return d.removed ? 0 : d.fsum;
+    }
+  }
+
+  /*
+   * A set() overrides whatever was pending.
+   */
+  void discard(Counter field, ManagedRecord rec) {
+    Delta d = deltas_.get(new Key(field.qualifiedName(), rec));
+    if (d != null) {
+      synchronized (d) {
+        remove(d);
+      }
+    }
+  }
+
+  /*
+   * Adds what's pending to the field in ctxt and removes it, for an
+   * operation, like mult(), that has to see it first.  Returns whether
+   * there was anything to add.  Another thread flushing the same delta
+   * waits until it's in the field.
+   */
+  boolean flush(Counter field, ManagedRecord rec, IsoContextProxy ctxt) {
+    Delta d = deltas_.get(new Key(field.qualifiedName(), rec));
+    if (d == null) {
+      return false;
+    }
+    synchronized (d) {
+      if (d.removed) {
+        return false;
+      }
+      boolean any = d.sum != 0 || d.fsum != 0;
+      if (any) {
+        field.addInto(ctxt, rec, d.sum, d.fsum);
+      }
+      remove(d);
+      return any;
+    }
+  }
+
+  void addTo(CounterDeltas parent) {
+    for (Delta d : deltas_.values()) {
+      synchronized (d) {
+        if (d.field.isIntegral()) {
+          parent.add(d.field, d.rec, d.sum);
+        } else {
+          parent.add(d.field, d.rec, d.fsum);
+        }
+      }
+    }
+  }
+
+  /*
+   * Adds the deltas to the fields in ctxt, moving each into flushed once
+   * it's there, so that if one throws, the rest are still pending and
+   * nothing is counted twice.
+   */
+  void flushIn(IsoContextProxy ctxt, CounterDeltas flushed) {
+    for (Iterator<Delta> it = deltas_.values().iterator(); it.hasNext(); ) {
+      Delta d = it.next();
+      synchronized (d) {
+        if (d.sum != 0 || d.fsum != 0) {
+          d.field.addInto(ctxt, d.rec, d.sum, d.fsum);
+          if (d.field.isIntegral()) {
+            flushed.add(d.field, d.rec, d.sum);
+          } else {
+            flushed.add(d.field, d.rec, d.fsum);
+          }
+        }
+        d.removed = true;
+        it.remove();
+      }
+    }
+  }
+
+  boolean hasField(String qualifiedName) {
+    for (Key k : deltas_.keySet()) {
+      if (k.field.equals(qualifiedName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * Once a publish has found conflicts only on the counters these were
+   * flushed into, sets each to the parent's value plus the delta.
+   */
+  void rebaseIn(IsoContextProxy ctxt) {
+    for (Delta d : deltas_.values()) {
+      synchronized (d) {
+        d.field.rebaseIn(ctxt, d.rec, d.sum, d.fsum);
+      }
+    }
+  }
+}
@@ -26,23 +26,70 @@
 
 package com.hpl.mds.impl;
 
+import com.hpl.mds.Field;
 import com.hpl.mds.ManagedObject;
 import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.conflicts.ConflictValSource;
 import com.hpl.mds.conflicts.FieldConflict;
 
-public abstract class FieldConflictImpl<RT extends ManagedRecord, FT extends ManagedObject> extends ConflictImpl implements FieldConflict<RT, FT>
+/*
+ * What a custom ConflictResolver is given.  It only lives for the call:
+ * pr_merge_result asks whether it was resolved when the resolver returns,
+ * and if so marks the field resolved to its value in the source context.
+ * Values are read and written in the contexts they belong to.
+ */
+public class FieldConflictImpl<RT extends ManagedRecord, FT extends ManagedObject> extends ConflictImpl implements FieldConflict<RT, FT>
 {
+  protected final Field<RT, FT> field_;
   protected final RT record_;
   
-  public FieldConflictImpl(PubResultProxy result, RT record) {
+  public FieldConflictImpl(PubResultProxy result, Field<RT, FT> field, RT record) {
     super(result);
+    field_ = field;
     record_ = record;
   }
   
+  @Override
+  public Field<RT, FT> field() {
+    return field_;
+  }
   
   @Override
   public RT record() {
     return record_;
   }
 
+  @Override
+  public FT valueIn(ConflictValSource valSource) {
+    return inResult_.contextFor(valSource).call(() -> field_.peek(record_));
+  }
+
+  @Override
+  public void setTo(FT val) {
+    inResult_.sourceContext().call(() -> field_.set(record_, val));
+  }
+
+  @Override
+  public void setTo(ConflictValSource valSource) {
+    if (valSource != ConflictValSource.SOURCE) {
+      setTo(valueIn(valSource));
+    }
+  }
+
+  @Override
+  public void resolveTo(FT val) {
+    setTo(val);
+    markResolved();
+  }
+
+  @Override
+  public void resolveTo(ConflictValSource valSource) {
+    setTo(valSource);
+    markResolved();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("conflict on %s.%s", field_.recordType().name(), field_.name());
+  }
 }
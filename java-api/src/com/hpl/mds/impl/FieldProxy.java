@@ -27,6 +27,7 @@
 package com.hpl.mds.impl;
 
 import java.util.Objects;
+import java.util.function.LongUnaryOperator;
 
 import com.hpl.mds.Field;
 import com.hpl.mds.Holder;
@@ -56,6 +57,16 @@ public abstract class FieldProxy<RT extends ManagedRecord, FT extends ManagedObj
 
   abstract public void setToParent(RT rec);
 
+  /*
+   * RecordType.field, for naming a conflicting field in Metrics.  Each
+   * kind of field keeps its handles in its own store, so the subclass
+   * passes its natives for getting at the parts.
+   */
+  static String describe(long handle, LongUnaryOperator recTypeHandle, LongUnaryOperator nameHandle) {
+    return RecordTypeProxy.fromHandle(recTypeHandle.applyAsLong(handle)).name()
+        + "." + ManagedStringProxy.fromHandle(nameHandle.applyAsLong(handle));
+  }
+
 	
   static class Change<RT extends ManagedRecord, FT extends ManagedObject>
     extends ChangeBase {
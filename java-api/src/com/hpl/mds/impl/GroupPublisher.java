@@ -0,0 +1,141 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Batches publishes from concurrent threads into the same parent; each
+ * parent has its own (IsoContextProxy.childPublisher()).  Each publisher
+ * queues its context; whichever finds no leader becomes one, drains what's
+ * queued and publishes it all with one call to
+ * IsoContextProxy.tryPublishAll(), while the others park until their
+ * results are filled in.  Nobody waits to gather a batch: a batch is
+ * whatever queued up while the previous one was being published, so a
+ * lone publisher pays only the queueing.  If one context's publish throws,
+ * only its publisher sees the exception.
+ */
+final class GroupPublisher {
+  static final int MAX_BATCH = 64;
+  // parked followers also wake on their own, in case the leader stepped
+  // down just as they queued
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  private final ConcurrentLinkedQueue<Pending> queue_ = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean leading_ = new AtomicBoolean();
+
+  private static final class Pending {
+    final IsoContextProxy ctxt;
+    final PubOptionImpl.Resolvers resolvers;
+    final Thread waiter = Thread.currentThread();
+    volatile PubResultProxy result;
+    volatile Throwable error;
+
+    Pending(IsoContextProxy ctxt, PubOptionImpl.Resolvers resolvers) {
+      this.ctxt = ctxt;
+      this.resolvers = resolvers;
+    }
+
+    boolean done() {
+      return result != null || error != null;
+    }
+  }
+
+  PubResultProxy publish(IsoContextProxy ctxt, PubOptionImpl.Resolvers resolvers) {
+    Pending p = new Pending(ctxt, resolvers);
+    queue_.add(p);
+    while (!p.done()) {
+      if (leading_.compareAndSet(false, true)) {
+        try {
+          lead();
+        } finally {
+          leading_.set(false);
+          // hand off to someone still waiting
+          Pending next = queue_.peek();
+          if (next != null) {
+            LockSupport.unpark(next.waiter);
+          }
+        }
+      } else {
+        LockSupport.parkNanos(p, PARK_NANOS);
+      }
+    }
+    if (p.error != null) {
+      throw IsoContextProxy.unchecked(p.error);
+    }
+    return p.result;
+  }
+
+  private void lead() {
+    List<Pending> batch = new ArrayList<>();
+    Pending p;
+    while (batch.size() < MAX_BATCH && (p = queue_.poll()) != null) {
+      batch.add(p);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<IsoContextProxy> ctxts = new ArrayList<>(batch.size());
+    List<PubOptionImpl.Resolvers> resolvers = new ArrayList<>(batch.size());
+    for (Pending each : batch) {
+      ctxts.add(each.ctxt);
+      resolvers.add(each.resolvers);
+    }
+    Throwable[] errors = new Throwable[batch.size()];
+    try {
+      List<PubResultProxy> results = IsoContextProxy.tryPublishAll(ctxts, resolvers, errors);
+      for (int i = 0; i < batch.size(); i++) {
+        if (errors[i] != null) {
+          batch.get(i).error = errors[i];
+        } else {
+          batch.get(i).result = results.get(i);
+        }
+      }
+    } catch (Throwable t) {
+      // not any one context's doing, so everyone's; an Error too, or the
+      // followers would wait forever
+      for (Pending each : batch) {
+        if (!each.done()) {
+          each.error = t;
+        }
+      }
+      throw t;
+    } finally {
+      Thread self = Thread.currentThread();
+      for (Pending each : batch) {
+        if (each.waiter != self) {
+          LockSupport.unpark(each.waiter);
+        }
+      }
+    }
+  }
+}
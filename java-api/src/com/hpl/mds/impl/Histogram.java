@@ -0,0 +1,147 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A concurrent histogram of non-negative longs (usually nanoseconds), with
+ * log-linear buckets in the style of HdrHistogram: each power of two is split
+ * into SUB_BUCKETS equal buckets, so any recorded value is known to within
+ * 1/SUB_BUCKETS of itself whatever its size.  Buckets are LongAdders, so
+ * recording from many threads doesn't contend.
+ */
+public final class Histogram {
+  private static final int SUB_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int N_BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  private final LongAdder[] counts = new LongAdder[N_BUCKETS];
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  public Histogram() {
+    for (int i = 0; i < N_BUCKETS; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  static int bucketOf(long v) {
+    if (v < SUB_BUCKETS) {
+      return v < 0 ? 0 : (int)v;
+    }
+    int exp = 63 - Long.numberOfLeadingZeros(v);
+    int sub = (int)(v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  // the smallest value that lands in the bucket
+  static long lowestIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    return (SUB_BUCKETS | sub) << (exp - SUB_BITS);
+  }
+
+  // the largest value that lands in the bucket
+  static long highestIn(int bucket) {
+    return bucket + 1 < N_BUCKETS ? lowestIn(bucket + 1) - 1 : Long.MAX_VALUE;
+  }
+
+  public void record(long v) {
+    counts[bucketOf(v)].increment();
+    sum.add(Math.max(v, 0));
+    max.accumulate(v);
+  }
+
+  public Snapshot snapshot() {
+    long[] c = new long[N_BUCKETS];
+    for (int i = 0; i < N_BUCKETS; i++) {
+      c[i] = counts[i].sum();
+    }
+    return new Snapshot(c, sum.sum(), max.get());
+  }
+
+  /*
+   * The counts at one moment.  Percentiles are the top of the bucket they
+   * fall in, so they overstate by less than 1/SUB_BUCKETS; the max is exact.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    Snapshot(long[] counts, long sum, long max) {
+      long n = 0;
+      for (long c : counts) {
+        n += c;
+      }
+      this.counts = counts;
+      this.count = n;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public long sum() {
+      return sum;
+    }
+
+    public double mean() {
+      return count == 0 ? 0 : (double)sum / count;
+    }
+
+    /**
+     * The value below which the fraction q of recorded values fall.
+     */
+    public long percentile(double q) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = (long)Math.ceil(Math.min(Math.max(q, 0), 1) * count);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank && counts[i] > 0) {
+          return Math.min(highestIn(i), max);
+        }
+      }
+      return max;
+    }
+
+    public long max() {
+      return max;
+    }
+  }
+}
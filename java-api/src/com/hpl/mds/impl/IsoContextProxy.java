@@ -30,6 +30,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.apache.log4j.Logger;
@@ -37,11 +42,13 @@ import org.apache.log4j.Logger;
 import com.hpl.mds.InContext;
 import com.hpl.mds.IsolationContext;
 import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
 import com.hpl.mds.MergeReport;
 import com.hpl.mds.NativeLibraryLoader;
 import com.hpl.mds.PubOption;
 import com.hpl.mds.PubResult;
 import com.hpl.mds.exceptions.FailedTransactionException;
+import com.hpl.mds.exceptions.UnmergeableContextException;
 import com.hpl.mds.impl.PubOptionImpl.KeepGoing;
 import com.hpl.mds.impl.PubOptionImpl.ReRunOption;
 import com.hpl.mds.task.IsoContextTasks;
@@ -76,7 +83,21 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 	static final IsoContextProxy global_ = fromHandle(globalHandle());
 	static IsoContextProxy forProcess_ = null;
 	
-	private IsoContextTasks tasks;
+	// created by the first add(Task), which may race with others
+	private volatile IsoContextTasks tasks;
+	private volatile PinnedContext pinned_ = null;
+	// when createNested() made this one, for Metrics; -1 if we didn't see it
+	private long createdNanos_ = -1;
+	private volatile Metrics.Context metrics_ = null;
+	// inc()s and dec()s of commutative fields, not yet published
+	private volatile CounterDeltas counterDeltas_ = null;
+	private volatile Boolean defersCounters_ = null;
+	// what flushCounterDeltas() has added to the counters here
+	private volatile CounterDeltas flushed_ = null;
+	// commutative fields used here other than by inc() and dec()
+	private volatile Set<String> counterUses_ = null;
+	// batches GROUP_COMMIT publishes of this context's children
+	private volatile GroupPublisher childPublisher_ = null;
 	
 //	/** List<Task> tasks
 //	 *  tasks added to tasks list before their initial run
@@ -119,6 +140,23 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 		super(h);
 	}
 
+	/*
+	 * The native context, pinned so that bound accessors can use it
+	 * directly.  Shared by all bound accessors for this context.
+	 */
+	PinnedContext pinned() {
+		PinnedContext p = pinned_;
+		if (p == null) {
+			synchronized (this) {
+				p = pinned_;
+				if (p == null) {
+					p = pinned_ = new PinnedContext(this);
+				}
+			}
+		}
+		return p;
+	}
+
 	long getHandle() {
 		return handleIndex_;
 	}
@@ -131,17 +169,12 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 	private static native boolean isMergeable(long h);
 	private static native boolean isSnapshot(long h);
 	private static native boolean isReadOnly(long h);
+	private static native boolean hasNothingToPublish(long h);
 	private static native void publish(long h, long pubResHandle);
+	private static native void publishAll(long[] hs, long[] pubResHandles, Throwable[] errors);
 	private static native void clearConflicts(long h);
 	// private static native int  numConflicts(long h);
 
-	protected void finalize() {
-		/*
-		 * We should take the handle out of the store, but we don't know if another thread might
-		 * be using it, so for now I'm going to let it leak.
-		 */
-	}
-
 	public static IsoContextProxy current() {
 		return current_.get();
 	}
@@ -167,7 +200,235 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 
 	@Override
 	public IsoContextProxy createNested(ViewType vt, ModificationType mt) {
-		return fromHandle(newChild(handleIndex_, vt.ordinal(), mt.ordinal()));
+		IsoContextProxy child = fromHandle(newChild(handleIndex_, vt.ordinal(), mt.ordinal()));
+		// so that the child's counter deltas go to this proxy's
+		child.parent_ = this;
+		if (Metrics.ENABLED) {
+			child.createdNanos_ = System.nanoTime();
+			Metrics.global().noteContextCreated();
+		}
+		return child;
+	}
+
+	/*
+	 * Whether inc() and dec() on commutative fields are kept as deltas in
+	 * this context, rather than made in the heap.  Only when there's a
+	 * parent to publish them into.
+	 */
+	boolean defersCounters() {
+		Boolean d = defersCounters_;
+		if (d == null) {
+			d = defersCounters_ = isMergeable() && !isReadOnly();
+		}
+		return d;
+	}
+
+	CounterDeltas counterDeltas() {
+		CounterDeltas d = counterDeltas_;
+		if (d == null) {
+			synchronized (this) {
+				d = counterDeltas_;
+				if (d == null) {
+					d = counterDeltas_ = new CounterDeltas();
+				}
+			}
+		}
+		return d;
+	}
+
+	/*
+	 * The deltas pending for the counter here and in the ancestors it will
+	 * be published through.
+	 */
+	long pendingDelta(CounterDeltas.Counter field, ManagedRecord rec) {
+		long sum = 0;
+		for (IsoContextProxy c = this; c != null; c = c.parent_) {
+			CounterDeltas d = c.counterDeltas_;
+			if (d != null) {
+				sum += d.pending(field, rec);
+			}
+		}
+		return sum;
+	}
+
+	double pendingDoubleDelta(CounterDeltas.Counter field, ManagedRecord rec) {
+		double sum = 0;
+		for (IsoContextProxy c = this; c != null; c = c.parent_) {
+			CounterDeltas d = c.counterDeltas_;
+			if (d != null) {
+				sum += d.pendingDouble(field, rec);
+			}
+		}
+		return sum;
+	}
+
+	/*
+	 * For a set(), which overrides what's pending here, but not what the
+	 * ancestors will add on top of it, so that's flushed.
+	 */
+	void discardDelta(CounterDeltas.Counter field, ManagedRecord rec) {
+		if (parent_ != null) {
+			parent_.flushDelta(field, rec);
+		}
+		CounterDeltas d = counterDeltas_;
+		if (d != null) {
+			d.discard(field, rec);
+		}
+	}
+
+	/*
+	 * Adds what's pending for the counter here and in the ancestors to the
+	 * field in each, outermost first, so that each context sees the ones
+	 * above it.  For a use that doesn't commute with the deltas, like
+	 * mult() or a get() whose value may decide what's done next: it then
+	 * sees them as part of the field, read (and written) in the heap, so
+	 * any conflict over it is found by the merge.  An ancestor that had
+	 * something to flush has used the counter that way too.
+	 */
+	void flushDelta(CounterDeltas.Counter field, ManagedRecord rec) {
+		if (parent_ != null) {
+			parent_.flushDelta(field, rec);
+		}
+		CounterDeltas d = counterDeltas_;
+		if (d != null && d.flush(field, rec, this)) {
+			noteCounterUse(field);
+		}
+	}
+
+	void noteCounterUse(CounterDeltas.Counter field) {
+		noteCounterUse(field.qualifiedName());
+	}
+
+	/*
+	 * Once a counter has been used here other than by inc() and dec(),
+	 * they're made in the heap too, so that a sibling that read it
+	 * conflicts with them.
+	 */
+	boolean usesCounter(CounterDeltas.Counter field) {
+		Set<String> u = counterUses_;
+		return u != null && u.contains(field.qualifiedName());
+	}
+
+	private void noteCounterUse(String field) {
+		if (!defersCounters()) {
+			return;
+		}
+		Set<String> u = counterUses_;
+		if (u == null) {
+			synchronized (this) {
+				u = counterUses_;
+				if (u == null) {
+					u = counterUses_ = ConcurrentHashMap.newKeySet();
+				}
+			}
+		}
+		u.add(field);
+	}
+
+	/*
+	 * Before publishing into a parent that doesn't keep deltas, adds them to
+	 * the counters here, so that the merge publishes them with everything
+	 * else.  See CounterDeltas.
+	 */
+	private void flushCounterDeltas() {
+		CounterDeltas d = counterDeltas_;
+		if (d == null || ((IsoContextProxy)parent()).defersCounters()) {
+			return;
+		}
+		CounterDeltas f = flushed_;
+		if (f == null) {
+			f = flushed_ = new CounterDeltas();
+		}
+		d.flushIn(this, f);
+		counterDeltas_ = null;
+	}
+
+	/*
+	 * If the only conflicts are on counters this context flushed deltas into
+	 * and used no other way, resolves them by rebasing the deltas onto the
+	 * parent's values.  Returns whether it did, and the publish can be tried
+	 * again.
+	 */
+	private boolean rebaseCounters(PubResultProxy pRes) {
+		CounterDeltas f = flushed_;
+		if (f == null) {
+			return false;
+		}
+		Set<String> fields = pRes.conflictingFields();
+		if (fields == null || fields.isEmpty()) {
+			return false;
+		}
+		Set<String> used = counterUses_;
+		for (String field : fields) {
+			if (!f.hasField(field) || (used != null && used.contains(field))) {
+				return false;
+			}
+		}
+		f.rebaseIn(this);
+		return true;
+	}
+
+	/*
+	 * Once the rest has published, hands what the parent hasn't already got
+	 * through the merge to it: the deltas, if it keeps them, and the
+	 * counters used here, which are now used there.
+	 */
+	private void publishCounterDeltas() {
+		flushed_ = null;
+		IsoContextProxy p = (IsoContextProxy)parent();
+		if (!p.defersCounters()) {
+			return;
+		}
+		Set<String> u = counterUses_;
+		if (u != null) {
+			for (String field : u) {
+				p.noteCounterUse(field);
+			}
+		}
+		CounterDeltas d = counterDeltas_;
+		if (d == null) {
+			return;
+		}
+		counterDeltas_ = null;
+		d.addTo(p.counterDeltas());
+	}
+
+	GroupPublisher childPublisher() {
+		GroupPublisher g = childPublisher_;
+		if (g == null) {
+			synchronized (this) {
+				g = childPublisher_;
+				if (g == null) {
+					g = childPublisher_ = new GroupPublisher();
+				}
+			}
+		}
+		return g;
+	}
+
+	private Metrics.Context metrics() {
+		Metrics.Context m = metrics_;
+		if (m == null) {
+			synchronized (this) {
+				m = metrics_;
+				if (m == null) {
+					m = metrics_ = new Metrics.Context();
+				}
+			}
+		}
+		return m;
+	}
+
+	/*
+	 * publishes, failed publishes, conflicts and nanoseconds spent publishing
+	 * in this context
+	 */
+	public long[] metricsCounts() {
+		Metrics.Context m = metrics_;
+		if (m == null) {
+			return new long[4];
+		}
+		return new long[] { m.publishes.sum(), m.publishFailures.sum(), m.conflicts.sum(), m.publishNanos.sum() };
 	}
 	class UseImpl implements Use {
 		final IsoContextProxy ctxt_;
@@ -193,14 +454,22 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 		return new UseImpl(this);
 	}
 
+	/*
+	 * Resolving and republishing can fail again if the parent keeps
+	 * changing, so it's only tried so many times.
+	 */
+	static final int MAX_RESOLVE_ROUNDS = 4;
+
 	class PublishControl {
+		final PubOptionImpl.Resolvers resolvers;
+		private int rounds;
+
 		PublishControl(Collection<? extends PubOption>options) {
-			// TODO
+			resolvers = PubOptionImpl.Resolvers.of(options);
 		}
 
 		public boolean tryResolve() {
-			// TODO Auto-generated method stub
-			return false;
+			return resolvers != null && rounds++ < MAX_RESOLVE_ROUNDS;
 		}
 	}
 
@@ -210,24 +479,222 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 	}
 
 	public PubResultProxy tryPublish() {
+		return tryPublish(null);
+	}
+
+	PubResultProxy tryPublish(PubOptionImpl.Resolvers resolvers) {
+		flushCounterDeltas();
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 		PubResultProxy pRes = new PubResultProxy();
 		pRes.initialize(pRes.handleIndex()); // associate new PubResultProxy java object with pr_merge_result
+		pRes.resolvers = resolvers;
 		publish(handleIndex_, pRes.handleIndex());
+		if (Metrics.ENABLED) {
+			boolean succeeded = pRes.succeeded();
+			notePublish(start, succeeded, succeeded ? 0 : pRes.numConflicts());
+			if (!succeeded) {
+				pRes.noteConflicts(Metrics.global());
+			}
+		}
 		return pRes;
 	}
 
+	private void notePublish(long start, boolean succeeded, int nConflicts) {
+		long end = System.nanoTime();
+		long age = createdNanos_ < 0 ? -1 : end - createdNanos_;
+		Metrics.global().notePublish(succeeded, end - start, age);
+		if (Metrics.PER_CONTEXT) {
+			metrics().notePublish(succeeded, end - start, nConflicts);
+		}
+	}
+
+	/*
+	 * The context an attempt of callIsolated() runs in.  With readOnly(),
+	 * that's a read-only snapshot, which is never published.  If this
+	 * context already is one, nothing can change under the call, so it's
+	 * used as is.
+	 */
+	IsoContextProxy isolatedChild(boolean readOnly) {
+		if (!readOnly) {
+			return createNested(ViewType.Live, ModificationType.Full);
+		}
+		if (isReadOnly() && isSnapshot()) {
+			return this;
+		}
+		return createNested(ViewType.Snapshot, ModificationType.ReadOnly);
+	}
+
+	/*
+	 * Publishes a child made by isolatedChild(false) once the call is done.
+	 * If the call wrote nothing (natively or as counter deltas) and no
+	 * conflicts were noted, the parent has nothing new to see, and since
+	 * the child is dropped afterward, that's as good as a publish.  It
+	 * saves the merge and the PubResultProxy, so a call that only reads
+	 * costs little more than its reads.
+	 */
+	boolean publishIsolated(Collection<? extends PubOption> options) {
+		if (counterDeltas_ == null) {
+			long start = Metrics.ENABLED ? System.nanoTime() : 0;
+			if (hasNothingToPublish(handleIndex_)) {
+				if (Metrics.ENABLED) {
+					notePublish(start, true, 0);
+					Metrics.global().notePublishWithoutMerge();
+				}
+				return true;
+			}
+		}
+		return publish(options).succeeded();
+	}
+
 	@Override
 	public PubResultProxy publish(Collection<? extends PubOption> options) {
-		PubResultProxy pRes = tryPublish();
+		PublishControl pControl = new PublishControl(options);
+		PubResultProxy pRes = options.contains(PubOptionImpl.GROUP_COMMIT)
+				? ((IsoContextProxy)parent()).childPublisher().publish(this, pControl.resolvers)
+				: tryPublish(pControl.resolvers);
+		return afterPublish(pRes, pControl);
+	}
+
+	private PubResultProxy afterPublish(PubResultProxy pRes, PublishControl pControl) {
+		for (int i = 0; !pRes.succeeded() && i < MAX_RESOLVE_ROUNDS && rebaseCounters(pRes); i++) {
+			pRes = tryPublish(pControl.resolvers);
+		}
 		if (!pRes.succeeded()) {
-			PublishControl pControl = new PublishControl(options);
 			while (pControl.tryResolve() && pRes.resolve()) {
-				pRes = tryPublish();
+				pRes = tryPublish(pControl.resolvers);
 			}
 		}
+		if (pRes.succeeded()) {
+			publishCounterDeltas();
+		}
 		return pRes;
 	}
 
+	/*
+	 * Publishes each of the contexts (into its own parent) in a single
+	 * native call, returning their results in the same order.  Contexts that
+	 * fail are then handled one at a time, as publish() would.  All must be
+	 * mergeable; this is checked before any is published.  If any of them
+	 * throws, the rest are still published and handled, and then the first
+	 * exception is thrown, with the others suppressed in it.
+	 */
+	public static List<PubResult> publishAll(Collection<? extends IsolationContext> contexts,
+	                                         Collection<? extends PubOption> options) {
+		List<IsoContextProxy> ctxts = new ArrayList<>(contexts.size());
+		for (IsolationContext c : contexts) {
+			IsoContextProxy ctxt = (IsoContextProxy)c;
+			if (!ctxt.isMergeable()) {
+				throw new UnmergeableContextException();
+			}
+			ctxts.add(ctxt);
+		}
+		List<PublishControl> controls = new ArrayList<>(ctxts.size());
+		List<PubOptionImpl.Resolvers> resolvers = new ArrayList<>(ctxts.size());
+		for (IsoContextProxy ctxt : ctxts) {
+			PublishControl pControl = ctxt.new PublishControl(options);
+			controls.add(pControl);
+			resolvers.add(pControl.resolvers);
+		}
+		Throwable[] errors = new Throwable[ctxts.size()];
+		List<PubResultProxy> results = tryPublishAll(ctxts, resolvers, errors);
+		List<PubResult> resolved = new ArrayList<>(results.size());
+		Throwable thrown = null;
+		for (int i = 0; i < results.size(); i++) {
+			if (errors[i] == null) {
+				resolved.add(ctxts.get(i).afterPublish(results.get(i), controls.get(i)));
+			} else if (thrown == null) {
+				thrown = errors[i];
+			} else {
+				thrown.addSuppressed(errors[i]);
+			}
+		}
+		if (thrown != null) {
+			throw unchecked(thrown);
+		}
+		return resolved;
+	}
+
+	/*
+	 * For rethrowing what a native call handed back.  Errors are thrown
+	 * from here, anything checked is wrapped.
+	 */
+	static RuntimeException unchecked(Throwable t) {
+		if (t instanceof Error) {
+			throw (Error)t;
+		}
+		if (t instanceof RuntimeException) {
+			return (RuntimeException)t;
+		}
+		return new IllegalStateException(t);
+	}
+
+	/*
+	 * What the i'th context's publish throws goes in errors[i], and its
+	 * result is then null.  The others are published regardless.
+	 */
+	static List<PubResultProxy> tryPublishAll(List<IsoContextProxy> ctxts,
+	                                          List<PubOptionImpl.Resolvers> resolvers,
+	                                          Throwable[] errors) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		int n = ctxts.size();
+		List<PubResultProxy> results = new ArrayList<>(n);
+		// the ones whose deltas flushed, and so are published
+		int[] at = new int[n];
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			try {
+				ctxts.get(i).flushCounterDeltas();
+				at[m++] = i;
+			} catch (RuntimeException e) {
+				errors[i] = e;
+			}
+			results.add(null);
+		}
+		long[] hs = new long[m];
+		long[] prs = new long[m];
+		for (int j = 0; j < m; j++) {
+			int i = at[j];
+			PubResultProxy pRes = new PubResultProxy();
+			pRes.initialize(pRes.handleIndex());
+			pRes.resolvers = resolvers.get(i);
+			results.set(i, pRes);
+			hs[j] = ctxts.get(i).handleIndex_;
+			prs[j] = pRes.handleIndex();
+		}
+		if (m > 0) {
+			Throwable[] thrown = new Throwable[m];
+			publishAll(hs, prs, thrown);
+			for (int j = 0; j < m; j++) {
+				if (thrown[j] != null) {
+					errors[at[j]] = thrown[j];
+					results.set(at[j], null);
+				}
+			}
+		}
+		if (Metrics.ENABLED && n > 0) {
+			long end = System.nanoTime();
+			// the batch's time, shared among its contexts
+			long each = (end - start) / n;
+			for (int i = 0; i < n; i++) {
+				IsoContextProxy ctxt = ctxts.get(i);
+				PubResultProxy pRes = results.get(i);
+				if (pRes == null) {
+					continue;
+				}
+				boolean succeeded = pRes.succeeded();
+				long age = ctxt.createdNanos_ < 0 ? -1 : end - ctxt.createdNanos_;
+				Metrics.global().notePublish(succeeded, each, age);
+				if (Metrics.PER_CONTEXT) {
+					ctxt.metrics().notePublish(succeeded, each, succeeded ? 0 : pRes.numConflicts());
+				}
+				if (!succeeded) {
+					pRes.noteConflicts(Metrics.global());
+				}
+			}
+		}
+		return results;
+	}
+
 	@Override
 	public boolean isPublished() {
 		// TODO Auto-generated method stub
@@ -285,35 +752,104 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 				reRunControls.add(o.start());
 			}
 		}
-		PubResult pr;
 		KeepGoing cont = KeepGoing.YES;
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		int attempts = 0;
+		long backoff = 0;
+		boolean readOnly = options.contains(PubOptionImpl.READ_ONLY);
 		while (cont == KeepGoing.YES) {
+			attempts++;
 			if (mr != null) {
 				mr.beforeRun();
 			}
-			IsolationContext child = createNested();
-			R val = child.call(func);
-			pr = child.publish(options);
-			if (pr.succeeded()) {
+			boolean succeeded = false;
+			R val;
+			try {
+				for (ReRunOption.Control c : reRunControls) {
+					c.beforeAttempt();
+				}
+				IsoContextProxy child = isolatedChild(readOnly);
+				val = child.call(func);
+				succeeded = readOnly || child.publishIsolated(options);
+			} catch (InterruptedException e) {
+				// interrupted waiting to be admitted; give up
+				Thread.currentThread().interrupt();
+				break;
+			} finally {
+				for (ReRunOption.Control c : reRunControls) {
+					c.afterAttempt(succeeded);
+				}
+			}
+			if (succeeded) {
 				if (mr != null) {
 					mr.noteSuccess();
 				}
+				if (Metrics.ENABLED) {
+					Metrics.global().noteIsolatedCall(true, attempts, System.nanoTime() - start, backoff);
+				}
 				return val;
 			}
 			cont = reRunControls.stream()
 					.map(ReRunOption.Control::tryAgain)
 					.reduce(KeepGoing.OKAY, KeepGoing::havingSeen);
+			if (cont == KeepGoing.YES) {
+				long slept = backOff(reRunControls, mr);
+				if (slept < 0) {
+					break;
+				}
+				backoff += slept;
+			}
 		}
 		if (mr != null) {
 			mr.noteFailure();
 		}
+		if (Metrics.ENABLED) {
+			Metrics.global().noteIsolatedCall(false, attempts, System.nanoTime() - start, backoff);
+		}
 		throw new FailedTransactionException();
 	}
 
+	@Override
+	public <R> CompletableFuture<R> callIsolatedAsync(Supplier<? extends R> func, MergeReport mr, Executor exec,
+	                                                  Collection<? extends PubOption> options) {
+		return AsyncIsolatedCall.start(this, func, mr, exec, options);
+	}
+
+	/*
+	 * Waits for the longest backoff any of the controls asks for.  Returns
+	 * how long it waited, or -1 if interrupted, in which case there should be
+	 * no retry.
+	 */
+	private static long backOff(List<ReRunOption.Control> controls, MergeReport mr) {
+		long nanos = 0;
+		for (ReRunOption.Control c : controls) {
+			nanos = Math.max(nanos, c.backoffNanos());
+		}
+		if (nanos <= 0) {
+			return 0;
+		}
+		long start = System.nanoTime();
+		boolean interrupted = false;
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			interrupted = true;
+		}
+		long slept = System.nanoTime() - start;
+		if (mr != null) {
+			mr.noteBackoff(slept);
+		}
+		return interrupted ? -1 : slept;
+	}
 
 	@Override
-	void releaseHandleIndex(long index) {
-	  proxyTable.release(index);
+	ProxyReclaimer.Domain reclaimDomain() {
+		/*
+		 * We should take the handle out of the store, but we don't know if another thread might
+		 * be using it, so for now I'm going to let it leak.
+		 */
+		return null;
 	}
 	
 	
@@ -329,6 +865,7 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 	// Task management
 	
 	public void rerunConflictedTasks(PubResult pubResult) {
+		IsoContextTasks tasks = this.tasks;
 		if (tasks != null) {
                         log.debug("IsoContextProxy.rerunConflictedTasks: context: " + this);
 			tasks.rerunConflictedTasks(pubResult);
@@ -339,26 +876,35 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 	}
 		  
 	public void add(Task task) {
+		IsoContextTasks tasks = this.tasks;
 		if (tasks == null) {
-			tasks = new IsoContextTasks();
+			synchronized (this) {
+				tasks = this.tasks;
+				if (tasks == null) {
+					tasks = this.tasks = new IsoContextTasks();
+				}
+			}
 		}
 		tasks.add(task);
 	}
 
 
-	public void addWrite(Task task, ChangeBase write) {
+	public void addWrite(Task task, Location write) {
+		IsoContextTasks tasks = this.tasks;
 		if (tasks != null) {
 			tasks.addWrite(task, write);
 		}
 	}
 
-	public void addRead(Task task, ChangeBase read) {
+	public void addRead(Task task, Location read) {
+		IsoContextTasks tasks = this.tasks;
 		if (tasks != null) {
 			tasks.addRead(task, read);
 		}
 	}
 
-    public Task lastWriter(ChangeBase change) {
+    public Task lastWriter(Location change) {
+		IsoContextTasks tasks = this.tasks;
 		if (tasks != null) {
 			return tasks.lastWriter(change);
 		}
@@ -366,6 +912,11 @@ public class IsoContextProxy extends Proxy implements IsolationContext {
 			return null;
 		}
     }
+
+    public Task lastWriter(Class<?> kind, long objectId, long changeId) {
+		IsoContextTasks tasks = this.tasks;
+		return tasks == null ? null : tasks.lastWriter(kind, objectId, changeId);
+    }
     
     // IsoContextTasks.currentTask replaced with multi-thread safe Task.currentTask
     // - current task determined directly via Task.current()
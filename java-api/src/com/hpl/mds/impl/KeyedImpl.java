@@ -0,0 +1,112 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Objects;
+
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.keyed.Keyed;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+
+/*
+ * A value paired with the key it's found by in a ManagedKeyedSet.  Keyed
+ * values aren't stored as such: the set stores the key and value and hands
+ * out a fresh KeyedImpl for each one it iterates over.  Two are equal when
+ * their keys are.
+ */
+public class KeyedImpl<EK extends ManagedObject, V extends ManagedObject> implements Keyed<EK,V> {
+
+  private final EK key_;
+  private final V value_;
+  private KeyedTypeProxy<EK,V> type_;
+
+  public KeyedImpl(EK key, V value) {
+    this(key, value, null);
+  }
+
+  KeyedImpl(EK key, V value, KeyedTypeProxy<EK,V> type) {
+    key_ = Objects.requireNonNull(key, "Keyed values need a key");
+    value_ = Objects.requireNonNull(value, "Keyed values need a value");
+    type_ = type;
+  }
+
+  @Override
+  public EK key() {
+    return key_;
+  }
+
+  @Override
+  public V value() {
+    return value_;
+  }
+
+  /*
+   * Unless we came from a set, the type is that of the key and value we
+   * were given.
+   */
+  @Override
+  public KeyedTypeProxy<EK,V> type() {
+    if (type_ == null) {
+      @SuppressWarnings("unchecked")
+      ManagedType<EK> kt = (ManagedType<EK>)key_.type();
+      @SuppressWarnings("unchecked")
+      ManagedType<V> vt = (ManagedType<V>)value_.type();
+      type_ = KeyedTypeProxy.forTypes(kt, vt);
+    }
+    return type_;
+  }
+
+  @Override
+  public boolean isSameAs(ManagedObject other) {
+    return equals(other);
+  }
+
+  @Override
+  public Keyed<EK,V> bindName(Prior prior, Namespace ns, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    return obj instanceof Keyed && key_.equals(((Keyed<?,?>)obj).key());
+  }
+
+  @Override
+  public int hashCode() {
+    return key_.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return key_ + "=" + value_;
+  }
+}
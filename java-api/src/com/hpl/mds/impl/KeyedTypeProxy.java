@@ -0,0 +1,144 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hpl.mds.Field;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.keyed.Keyed;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.string.ManagedMapFromString;
+
+/*
+ * The type of Keyed values with given key and value types.  Keyed values
+ * only live in keyed sets, so apart from the key and value types all this
+ * type is good for is inSet().
+ */
+public class KeyedTypeProxy<EK extends ManagedObject, V extends ManagedObject> implements Keyed.Type<EK,V> {
+
+  private static final ConcurrentMap<List<ManagedType<?>>, KeyedTypeProxy<?,?>> known_
+    = new ConcurrentHashMap<>();
+
+  private final ManagedType<EK> keyType_;
+  private final ManagedType<V> valueType_;
+  private volatile ManagedKeyedHashSetTypeProxy<EK,V> setType_;
+
+  KeyedTypeProxy(ManagedType<EK> keyType, ManagedType<V> valueType) {
+    keyType_ = keyType;
+    valueType_ = valueType;
+  }
+
+  public static <EK extends ManagedObject, V extends ManagedObject>
+  KeyedTypeProxy<EK,V> forTypes(ManagedType<EK> keyType, ManagedType<V> valueType) {
+    KeyedTypeProxy<?,?> t = known_.computeIfAbsent(Arrays.asList(keyType, valueType),
+                                                   k -> new KeyedTypeProxy<>(keyType, valueType));
+    @SuppressWarnings("unchecked")
+    KeyedTypeProxy<EK,V> downcast = (KeyedTypeProxy<EK,V>)t;
+    return downcast;
+  }
+
+  @Override
+  public ManagedType<EK> keyType() {
+    return keyType_;
+  }
+
+  @Override
+  public ManagedType<V> valueType() {
+    return valueType_;
+  }
+
+  @Override
+  public ManagedKeyedHashSetTypeProxy<EK,V> inSet() {
+    if (setType_ == null) {
+      setType_ = new ManagedKeyedHashSetTypeProxy<>(this);
+    }
+    return setType_;
+  }
+
+  @Override
+  public Keyed<EK,V> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> Field<RT, Keyed<EK,V>> fieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> Field<RT, Keyed<EK,V>> findFieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public Keyed<EK,V> lookupName(Namespace ns, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public Keyed<EK,V> bindIn(Namespace ns, CharSequence name, Keyed<EK,V> val, Prior prior) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedArray.Type<Keyed<EK,V>> inArray() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList.Type<Keyed<EK,V>> inList() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <K extends ManagedObject> ManagedMap.Type<K, Keyed<EK,V>> inMapFrom(ManagedType<K> keyType) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString.Type<Keyed<EK,V>> inMapFromString() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("com.hpl.mds.Keyed<%s,%s>",
+                         ManagedHashMapTypeProxy.typeName(keyType_),
+                         ManagedHashMapTypeProxy.typeName(valueType_));
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import com.hpl.mds.Holder;
+import com.hpl.mds.ListField;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.callbacks.ChangeHandler;
+import com.hpl.mds.callbacks.ChangeHandlerRemovalHook;
+import com.hpl.mds.callbacks.FieldChange;
+import com.hpl.mds.string.ManagedString;
+
+import com.hpl.mds.impl.ManagedListProxy.Header;
+
+/*
+ * A field holding a ManagedListProxy.  As with MapFieldProxy, what's stored
+ * is the list's header record, and the List-like operations create the list
+ * the first time something is added to it.
+ */
+public class ListFieldProxy<RT extends ManagedRecord, T extends ManagedObject> implements ListField<RT,T> {
+
+  private final ManagedListTypeProxy<T> type_;
+  private final RecordFieldProxy<RT,Header> field_;
+
+  ListFieldProxy(ManagedListTypeProxy<T> type, RecordFieldProxy<RT,Header> field) {
+    type_ = type;
+    field_ = field;
+  }
+
+  @Override
+  public ManagedList<T> get(RT record) {
+    return type_.wrap(field_.get(record));
+  }
+
+  @Override
+  public ManagedList<T> peek(RT record) {
+    return type_.wrap(field_.peek(record));
+  }
+
+  @Override
+  public ManagedList<T> set(RT rec, ManagedList<T> val) {
+    field_.set(rec, ManagedListProxy.headerOf(val));
+    return val;
+  }
+
+  @Override
+  public ManagedList<T> getAndSet(RT rec, ManagedList<T> val) {
+    return type_.wrap(field_.getAndSet(rec, ManagedListProxy.headerOf(val)));
+  }
+
+  @Override
+  public boolean change(RT rec, ManagedList<T> expected, ManagedList<T> val) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public boolean change(RT rec, Holder<ManagedList<T>> holdsExpected, ManagedList<T> val) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedString name() {
+    return field_.name();
+  }
+
+  @Override
+  public RecordType<RT> recordType() {
+    return field_.recordType();
+  }
+
+  @Override
+  public ManagedListTypeProxy<T> valueType() {
+    return type_;
+  }
+
+  @Override
+  public ChangeHandlerRemovalHook afterChange(ChangeHandler<? super FieldChange<? super RT, ? super ManagedList<T>>> handler) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ChangeBase createChange(RT record) {
+    return field_.createChange(record);
+  }
+
+  private ManagedList<T> listFor(RT record) {
+    ManagedList<T> l = get(record);
+    if (l == null) {
+      l = type_.create();
+      set(record, l);
+    }
+    return l;
+  }
+
+  private List<T> listOrEmpty(RT record) {
+    ManagedList<T> l = get(record);
+    return l == null ? Collections.emptyList() : l;
+  }
+
+  @Override
+  public int size(RT record) {
+    return listOrEmpty(record).size();
+  }
+
+  @Override
+  public long longSize(RT record) {
+    ManagedList<T> l = get(record);
+    return l == null ? 0 : l.longSize();
+  }
+
+  @Override
+  public boolean contains(RT record, T o) {
+    return listOrEmpty(record).contains(o);
+  }
+
+  @Override
+  public Iterable<T> elements(RT record) {
+    return listOrEmpty(record);
+  }
+
+  @Override
+  public Iterator<T> iterator(RT record) {
+    return listOrEmpty(record).iterator();
+  }
+
+  @Override
+  public boolean add(RT record, T e) {
+    return listFor(record).add(e);
+  }
+
+  @Override
+  public boolean remove(RT record, T o) {
+    ManagedList<T> l = get(record);
+    return l != null && l.remove(o);
+  }
+
+  @Override
+  public boolean addAll(RT record, int index, Collection<? extends T> c) {
+    return listFor(record).addAll(index, c);
+  }
+
+  @Override
+  public void clear(RT record) {
+    ManagedList<T> l = get(record);
+    if (l != null) {
+      l.clear();
+    }
+  }
+
+  @Override
+  public T get(RT record, int index) {
+    return listOrEmpty(record).get(index);
+  }
+
+  @Override
+  public T set(RT record, int index, T element) {
+    return listOrEmpty(record).set(index, element);
+  }
+
+  @Override
+  public void add(RT record, int index, T element) {
+    listFor(record).add(index, element);
+  }
+
+  @Override
+  public T remove(RT record, int index) {
+    return listOrEmpty(record).remove(index);
+  }
+
+  @Override
+  public int indexOf(RT record, T o) {
+    return listOrEmpty(record).indexOf(o);
+  }
+
+  @Override
+  public int lastIndexOf(RT record, T o) {
+    return listOrEmpty(record).lastIndexOf(o);
+  }
+
+  @Override
+  public ListIterator<T> listIterator(RT record) {
+    return listOrEmpty(record).listIterator();
+  }
+
+  @Override
+  public ListIterator<T> listIterator(RT record, int index) {
+    return listOrEmpty(record).listIterator(index);
+  }
+
+  @Override
+  public List<T> subList(RT record, int fromIndex, int toIndex) {
+    return listOrEmpty(record).subList(fromIndex, toIndex);
+  }
+}
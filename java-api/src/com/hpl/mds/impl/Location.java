@@ -0,0 +1,139 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import com.hpl.mds.Field;
+import com.hpl.mds.ManagedRecord;
+
+/** Location
+ *  the identity of a ChangeBase, without the Change itself:
+ *  the Change subtype it would be, plus the two handles it compares on.
+ *  Used as the key for task read/write tracking, so that a Change only needs
+ *  to be created when a conflict actually has to be resolved.
+ */
+public final class Location {
+
+  private final Class<?> kind;
+  private final long objectId;
+  private final long changeId;
+
+  Location(Class<?> kind, long objectId, long changeId) {
+    this.kind = kind;
+    this.objectId = objectId;
+    this.changeId = changeId;
+  }
+
+  public static <RT extends ManagedRecord> Location of(RT record, Field<RT,?> field) {
+    return new Location(FIELD_KIND, objectIdOf(record), changeIdOf(field));
+  }
+
+  public static Location of(ArrayProxy<?> array, long index) {
+    return new Location(kindOf(array), objectIdOf(array), index);
+  }
+
+  public static Location of(Class<?> kind, long objectId, long changeId) {
+    return new Location(kind, objectId, changeId);
+  }
+
+  /*
+   * The parts of a location, for callers that look one up without
+   * making a Location unless they have to keep it.
+   */
+  public static final Class<?> FIELD_KIND = FieldProxy.Change.class;
+
+  public static long objectIdOf(ManagedRecord record) {
+    return ManagedRecordProxy.handleOf(record);
+  }
+
+  public static long changeIdOf(Field<?,?> field) {
+    return ((FieldProxy<?,?>)field).handleIndex_;
+  }
+
+  public static Class<?> kindOf(ArrayProxy<?> array) {
+    return array.changeClass();
+  }
+
+  public static long objectIdOf(ArrayProxy<?> array) {
+    return array.handleIndex_;
+  }
+
+  /**
+   * The location a reported conflict refers to, or null if it isn't
+   * one that tasks track.
+   */
+  public static Location of(ChangeBase change) {
+    if (change instanceof FieldProxy.Change) {
+      FieldProxy.Change<?,?> c = (FieldProxy.Change<?,?>)change;
+      return new Location(FieldProxy.Change.class, c.objectId(), c.changeId());
+    } else if (change instanceof ArrayProxy.Change) {
+      ArrayProxy.Change<?> c = (ArrayProxy.Change<?>)change;
+      return new Location(change.getClass(), c.objectId(), c.changeId());
+    }
+    return null;
+  }
+
+  public Class<?> kind() {
+    return kind;
+  }
+
+  public long objectId() {
+    return objectId;
+  }
+
+  public long changeId() {
+    return changeId;
+  }
+
+  public static int hash(Class<?> kind, long objectId, long changeId) {
+    long h = objectId * 0x9E3779B97F4A7C15L + changeId;
+    h ^= (h >>> 32) ^ kind.hashCode();
+    return (int)(h ^ (h >>> 16));
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof Location)) {
+      return false;
+    }
+    Location other = (Location)obj;
+    return kind == other.kind && objectId == other.objectId && changeId == other.changeId;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash(kind, objectId, changeId);
+  }
+
+  @Override
+  public String toString() {
+    return "objectId: " + objectId + " changeId: " + changeId;
+  }
+
+} // end class Location
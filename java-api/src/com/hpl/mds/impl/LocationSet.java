@@ -0,0 +1,182 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.function.Consumer;
+
+import com.hpl.mds.Field;
+import com.hpl.mds.ManagedRecord;
+
+/** LocationSet
+ *  a task's read or write set.
+ *  Locations are held as (kind, objectId, changeId) in open-addressed parallel
+ *  arrays, so adding one that is already there allocates nothing.  Alongside
+ *  each we keep what's needed to create its Change later (the field and record,
+ *  or the array), which also keeps their proxies, and so their handles, alive.
+ *  Changes are only created by forEachChange(), when conflicts are resolved.
+ *
+ *  Tasks can share their sets with threads they start, so access is synchronized.
+ */
+public final class LocationSet {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private Class<?>[] kinds = new Class<?>[INITIAL_CAPACITY];
+  private long[] objectIds = new long[INITIAL_CAPACITY];
+  private long[] changeIds = new long[INITIAL_CAPACITY];
+  private Object[] sources = new Object[INITIAL_CAPACITY];
+  private Object[] targets = new Object[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * @return true if the set didn't already contain the location
+   */
+  public <RT extends ManagedRecord> boolean add(RT record, Field<RT,?> field) {
+    return add(Location.FIELD_KIND, Location.objectIdOf(record), Location.changeIdOf(field), field, record);
+  }
+
+  public boolean add(ArrayProxy<?> array, long index) {
+    return add(Location.kindOf(array), Location.objectIdOf(array), index, array, null);
+  }
+
+  /**
+   * Adds a Change that already exists.  Changes for locations that tasks
+   * don't track are ignored.
+   */
+  public boolean add(ChangeBase change) {
+    Location loc = Location.of(change);
+    return loc != null && add(loc.kind(), loc.objectId(), loc.changeId(), change, null);
+  }
+
+  private synchronized boolean add(Class<?> kind, long objectId, long changeId,
+                                   Object source, Object target) {
+    int mask = kinds.length - 1;
+    int i = Location.hash(kind, objectId, changeId) & mask;
+    Class<?> k;
+    while ((k = kinds[i]) != null) {
+      if (k == kind && objectIds[i] == objectId && changeIds[i] == changeId) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    kinds[i] = kind;
+    objectIds[i] = objectId;
+    changeIds[i] = changeId;
+    sources[i] = source;
+    targets[i] = target;
+    if (++size * 2 > kinds.length) {
+      grow();
+    }
+    return true;
+  }
+
+  private void grow() {
+    Class<?>[] oldKinds = kinds;
+    long[] oldObjectIds = objectIds;
+    long[] oldChangeIds = changeIds;
+    Object[] oldSources = sources;
+    Object[] oldTargets = targets;
+    int n = oldKinds.length * 2;
+    kinds = new Class<?>[n];
+    objectIds = new long[n];
+    changeIds = new long[n];
+    sources = new Object[n];
+    targets = new Object[n];
+    int mask = n - 1;
+    for (int j = 0; j < oldKinds.length; j++) {
+      Class<?> kind = oldKinds[j];
+      if (kind != null) {
+        int i = Location.hash(kind, oldObjectIds[j], oldChangeIds[j]) & mask;
+        while (kinds[i] != null) {
+          i = (i + 1) & mask;
+        }
+        kinds[i] = kind;
+        objectIds[i] = oldObjectIds[j];
+        changeIds[i] = oldChangeIds[j];
+        sources[i] = oldSources[j];
+        targets[i] = oldTargets[j];
+      }
+    }
+  }
+
+  public synchronized boolean contains(Location loc) {
+    int mask = kinds.length - 1;
+    int i = loc.hashCode() & mask;
+    Class<?> k;
+    while ((k = kinds[i]) != null) {
+      if (k == loc.kind() && objectIds[i] == loc.objectId() && changeIds[i] == loc.changeId()) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Creates the Change for each location in the set and passes it to action.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void forEachChange(Consumer<? super ChangeBase> action) {
+    Object[] srcs;
+    Object[] tgts;
+    long[] ids;
+    synchronized (this) {
+      srcs = sources.clone();
+      tgts = targets.clone();
+      ids = changeIds.clone();
+    }
+    for (int i = 0; i < srcs.length; i++) {
+      Object source = srcs[i];
+      if (source instanceof ChangeBase) {
+        action.accept((ChangeBase)source);
+      } else if (source instanceof ArrayProxy) {
+        action.accept(((ArrayProxy<?>)source).createChange(ids[i]));
+      } else if (source != null) {
+        action.accept(((Field)source).createChange((ManagedRecord)tgts[i]));
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder sb = new StringBuilder();
+    String sep = "[";
+    for (int i = 0; i < kinds.length; i++) {
+      if (kinds[i] != null) {
+        sb.append(sep).append("objectId: ").append(objectIds[i])
+          .append(" changeId: ").append(changeIds[i]);
+        sep = ", ";
+      }
+    }
+    return sb.append(size == 0 ? "[]" : "]").toString();
+  }
+
+} // end class LocationSet
@@ -0,0 +1,486 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedComposite;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.usage.UsagePlan;
+import com.hpl.mds.usage.UsageScope;
+
+/*
+ * A hash map in the managed heap.  The map itself is a record holding an
+ * array of buckets, and each bucket is a chain of entry records, each
+ * holding a key, its hash, a value and the next entry in the chain.
+ *
+ * Everything a put or a get touches is a bucket slot or a field of an entry,
+ * so two contexts putting different keys only conflict when the keys share a
+ * bucket, and two putting the same existing key only conflict on that
+ * entry's value.  The only map-wide state is the bucket array, which is
+ * replaced when a chain gets too long.  There's deliberately no element
+ * count, since every put and remove would have to write it: longSize()
+ * walks the buckets.
+ *
+ * Equality is that of the underlying managed object, as for records and
+ * arrays, not the element-wise equality of java.util.Map.
+ */
+public class ManagedHashMapProxy<K extends ManagedObject, V extends ManagedObject>
+  extends AbstractMap<K,V> implements ManagedMap<K,V> {
+
+  static final int DEFAULT_CAPACITY = 64;
+  static final int MAX_CAPACITY = 1 << 30;
+  // a put that walks a chain at least this long doubles the buckets
+  static final int GROW_AT_CHAIN = 8;
+
+  public static class Header extends ManagedRecordProxy {
+    public Header(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Header(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  public static class Entry extends ManagedRecordProxy {
+    public Entry(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Entry(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  protected final ManagedHashMapTypeProxy<K,V> type_;
+  protected final Header header_;
+
+  ManagedHashMapProxy(ManagedHashMapTypeProxy<K,V> type, Header header) {
+    type_ = type;
+    header_ = header;
+  }
+
+  /*
+   * The header of either kind of map.
+   */
+  static Header headerOf(ManagedMap<?,?> map) {
+    if (map instanceof ManagedSkipListMapProxy) {
+      return ((ManagedSkipListMapProxy<?,?>)map).header_;
+    }
+    ManagedHashMapProxy<?,?> p = (ManagedHashMapProxy<?,?>)map;
+    return p == null ? null : p.header_;
+  }
+
+  static int hashOf(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  static long indexFor(int hash, long nBuckets) {
+    return hash & (nBuckets - 1);
+  }
+
+  ManagedArray<Entry> buckets() {
+    return type_.buckets.get(header_);
+  }
+
+  boolean matches(Entry e, Object key, int hash) {
+    return type_.hash.getInt(e) == hash && key.equals(type_.key.get(e));
+  }
+
+  /*
+   * The entry holding key, or null.  key is known to be a ManagedObject.
+   */
+  Entry findEntry(ManagedArray<Entry> buckets, Object key, int hash) {
+    Entry e = buckets.get(indexFor(hash, buckets.longSize()));
+    while (e != null && !matches(e, key, hash)) {
+      e = type_.next.get(e);
+    }
+    return e;
+  }
+
+  /*
+   * Keys we might be asked about that aren't ManagedObjects, but which stand
+   * for one (e.g., Strings in a map from ManagedString), are converted here.
+   */
+  Object asKey(Object key) {
+    return key instanceof ManagedObject ? key : null;
+  }
+
+  Entry entryFor(Object key) {
+    Object k = asKey(key);
+    return k == null ? null : findEntry(buckets(), k, hashOf(k));
+  }
+
+  @Override
+  public V get(Object key) {
+    Entry e = entryFor(key);
+    return e == null ? null : type_.value.get(e);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entryFor(key) != null;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    Objects.requireNonNull(key, "Managed maps don't take null keys");
+    int hash = hashOf(key);
+    ManagedArray<Entry> b = buckets();
+    long i = indexFor(hash, b.longSize());
+    Entry first = b.get(i);
+    int chain = 0;
+    for (Entry e = first; e != null; e = type_.next.get(e)) {
+      if (matches(e, key, hash)) {
+        return type_.value.getAndSet(e, value);
+      }
+      chain++;
+    }
+    Entry e = type_.newEntry();
+    type_.key.set(e, key);
+    type_.hash.set(e, hash);
+    type_.value.set(e, value);
+    type_.next.set(e, first);
+    b.set(i, e);
+    if (chain >= GROW_AT_CHAIN) {
+      grow(b);
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(Object key) {
+    Object k = asKey(key);
+    if (k == null) {
+      return null;
+    }
+    int hash = hashOf(k);
+    ManagedArray<Entry> b = buckets();
+    long i = indexFor(hash, b.longSize());
+    Entry prev = null;
+    Entry e = b.get(i);
+    while (e != null) {
+      Entry next = type_.next.get(e);
+      if (matches(e, k, hash)) {
+        if (prev == null) {
+          b.set(i, next);
+        } else {
+          type_.next.set(prev, next);
+        }
+        return type_.value.get(e);
+      }
+      prev = e;
+      e = next;
+    }
+    return null;
+  }
+
+  /*
+   * Relinks every entry into a bucket array twice the size.  This writes the
+   * header, so it conflicts with anything else done to the map in parallel.
+   */
+  private void grow(ManagedArray<Entry> old) {
+    long n = old.longSize();
+    if (n >= MAX_CAPACITY) {
+      return;
+    }
+    long n2 = n * 2;
+    ManagedArray<Entry> b = type_.entryArrayType.create(n2);
+    for (long i = 0; i < n; i++) {
+      Entry e = old.get(i);
+      while (e != null) {
+        Entry next = type_.next.get(e);
+        long j = indexFor(type_.hash.getInt(e), n2);
+        type_.next.set(e, b.get(j));
+        b.set(j, e);
+        e = next;
+      }
+    }
+    type_.buckets.set(header_, b);
+  }
+
+  @Override
+  public long longSize() {
+    ManagedArray<Entry> b = buckets();
+    long n = b.longSize();
+    long count = 0;
+    for (long i = 0; i < n; i++) {
+      for (Entry e = b.get(i); e != null; e = type_.next.get(e)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int size() {
+    return ManagedMap.super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    ManagedArray<Entry> b = buckets();
+    long n = b.longSize();
+    for (long i = 0; i < n; i++) {
+      if (b.get(i) != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    type_.buckets.set(header_, type_.entryArrayType.create(DEFAULT_CAPACITY));
+  }
+
+  @Override
+  public void replaceAll(Function<? super K, ? extends V> function) {
+    for (Map.Entry<K,V> e : entrySet()) {
+      e.setValue(function.apply(e.getKey()));
+    }
+  }
+
+  class MapEntry implements Map.Entry<K,V> {
+    final Entry entry;
+
+    MapEntry(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public K getKey() {
+      return type_.key.get(entry);
+    }
+
+    @Override
+    public V getValue() {
+      return type_.value.get(entry);
+    }
+
+    @Override
+    public V setValue(V value) {
+      return type_.value.getAndSet(entry, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+      return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  class EntryIterator implements Iterator<Map.Entry<K,V>> {
+    final ManagedArray<Entry> buckets = buckets();
+    final long nBuckets = buckets.longSize();
+    long index = 0;
+    Entry next;
+    Entry last;
+
+    EntryIterator() {
+      next = nextFrom(null);
+    }
+
+    private Entry nextFrom(Entry e) {
+      Entry n = e == null ? null : type_.next.get(e);
+      while (n == null && index < nBuckets) {
+        n = buckets.get(index++);
+      }
+      return n;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K,V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      next = nextFrom(next);
+      return new MapEntry(last);
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      ManagedHashMapProxy.this.remove(type_.key.get(last));
+      last = null;
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<K,V>> entrySet() {
+    return new AbstractSet<Map.Entry<K,V>>() {
+      @Override
+      public Iterator<Map.Entry<K,V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return ManagedHashMapProxy.this.size();
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return ManagedHashMapProxy.this.isEmpty();
+      }
+
+      @Override
+      public void clear() {
+        ManagedHashMapProxy.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public ManagedHashMapTypeProxy<K,V> type() {
+    return type_;
+  }
+
+  @Override
+  public ManagedType<K> keyType() {
+    return type_.keyType();
+  }
+
+  @Override
+  public ManagedType<V> valueType() {
+    return type_.valueType();
+  }
+
+  @Override
+  public boolean isIdentical(ManagedComposite other) {
+    return other instanceof ManagedHashMapProxy
+      && header_.isIdentical(((ManagedHashMapProxy<?,?>)other).header_);
+  }
+
+  @Override
+  public boolean isSameObject(ManagedComposite other) {
+    return other instanceof ManagedHashMapProxy
+      && header_.isSameObject(((ManagedHashMapProxy<?,?>)other).header_);
+  }
+
+  @Override
+  public boolean isSameViewOfSameObject(ManagedComposite other) {
+    return other instanceof ManagedHashMapProxy
+      && header_.isSameViewOfSameObject(((ManagedHashMapProxy<?,?>)other).header_);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    return o instanceof ManagedComposite && isSameViewOfSameObject((ManagedComposite)o);
+  }
+
+  @Override
+  public int hashCode() {
+    return header_.hashCode();
+  }
+
+  @Override
+  public ManagedMap<K,V> bindName(Prior prior, Namespace ns, CharSequence name) {
+    return type_.bindIn(ns, name, this, prior);
+  }
+
+  @Override
+  public ManagedMap<K,V> using(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> inherentUsage(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> usageDuring(UsageScope scope, ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> using(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> inherentUsage(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> usageDuring(UsageScope scope, ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+}
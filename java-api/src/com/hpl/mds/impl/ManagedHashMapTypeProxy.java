@@ -0,0 +1,245 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hpl.mds.Field;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.prim.field.IntField;
+import com.hpl.mds.string.ManagedMapFromString;
+import com.hpl.mds.string.ManagedString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Entry;
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * The type of a ManagedHashMapProxy with given key and value types.  The
+ * map's header and entry records get record types of their own for each
+ * pair, named after the key and value types, so that the same map type
+ * declared in another process finds the same record types.
+ */
+public class ManagedHashMapTypeProxy<K extends ManagedObject, V extends ManagedObject>
+  implements ManagedMap.Type<K,V> {
+
+  private static final ConcurrentMap<List<ManagedType<?>>, ManagedHashMapTypeProxy<?,?>> known_
+    = new ConcurrentHashMap<>();
+
+  private final ManagedType<K> keyType_;
+  private final ManagedType<V> valueType_;
+  final String name;
+  final RecordTypeProxy<Header> headerType;
+  final RecordTypeProxy<Entry> entryType;
+  final RecordArrayTypeProxy<Entry> entryArrayType;
+  final Field<Entry,K> key;
+  final IntField<Entry> hash;
+  final Field<Entry,V> value;
+  final RecordFieldProxy<Entry,Entry> next;
+  final RecordArrayFieldProxy<Header,Entry> buckets;
+
+  ManagedHashMapTypeProxy(ManagedType<K> keyType, ManagedType<V> valueType) {
+    keyType_ = keyType;
+    valueType_ = valueType;
+    name = String.format("com.hpl.mds.ManagedHashMap<%s,%s>", typeName(keyType), typeName(valueType));
+
+    RecordType<Entry> et = RecordType.declare(name + ".Entry", Entry.class);
+    entryType = RecordTypeProxy.downcast(et);
+    key = keyType.fieldIn(et, "key");
+    hash = et.intField("hash");
+    value = valueType.fieldIn(et, "value");
+    next = entryType.fieldIn(et, "next");
+    et.ensureCreated();
+    entryArrayType = RecordArrayTypeProxy.forType(entryType);
+
+    RecordType<Header> ht = RecordType.declare(name, Header.class);
+    headerType = RecordTypeProxy.downcast(ht);
+    buckets = entryArrayType.fieldIn(ht, "buckets");
+    ht.ensureCreated();
+  }
+
+  /*
+   * A name for the type that's the same in every process.
+   */
+  static String typeName(ManagedType<?> type) {
+    if (type instanceof RecordType) {
+      return ((RecordType<?>)type).name().toString();
+    } else if (type instanceof ManagedArray.Type) {
+      return typeName(((ManagedArray.Type<?>)type).eltType()) + "[]";
+    } else if (type instanceof ManagedHashMapTypeProxy) {
+      return ((ManagedHashMapTypeProxy<?,?>)type).name;
+    } else if (type instanceof ManagedListTypeProxy) {
+      return ((ManagedListTypeProxy<?>)type).name;
+    } else if (type instanceof ManagedSkipListMapTypeProxy) {
+      return ((ManagedSkipListMapTypeProxy<?,?>)type).name;
+    } else if (type instanceof ManagedHashSetTypeProxy) {
+      return ((ManagedHashSetTypeProxy<?>)type).name;
+    } else if (type instanceof ManagedKeyedHashSetTypeProxy) {
+      return ((ManagedKeyedHashSetTypeProxy<?,?>)type).name;
+    }
+    return type.getClass().getSimpleName();
+  }
+
+  public static <K extends ManagedObject, V extends ManagedObject>
+  ManagedHashMapTypeProxy<K,V> forTypes(ManagedType<K> keyType, ManagedType<V> valueType) {
+    if (keyType instanceof ManagedString.Type) {
+      @SuppressWarnings("unchecked")
+      ManagedHashMapTypeProxy<K,V> t = (ManagedHashMapTypeProxy<K,V>)fromString(valueType);
+      return t;
+    }
+    return lookup(keyType, valueType, () -> new ManagedHashMapTypeProxy<>(keyType, valueType));
+  }
+
+  public static <V extends ManagedObject>
+  ManagedStringHashMapTypeProxy<V> fromString(ManagedType<V> valueType) {
+    return lookup(ManagedString.TYPE, valueType, () -> new ManagedStringHashMapTypeProxy<>(valueType));
+  }
+
+  private static <T extends ManagedHashMapTypeProxy<?,?>>
+  T lookup(ManagedType<?> keyType, ManagedType<?> valueType, java.util.function.Supplier<T> creator) {
+    ManagedHashMapTypeProxy<?,?> t = known_.computeIfAbsent(Arrays.asList(keyType, valueType), k -> creator.get());
+    @SuppressWarnings("unchecked")
+    T downcast = (T)t;
+    return downcast;
+  }
+
+  Entry newEntry() {
+    return new Entry(entryType);
+  }
+
+  ManagedHashMapProxy<K,V> wrap(Header header) {
+    return header == null ? null : new ManagedHashMapProxy<>(this, header);
+  }
+
+  ManagedHashMapProxy<K,V> create(long capacity) {
+    long n = ManagedHashMapProxy.DEFAULT_CAPACITY;
+    while (n < capacity && n < ManagedHashMapProxy.MAX_CAPACITY) {
+      n <<= 1;
+    }
+    Header h = new Header(headerType);
+    buckets.set(h, entryArrayType.create(n));
+    return wrap(h);
+  }
+
+  @Override
+  public ManagedType<K> keyType() {
+    return keyType_;
+  }
+
+  @Override
+  public ManagedType<V> valueType() {
+    return valueType_;
+  }
+
+  @Override
+  public ManagedMap<K,V> create() {
+    return create(ManagedHashMapProxy.DEFAULT_CAPACITY);
+  }
+
+  /*
+   * Of the hints, only expectedSize() is used, to size the bucket array so
+   * that the map won't have to grow, and parallel puts of distinct keys are
+   * less likely to land in the same bucket.
+   */
+  @Override
+  public ManagedMap<K,V> create(ManagedMap.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedMap<K,V> create(ManagedContainer.Usage hints) {
+    return create(hints.cast(ManagedMap.Usage.class));
+  }
+
+  @Override
+  public ManagedMap<K,V> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> MapFieldProxy<RT,K,V> fieldIn(RecordType<RT> recType, CharSequence name) {
+    return new MapFieldProxy<>(this, this::wrap, headerType.fieldIn(recType, name));
+  }
+
+  @Override
+  public <RT extends ManagedRecord> MapFieldProxy<RT,K,V> findFieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> lookupName(Namespace ns, CharSequence name) {
+    return wrap(headerType.lookupName(ns, name));
+  }
+
+  @Override
+  public ManagedMap<K,V> bindIn(Namespace ns, CharSequence name, ManagedMap<K,V> val, Prior prior) {
+    headerType.bindIn(ns, name, ManagedHashMapProxy.headerOf(val), prior);
+    return val;
+  }
+
+  @Override
+  public ManagedArray.Type<ManagedMap<K,V>> inArray() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList.Type<ManagedMap<K,V>> inList() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet.Type<ManagedMap<K,V>> inSet() {
+    return ManagedHashSetTypeProxy.forType(this);
+  }
+
+  @Override
+  public <K2 extends ManagedObject> ManagedMap.Type<K2, ManagedMap<K,V>> inMapFrom(ManagedType<K2> keyType) {
+    return forTypes(keyType, this);
+  }
+
+  @Override
+  public ManagedMapFromString.Type<ManagedMap<K,V>> inMapFromString() {
+    return fromString(this);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
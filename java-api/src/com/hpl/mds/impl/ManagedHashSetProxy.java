@@ -0,0 +1,182 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Objects;
+
+import com.hpl.mds.ManagedComposite;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.usage.UsagePlan;
+import com.hpl.mds.usage.UsageScope;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * A hash set in the managed heap.  The set is a ManagedHashMapProxy from
+ * each element to itself, so it shares the map's layout and the map's
+ * behavior in parallel contexts: adding or removing an element touches only
+ * its bucket and entry, so two contexts adding different elements only
+ * conflict when the elements share a bucket, and there's no element count to
+ * conflict on.
+ *
+ * Equality is that of the underlying managed object, as for maps, not the
+ * element-wise equality of java.util.Set.
+ */
+public class ManagedHashSetProxy<T extends ManagedObject> extends AbstractSet<T> implements ManagedSet<T> {
+
+  protected final ManagedHashSetTypeProxy<T> type_;
+  protected final ManagedHashMapProxy<T,T> map_;
+
+  ManagedHashSetProxy(ManagedHashSetTypeProxy<T> type, ManagedHashMapProxy<T,T> map) {
+    type_ = type;
+    map_ = map;
+  }
+
+  /*
+   * The header of the map behind either kind of hash set.
+   */
+  static Header headerOf(ManagedSet<?> set) {
+    if (set instanceof ManagedKeyedHashSetProxy) {
+      return ManagedHashMapProxy.headerOf(((ManagedKeyedHashSetProxy<?,?>)set).index_);
+    }
+    ManagedHashSetProxy<?> p = (ManagedHashSetProxy<?>)set;
+    return p == null ? null : ManagedHashMapProxy.headerOf(p.map_);
+  }
+
+  @Override
+  public boolean add(T e) {
+    Objects.requireNonNull(e, "Managed sets don't take null elements");
+    return map_.putIfAbsent(e, e) == null;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return map_.containsKey(o);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return map_.remove(o) != null;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return map_.keySet().iterator();
+  }
+
+  @Override
+  public long longSize() {
+    return map_.longSize();
+  }
+
+  @Override
+  public int size() {
+    return ManagedSet.super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return map_.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    map_.clear();
+  }
+
+  @Override
+  public ManagedHashSetTypeProxy<T> type() {
+    return type_;
+  }
+
+  @Override
+  public ManagedType<T> eltType() {
+    return type_.eltType();
+  }
+
+  @Override
+  public boolean isIdentical(ManagedComposite other) {
+    return other instanceof ManagedHashSetProxy
+      && map_.isIdentical(((ManagedHashSetProxy<?>)other).map_);
+  }
+
+  @Override
+  public boolean isSameObject(ManagedComposite other) {
+    return other instanceof ManagedHashSetProxy
+      && map_.isSameObject(((ManagedHashSetProxy<?>)other).map_);
+  }
+
+  @Override
+  public boolean isSameViewOfSameObject(ManagedComposite other) {
+    return other instanceof ManagedHashSetProxy
+      && map_.isSameViewOfSameObject(((ManagedHashSetProxy<?>)other).map_);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    return o instanceof ManagedComposite && isSameViewOfSameObject((ManagedComposite)o);
+  }
+
+  @Override
+  public int hashCode() {
+    return map_.hashCode();
+  }
+
+  @Override
+  public ManagedSet<T> bindName(Prior prior, Namespace ns, CharSequence name) {
+    return type_.bindIn(ns, name, this, prior);
+  }
+
+  @Override
+  public ManagedSet<T> using(ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet<T> inherentUsage(ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet<T> usageDuring(UsageScope scope, ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+}
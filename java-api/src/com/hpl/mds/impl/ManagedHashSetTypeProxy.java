@@ -0,0 +1,167 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedCollection;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.SetField;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.string.ManagedMapFromString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * The type of a ManagedHashSetProxy with a given element type.  The set is
+ * stored as the map from the element type to itself, so it uses that map
+ * type's record types.
+ */
+public class ManagedHashSetTypeProxy<T extends ManagedObject> implements ManagedSet.Type<T> {
+
+  private static final ConcurrentMap<ManagedType<?>, ManagedHashSetTypeProxy<?>> known_
+    = new ConcurrentHashMap<>();
+
+  private final ManagedType<T> eltType_;
+  final String name;
+  final ManagedHashMapTypeProxy<T,T> mapType;
+
+  ManagedHashSetTypeProxy(ManagedType<T> eltType) {
+    eltType_ = eltType;
+    name = String.format("com.hpl.mds.ManagedHashSet<%s>", ManagedHashMapTypeProxy.typeName(eltType));
+    mapType = ManagedHashMapTypeProxy.forTypes(eltType, eltType);
+  }
+
+  public static <T extends ManagedObject> ManagedHashSetTypeProxy<T> forType(ManagedType<T> eltType) {
+    ManagedHashSetTypeProxy<?> t = known_.computeIfAbsent(eltType, k -> new ManagedHashSetTypeProxy<>(eltType));
+    @SuppressWarnings("unchecked")
+    ManagedHashSetTypeProxy<T> downcast = (ManagedHashSetTypeProxy<T>)t;
+    return downcast;
+  }
+
+  ManagedHashSetProxy<T> wrap(Header header) {
+    return header == null ? null : new ManagedHashSetProxy<>(this, mapType.wrap(header));
+  }
+
+  ManagedHashSetProxy<T> create(long capacity) {
+    return new ManagedHashSetProxy<>(this, mapType.create(capacity));
+  }
+
+  @Override
+  public ManagedType<T> eltType() {
+    return eltType_;
+  }
+
+  @Override
+  public ManagedSet<T> create() {
+    return create(ManagedHashMapProxy.DEFAULT_CAPACITY);
+  }
+
+  /*
+   * As for maps, only expectedSize() is used, to size the bucket array.
+   */
+  @Override
+  public ManagedSet<T> create(ManagedSet.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedSet<T> create(ManagedCollection.Usage hints) {
+    return create(hints.cast(ManagedSet.Usage.class));
+  }
+
+  @Override
+  public ManagedSet<T> create(ManagedContainer.Usage hints) {
+    return create(hints.cast(ManagedSet.Usage.class));
+  }
+
+  @Override
+  public ManagedSet<T> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> SetField<RT,T> fieldIn(RecordType<RT> recType, CharSequence name) {
+    return new SetFieldProxy<>(this, this::wrap, mapType.headerType.fieldIn(recType, name));
+  }
+
+  @Override
+  public <RT extends ManagedRecord> SetField<RT,T> findFieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet<T> lookupName(Namespace ns, CharSequence name) {
+    return wrap(mapType.headerType.lookupName(ns, name));
+  }
+
+  @Override
+  public ManagedSet<T> bindIn(Namespace ns, CharSequence name, ManagedSet<T> val, Prior prior) {
+    mapType.headerType.bindIn(ns, name, ManagedHashSetProxy.headerOf(val), prior);
+    return val;
+  }
+
+  @Override
+  public ManagedArray.Type<ManagedSet<T>> inArray() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList.Type<ManagedSet<T>> inList() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet.Type<ManagedSet<T>> inSet() {
+    return forType(this);
+  }
+
+  @Override
+  public <K extends ManagedObject> ManagedMap.Type<K, ManagedSet<T>> inMapFrom(ManagedType<K> keyType) {
+    return ManagedHashMapTypeProxy.forTypes(keyType, this);
+  }
+
+  @Override
+  public ManagedMapFromString.Type<ManagedSet<T>> inMapFromString() {
+    return ManagedHashMapTypeProxy.fromString(this);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.hpl.mds.ManagedComposite;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.keyed.Keyed;
+import com.hpl.mds.keyed.ManagedKeyedSet;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.usage.UsagePlan;
+import com.hpl.mds.usage.UsageScope;
+
+/*
+ * A keyed set in the managed heap.  The set is a ManagedHashMapProxy from
+ * each element's key to its value, so the map is an index from key to
+ * element: finding, adding or removing by key is a walk of one bucket, and,
+ * as for ManagedHashSetProxy, two contexts adding elements with different
+ * keys only conflict when the keys share a bucket.
+ *
+ * The Keyed elements themselves aren't stored.  Iterating hands out a
+ * KeyedImpl for each key and value, and adding one stores its key and
+ * value.  Since Keyeds are equal when their keys are, adding a value under
+ * a key already in the set leaves the set as it was.
+ */
+public class ManagedKeyedHashSetProxy<EK extends ManagedObject, V extends ManagedObject>
+  extends AbstractSet<Keyed<EK,V>> implements ManagedKeyedSet<EK,V> {
+
+  protected final ManagedKeyedHashSetTypeProxy<EK,V> type_;
+  protected final ManagedHashMapProxy<EK,V> index_;
+
+  ManagedKeyedHashSetProxy(ManagedKeyedHashSetTypeProxy<EK,V> type, ManagedHashMapProxy<EK,V> index) {
+    type_ = type;
+    index_ = index;
+  }
+
+  @Override
+  public boolean addKeyed(V val, EK eqKey) {
+    Objects.requireNonNull(eqKey, "Keyed sets don't take null keys");
+    Objects.requireNonNull(val, "Keyed sets don't take null values");
+    return index_.putIfAbsent(eqKey, val) == null;
+  }
+
+  @Override
+  public boolean addKeyed(V val, Function<? super V, ? extends EK> keyFn) {
+    return addKeyed(val, keyFn.apply(val));
+  }
+
+  @Override
+  public boolean add(Keyed<EK,V> e) {
+    return addKeyed(e.value(), e.key());
+  }
+
+  @Override
+  public boolean containsKey(EK key) {
+    return index_.containsKey(key);
+  }
+
+  @Override
+  public V valueFor(EK key) {
+    return index_.get(key);
+  }
+
+  @Override
+  public V removeKey(EK key) {
+    return index_.remove(key);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Keyed && index_.containsKey(((Keyed<?,?>)o).key());
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return o instanceof Keyed && index_.remove(((Keyed<?,?>)o).key()) != null;
+  }
+
+  @Override
+  public Iterator<Keyed<EK,V>> iterator() {
+    Iterator<Map.Entry<EK,V>> entries = index_.entrySet().iterator();
+    KeyedTypeProxy<EK,V> eltType = type_.eltType();
+    return new Iterator<Keyed<EK,V>>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public Keyed<EK,V> next() {
+        Map.Entry<EK,V> e = entries.next();
+        return new KeyedImpl<>(e.getKey(), e.getValue(), eltType);
+      }
+
+      @Override
+      public void remove() {
+        entries.remove();
+      }
+    };
+  }
+
+  @Override
+  public long longSize() {
+    return index_.longSize();
+  }
+
+  @Override
+  public int size() {
+    return ManagedKeyedSet.super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return index_.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    index_.clear();
+  }
+
+  @Override
+  public ManagedKeyedHashSetTypeProxy<EK,V> type() {
+    return type_;
+  }
+
+  @Override
+  public KeyedTypeProxy<EK,V> eltType() {
+    return type_.eltType();
+  }
+
+  @Override
+  public boolean isIdentical(ManagedComposite other) {
+    return other instanceof ManagedKeyedHashSetProxy
+      && index_.isIdentical(((ManagedKeyedHashSetProxy<?,?>)other).index_);
+  }
+
+  @Override
+  public boolean isSameObject(ManagedComposite other) {
+    return other instanceof ManagedKeyedHashSetProxy
+      && index_.isSameObject(((ManagedKeyedHashSetProxy<?,?>)other).index_);
+  }
+
+  @Override
+  public boolean isSameViewOfSameObject(ManagedComposite other) {
+    return other instanceof ManagedKeyedHashSetProxy
+      && index_.isSameViewOfSameObject(((ManagedKeyedHashSetProxy<?,?>)other).index_);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    return o instanceof ManagedComposite && isSameViewOfSameObject((ManagedComposite)o);
+  }
+
+  @Override
+  public int hashCode() {
+    return index_.hashCode();
+  }
+
+  @Override
+  public ManagedSet<Keyed<EK,V>> bindName(Prior prior, Namespace ns, CharSequence name) {
+    return type_.bindIn(ns, name, this, prior);
+  }
+
+  @Override
+  public ManagedSet<Keyed<EK,V>> using(ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet<Keyed<EK,V>> inherentUsage(ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet<Keyed<EK,V>> usageDuring(UsageScope scope, ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedSet.Usage hint) {
+    return Stub.notImplemented();
+  }
+}
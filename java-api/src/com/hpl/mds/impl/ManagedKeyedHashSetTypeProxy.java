@@ -0,0 +1,171 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedCollection;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.SetField;
+import com.hpl.mds.keyed.Keyed;
+import com.hpl.mds.keyed.ManagedAutoKeyedSet;
+import com.hpl.mds.keyed.ManagedKeyedSet;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.string.ManagedMapFromString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * The type of a ManagedKeyedHashSetProxy with given key and value types.
+ * The set is stored as the map from the key type to the value type, so it
+ * uses that map type's record types.  The same type serves for sets of
+ * AutoKeyed values, which differ only in how they're added to.
+ */
+public class ManagedKeyedHashSetTypeProxy<EK extends ManagedObject, V extends ManagedObject>
+  implements ManagedAutoKeyedSet.Type<EK,V> {
+
+  private final KeyedTypeProxy<EK,V> eltType_;
+  final String name;
+  final ManagedHashMapTypeProxy<EK,V> mapType;
+
+  ManagedKeyedHashSetTypeProxy(KeyedTypeProxy<EK,V> eltType) {
+    eltType_ = eltType;
+    name = String.format("com.hpl.mds.ManagedKeyedHashSet<%s,%s>",
+                         ManagedHashMapTypeProxy.typeName(eltType.keyType()),
+                         ManagedHashMapTypeProxy.typeName(eltType.valueType()));
+    mapType = ManagedHashMapTypeProxy.forTypes(eltType.keyType(), eltType.valueType());
+  }
+
+  ManagedKeyedHashSetProxy<EK,V> wrap(Header header) {
+    return header == null ? null : new ManagedKeyedHashSetProxy<>(this, mapType.wrap(header));
+  }
+
+  ManagedKeyedHashSetProxy<EK,V> create(long capacity) {
+    return new ManagedKeyedHashSetProxy<>(this, mapType.create(capacity));
+  }
+
+  @Override
+  public KeyedTypeProxy<EK,V> eltType() {
+    return eltType_;
+  }
+
+  @Override
+  public ManagedKeyedSet<EK,V> create() {
+    return create(ManagedHashMapProxy.DEFAULT_CAPACITY);
+  }
+
+  /*
+   * As for maps, only expectedSize() is used, to size the bucket array.
+   */
+  @Override
+  public ManagedKeyedSet<EK,V> create(ManagedKeyedSet.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedKeyedSet<EK,V> create(ManagedAutoKeyedSet.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedKeyedSet<EK,V> create(ManagedSet.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedKeyedSet<EK,V> create(ManagedCollection.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedKeyedSet<EK,V> create(ManagedContainer.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedSet<Keyed<EK,V>> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> SetField<RT,Keyed<EK,V>> fieldIn(RecordType<RT> recType, CharSequence name) {
+    return new SetFieldProxy<>(this, this::wrap, mapType.headerType.fieldIn(recType, name));
+  }
+
+  @Override
+  public <RT extends ManagedRecord> SetField<RT,Keyed<EK,V>> findFieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedKeyedSet<EK,V> lookupName(Namespace ns, CharSequence name) {
+    return wrap(mapType.headerType.lookupName(ns, name));
+  }
+
+  @Override
+  public ManagedSet<Keyed<EK,V>> bindIn(Namespace ns, CharSequence name, ManagedSet<Keyed<EK,V>> val, Prior prior) {
+    mapType.headerType.bindIn(ns, name, ManagedHashSetProxy.headerOf(val), prior);
+    return val;
+  }
+
+  @Override
+  public ManagedArray.Type<ManagedSet<Keyed<EK,V>>> inArray() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList.Type<ManagedSet<Keyed<EK,V>>> inList() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet.Type<ManagedSet<Keyed<EK,V>>> inSet() {
+    return ManagedHashSetTypeProxy.forType(this);
+  }
+
+  @Override
+  public <K extends ManagedObject> ManagedMap.Type<K, ManagedSet<Keyed<EK,V>>> inMapFrom(ManagedType<K> keyType) {
+    return ManagedHashMapTypeProxy.forTypes(keyType, this);
+  }
+
+  @Override
+  public ManagedMapFromString.Type<ManagedSet<Keyed<EK,V>>> inMapFromString() {
+    return ManagedHashMapTypeProxy.fromString(this);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,921 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedComposite;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.usage.UsagePlan;
+import com.hpl.mds.usage.UsageScope;
+
+/*
+ * A list in the managed heap.  The list itself is a header record saying
+ * which of three layouts it uses, chosen from the Usage hints it was created
+ * with (or later given to using()):
+ *
+ *   CHUNKED  a directory of fixed-size chunks of elements.  Appending never
+ *            copies elements, only, now and then, the directory, and
+ *            indexing is two reads.  For ARRAY_LIST, STACK and by default.
+ *   RING     a ring buffer with a head index, so adding and removing at
+ *            either end is constant time and inserting or removing inside
+ *            shifts the shorter side.  For QUEUE and DEQUE, or when
+ *            ADD_FIRST or DELETE_FIRST is to be optimized.
+ *   LINKED   a doubly-linked chain of node records.  Indexing walks from the
+ *            nearer end, but inserting or removing through an iterator only
+ *            writes the neighbouring nodes, so it neither shifts elements nor
+ *            conflicts with changes elsewhere in the list.  For LINKED_LIST,
+ *            or when ADD_MIDDLE or DELETE_MIDDLE is to be optimized without
+ *            RANDOM_READ.
+ *
+ * Every layout keeps the element count in the header.
+ *
+ * A proxy reads the layout from the header on every operation, since
+ * using() changes it in place, copying the elements, and another proxy, or
+ * another isolation context, may see a different one.
+ *
+ * Equality is that of the underlying managed object, as for records and
+ * arrays, not the element-wise equality of java.util.List.
+ */
+public class ManagedListProxy<T extends ManagedObject>
+  extends AbstractList<T> implements ManagedList<T>, ManagedList.DequeView<T> {
+
+  static final int CHUNK_SHIFT = 8;
+  static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  static final int MIN_RING = 16;
+
+  public static class Header extends ManagedRecordProxy {
+    public Header(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Header(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  public static class Chunk extends ManagedRecordProxy {
+    public Chunk(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Chunk(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  public static class Node extends ManagedRecordProxy {
+    public Node(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Node(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  enum Layout {
+    CHUNKED, RING, LINKED;
+
+    /*
+     * The layout the hints ask for, or null if they don't say.
+     */
+    static Layout choose(UsageImpl u) {
+      if (u.isUsedAs(ManagedList.LINKED_LIST)) {
+        return LINKED;
+      }
+      if (u.isUsedAs(ManagedList.QUEUE) || u.isUsedAs(ManagedList.DEQUE)) {
+        return RING;
+      }
+      if (u.isUsedAs(ManagedList.ARRAY_LIST) || u.isUsedAs(ManagedList.STACK)) {
+        return CHUNKED;
+      }
+      if ((u.optimizesFor(ManagedList.ADD_MIDDLE) || u.optimizesFor(ManagedList.DELETE_MIDDLE))
+          && !u.optimizesFor(ManagedList.RANDOM_READ)) {
+        return LINKED;
+      }
+      if (u.optimizesFor(ManagedList.ADD_FIRST) || u.optimizesFor(ManagedList.DELETE_FIRST)) {
+        return RING;
+      }
+      if (u.optimizesFor(ManagedList.RANDOM_READ) || u.optimizesFor(ManagedList.RANDOM_WRITE)
+          || u.optimizesFor(ManagedList.ADD_LAST) || u.optimizesFor(ManagedList.DELETE_LAST)) {
+        return CHUNKED;
+      }
+      return null;
+    }
+  }
+
+  protected final ManagedListTypeProxy<T> type_;
+  protected final Header header_;
+  /*
+   * One of each, made when first needed.  They hold no state of their own.
+   */
+  private Rep chunked_;
+  private Rep ring_;
+  private Rep linked_;
+
+  ManagedListProxy(ManagedListTypeProxy<T> type, Header header) {
+    type_ = type;
+    header_ = header;
+  }
+
+  static Header headerOf(ManagedList<?> list) {
+    ManagedListProxy<?> p = (ManagedListProxy<?>)list;
+    return p == null ? null : p.header_;
+  }
+
+  void init(Layout kind, long capacity) {
+    type_.layout.set(header_, kind.ordinal());
+    type_.size.set(header_, 0);
+    repFor(kind).init(Math.max(capacity, 0));
+  }
+
+  private Rep repFor(Layout kind) {
+    switch (kind) {
+    case RING:
+      if (ring_ == null) {
+        ring_ = new Ring();
+      }
+      return ring_;
+    case LINKED:
+      if (linked_ == null) {
+        linked_ = new Linked();
+      }
+      return linked_;
+    default:
+      if (chunked_ == null) {
+        chunked_ = new Chunked();
+      }
+      return chunked_;
+    }
+  }
+
+  private Rep rep() {
+    return repFor(Layout.values()[type_.layout.getInt(header_)]);
+  }
+
+  Layout layout() {
+    return rep().kind();
+  }
+
+  /*
+   * Told, in order, the stretches of managed array that hold a list's
+   * elements.
+   */
+  interface RunSink<T extends ManagedObject> {
+    void run(ManagedArray<T> array, long from, long to);
+  }
+
+  /*
+   * Passes sink the runs of array slots holding the elements and returns
+   * true, or returns false if the layout doesn't keep them in arrays.
+   */
+  boolean forEachRun(RunSink<T> sink) {
+    return rep().forEachRun(sink, longSize());
+  }
+
+  private void checkIndex(long index, long size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private void checkPosition(long index, long size) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private void setSize(long n) {
+    type_.size.set(header_, n);
+  }
+
+  /*
+   * What each layout does.  Indices have already been checked, and the
+   * caller updates the size.
+   */
+  private abstract class Rep {
+    abstract Layout kind();
+    abstract void init(long capacity);
+    abstract void discard();
+    abstract T get(long index);
+    abstract T set(long index, T elt);
+    abstract void add(long index, long size, T elt);
+    abstract T remove(long index, long size);
+
+    Iterator<T> iterator() {
+      return ManagedListProxy.super.iterator();
+    }
+
+    boolean forEachRun(RunSink<T> sink, long size) {
+      return false;
+    }
+  }
+
+  private class Chunked extends Rep {
+    @Override
+    Layout kind() {
+      return Layout.CHUNKED;
+    }
+
+    @Override
+    void init(long capacity) {
+      type_.chunks.set(header_, null);
+      if (capacity > 0) {
+        ensureCapacity(capacity);
+      }
+    }
+
+    @Override
+    void discard() {
+      type_.chunks.set(header_, null);
+    }
+
+    private Chunk chunk(ManagedArray<Chunk> dir, long index) {
+      return dir.get(index >>> CHUNK_SHIFT);
+    }
+
+    /*
+     * The directory, with chunks for at least n elements.  Only allocates
+     * chunks that aren't there yet and, when the directory is full, copies
+     * it (not the elements) into one twice the size.
+     */
+    private ManagedArray<Chunk> ensureCapacity(long n) {
+      long needed = (n + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+      ManagedArray<Chunk> dir = type_.chunks.get(header_);
+      long have = dir == null ? 0 : dir.longSize();
+      if (have < needed) {
+        long len = Math.max(have, 1);
+        while (len < needed) {
+          len <<= 1;
+        }
+        ManagedArray<Chunk> bigger = type_.chunkArrayType.create(len);
+        for (long i = 0; i < have; i++) {
+          bigger.set(i, dir.get(i));
+        }
+        type_.chunks.set(header_, bigger);
+        dir = bigger;
+      }
+      for (long i = needed - 1; i >= 0 && dir.get(i) == null; i--) {
+        Chunk c = new Chunk(type_.chunkType);
+        type_.elts.set(c, type_.eltArrayType.create(CHUNK_SIZE));
+        dir.set(i, c);
+      }
+      return dir;
+    }
+
+    @Override
+    T get(long index) {
+      ManagedArray<Chunk> dir = type_.chunks.get(header_);
+      return type_.elts.get(chunk(dir, index)).get(index & (CHUNK_SIZE - 1));
+    }
+
+    @Override
+    T set(long index, T elt) {
+      ManagedArray<Chunk> dir = type_.chunks.get(header_);
+      return type_.elts.get(chunk(dir, index)).set(index & (CHUNK_SIZE - 1), elt);
+    }
+
+    /*
+     * Shifts everything from index up by one, a chunk at a time.
+     */
+    @Override
+    void add(long index, long size, T elt) {
+      ManagedArray<Chunk> dir = ensureCapacity(size + 1);
+      T carry = elt;
+      long i = index;
+      while (i <= size) {
+        ManagedArray<T> a = type_.elts.get(chunk(dir, i));
+        long end = Math.min(size, (i | (CHUNK_SIZE - 1)));
+        for (; i <= end; i++) {
+          carry = a.set(i & (CHUNK_SIZE - 1), carry);
+        }
+      }
+    }
+
+    /*
+     * Shifts everything after index down by one, a chunk at a time.
+     */
+    @Override
+    T remove(long index, long size) {
+      ManagedArray<Chunk> dir = type_.chunks.get(header_);
+      T carry = null;
+      long i = size - 1;
+      while (i >= index) {
+        ManagedArray<T> a = type_.elts.get(chunk(dir, i));
+        long start = Math.max(index, i & ~(long)(CHUNK_SIZE - 1));
+        for (; i >= start; i--) {
+          carry = a.set(i & (CHUNK_SIZE - 1), carry);
+        }
+      }
+      return carry;
+    }
+
+    @Override
+    boolean forEachRun(RunSink<T> sink, long size) {
+      ManagedArray<Chunk> dir = type_.chunks.get(header_);
+      for (long i = 0; i < size; i += CHUNK_SIZE) {
+        sink.run(type_.elts.get(chunk(dir, i)), 0, Math.min(size - i, CHUNK_SIZE));
+      }
+      return true;
+    }
+  }
+
+  private class Ring extends Rep {
+    @Override
+    Layout kind() {
+      return Layout.RING;
+    }
+
+    @Override
+    void init(long capacity) {
+      long len = MIN_RING;
+      while (len < capacity) {
+        len <<= 1;
+      }
+      type_.head.set(header_, 0);
+      type_.ring.set(header_, type_.eltArrayType.create(len));
+    }
+
+    @Override
+    void discard() {
+      type_.ring.set(header_, null);
+    }
+
+    @Override
+    T get(long index) {
+      ManagedArray<T> r = type_.ring.get(header_);
+      return r.get((type_.head.getLong(header_) + index) & (r.longSize() - 1));
+    }
+
+    @Override
+    T set(long index, T elt) {
+      ManagedArray<T> r = type_.ring.get(header_);
+      return r.set((type_.head.getLong(header_) + index) & (r.longSize() - 1), elt);
+    }
+
+    /*
+     * Copies the elements to the start of a ring twice the size.
+     */
+    private ManagedArray<T> grow(ManagedArray<T> r, long head, long size) {
+      long mask = r.longSize() - 1;
+      ManagedArray<T> bigger = type_.eltArrayType.create(r.longSize() * 2);
+      for (long i = 0; i < size; i++) {
+        bigger.set(i, r.get((head + i) & mask));
+      }
+      type_.ring.set(header_, bigger);
+      type_.head.set(header_, 0);
+      return bigger;
+    }
+
+    /*
+     * Makes room by moving whichever side of index is shorter.
+     */
+    @Override
+    void add(long index, long size, T elt) {
+      ManagedArray<T> r = type_.ring.get(header_);
+      long head = type_.head.getLong(header_);
+      if (size == r.longSize()) {
+        r = grow(r, head, size);
+        head = 0;
+      }
+      long mask = r.longSize() - 1;
+      if (index < size / 2) {
+        head = (head - 1) & mask;
+        for (long i = 0; i < index; i++) {
+          r.set((head + i) & mask, r.get((head + i + 1) & mask));
+        }
+        type_.head.set(header_, head);
+      } else {
+        for (long i = size; i > index; i--) {
+          r.set((head + i) & mask, r.get((head + i - 1) & mask));
+        }
+      }
+      r.set((head + index) & mask, elt);
+    }
+
+    @Override
+    T remove(long index, long size) {
+      ManagedArray<T> r = type_.ring.get(header_);
+      long head = type_.head.getLong(header_);
+      long mask = r.longSize() - 1;
+      T old = r.get((head + index) & mask);
+      if (index < size / 2) {
+        for (long i = index; i > 0; i--) {
+          r.set((head + i) & mask, r.get((head + i - 1) & mask));
+        }
+        r.set(head, null);
+        type_.head.set(header_, (head + 1) & mask);
+      } else {
+        for (long i = index; i < size - 1; i++) {
+          r.set((head + i) & mask, r.get((head + i + 1) & mask));
+        }
+        r.set((head + size - 1) & mask, null);
+      }
+      return old;
+    }
+
+    /*
+     * One run, or two if the elements wrap around the end of the ring.
+     */
+    @Override
+    boolean forEachRun(RunSink<T> sink, long size) {
+      ManagedArray<T> r = type_.ring.get(header_);
+      long head = type_.head.getLong(header_);
+      long end = head + size;
+      sink.run(r, head, Math.min(end, r.longSize()));
+      if (end > r.longSize()) {
+        sink.run(r, 0, end - r.longSize());
+      }
+      return true;
+    }
+  }
+
+  private class Linked extends Rep {
+    @Override
+    Layout kind() {
+      return Layout.LINKED;
+    }
+
+    @Override
+    void init(long capacity) {
+      discard();
+    }
+
+    @Override
+    void discard() {
+      type_.first.set(header_, null);
+      type_.last.set(header_, null);
+    }
+
+    private Node node(long index, long size) {
+      if (index < size / 2) {
+        Node n = type_.first.get(header_);
+        for (long i = 0; i < index; i++) {
+          n = type_.next.get(n);
+        }
+        return n;
+      }
+      Node n = type_.last.get(header_);
+      for (long i = size - 1; i > index; i--) {
+        n = type_.prev.get(n);
+      }
+      return n;
+    }
+
+    @Override
+    T get(long index) {
+      return type_.value.get(node(index, longSize()));
+    }
+
+    @Override
+    T set(long index, T elt) {
+      return type_.value.getAndSet(node(index, longSize()), elt);
+    }
+
+    /*
+     * Links a new node holding elt in before succ, or at the end if succ is
+     * null.
+     */
+    void linkBefore(Node succ, T elt) {
+      Node n = new Node(type_.nodeType);
+      type_.value.set(n, elt);
+      Node pred = succ == null ? type_.last.get(header_) : type_.prev.get(succ);
+      type_.prev.set(n, pred);
+      type_.next.set(n, succ);
+      if (pred == null) {
+        type_.first.set(header_, n);
+      } else {
+        type_.next.set(pred, n);
+      }
+      if (succ == null) {
+        type_.last.set(header_, n);
+      } else {
+        type_.prev.set(succ, n);
+      }
+    }
+
+    T unlink(Node n) {
+      Node pred = type_.prev.get(n);
+      Node succ = type_.next.get(n);
+      if (pred == null) {
+        type_.first.set(header_, succ);
+      } else {
+        type_.next.set(pred, succ);
+      }
+      if (succ == null) {
+        type_.last.set(header_, pred);
+      } else {
+        type_.prev.set(succ, pred);
+      }
+      return type_.value.get(n);
+    }
+
+    @Override
+    void add(long index, long size, T elt) {
+      linkBefore(index == size ? null : node(index, size), elt);
+    }
+
+    @Override
+    T remove(long index, long size) {
+      return unlink(node(index, size));
+    }
+
+    @Override
+    Iterator<T> iterator() {
+      return new Iterator<T>() {
+        Node next = type_.first.get(header_);
+        Node last;
+
+        @Override
+        public boolean hasNext() {
+          return next != null;
+        }
+
+        @Override
+        public T next() {
+          if (next == null) {
+            throw new NoSuchElementException();
+          }
+          last = next;
+          next = type_.next.get(next);
+          return type_.value.get(last);
+        }
+
+        @Override
+        public void remove() {
+          if (last == null) {
+            throw new IllegalStateException();
+          }
+          unlink(last);
+          setSize(longSize() - 1);
+          last = null;
+        }
+      };
+    }
+  }
+
+  @Override
+  public long longSize() {
+    return type_.size.getLong(header_);
+  }
+
+  @Override
+  public int size() {
+    return ManagedList.super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return longSize() == 0;
+  }
+
+  @Override
+  public T get(int index) {
+    checkIndex(index, longSize());
+    return rep().get(index);
+  }
+
+  @Override
+  public T set(int index, T element) {
+    checkIndex(index, longSize());
+    return rep().set(index, element);
+  }
+
+  @Override
+  public boolean add(T element) {
+    long n = longSize();
+    rep().add(n, n, element);
+    setSize(n + 1);
+    return true;
+  }
+
+  @Override
+  public void add(int index, T element) {
+    long n = longSize();
+    checkPosition(index, n);
+    rep().add(index, n, element);
+    setSize(n + 1);
+  }
+
+  @Override
+  public T remove(int index) {
+    long n = longSize();
+    checkIndex(index, n);
+    T old = rep().remove(index, n);
+    setSize(n - 1);
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    Rep r = rep();
+    r.discard();
+    r.init(0);
+    setSize(0);
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return rep().iterator();
+  }
+
+  /*
+   * Unless the list is linked, split by index range, so that parallel
+   * streams divide the work evenly and read in the caller's context.
+   */
+  @Override
+  public Spliterator<T> spliterator() {
+    Rep r = rep();
+    if (r.kind() == Layout.LINKED) {
+      return super.spliterator();
+    }
+    return ArraySpliterators.of(0, longSize(), (start, dst, len) -> {
+        for (int i = 0; i < len; i++) {
+          dst[i] = r.get(start + i);
+        }
+      });
+  }
+
+  @Override
+  public ManagedListTypeProxy<T> type() {
+    return type_;
+  }
+
+  @Override
+  public ManagedType<T> eltType() {
+    return type_.eltType();
+  }
+
+  @Override
+  public DequeView<T> asDeque() {
+    return this;
+  }
+
+  @Override
+  public ManagedList<T> asManagedList() {
+    return this;
+  }
+
+  // Deque
+
+  @Override
+  public void addFirst(T e) {
+    add(0, e);
+  }
+
+  @Override
+  public void addLast(T e) {
+    add(e);
+  }
+
+  @Override
+  public boolean offerFirst(T e) {
+    add(0, e);
+    return true;
+  }
+
+  @Override
+  public boolean offerLast(T e) {
+    return add(e);
+  }
+
+  @Override
+  public T removeFirst() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return remove(0);
+  }
+
+  @Override
+  public T removeLast() {
+    long n = longSize();
+    if (n == 0) {
+      throw new NoSuchElementException();
+    }
+    T old = rep().remove(n - 1, n);
+    setSize(n - 1);
+    return old;
+  }
+
+  @Override
+  public T pollFirst() {
+    return isEmpty() ? null : remove(0);
+  }
+
+  @Override
+  public T pollLast() {
+    return isEmpty() ? null : removeLast();
+  }
+
+  @Override
+  public T getFirst() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return rep().get(0);
+  }
+
+  @Override
+  public T getLast() {
+    long n = longSize();
+    if (n == 0) {
+      throw new NoSuchElementException();
+    }
+    return rep().get(n - 1);
+  }
+
+  @Override
+  public T peekFirst() {
+    return isEmpty() ? null : rep().get(0);
+  }
+
+  @Override
+  public T peekLast() {
+    long n = longSize();
+    return n == 0 ? null : rep().get(n - 1);
+  }
+
+  @Override
+  public boolean removeFirstOccurrence(Object o) {
+    return remove(o);
+  }
+
+  @Override
+  public boolean removeLastOccurrence(Object o) {
+    int i = lastIndexOf(o);
+    if (i < 0) {
+      return false;
+    }
+    remove(i);
+    return true;
+  }
+
+  @Override
+  public boolean offer(T e) {
+    return add(e);
+  }
+
+  @Override
+  public T remove() {
+    return removeFirst();
+  }
+
+  @Override
+  public T poll() {
+    return pollFirst();
+  }
+
+  @Override
+  public T element() {
+    return getFirst();
+  }
+
+  @Override
+  public T peek() {
+    return peekFirst();
+  }
+
+  @Override
+  public void push(T e) {
+    addFirst(e);
+  }
+
+  @Override
+  public T pop() {
+    return removeFirst();
+  }
+
+  @Override
+  public Iterator<T> descendingIterator() {
+    ListIterator<T> it = listIterator(size());
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return it.hasPrevious();
+      }
+
+      @Override
+      public T next() {
+        return it.previous();
+      }
+
+      @Override
+      public void remove() {
+        it.remove();
+      }
+    };
+  }
+
+  @Override
+  public boolean isIdentical(ManagedComposite other) {
+    return other instanceof ManagedListProxy
+      && header_.isIdentical(((ManagedListProxy<?>)other).header_);
+  }
+
+  @Override
+  public boolean isSameObject(ManagedComposite other) {
+    return other instanceof ManagedListProxy
+      && header_.isSameObject(((ManagedListProxy<?>)other).header_);
+  }
+
+  @Override
+  public boolean isSameViewOfSameObject(ManagedComposite other) {
+    return other instanceof ManagedListProxy
+      && header_.isSameViewOfSameObject(((ManagedListProxy<?>)other).header_);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    return o instanceof ManagedComposite && isSameViewOfSameObject((ManagedComposite)o);
+  }
+
+  @Override
+  public int hashCode() {
+    return header_.hashCode();
+  }
+
+  @Override
+  public ManagedList<T> bindName(Prior prior, Namespace ns, CharSequence name) {
+    return type_.bindIn(ns, name, this, prior);
+  }
+
+  /*
+   * Moves the elements into the layout the hints ask for, if that's not the
+   * one in use.  Hints that don't imply a layout change nothing.
+   */
+  @Override
+  public ManagedList<T> using(ManagedList.Usage hint) {
+    UsageImpl u = UsageImpl.of(hint);
+    Layout to = Layout.choose(u);
+    if (to != null && to != layout()) {
+      List<T> elts = new ArrayList<>(this);
+      rep().discard();
+      init(to, Math.max(elts.size(), u.expectedSize()));
+      Rep r = repFor(to);
+      long n = 0;
+      for (T elt : elts) {
+        r.add(n, n, elt);
+        n++;
+      }
+      setSize(n);
+    }
+    return this;
+  }
+
+  @Override
+  public ManagedList<T> inherentUsage(ManagedList.Usage hint) {
+    return using(hint);
+  }
+
+  @Override
+  public ManagedList<T> usageDuring(UsageScope scope, ManagedList.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedList.Usage hint) {
+    return Stub.notImplemented();
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hpl.mds.ArrayField;
+import com.hpl.mds.Field;
+import com.hpl.mds.ListField;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedCollection;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.prim.field.IntField;
+import com.hpl.mds.prim.field.LongField;
+import com.hpl.mds.string.ManagedMapFromString;
+
+import com.hpl.mds.impl.ManagedListProxy.Chunk;
+import com.hpl.mds.impl.ManagedListProxy.Header;
+import com.hpl.mds.impl.ManagedListProxy.Layout;
+import com.hpl.mds.impl.ManagedListProxy.Node;
+
+/*
+ * The type of a ManagedListProxy with a given element type.  Every layout
+ * shares the one header record type, which says which layout the list is
+ * using and holds the fields each layout needs, so a list field or a name
+ * can hold a list in any layout and a list can change layout in place.
+ */
+public class ManagedListTypeProxy<T extends ManagedObject> implements ManagedList.Type<T> {
+
+  private static final ConcurrentMap<ManagedType<?>, ManagedListTypeProxy<?>> known_
+    = new ConcurrentHashMap<>();
+
+  private final ManagedType<T> eltType_;
+  final String name;
+  final RecordTypeProxy<Header> headerType;
+  final RecordTypeProxy<Chunk> chunkType;
+  final RecordTypeProxy<Node> nodeType;
+  final RecordArrayTypeProxy<Chunk> chunkArrayType;
+  final ManagedArray.Type<T> eltArrayType;
+  // header
+  final IntField<Header> layout;
+  final LongField<Header> size;
+  final LongField<Header> head;
+  final ArrayField<Header,T> ring;
+  final RecordArrayFieldProxy<Header,Chunk> chunks;
+  final RecordFieldProxy<Header,Node> first;
+  final RecordFieldProxy<Header,Node> last;
+  // chunk
+  final ArrayField<Chunk,T> elts;
+  // node
+  final Field<Node,T> value;
+  final RecordFieldProxy<Node,Node> prev;
+  final RecordFieldProxy<Node,Node> next;
+
+  ManagedListTypeProxy(ManagedType<T> eltType) {
+    eltType_ = eltType;
+    name = String.format("com.hpl.mds.ManagedList<%s>", ManagedHashMapTypeProxy.typeName(eltType));
+    eltArrayType = eltType.inArray();
+
+    RecordType<Chunk> ct = RecordType.declare(name + ".Chunk", Chunk.class);
+    chunkType = RecordTypeProxy.downcast(ct);
+    elts = eltArrayType.fieldIn(ct, "elts");
+    ct.ensureCreated();
+    chunkArrayType = RecordArrayTypeProxy.forType(chunkType);
+
+    RecordType<Node> nt = RecordType.declare(name + ".Node", Node.class);
+    nodeType = RecordTypeProxy.downcast(nt);
+    value = eltType.fieldIn(nt, "value");
+    prev = nodeType.fieldIn(nt, "prev");
+    next = nodeType.fieldIn(nt, "next");
+    nt.ensureCreated();
+
+    RecordType<Header> ht = RecordType.declare(name, Header.class);
+    headerType = RecordTypeProxy.downcast(ht);
+    layout = ht.intField("layout");
+    size = ht.longField("size");
+    head = ht.longField("head");
+    ring = eltArrayType.fieldIn(ht, "ring");
+    chunks = chunkArrayType.fieldIn(ht, "chunks");
+    first = nodeType.fieldIn(ht, "first");
+    last = nodeType.fieldIn(ht, "last");
+    ht.ensureCreated();
+  }
+
+  public static <T extends ManagedObject> ManagedListTypeProxy<T> forType(ManagedType<T> eltType) {
+    ManagedListTypeProxy<?> t = known_.computeIfAbsent(eltType, k -> new ManagedListTypeProxy<>(eltType));
+    @SuppressWarnings("unchecked")
+    ManagedListTypeProxy<T> downcast = (ManagedListTypeProxy<T>)t;
+    return downcast;
+  }
+
+  ManagedListProxy<T> wrap(Header header) {
+    return header == null ? null : new ManagedListProxy<>(this, header);
+  }
+
+  ManagedListProxy<T> create(Layout kind, long capacity) {
+    Header h = new Header(headerType);
+    ManagedListProxy<T> list = wrap(h);
+    list.init(kind, capacity);
+    return list;
+  }
+
+  @Override
+  public ManagedType<T> eltType() {
+    return eltType_;
+  }
+
+  @Override
+  public ManagedList<T> create() {
+    return create(Layout.CHUNKED, 0);
+  }
+
+  @Override
+  public ManagedList<T> create(ManagedList.Usage hints) {
+    UsageImpl u = UsageImpl.of(hints);
+    return create(Layout.choose(u), u.expectedSize());
+  }
+
+  @Override
+  public ManagedList<T> create(ManagedCollection.Usage hints) {
+    return create(hints.cast(ManagedList.Usage.class));
+  }
+
+  @Override
+  public ManagedList<T> create(ManagedContainer.Usage hints) {
+    return create(hints.cast(ManagedList.Usage.class));
+  }
+
+  @Override
+  public ManagedList<T> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> ListField<RT,T> fieldIn(RecordType<RT> recType, CharSequence name) {
+    return new ListFieldProxy<>(this, headerType.fieldIn(recType, name));
+  }
+
+  @Override
+  public <RT extends ManagedRecord> ListField<RT,T> findFieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList<T> lookupName(Namespace ns, CharSequence name) {
+    return wrap(headerType.lookupName(ns, name));
+  }
+
+  @Override
+  public ManagedList<T> bindIn(Namespace ns, CharSequence name, ManagedList<T> val, Prior prior) {
+    headerType.bindIn(ns, name, ManagedListProxy.headerOf(val), prior);
+    return val;
+  }
+
+  @Override
+  public ManagedArray.Type<ManagedList<T>> inArray() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList.Type<ManagedList<T>> inList() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet.Type<ManagedList<T>> inSet() {
+    return ManagedHashSetTypeProxy.forType(this);
+  }
+
+  @Override
+  public <K extends ManagedObject> ManagedMap.Type<K, ManagedList<T>> inMapFrom(ManagedType<K> keyType) {
+    return ManagedHashMapTypeProxy.forTypes(keyType, this);
+  }
+
+  @Override
+  public ManagedMapFromString.Type<ManagedList<T>> inMapFromString() {
+    return ManagedHashMapTypeProxy.fromString(this);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
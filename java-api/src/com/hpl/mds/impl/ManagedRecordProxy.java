@@ -37,10 +37,12 @@ import com.hpl.mds.naming.Prior;
 public abstract class ManagedRecordProxy extends Proxy implements ManagedRecord {
 	
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(ManagedRecordProxy::release, ManagedRecordProxy::releaseBatch);
   
   protected final RecordTypeProxy<? extends ManagedRecord> type;
   private ManagedRecordProxy forward_;
   private boolean behavedWhileTypeInferred = false;
+  private int hash_ = 0;
   
   private static final Proxy.Table<ManagedRecordProxy> 
   proxyTable = new Proxy.Table.WithLargeCache<>(ManagedRecordProxy::release);
@@ -51,6 +53,7 @@ public abstract class ManagedRecordProxy extends Proxy implements ManagedRecord
   }
 
   private static native void release(long index);
+  private static native void releaseBatch(long[] handles);
   private static native long createRecord(long recTypeHandle, long ctxtHandle);
   private static native boolean isIdentical(long aHandle, long bHandle);
   private static native boolean isSameObject(long aHandle, long bHandle);
@@ -59,15 +62,12 @@ public abstract class ManagedRecordProxy extends Proxy implements ManagedRecord
   static native long getUUID(long recHandle);
   
   @Override
-  void releaseHandleIndex(long index) {
+  ProxyReclaimer.Domain reclaimDomain() {
     /*
-     * If we have a forward, it's the forward that does the release. 
-     * Since we hold a reference to it, it will necessarily outlive 
-     * us.
+     * If we get a forward, it's the forward that does the release
+     * (see forwardsTo()).
      */
-    if (forward_ == null || forward_ == this) {
-      proxyTable.release(index);
-    }
+    return RECLAIM;
   }
   
   public enum FromHandle { FROM_HANDLE};
@@ -113,6 +113,11 @@ public abstract class ManagedRecordProxy extends Proxy implements ManagedRecord
           RecordTypeProxy<? extends ManagedRecord> f = type.forward();
           if (f != null) {
             mrp = forward_ = (ManagedRecordProxy) f.createFromRecordHandle(handleIndex_);
+            /*
+             * The forward does the release.  Since we hold a reference
+             * to it, it will necessarily outlive us.
+             */
+            disownHandleIndex();
             /*
              * Now we need to make sure that it's the one in the table.  fromHandle() checks
              * the forward, but if the original gets collected, we won't be able to find
@@ -201,6 +206,16 @@ public abstract class ManagedRecordProxy extends Proxy implements ManagedRecord
     return isSameViewOfSameObject((ManagedComposite)o);
   }
 
+  // Has to agree with equals(), so it's based on the object, not the handle
+  @Override
+  public int hashCode() {
+    int h = hash_;
+    if (h == 0) {
+      h = hash_ = Long.hashCode(getUUID());
+    }
+    return h;
+  }
+
 
   @Override
   public boolean isIdentical(ManagedComposite other) {
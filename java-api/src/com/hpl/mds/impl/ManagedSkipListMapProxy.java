@@ -0,0 +1,779 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedComposite;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSortedMap;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.NativeLibraryLoader;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.string.ManagedString;
+import com.hpl.mds.task.Task;
+import com.hpl.mds.usage.UsagePlan;
+import com.hpl.mds.usage.UsageScope;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * A sorted map in the managed heap: a skip list.  Every entry is a node in
+ * the lowest list, linked by its next field, and each node in a list is
+ * also in the one above with probability 1/4, up to MAX_HEIGHT lists.  The
+ * map's header holds a head node that's in all of them.
+ *
+ * Putting a new key links its node in after its predecessor in each list
+ * it's in, so two contexts putting different keys only conflict when one's
+ * node goes right after the other's (or they share a predecessor), and
+ * putting an existing key only writes that node's value.  As with the hash
+ * map, there's no count or height in the header for every put to write:
+ * longSize() walks the lowest list and a search starts at the top of the
+ * head node.
+ *
+ * Iterating over the map or a range of it walks the lowest list from the
+ * range's first node and stops at its end, so a range costs the entries in
+ * it, not the size of the map.  Unless a task is recording what it reads,
+ * the walk follows the next links a batch of nodes at a time in one native
+ * call, with batches growing from FIRST_BATCH to MAX_BATCH, so a short
+ * range doesn't read much past its end.
+ *
+ * Equality is that of the underlying managed object, as for hash maps.
+ */
+public class ManagedSkipListMapProxy<K extends ManagedObject, V extends ManagedObject>
+  extends AbstractMap<K,V> implements ManagedSortedMap<K,V> {
+
+  private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+
+  static final int MAX_HEIGHT = 16;
+  static final int FIRST_BATCH = 8;
+  static final int MAX_BATCH = 256;
+
+  private static native int scan(long nodeHandle, long ctxtHandle, long nextFieldHandle, long[] handles);
+
+  public static class Node extends ManagedRecordProxy {
+    public Node(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Node(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  public static class Tower extends ManagedRecordProxy {
+    public Tower(RecordType<? extends ManagedRecord> type) {
+      super(type);
+    }
+
+    public Tower(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  protected final ManagedSkipListMapTypeProxy<K,V> type_;
+  protected final Header header_;
+
+  ManagedSkipListMapProxy(ManagedSkipListMapTypeProxy<K,V> type, Header header) {
+    type_ = type;
+    header_ = header;
+  }
+
+  static int randomHeight() {
+    int r = ThreadLocalRandom.current().nextInt();
+    int height = 1;
+    while (height < MAX_HEIGHT && (r & 3) == 0) {
+      height++;
+      r >>>= 2;
+    }
+    return height;
+  }
+
+  @SuppressWarnings("unchecked")
+  static int compare(Object a, Object b) {
+    return ((Comparable<Object>)a).compareTo(b);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static ManagedArray<Node>[] newLinks() {
+    return new ManagedArray[MAX_HEIGHT];
+  }
+
+  /*
+   * Keys we might be asked about that aren't ManagedObjects, but which stand
+   * for one (Strings, when the keys are ManagedStrings), are converted here.
+   * null if the key can't be in the map, which is the case for a string that
+   * was never interned; looking it up doesn't intern it.
+   */
+  Object asKey(Object key) {
+    if (key instanceof ManagedObject) {
+      return key;
+    } else if (key instanceof CharSequence && type_.keyType() instanceof ManagedString.Type) {
+      return ManagedStringProxy.find((CharSequence)key);
+    }
+    return null;
+  }
+
+  Node head() {
+    return type_.head.get(header_);
+  }
+
+  /*
+   * The links of n above the lowest list, or null if it's only in that one.
+   */
+  ManagedArray<Node> links(Node n) {
+    Tower t = type_.tower.get(n);
+    return t == null ? null : type_.links.get(t);
+  }
+
+  Node next(Node n, int level, ManagedArray<Node> links) {
+    return level == 0 ? type_.next.get(n) : links.get(level - 1);
+  }
+
+  void setNext(Node n, int level, ManagedArray<Node> links, Node to) {
+    if (level == 0) {
+      type_.next.set(n, to);
+    } else {
+      links.set(level - 1, to);
+    }
+  }
+
+  /*
+   * The last node whose key is less than key (or, if orEqual, not greater
+   * than it), or null if there isn't one.  A null key is greater than every
+   * key.  If preds isn't null, it's filled with the last such node, or the
+   * head, in each list, and predLinks with their links.
+   */
+  Node before(Object key, boolean orEqual, Node[] preds, ManagedArray<Node>[] predLinks) {
+    Node x = head();
+    ManagedArray<Node> xLinks = links(x);
+    boolean moved = false;
+    for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+      for (Node n = next(x, level, xLinks); n != null; n = next(x, level, xLinks)) {
+        int c = key == null ? -1 : compare(type_.key.get(n), key);
+        if (c > 0 || (c == 0 && !orEqual)) {
+          break;
+        }
+        x = n;
+        xLinks = level > 0 ? links(x) : null;
+        moved = true;
+      }
+      if (preds != null) {
+        preds[level] = x;
+        predLinks[level] = xLinks;
+      }
+    }
+    return moved ? x : null;
+  }
+
+  /*
+   * The first node whose key isn't less than key, or the first node if key
+   * is null.
+   */
+  Node ceiling(Object key) {
+    Node x = key == null ? null : before(key, false, null, null);
+    return type_.next.get(x == null ? head() : x);
+  }
+
+  Node nodeFor(Object key) {
+    Object k = asKey(key);
+    if (k == null) {
+      return null;
+    }
+    Node x = before(k, true, null, null);
+    return x != null && compare(type_.key.get(x), k) == 0 ? x : null;
+  }
+
+  /*
+   * Fills out with up to max nodes following from in the lowest list, and
+   * returns how many there were.
+   */
+  int follow(Node from, Node[] out, int max) {
+    if (Task.isTracking() && Task.current() != null) {
+      // the reads have to be seen by the task
+      int i = 0;
+      Node x = from;
+      while (i < max && (x = type_.next.get(x)) != null) {
+        out[i++] = x;
+      }
+      return i;
+    }
+    long[] handles = new long[max];
+    int count = scan(from.handleIndex(),
+                     IsoContextProxy.current().handleIndex(),
+                     type_.next.handleIndex(),
+                     handles);
+    for (int i = 0; i < count; i++) {
+      out[i] = ManagedRecordProxy.fromHandle(handles[i], type_.nodeType);
+    }
+    return count;
+  }
+
+  @Override
+  public V get(Object key) {
+    Node n = nodeFor(key);
+    return n == null ? null : type_.value.get(n);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return nodeFor(key) != null;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    Objects.requireNonNull(key, "Managed maps don't take null keys");
+    if (!(key instanceof Comparable)) {
+      throw new ClassCastException(key.getClass().getName() + " keys aren't Comparable");
+    }
+    Node[] preds = new Node[MAX_HEIGHT];
+    ManagedArray<Node>[] predLinks = newLinks();
+    Node x = before(key, true, preds, predLinks);
+    if (x != null && compare(type_.key.get(x), key) == 0) {
+      return type_.value.getAndSet(x, value);
+    }
+    int height = randomHeight();
+    Node n = type_.newNode(height);
+    type_.key.set(n, key);
+    type_.value.set(n, value);
+    ManagedArray<Node> nLinks = height > 1 ? links(n) : null;
+    for (int level = 0; level < height; level++) {
+      setNext(n, level, nLinks, next(preds[level], level, predLinks[level]));
+      setNext(preds[level], level, predLinks[level], n);
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(Object key) {
+    Object k = asKey(key);
+    if (k == null) {
+      return null;
+    }
+    Node[] preds = new Node[MAX_HEIGHT];
+    ManagedArray<Node>[] predLinks = newLinks();
+    before(k, false, preds, predLinks);
+    Node n = type_.next.get(preds[0]);
+    if (n == null || compare(type_.key.get(n), k) != 0) {
+      return null;
+    }
+    ManagedArray<Node> nLinks = links(n);
+    int height = nLinks == null ? 1 : (int)nLinks.longSize() + 1;
+    for (int level = 0; level < height; level++) {
+      setNext(preds[level], level, predLinks[level], next(n, level, nLinks));
+    }
+    return type_.value.get(n);
+  }
+
+  @Override
+  public long longSize() {
+    return count(null, null);
+  }
+
+  long count(Object lo, Object hi) {
+    long n = 0;
+    for (Iterator<Map.Entry<K,V>> it = entries(lo, hi); it.hasNext(); it.next()) {
+      n++;
+    }
+    return n;
+  }
+
+  @Override
+  public int size() {
+    return ManagedSortedMap.super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return type_.next.get(head()) == null;
+  }
+
+  @Override
+  public void clear() {
+    type_.head.set(header_, type_.newNode(MAX_HEIGHT));
+  }
+
+  @Override
+  public void replaceAll(Function<? super K, ? extends V> function) {
+    for (Map.Entry<K,V> e : entrySet()) {
+      e.setValue(function.apply(e.getKey()));
+    }
+  }
+
+  class MapEntry implements Map.Entry<K,V> {
+    final Node node;
+    final K key;
+
+    MapEntry(Node node, K key) {
+      this.node = node;
+      this.key = key;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return type_.value.get(node);
+    }
+
+    @Override
+    public V setValue(V value) {
+      return type_.value.getAndSet(node, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+      return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /*
+   * Walks the lowest list from the first key not less than lo to the last
+   * less than hi.  Either bound may be null.
+   */
+  class EntryIterator implements Iterator<Map.Entry<K,V>> {
+    final Object hi;
+    Node cursor;
+    Node[] batch;
+    int pos = 0;
+    int len = 0;
+    int batchSize = FIRST_BATCH;
+    Node nextNode;
+    K nextKey;
+    K lastKey;
+
+    EntryIterator(Object lo, Object hi) {
+      Node x = lo == null ? null : before(lo, false, null, null);
+      this.cursor = x == null ? head() : x;
+      this.hi = hi;
+      advance();
+    }
+
+    private void fill() {
+      pos = 0;
+      len = 0;
+      if (cursor == null) {
+        return;
+      }
+      if (batch == null || batch.length < batchSize) {
+        batch = new Node[batchSize];
+      }
+      len = follow(cursor, batch, batchSize);
+      cursor = len < batchSize ? null : batch[len - 1];
+      batchSize = Math.min(batchSize * 2, MAX_BATCH);
+    }
+
+    private void advance() {
+      if (pos == len) {
+        fill();
+      }
+      nextNode = null;
+      nextKey = null;
+      if (pos == len) {
+        return;
+      }
+      Node n = batch[pos];
+      batch[pos++] = null;
+      K k = type_.key.get(n);
+      if (hi != null && compare(k, hi) >= 0) {
+        cursor = null;
+        len = pos;
+        return;
+      }
+      nextNode = n;
+      nextKey = k;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextNode != null;
+    }
+
+    @Override
+    public Map.Entry<K,V> next() {
+      if (nextNode == null) {
+        throw new NoSuchElementException();
+      }
+      MapEntry e = new MapEntry(nextNode, nextKey);
+      lastKey = nextKey;
+      advance();
+      return e;
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw new IllegalStateException();
+      }
+      ManagedSkipListMapProxy.this.remove(lastKey);
+      lastKey = null;
+    }
+  }
+
+  Iterator<Map.Entry<K,V>> entries(Object lo, Object hi) {
+    return new EntryIterator(lo, hi);
+  }
+
+  /*
+   * Each step is a search for the last node before the key just returned,
+   * since nodes aren't linked backward.
+   */
+  @Override
+  public Iterator<Map.Entry<K,V>> descendingIterator() {
+    return new Iterator<Map.Entry<K,V>>() {
+      Node nextNode = before(null, false, null, null);
+      K lastKey;
+
+      @Override
+      public boolean hasNext() {
+        return nextNode != null;
+      }
+
+      @Override
+      public Map.Entry<K,V> next() {
+        if (nextNode == null) {
+          throw new NoSuchElementException();
+        }
+        K k = type_.key.get(nextNode);
+        MapEntry e = new MapEntry(nextNode, k);
+        nextNode = before(k, false, null, null);
+        lastKey = k;
+        return e;
+      }
+
+      @Override
+      public void remove() {
+        if (lastKey == null) {
+          throw new IllegalStateException();
+        }
+        ManagedSkipListMapProxy.this.remove(lastKey);
+        lastKey = null;
+      }
+    };
+  }
+
+  /*
+   * The entries from lo (inclusive) to hi (exclusive).  Either bound may be
+   * null, for no bound on that side.
+   */
+  class SubMap extends AbstractMap<K,V> implements SortedMap<K,V> {
+    final K lo;
+    final K hi;
+
+    SubMap(K lo, K hi) {
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    boolean inRange(Object k) {
+      return (lo == null || compare(k, lo) >= 0) && (hi == null || compare(k, hi) < 0);
+    }
+
+    K checkBound(K k) {
+      Objects.requireNonNull(k);
+      if ((lo != null && compare(k, lo) < 0) || (hi != null && compare(k, hi) > 0)) {
+        throw new IllegalArgumentException("key out of range");
+      }
+      return k;
+    }
+
+    @Override
+    public V get(Object key) {
+      Object k = asKey(key);
+      return k != null && inRange(k) ? ManagedSkipListMapProxy.this.get(k) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      Object k = asKey(key);
+      return k != null && inRange(k) && ManagedSkipListMapProxy.this.containsKey(k);
+    }
+
+    @Override
+    public V put(K key, V value) {
+      if (!inRange(key)) {
+        throw new IllegalArgumentException("key out of range");
+      }
+      return ManagedSkipListMapProxy.this.put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+      Object k = asKey(key);
+      return k != null && inRange(k) ? ManagedSkipListMapProxy.this.remove(k) : null;
+    }
+
+    @Override
+    public Set<Map.Entry<K,V>> entrySet() {
+      return new AbstractSet<Map.Entry<K,V>>() {
+        @Override
+        public Iterator<Map.Entry<K,V>> iterator() {
+          return entries(lo, hi);
+        }
+
+        @Override
+        public int size() {
+          long n = count(lo, hi);
+          return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)n;
+        }
+
+        @Override
+        public boolean isEmpty() {
+          return !iterator().hasNext();
+        }
+      };
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+      return null;
+    }
+
+    @Override
+    public SortedMap<K,V> subMap(K fromKey, K toKey) {
+      if (compare(fromKey, toKey) > 0) {
+        throw new IllegalArgumentException("fromKey > toKey");
+      }
+      return new SubMap(checkBound(fromKey), checkBound(toKey));
+    }
+
+    @Override
+    public SortedMap<K,V> headMap(K toKey) {
+      return new SubMap(lo, checkBound(toKey));
+    }
+
+    @Override
+    public SortedMap<K,V> tailMap(K fromKey) {
+      return new SubMap(checkBound(fromKey), hi);
+    }
+
+    @Override
+    public K firstKey() {
+      Node n = ceiling(lo);
+      if (n == null) {
+        throw new NoSuchElementException();
+      }
+      K k = type_.key.get(n);
+      if (hi != null && compare(k, hi) >= 0) {
+        throw new NoSuchElementException();
+      }
+      return k;
+    }
+
+    @Override
+    public K lastKey() {
+      Node n = before(hi, false, null, null);
+      if (n == null) {
+        throw new NoSuchElementException();
+      }
+      K k = type_.key.get(n);
+      if (lo != null && compare(k, lo) < 0) {
+        throw new NoSuchElementException();
+      }
+      return k;
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<K,V>> entrySet() {
+    return new AbstractSet<Map.Entry<K,V>>() {
+      @Override
+      public Iterator<Map.Entry<K,V>> iterator() {
+        return entries(null, null);
+      }
+
+      @Override
+      public int size() {
+        return ManagedSkipListMapProxy.this.size();
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return ManagedSkipListMapProxy.this.isEmpty();
+      }
+
+      @Override
+      public void clear() {
+        ManagedSkipListMapProxy.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Comparator<? super K> comparator() {
+    return null;
+  }
+
+  @Override
+  public SortedMap<K,V> subMap(K fromKey, K toKey) {
+    return new SubMap(null, null).subMap(fromKey, toKey);
+  }
+
+  @Override
+  public SortedMap<K,V> headMap(K toKey) {
+    return new SubMap(null, Objects.requireNonNull(toKey));
+  }
+
+  @Override
+  public SortedMap<K,V> tailMap(K fromKey) {
+    return new SubMap(Objects.requireNonNull(fromKey), null);
+  }
+
+  @Override
+  public K firstKey() {
+    return new SubMap(null, null).firstKey();
+  }
+
+  @Override
+  public K lastKey() {
+    return new SubMap(null, null).lastKey();
+  }
+
+  @Override
+  public ManagedSkipListMapTypeProxy<K,V> type() {
+    return type_;
+  }
+
+  @Override
+  public ManagedType<K> keyType() {
+    return type_.keyType();
+  }
+
+  @Override
+  public ManagedType<V> valueType() {
+    return type_.valueType();
+  }
+
+  @Override
+  public boolean isIdentical(ManagedComposite other) {
+    return other instanceof ManagedSkipListMapProxy
+      && header_.isIdentical(((ManagedSkipListMapProxy<?,?>)other).header_);
+  }
+
+  @Override
+  public boolean isSameObject(ManagedComposite other) {
+    return other instanceof ManagedSkipListMapProxy
+      && header_.isSameObject(((ManagedSkipListMapProxy<?,?>)other).header_);
+  }
+
+  @Override
+  public boolean isSameViewOfSameObject(ManagedComposite other) {
+    return other instanceof ManagedSkipListMapProxy
+      && header_.isSameViewOfSameObject(((ManagedSkipListMapProxy<?,?>)other).header_);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    return o instanceof ManagedComposite && isSameViewOfSameObject((ManagedComposite)o);
+  }
+
+  @Override
+  public int hashCode() {
+    return header_.hashCode();
+  }
+
+  @Override
+  public ManagedMap<K,V> bindName(Prior prior, Namespace ns, CharSequence name) {
+    return type_.bindIn(ns, name, this, prior);
+  }
+
+  @Override
+  public ManagedMap<K,V> using(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> inherentUsage(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> usageDuring(UsageScope scope, ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> using(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> inherentUsage(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMap<K,V> usageDuring(UsageScope scope, ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hpl.mds.Field;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.ManagedSortedMap;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.string.ManagedMapFromString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+import com.hpl.mds.impl.ManagedSkipListMapProxy.Node;
+import com.hpl.mds.impl.ManagedSkipListMapProxy.Tower;
+
+/*
+ * The type of a ManagedSkipListMapProxy with given key and value types.  As
+ * for hash maps, the header, node and tower records get record types of
+ * their own for each pair, named after the key and value types.  The
+ * header's Java class is the hash map's, so MapFieldProxy can hold either
+ * kind of map.
+ *
+ * A node's links above the lowest list are in an array in a separate tower
+ * record, since the array's type can only be had once the node type is
+ * created.
+ */
+public class ManagedSkipListMapTypeProxy<K extends ManagedObject, V extends ManagedObject>
+  implements ManagedSortedMap.Type<K,V> {
+
+  private static final ConcurrentMap<List<ManagedType<?>>, ManagedSkipListMapTypeProxy<?,?>> known_
+    = new ConcurrentHashMap<>();
+
+  private final ManagedType<K> keyType_;
+  private final ManagedType<V> valueType_;
+  final String name;
+  final RecordTypeProxy<Header> headerType;
+  final RecordTypeProxy<Node> nodeType;
+  final RecordTypeProxy<Tower> towerType;
+  final RecordArrayTypeProxy<Node> nodeArrayType;
+  // header
+  final RecordFieldProxy<Header,Node> head;
+  // node
+  final Field<Node,K> key;
+  final Field<Node,V> value;
+  final RecordFieldProxy<Node,Node> next;
+  final RecordFieldProxy<Node,Tower> tower;
+  // tower
+  final RecordArrayFieldProxy<Tower,Node> links;
+
+  ManagedSkipListMapTypeProxy(ManagedType<K> keyType, ManagedType<V> valueType) {
+    keyType_ = keyType;
+    valueType_ = valueType;
+    name = String.format("com.hpl.mds.ManagedSkipListMap<%s,%s>",
+                         ManagedHashMapTypeProxy.typeName(keyType),
+                         ManagedHashMapTypeProxy.typeName(valueType));
+
+    RecordType<Tower> tt = RecordType.declare(name + ".Tower", Tower.class);
+    towerType = RecordTypeProxy.downcast(tt);
+
+    RecordType<Node> nt = RecordType.declare(name + ".Node", Node.class);
+    nodeType = RecordTypeProxy.downcast(nt);
+    key = keyType.fieldIn(nt, "key");
+    value = valueType.fieldIn(nt, "value");
+    next = nodeType.fieldIn(nt, "next");
+    tower = towerType.fieldIn(nt, "tower");
+    nt.ensureCreated();
+    nodeArrayType = RecordArrayTypeProxy.forType(nodeType);
+
+    links = nodeArrayType.fieldIn(tt, "links");
+    tt.ensureCreated();
+
+    RecordType<Header> ht = RecordType.declare(name, Header.class);
+    headerType = RecordTypeProxy.downcast(ht);
+    head = nodeType.fieldIn(ht, "head");
+    ht.ensureCreated();
+  }
+
+  public static <K extends ManagedObject, V extends ManagedObject>
+  ManagedSkipListMapTypeProxy<K,V> forTypes(ManagedType<K> keyType, ManagedType<V> valueType) {
+    ManagedSkipListMapTypeProxy<?,?> t
+      = known_.computeIfAbsent(Arrays.asList(keyType, valueType),
+                               k -> new ManagedSkipListMapTypeProxy<>(keyType, valueType));
+    @SuppressWarnings("unchecked")
+    ManagedSkipListMapTypeProxy<K,V> downcast = (ManagedSkipListMapTypeProxy<K,V>)t;
+    return downcast;
+  }
+
+  /*
+   * A node in the lowest height lists.  Nodes only in the lowest list,
+   * which is most of them, don't get a tower.
+   */
+  Node newNode(int height) {
+    Node n = new Node(nodeType);
+    if (height > 1) {
+      Tower t = new Tower(towerType);
+      links.set(t, nodeArrayType.create(height - 1));
+      tower.set(n, t);
+    }
+    return n;
+  }
+
+  ManagedSkipListMapProxy<K,V> wrap(Header header) {
+    return header == null ? null : new ManagedSkipListMapProxy<>(this, header);
+  }
+
+  @Override
+  public ManagedType<K> keyType() {
+    return keyType_;
+  }
+
+  @Override
+  public ManagedType<V> valueType() {
+    return valueType_;
+  }
+
+  @Override
+  public ManagedSkipListMapProxy<K,V> create() {
+    Header h = new Header(headerType);
+    head.set(h, newNode(ManagedSkipListMapProxy.MAX_HEIGHT));
+    return wrap(h);
+  }
+
+  /*
+   * There's nothing to size, so the hints are ignored.
+   */
+  @Override
+  public ManagedSkipListMapProxy<K,V> create(ManagedMap.Usage hints) {
+    return create();
+  }
+
+  @Override
+  public ManagedSkipListMapProxy<K,V> create(ManagedContainer.Usage hints) {
+    return create();
+  }
+
+  @Override
+  public ManagedSortedMap<K,V> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public <RT extends ManagedRecord> MapFieldProxy<RT,K,V> fieldIn(RecordType<RT> recType, CharSequence name) {
+    return new MapFieldProxy<>(this, this::wrap, headerType.fieldIn(recType, name));
+  }
+
+  @Override
+  public <RT extends ManagedRecord> MapFieldProxy<RT,K,V> findFieldIn(RecordType<RT> recType, CharSequence name) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSkipListMapProxy<K,V> lookupName(Namespace ns, CharSequence name) {
+    return wrap(headerType.lookupName(ns, name));
+  }
+
+  @Override
+  public ManagedMap<K,V> bindIn(Namespace ns, CharSequence name, ManagedMap<K,V> val, Prior prior) {
+    headerType.bindIn(ns, name, ManagedHashMapProxy.headerOf(val), prior);
+    return val;
+  }
+
+  @Override
+  public ManagedArray.Type<ManagedMap<K,V>> inArray() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedList.Type<ManagedMap<K,V>> inList() {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedSet.Type<ManagedMap<K,V>> inSet() {
+    return ManagedHashSetTypeProxy.forType(this);
+  }
+
+  @Override
+  public <K2 extends ManagedObject> ManagedMap.Type<K2, ManagedMap<K,V>> inMapFrom(ManagedType<K2> keyType) {
+    return ManagedHashMapTypeProxy.forTypes(keyType, this);
+  }
+
+  @Override
+  public ManagedMapFromString.Type<ManagedMap<K,V>> inMapFromString() {
+    return ManagedHashMapTypeProxy.fromString(this);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,389 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.NativeLibraryLoader;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.naming.Prior;
+import com.hpl.mds.string.ManagedMapFromString;
+import com.hpl.mds.string.ManagedString;
+import com.hpl.mds.task.Task;
+import com.hpl.mds.usage.UsagePlan;
+import com.hpl.mds.usage.UsageScope;
+
+/*
+ * A ManagedHashMapProxy keyed by strings.  Since managed strings are
+ * interned, a key can be found by comparing handles, so unless a task is
+ * recording what it reads, a lookup walks the whole chain in one native
+ * call.  Plain Strings are accepted wherever a key is looked up.
+ */
+public class ManagedStringHashMapProxy<V extends ManagedObject>
+  extends ManagedHashMapProxy<ManagedString,V> implements ManagedMapFromString<V> {
+
+  private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+
+  private static native long findEntry(long bucketsHandle, long ctxtHandle, long index,
+                                       long keyFieldHandle, long nextFieldHandle, long keyHandle);
+
+  ManagedStringHashMapProxy(ManagedStringHashMapTypeProxy<V> type, Header header) {
+    super(type, header);
+  }
+
+  /*
+   * A string that was never interned can't be a key, so looking it up
+   * is a miss, and doesn't intern it.
+   */
+  @Override
+  Object asKey(Object key) {
+    if (key instanceof CharSequence) {
+      return ManagedStringProxy.find((CharSequence)key);
+    }
+    return null;
+  }
+
+  @Override
+  ManagedHashMapProxy.Entry findEntry(ManagedArray<ManagedHashMapProxy.Entry> buckets, Object key, int hash) {
+    if (Task.isTracking() && Task.current() != null) {
+      // the reads have to be seen by the task
+      return super.findEntry(buckets, key, hash);
+    }
+    long h = findEntry(RecordArrayProxy.handleOf(buckets),
+                       IsoContextProxy.current().handleIndex(),
+                       indexFor(hash, buckets.longSize()),
+                       ((Proxy)type_.key).handleIndex(),
+                       type_.next.handleIndex(),
+                       ManagedStringProxy.handleOf((ManagedString)key));
+    return ManagedRecordProxy.fromHandle(h, type_.entryType);
+  }
+
+  @Override
+  public ManagedStringHashMapTypeProxy<V> type() {
+    return (ManagedStringHashMapTypeProxy<V>)type_;
+  }
+
+  @Override
+  public ManagedString.Type keyType() {
+    return ManagedString.TYPE;
+  }
+
+  @Override
+  public ManagedMapFromString<V> bindName(Prior prior, Namespace ns, CharSequence name) {
+    type().bindIn(ns, name, this, prior);
+    return this;
+  }
+
+  @Override
+  public V put(CharSequence k, V v) {
+    return put(ManagedStringProxy.valueOf(k), v);
+  }
+
+  @Override
+  public V putIfAbsent(CharSequence k, V v) {
+    ManagedHashMapProxy.Entry e = entryFor(k);
+    if (e == null) {
+      return put(k, v);
+    }
+    V old = type_.value.get(e);
+    if (old == null) {
+      type_.value.set(e, v);
+    }
+    return old;
+  }
+
+  @Override
+  public V putIfPresent(CharSequence k, V v) {
+    ManagedHashMapProxy.Entry e = entryFor(k);
+    return e == null ? null : type_.value.getAndSet(e, v);
+  }
+
+  @Override
+  public boolean replace(CharSequence k, V oldV, V newV) {
+    ManagedHashMapProxy.Entry e = entryFor(k);
+    if (e == null || !Objects.equals(type_.value.get(e), oldV)) {
+      return false;
+    }
+    type_.value.set(e, newV);
+    return true;
+  }
+
+  @Override
+  public boolean replace(CharSequence k, V v) {
+    ManagedHashMapProxy.Entry e = entryFor(k);
+    if (e == null) {
+      return false;
+    }
+    type_.value.set(e, v);
+    return true;
+  }
+
+  @Override
+  public Set<String> stringKeySet() {
+    return asUnmanageKeyMap().keySet();
+  }
+
+  @Override
+  public void forEachStringKey(BiConsumer<? super String, ? super V> action) {
+    for (Map.Entry<ManagedString,V> e : entrySet()) {
+      action.accept(e.getKey().asString(), e.getValue());
+    }
+  }
+
+  @Override
+  public void replaceAllStringKeys(BiFunction<? super String, ? super V, ? extends V> function) {
+    for (Map.Entry<ManagedString,V> e : entrySet()) {
+      e.setValue(function.apply(e.getKey().asString(), e.getValue()));
+    }
+  }
+
+  @Override
+  public void replaceAllStringKeys(Function<? super String, ? extends V> function) {
+    for (Map.Entry<ManagedString,V> e : entrySet()) {
+      e.setValue(function.apply(e.getKey().asString()));
+    }
+  }
+
+  @Override
+  public V computeIfAbsentStringKey(CharSequence key, Function<? super String, ? extends V> function) {
+    ManagedHashMapProxy.Entry e = entryFor(key);
+    V old = e == null ? null : type_.value.get(e);
+    if (old != null) {
+      return old;
+    }
+    V v = function.apply(key.toString());
+    if (v != null) {
+      put(key, v);
+    }
+    return v;
+  }
+
+  @Override
+  public V computeIfPresentStringKey(CharSequence key, Function<? super String, ? extends V> function) {
+    ManagedHashMapProxy.Entry e = entryFor(key);
+    if (e == null || type_.value.get(e) == null) {
+      return null;
+    }
+    V v = function.apply(key.toString());
+    if (v == null) {
+      remove(key);
+    } else {
+      type_.value.set(e, v);
+    }
+    return v;
+  }
+
+  @Override
+  public V computeStringKey(CharSequence key, BiFunction<? super String, ? super V, ? extends V> function) {
+    ManagedHashMapProxy.Entry e = entryFor(key);
+    V old = e == null ? null : type_.value.get(e);
+    V v = function.apply(key.toString(), old);
+    if (v == null) {
+      if (e != null) {
+        remove(key);
+      }
+    } else if (e == null) {
+      put(key, v);
+    } else {
+      type_.value.set(e, v);
+    }
+    return v;
+  }
+
+  /*
+   * The function is given the key and the current value, and its result
+   * replaces the value.  If there's no current value, v is used.
+   */
+  @Override
+  public V mergeStringKey(CharSequence key, V v, BiFunction<? super String, ? super V, ? extends V> function) {
+    ManagedHashMapProxy.Entry e = entryFor(key);
+    V old = e == null ? null : type_.value.get(e);
+    if (old == null) {
+      put(key, v);
+      return v;
+    }
+    V nv = function.apply(key.toString(), old);
+    if (nv == null) {
+      remove(key);
+    } else {
+      type_.value.set(e, nv);
+    }
+    return nv;
+  }
+
+  @Override
+  public UnmanagedMapView<V> asUnmanageKeyMap() {
+    return new KeyView();
+  }
+
+  /*
+   * The same map, with its keys seen as Strings.
+   */
+  class KeyView extends AbstractMap<String,V> implements UnmanagedMapView<V> {
+    @Override
+    public ManagedMapFromString<V> asManagedMap() {
+      return ManagedStringHashMapProxy.this;
+    }
+
+    @Override
+    public V get(Object key) {
+      return ManagedStringHashMapProxy.this.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return ManagedStringHashMapProxy.this.containsKey(key);
+    }
+
+    @Override
+    public V put(String key, V value) {
+      return ManagedStringHashMapProxy.this.put(ManagedStringProxy.valueOf(key), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+      return ManagedStringHashMapProxy.this.remove(key);
+    }
+
+    @Override
+    public void clear() {
+      ManagedStringHashMapProxy.this.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<String,V>> entrySet() {
+      return new AbstractSet<Map.Entry<String,V>>() {
+        @Override
+        public Iterator<Map.Entry<String,V>> iterator() {
+          Iterator<Map.Entry<ManagedString,V>> it = ManagedStringHashMapProxy.this.entrySet().iterator();
+          return new Iterator<Map.Entry<String,V>>() {
+            @Override
+            public boolean hasNext() {
+              return it.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String,V> next() {
+              Map.Entry<ManagedString,V> e = it.next();
+              return new AbstractMap.SimpleEntry<String,V>(e.getKey().asString(), e.getValue()) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(V value) {
+                  super.setValue(value);
+                  return e.setValue(value);
+                }
+              };
+            }
+
+            @Override
+            public void remove() {
+              it.remove();
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return ManagedStringHashMapProxy.this.size();
+        }
+      };
+    }
+  }
+
+  @Override
+  public ManagedMapFromString<V> using(ManagedMapFromString.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> inherentUsage(ManagedMapFromString.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> usageDuring(UsageScope scope, ManagedMapFromString.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedMapFromString.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> using(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> inherentUsage(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> usageDuring(UsageScope scope, ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedMap.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> using(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> inherentUsage(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> usageDuring(UsageScope scope, ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public UsagePlan usagePlan(ManagedContainer.Usage hint) {
+    return Stub.notImplemented();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import com.hpl.mds.ManagedContainer;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedType;
+import com.hpl.mds.naming.Namespace;
+import com.hpl.mds.string.ManagedMapFromString;
+import com.hpl.mds.string.ManagedString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+public class ManagedStringHashMapTypeProxy<V extends ManagedObject>
+  extends ManagedHashMapTypeProxy<ManagedString,V> implements ManagedMapFromString.Type<V> {
+
+  ManagedStringHashMapTypeProxy(ManagedType<V> valueType) {
+    super(ManagedString.TYPE, valueType);
+  }
+
+  @Override
+  ManagedStringHashMapProxy<V> wrap(Header header) {
+    return header == null ? null : new ManagedStringHashMapProxy<>(this, header);
+  }
+
+  @Override
+  ManagedStringHashMapProxy<V> create(long capacity) {
+    return (ManagedStringHashMapProxy<V>)super.create(capacity);
+  }
+
+  @Override
+  public ManagedString.Type keyType() {
+    return ManagedString.TYPE;
+  }
+
+  @Override
+  public ManagedMapFromString<V> create() {
+    return create(ManagedHashMapProxy.DEFAULT_CAPACITY);
+  }
+
+  @Override
+  public ManagedMapFromString<V> create(ManagedMapFromString.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedMapFromString<V> create(ManagedMap.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedMapFromString<V> create(ManagedContainer.Usage hints) {
+    return create(UsageImpl.of(hints).expectedSize());
+  }
+
+  @Override
+  public ManagedMapFromString<V> construct(Object... ctorParams) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedMapFromString<V> lookupName(Namespace ns, CharSequence name) {
+    return wrap(headerType.lookupName(ns, name));
+  }
+}
@@ -35,6 +35,7 @@ import com.hpl.mds.string.ManagedString;
 public class ManagedStringProxy extends Proxy implements ManagedString {
 	
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(ManagedStringProxy::release, ManagedStringProxy::releaseBatch);
   
   private static final Proxy.Table<ManagedStringProxy> 
   proxyTable = new Proxy.Table<>(ManagedStringProxy::release);
@@ -44,8 +45,10 @@ public class ManagedStringProxy extends Proxy implements ManagedString {
   
 
   private static native boolean release(long hi);
+  private static native void releaseBatch(long[] handles);
   private static native boolean sameString(long hiA, long hiB);
   private static native long intern(String s);
+  private static native long findInterned(String s);
   private static native String toString(long hi);
   private static native int length(long hi);
   private static native char charAt(long hi, int pos);
@@ -83,6 +86,12 @@ public class ManagedStringProxy extends Proxy implements ManagedString {
     return false;
   }
 
+  // Has to agree with equals(), which compares contents, not handles
+  @Override
+  public int hashCode() {
+    return asString().hashCode();
+  }
+
   @Override
   public int compareTo(CharSequence other) {
     if (other == this) { return 0; }
@@ -127,6 +136,21 @@ public class ManagedStringProxy extends Proxy implements ManagedString {
     }
     return fromHandle(intern(val.toString()));
   }
+
+  /*
+   * Like valueOf(), but null if the string has never been stored,
+   * rather than storing it.  For lookups, which shouldn't grow the heap.
+   */
+  public static ManagedStringProxy find(CharSequence val) {
+    if (val == null) {
+      return null;
+    }
+    if (val instanceof ManagedStringProxy) {
+      return (ManagedStringProxy)val;
+    }
+    long h = findInterned(val.toString());
+    return h == 0 ? null : fromHandle(h);
+  }
   @Override
   public ManagedStringType type() {
     return ManagedStringType.INSTANCE;
@@ -158,7 +182,7 @@ public class ManagedStringProxy extends Proxy implements ManagedString {
   }
 
   @Override
-  void releaseHandleIndex(long index) {
-    proxyTable.release(index);
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
 }
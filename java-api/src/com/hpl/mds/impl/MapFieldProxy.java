@@ -0,0 +1,210 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.hpl.mds.Holder;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.MapField;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.callbacks.ChangeHandler;
+import com.hpl.mds.callbacks.ChangeHandlerRemovalHook;
+import com.hpl.mds.callbacks.FieldChange;
+import com.hpl.mds.string.ManagedString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * A field holding a ManagedHashMapProxy or a ManagedSkipListMapProxy.
+ * What's actually stored is the map's header record, so this is a record
+ * field of the header type that wraps and unwraps.  The Map-like operations
+ * create the map the first time something is put in it.
+ */
+public class MapFieldProxy<RT extends ManagedRecord, K extends ManagedObject, V extends ManagedObject>
+  implements MapField<RT,K,V> {
+
+  private final ManagedMap.Type<K,V> type_;
+  private final Function<Header, ? extends ManagedMap<K,V>> wrap_;
+  private final RecordFieldProxy<RT,Header> field_;
+
+  MapFieldProxy(ManagedMap.Type<K,V> type, Function<Header, ? extends ManagedMap<K,V>> wrap,
+                RecordFieldProxy<RT,Header> field) {
+    type_ = type;
+    wrap_ = wrap;
+    field_ = field;
+  }
+
+  @Override
+  public ManagedMap<K,V> get(RT record) {
+    return wrap_.apply(field_.get(record));
+  }
+
+  @Override
+  public ManagedMap<K,V> peek(RT record) {
+    return wrap_.apply(field_.peek(record));
+  }
+
+  @Override
+  public ManagedMap<K,V> set(RT rec, ManagedMap<K,V> val) {
+    field_.set(rec, ManagedHashMapProxy.headerOf(val));
+    return val;
+  }
+
+  @Override
+  public ManagedMap<K,V> getAndSet(RT rec, ManagedMap<K,V> val) {
+    return wrap_.apply(field_.getAndSet(rec, ManagedHashMapProxy.headerOf(val)));
+  }
+
+  @Override
+  public boolean change(RT rec, ManagedMap<K,V> expected, ManagedMap<K,V> val) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public boolean change(RT rec, Holder<ManagedMap<K,V>> holdsExpected, ManagedMap<K,V> val) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedString name() {
+    return field_.name();
+  }
+
+  @Override
+  public RecordType<RT> recordType() {
+    return field_.recordType();
+  }
+
+  @Override
+  public ManagedMap.Type<K,V> valueType() {
+    return type_;
+  }
+
+  @Override
+  public ChangeHandlerRemovalHook afterChange(ChangeHandler<? super FieldChange<? super RT, ? super ManagedMap<K,V>>> handler) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ChangeBase createChange(RT record) {
+    return field_.createChange(record);
+  }
+
+  private ManagedMap<K,V> mapFor(RT record) {
+    ManagedMap<K,V> m = get(record);
+    if (m == null) {
+      m = type_.create();
+      set(record, m);
+    }
+    return m;
+  }
+
+  @Override
+  public int size(RT record) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? 0 : m.size();
+  }
+
+  @Override
+  public long longSize(RT record) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? 0 : m.longSize();
+  }
+
+  @Override
+  public boolean isEmpty(RT record) {
+    ManagedMap<K,V> m = get(record);
+    return m == null || m.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(RT record, K key) {
+    ManagedMap<K,V> m = get(record);
+    return m != null && m.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(RT record, V value) {
+    ManagedMap<K,V> m = get(record);
+    return m != null && m.containsValue(value);
+  }
+
+  @Override
+  public V get(RT record, K key) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? null : m.get(key);
+  }
+
+  @Override
+  public V put(RT record, K key, V value) {
+    return mapFor(record).put(key, value);
+  }
+
+  @Override
+  public V remove(RT record, K key) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? null : m.remove(key);
+  }
+
+  @Override
+  public void putAll(RT record, Map<? extends K, ? extends V> m) {
+    mapFor(record).putAll(m);
+  }
+
+  @Override
+  public void clear(RT record) {
+    ManagedMap<K,V> m = get(record);
+    if (m != null) {
+      m.clear();
+    }
+  }
+
+  @Override
+  public Set<K> keySet(RT record) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? Collections.emptySet() : m.keySet();
+  }
+
+  @Override
+  public Collection<V> values(RT record) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? Collections.emptyList() : m.values();
+  }
+
+  @Override
+  public Set<Map.Entry<K,V>> entrySet(RT record) {
+    ManagedMap<K,V> m = get(record);
+    return m == null ? Collections.emptySet() : m.entrySet();
+  }
+}
@@ -26,10 +26,14 @@
 
 package com.hpl.mds.impl;
 
+import java.time.Duration;
+
 import com.hpl.mds.MergeReport;
 
 public class MergeReportImpl implements MergeReport {
 	boolean succeeded = false;
+	int attempts = 0;
+	long backoffNanos = 0;
 
 	public static MergeReport create() {
 		return new MergeReportImpl();
@@ -49,6 +53,33 @@ public class MergeReportImpl implements MergeReport {
 	public void noteFailure() {
 		succeeded = false;
 	}
+
+	@Override
+	public void reset() {
+		succeeded = false;
+		attempts = 0;
+		backoffNanos = 0;
+	}
+
+	@Override
+	public void beforeRun() {
+		attempts++;
+	}
+
+	@Override
+	public int attempts() {
+		return attempts;
+	}
+
+	@Override
+	public Duration backoffTime() {
+		return Duration.ofNanos(backoffNanos);
+	}
+
+	@Override
+	public void noteBackoff(long nanos) {
+		backoffNanos += nanos;
+	}
 	
 
 }
@@ -0,0 +1,248 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.hpl.mds.MdsStats;
+import com.hpl.mds.MemStats;
+
+/*
+ * Counters and latency histograms for publishing, isolated calls, conflicts
+ * and task reruns, process-wide.  With mds.metrics.perContext=true, each
+ * IsoContextProxy that publishes also keeps a few counters of its own (see
+ * Metrics.Context); that's off by default, as it's an allocation for every
+ * context that publishes, isolated calls included.
+ *
+ * Everything is a LongAdder or a Histogram of them, so recording from many
+ * threads doesn't contend, and the only other cost on the publish path is a
+ * couple of System.nanoTime() calls.  Recording can be turned off with the
+ * system property mds.metrics=false.  The numbers are exported through JMX
+ * as com.hpl.mds:type=MdsStats unless mds.metrics.jmx=false.
+ *
+ * A failed publish only adds its number of conflicts, unless
+ * mds.metrics.conflictFields=true, when they're also counted by field (and
+ * array), which means pulling them back from the native side and naming
+ * the fields.
+ */
+public final class Metrics {
+  private static final Logger log = Logger.getLogger(Metrics.class);
+
+  public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("mds.metrics", "true"));
+  public static final boolean BY_FIELD
+    = ENABLED && Boolean.parseBoolean(System.getProperty("mds.metrics.conflictFields", "false"));
+  public static final boolean PER_CONTEXT
+    = ENABLED && Boolean.parseBoolean(System.getProperty("mds.metrics.perContext", "false"));
+  static final String MBEAN_NAME = "com.hpl.mds:type=MdsStats";
+
+  private static final Metrics GLOBAL = new Metrics();
+
+  static {
+    if (ENABLED && Boolean.parseBoolean(System.getProperty("mds.metrics.jmx", "true"))) {
+      registerMBean();
+    }
+  }
+
+  final LongAdder contextsCreated = new LongAdder();
+  final LongAdder publishes = new LongAdder();
+  final LongAdder publishFailures = new LongAdder();
+  // publishes that found nothing to merge and skipped it
+  final LongAdder publishesWithoutMerge = new LongAdder();
+  final Histogram publishNanos = new Histogram();
+  final Histogram contextAgeNanos = new Histogram();
+  final LongAdder conflicts = new LongAdder();
+  final LongAdder arrayConflicts = new LongAdder();
+  final ConcurrentMap<String, LongAdder> fieldConflicts = new ConcurrentHashMap<>();
+  final LongAdder isolatedCalls = new LongAdder();
+  final LongAdder isolatedCallFailures = new LongAdder();
+  final Histogram isolatedCallNanos = new Histogram();
+  final Histogram attemptsPerCall = new Histogram();
+  final LongAdder backoffNanos = new LongAdder();
+  final LongAdder reruns = new LongAdder();
+  final LongAdder tasksRerun = new LongAdder();
+  final Histogram taskRerunNanos = new Histogram();
+
+  private Metrics() {
+  }
+
+  public static Metrics global() {
+    return GLOBAL;
+  }
+
+  public static MdsStats.MXBean mxBean() {
+    return new MdsStatsBean();
+  }
+
+  private static void registerMBean() {
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+        .registerMBean(new MdsStatsBean(), new ObjectName(MBEAN_NAME));
+    } catch (Exception e) {
+      // e.g., already registered by another class loader
+      log.warn("Couldn't register " + MBEAN_NAME, e);
+    }
+  }
+
+  void noteContextCreated() {
+    contextsCreated.increment();
+  }
+
+  /*
+   * ageNanos is how long since the context was created, or negative if we
+   * didn't see it created.
+   */
+  void notePublish(boolean succeeded, long nanos, long ageNanos) {
+    publishes.increment();
+    if (!succeeded) {
+      publishFailures.increment();
+    }
+    publishNanos.record(nanos);
+    if (ageNanos >= 0) {
+      contextAgeNanos.record(ageNanos);
+    }
+  }
+
+  void notePublishWithoutMerge() {
+    publishesWithoutMerge.increment();
+  }
+
+  void noteConflicts(int n) {
+    conflicts.add(n);
+  }
+
+  void noteArrayConflicts(int n) {
+    arrayConflicts.add(n);
+  }
+
+  /*
+   * field is the field's qualified name, as RecordType.field.
+   */
+  void noteFieldConflicts(String field, int n) {
+    fieldConflicts.computeIfAbsent(field, f -> new LongAdder()).add(n);
+  }
+
+  void noteIsolatedCall(boolean succeeded, int attempts, long nanos, long backoff) {
+    isolatedCalls.increment();
+    if (!succeeded) {
+      isolatedCallFailures.increment();
+    }
+    isolatedCallNanos.record(nanos);
+    attemptsPerCall.record(attempts);
+    if (backoff > 0) {
+      backoffNanos.add(backoff);
+    }
+  }
+
+  public void noteRerun(int nTasks) {
+    reruns.increment();
+    tasksRerun.add(nTasks);
+  }
+
+  public void noteTaskRerun(long nanos) {
+    taskRerunNanos.record(nanos);
+  }
+
+  Map<String, Long> fieldConflicts() {
+    Map<String, Long> m = new TreeMap<>();
+    fieldConflicts.forEach((f, n) -> m.put(f, n.sum()));
+    return m;
+  }
+
+  // conflicts per record type, summed over its fields
+  Map<String, Long> recordTypeConflicts() {
+    Map<String, Long> m = new TreeMap<>();
+    fieldConflicts.forEach((f, n) -> {
+      int dot = f.lastIndexOf('.');
+      m.merge(dot < 0 ? f : f.substring(0, dot), n.sum(), Long::sum);
+    });
+    return m;
+  }
+
+  /*
+   * The counters kept for a single context, created when it first publishes.
+   */
+  static final class Context {
+    final LongAdder publishes = new LongAdder();
+    final LongAdder publishFailures = new LongAdder();
+    final LongAdder conflicts = new LongAdder();
+    final LongAdder publishNanos = new LongAdder();
+
+    void notePublish(boolean succeeded, long nanos, int nConflicts) {
+      publishes.increment();
+      if (!succeeded) {
+        publishFailures.increment();
+      }
+      conflicts.add(nConflicts);
+      publishNanos.add(nanos);
+    }
+  }
+
+  static final class MdsStatsBean implements MdsStats.MXBean {
+    private static final double MICROS = 1e3;
+
+    private final Metrics m = GLOBAL;
+
+    @Override public long getContextsCreated() { return m.contextsCreated.sum(); }
+    @Override public long getPublishes() { return m.publishes.sum(); }
+    @Override public long getPublishFailures() { return m.publishFailures.sum(); }
+    @Override public long getPublishesWithoutMerge() { return m.publishesWithoutMerge.sum(); }
+    @Override public double getPublishMeanMicros() { return m.publishNanos.snapshot().mean() / MICROS; }
+    @Override public double getPublishP50Micros() { return m.publishNanos.snapshot().percentile(0.5) / MICROS; }
+    @Override public double getPublishP99Micros() { return m.publishNanos.snapshot().percentile(0.99) / MICROS; }
+    @Override public double getPublishMaxMicros() { return m.publishNanos.snapshot().max() / MICROS; }
+    @Override public double getContextAgeAtPublishP50Micros() { return m.contextAgeNanos.snapshot().percentile(0.5) / MICROS; }
+    @Override public double getContextAgeAtPublishP99Micros() { return m.contextAgeNanos.snapshot().percentile(0.99) / MICROS; }
+    @Override public long getConflicts() { return m.conflicts.sum(); }
+    @Override public long getArrayConflicts() { return m.arrayConflicts.sum(); }
+    @Override public Map<String, Long> getConflictsByField() { return m.fieldConflicts(); }
+    @Override public Map<String, Long> getConflictsByRecordType() { return m.recordTypeConflicts(); }
+    @Override public long getIsolatedCalls() { return m.isolatedCalls.sum(); }
+    @Override public long getIsolatedCallFailures() { return m.isolatedCallFailures.sum(); }
+    @Override public double getIsolatedCallP50Micros() { return m.isolatedCallNanos.snapshot().percentile(0.5) / MICROS; }
+    @Override public double getIsolatedCallP99Micros() { return m.isolatedCallNanos.snapshot().percentile(0.99) / MICROS; }
+    @Override public double getAttemptsPerCallMean() { return m.attemptsPerCall.snapshot().mean(); }
+    @Override public long getAttemptsPerCallP99() { return m.attemptsPerCall.snapshot().percentile(0.99); }
+    @Override public long getAttemptsPerCallMax() { return m.attemptsPerCall.snapshot().max(); }
+    @Override public double getBackoffMillis() { return m.backoffNanos.sum() / 1e6; }
+    @Override public long getReruns() { return m.reruns.sum(); }
+    @Override public long getTasksRerun() { return m.tasksRerun.sum(); }
+    @Override public double getTaskRerunP99Micros() { return m.taskRerunNanos.snapshot().percentile(0.99) / MICROS; }
+    @Override public long getBytesInHeap() { return new MemStats().bytesInHeap(); }
+    @Override public long getBytesInUse() { return new MemStats().bytesInUse(); }
+    @Override public long getProxiesOutstanding() { return ProxyReclaimer.registered() - ProxyReclaimer.released() - ProxyReclaimer.disowned(); }
+    @Override public long getProxiesPendingRelease() { return ProxyReclaimer.pendingRelease(); }
+  }
+}
@@ -36,6 +36,7 @@ import com.hpl.mds.string.ManagedString;
 public class NamespaceProxy extends Proxy implements Namespace {
 	
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(NamespaceProxy::release);
   
   private static NamespaceProxy ROOT = new NamespaceProxy(rootHandle(), HNameImpl.root());
   
@@ -136,8 +137,8 @@ public class NamespaceProxy extends Proxy implements Namespace {
   }
   
   @Override
-  void releaseHandleIndex(long index) {
-    release(index);
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
 
 }
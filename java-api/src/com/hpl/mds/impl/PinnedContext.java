@@ -0,0 +1,61 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import com.hpl.mds.NativeLibraryLoader;
+
+/*
+ * Holds the address of a native copy of an isolation context handle,
+ * so that natives that take it (the ...Pinned() field accessors) can
+ * use the context without a handle-store lookup.  The copy is freed
+ * by the reclaimer once this becomes unreachable, so callers pass this
+ * object along with its address to keep it alive across the call.
+ */
+final class PinnedContext extends Proxy {
+
+  private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(PinnedContext::unpin);
+
+  private static native long pin(long ctxtHandle);
+  private static native void unpin(long pinned);
+
+  final IsoContextProxy context;
+
+  PinnedContext(IsoContextProxy context) {
+    super(pin(context.handleIndex()));
+    this.context = context;
+  }
+
+  @Override
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
+  }
+
+  long address() {
+    return handleIndex_;
+  }
+}
@@ -37,15 +37,28 @@ import com.hpl.erk.util.ArrayUtils;
 public abstract class Proxy {
 
 	protected final long handleIndex_;
-    abstract void releaseHandleIndex(long index);
-    
-    @Override
-    protected void finalize() throws Throwable {
-      releaseHandleIndex(handleIndex_);
-    }
+	private final ProxyReclaimer.Ref reclaimRef_;
+
+    /*
+     * How the handle index is given back when this proxy becomes
+     * unreachable.  This is called from the constructor, so it should
+     * just return a static constant.  Returning null means that the
+     * index is never released.
+     */
+    abstract ProxyReclaimer.Domain reclaimDomain();
 
 	protected Proxy(long hi) {
 		this.handleIndex_ = hi;
+		this.reclaimRef_ = ProxyReclaimer.register(this, hi, reclaimDomain());
+	}
+
+	/*
+	 * Another proxy has taken over responsibility for our handle index.
+	 */
+	protected void disownHandleIndex() {
+	  if (reclaimRef_ != null) {
+	    reclaimRef_.disown();
+	  }
 	}
 	
 	public long handleIndex() {
@@ -154,7 +167,7 @@ public abstract class Proxy {
 	   * It's assumed that there's a reference held on this index,
 	   * so we don't worry about it going away, and we can assume that
 	   * if we have it in a cache, it's the right one.  We also count on
-	   * the finalizer removing of a created proxy removing the last 
+	   * the reclaimer, when a created proxy is collected, removing the last 
 	   * reference associated with the fromIndex() call that created it.
 	   */
 	  final P fromIndex(long index, LongFunction<? extends P> creator) {
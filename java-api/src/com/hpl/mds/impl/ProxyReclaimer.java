@@ -0,0 +1,267 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.apache.log4j.Logger;
+
+/*
+ * Gives handle indices back to the native handle store once the proxies
+ * that hold them become unreachable.  Rather than having every proxy go
+ * through the finalizer queue, each proxy registers a phantom reference
+ * here, and a single daemon thread drains the reference queue, grouping
+ * the indices by Domain so that each group can be released with one
+ * native call.
+ */
+public final class ProxyReclaimer {
+  private static final Logger log = Logger.getLogger(ProxyReclaimer.class);
+
+  static final int BATCH_SIZE = Integer.getInteger("mds.reclaim.batchSize", 512);
+  private static final int N_STRIPES = 16;
+
+  /*
+   * A Domain says how a kind of proxy gives back its index.  If there's
+   * a batch releaser, drained indices are handed to it in arrays of up to
+   * BATCH_SIZE; otherwise they're released one at a time.  Domains are
+   * only touched by the reclaimer thread once created.
+   */
+  static final class Domain {
+    private final LongConsumer single;
+    private final Consumer<long[]> batch;
+    private final long[] pending;
+    private int nPending = 0;
+
+    Domain(LongConsumer single, Consumer<long[]> batch) {
+      this.single = single;
+      this.batch = batch;
+      this.pending = batch == null ? null : new long[BATCH_SIZE];
+    }
+
+    Domain(LongConsumer single) {
+      this(single, null);
+    }
+
+    private boolean add(long index) {
+      if (batch == null) {
+        single.accept(index);
+        released.increment();
+        return false;
+      }
+      boolean first = nPending == 0;
+      pending[nPending++] = index;
+      nPending_.incrementAndGet();
+      if (nPending == pending.length) {
+        flush();
+      }
+      return first;
+    }
+
+    private void flush() {
+      int n = nPending;
+      if (n == 0) {
+        return;
+      }
+      nPending = 0;
+      try {
+        batch.accept(n == pending.length ? pending : Arrays.copyOf(pending, n));
+      } catch (Throwable t) {
+        log.error("Releasing handle batch failed", t);
+      }
+      nPending_.addAndGet(-n);
+      released.add(n);
+      batches.increment();
+    }
+  }
+
+  /*
+   * The phantom references have to stay reachable until they're
+   * enqueued, so they're kept on doubly-linked lists, striped to keep
+   * registering threads from contending.
+   */
+  static final class Ref extends PhantomReference<Proxy> {
+    private final long index;
+    private final Stripe stripe;
+    private volatile Domain domain;
+    private Ref prev, next;
+
+    private Ref(Proxy proxy, long index, Domain domain, Stripe stripe) {
+      super(proxy, queue);
+      this.index = index;
+      this.domain = domain;
+      this.stripe = stripe;
+    }
+
+    /*
+     * Somebody else is now responsible for the index (e.g., a forwarded
+     * record proxy), so don't release it when this proxy goes away.
+     */
+    void disown() {
+      if (domain != null) {
+        domain = null;
+        disowned.increment();
+      }
+    }
+  }
+
+  private static final class Stripe {
+    private Ref head;
+
+    synchronized void add(Ref r) {
+      r.next = head;
+      if (head != null) {
+        head.prev = r;
+      }
+      head = r;
+    }
+
+    synchronized void remove(Ref r) {
+      if (r.prev != null) {
+        r.prev.next = r.next;
+      } else {
+        head = r.next;
+      }
+      if (r.next != null) {
+        r.next.prev = r.prev;
+      }
+      r.prev = r.next = null;
+    }
+  }
+
+  private static final ReferenceQueue<Proxy> queue = new ReferenceQueue<>();
+  private static final Stripe[] stripes = new Stripe[N_STRIPES];
+  private static final LongAdder registered = new LongAdder();
+  private static final LongAdder released = new LongAdder();
+  private static final LongAdder disowned = new LongAdder();
+  private static final LongAdder batches = new LongAdder();
+  private static final AtomicLong nPending_ = new AtomicLong();
+
+  static {
+    for (int i=0; i<N_STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+    Thread t = new Thread(ProxyReclaimer::drainLoop, "MDS proxy reclaimer");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  private ProxyReclaimer() {}
+
+  /*
+   * Called from the Proxy constructor.  A null domain means the index is
+   * never released.
+   */
+  static Ref register(Proxy proxy, long index, Domain domain) {
+    if (index == 0 || domain == null) {
+      return null;
+    }
+    Stripe s = stripes[(int)(Thread.currentThread().getId() & (N_STRIPES-1))];
+    Ref r = new Ref(proxy, index, domain, s);
+    s.add(r);
+    registered.increment();
+    return r;
+  }
+
+  private static void drainLoop() {
+    List<Domain> touched = new ArrayList<>();
+    while (true) {
+      try {
+        Reference<? extends Proxy> r = queue.remove();
+        int n = 0;
+        do {
+          Ref ref = (Ref)r;
+          ref.stripe.remove(ref);
+          Domain d = ref.domain;
+          if (d != null && d.add(ref.index)) {
+            touched.add(d);
+          }
+        } while (++n < BATCH_SIZE && (r = queue.poll()) != null);
+        for (Domain d : touched) {
+          d.flush();
+        }
+        touched.clear();
+      } catch (InterruptedException e) {
+        // Nobody should be interrupting us, but if they do, keep going.
+      } catch (Throwable t) {
+        log.error("Proxy reclaimer", t);
+      }
+    }
+  }
+
+  /*
+   * Proxies registered so far.
+   */
+  public static long registered() {
+    return registered.sum();
+  }
+
+  /*
+   * Handle indices given back to the native store so far.
+   */
+  public static long released() {
+    return released.sum();
+  }
+
+  /*
+   * Native calls made to release indices in batches.
+   */
+  public static long batches() {
+    return batches.sum();
+  }
+
+  /*
+   * Registered proxies whose index has been handed to another proxy.
+   */
+  public static long disowned() {
+    return disowned.sum();
+  }
+
+  /*
+   * Indices drained from the reference queue but not yet released.
+   */
+  public static long pendingRelease() {
+    return nPending_.get();
+  }
+
+  /*
+   * Indices held by registered proxies that haven't been released yet.
+   * This includes proxies that are unreachable but haven't been noticed
+   * by the garbage collector.
+   */
+  public static long outstanding() {
+    return registered() - released() - disowned();
+  }
+}
@@ -28,9 +28,20 @@ package com.hpl.mds.impl;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
+import com.hpl.mds.Field;
 import com.hpl.mds.PubOption;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.conflicts.ConflictResolver;
 
 public class PubOptionImpl {
 	// The logic is that we keep going if one says yes and none say no.
@@ -69,10 +80,92 @@ public class PubOptionImpl {
   public static PubOption reRunUntil(Instant time) {
 	  return new ReRunOption(() -> new UntilTimeControl(time));
   }
+
+  public static PubOption withBackoff(Duration initial, Duration max) {
+    if (initial.isNegative() || max.compareTo(initial) < 0) {
+      throw new IllegalArgumentException(String.format("Bad backoff range: %s to %s", initial, max));
+    }
+    long initialNanos = initial.toNanos();
+    long maxNanos = max.toNanos();
+    return new ReRunOption(() -> new BackoffControl(initialNanos, maxNanos));
+  }
+
+  public static PubOption reRunAdaptively(int maxTimes) {
+    ConflictRate rate = new ConflictRate();
+    return new ReRunOption(() -> new AdaptiveControl(maxTimes, rate));
+  }
+
+  /*
+   * A marker, looked for by publish(): no Control of its own.
+   */
+  static final PubOption GROUP_COMMIT = new PubOption() {
+    @Override
+    public String toString() {
+      return "groupCommit";
+    }
+  };
+
+  public static PubOption groupCommit() {
+    return GROUP_COMMIT;
+  }
+
+  /*
+   * Another marker, looked for by callIsolated(), which then runs the call
+   * in a read-only snapshot and doesn't publish.
+   */
+  static final PubOption READ_ONLY = new PubOption() {
+    @Override
+    public String toString() {
+      return "readOnly";
+    }
+  };
+
+  public static PubOption readOnly() {
+    return READ_ONLY;
+  }
+
+  public static PubOption throttle(RecordType<?> type, int maxConcurrent) {
+    if (maxConcurrent < 1) {
+      throw new IllegalArgumentException("maxConcurrent must be positive: "+maxConcurrent);
+    }
+    Admission admission = admissions.computeIfAbsent(type, t -> new Admission(maxConcurrent));
+    if (admission.maxConcurrent != maxConcurrent) {
+      throw new IllegalArgumentException(String.format("%s is already throttled to %d, not %d",
+                                                       type.name(), admission.maxConcurrent, maxConcurrent));
+    }
+    return new ReRunOption(() -> new ThrottleControl(admission));
+  }
   
+  public static PubOption resolveConflicts(Field<?,?> field, ConflictResolver<?> resolver) {
+    if (resolver == null) {
+      throw new NullPointerException("resolver");
+    }
+    String fieldName = field == null ? null : field.recordType().name() + "." + field.name();
+    return new ResolveOption(fieldName, resolver);
+  }
+
+  /*
+   * One of these is started for each callIsolated().  tryAgain() is asked
+   * after each failed attempt.  The other methods let an option act around
+   * attempts without voting on whether there is another: beforeAttempt()
+   * and afterAttempt() bracket every attempt, and backoffNanos() is how long
+   * to wait before the next one.  callIsolated() waits for the longest any
+   * option asks for.  callIsolatedAsync(), which mustn't wait, uses
+   * tryBeforeAttempt() instead, and if any says no, gives back what the
+   * others took with abandonAttempt() and tries again a little later.
+   */
   static class ReRunOption implements PubOption {
     interface Control {
       KeepGoing tryAgain();
+      default void beforeAttempt() throws InterruptedException {}
+      default boolean tryBeforeAttempt() {
+        return true;
+      }
+      default void abandonAttempt() {}
+      default void afterAttempt(boolean succeeded) {}
+      default long backoffNanos() {
+        return 0;
+      }
     }
     private final Supplier<? extends Control> supplier;
     ReRunOption(Supplier<? extends Control> supplier) {
@@ -106,6 +199,225 @@ public class PubOptionImpl {
       return KeepGoing.basedOn(!end.isBefore(Instant.now()));
     }
   }
-  
 
+  /*
+   * Exponential backoff with full jitter: before retry n, wait a random time
+   * up to initial*2^(n-1), capped at max.  Spreading retries out keeps
+   * transactions that conflicted on a hot record from all coming back at once.
+   */
+  static class BackoffControl implements ReRunOption.Control {
+    final long initialNanos;
+    final long maxNanos;
+    int failures;
+
+    BackoffControl(long initialNanos, long maxNanos) {
+      this.initialNanos = initialNanos;
+      this.maxNanos = maxNanos;
+    }
+    @Override
+    public KeepGoing tryAgain() {
+      return KeepGoing.OKAY;
+    }
+    @Override
+    public void afterAttempt(boolean succeeded) {
+      if (!succeeded) {
+        failures++;
+      }
+    }
+    @Override
+    public long backoffNanos() {
+      int shift = Math.min(failures - 1, 62);
+      long ceiling = initialNanos << shift;
+      if (ceiling < 0 || (ceiling >> shift) != initialNanos || ceiling > maxNanos) {
+        ceiling = maxNanos;
+      }
+      return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+  }
+
+  /*
+   * The fraction of attempts that failed, as a moving average over all
+   * callIsolated()s using the same option.  Each attempt moves it 1/16 of
+   * the way toward 0 or 1.
+   */
+  static class ConflictRate {
+    private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+
+    double get() {
+      return Double.longBitsToDouble(bits.get());
+    }
+
+    void note(boolean failed) {
+      double target = failed ? 1.0 : 0.0;
+      long prev;
+      long next;
+      do {
+        prev = bits.get();
+        double r = Double.longBitsToDouble(prev);
+        next = Double.doubleToRawLongBits(r + (target - r) / 16);
+      } while (!bits.compareAndSet(prev, next));
+    }
+  }
+
+  /*
+   * Like reRunNTimes(maxTimes), but the more of the option's recent attempts
+   * have failed, the fewer retries a call gets, down to one.  When nearly
+   * everything is conflicting, more retries mostly add to the contention.
+   */
+  static class AdaptiveControl implements ReRunOption.Control {
+    final ConflictRate rate;
+    final int timesAllowed;
+    int times;
+
+    AdaptiveControl(int maxTimes, ConflictRate rate) {
+      this.rate = rate;
+      this.timesAllowed = maxTimes <= 0 ? 0 
+          : Math.max(1, (int)Math.ceil(maxTimes * (1 - rate.get())));
+    }
+    @Override
+    public KeepGoing tryAgain() {
+      return KeepGoing.basedOn(times++ < timesAllowed);
+    }
+    @Override
+    public void afterAttempt(boolean succeeded) {
+      rate.note(!succeeded);
+    }
+  }
+
+  // admission permits, shared by all throttle() options for the same record type
+  private static final ConcurrentMap<RecordType<?>, Admission> admissions = new ConcurrentHashMap<>();
+
+  /*
+   * The permits for one record type, and how deep each thread is in
+   * attempts holding one.  A throttled call nested in another on the same
+   * thread runs under its caller's permit; waiting for one of its own
+   * could wait forever.
+   */
+  static final class Admission {
+    final int maxConcurrent;
+    final Semaphore permits;
+    final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    Admission(int maxConcurrent) {
+      this.maxConcurrent = maxConcurrent;
+      this.permits = new Semaphore(maxConcurrent);
+    }
+  }
+
+  /*
+   * At most so many attempts run at once among the calls throttled on the
+   * same record type; the rest wait their turn rather than adding conflicts.
+   * The first throttle() for a type sets the number.  The permit is taken
+   * and given back on the thread that makes the attempt.
+   */
+  static class ThrottleControl implements ReRunOption.Control {
+    final Admission admission;
+    boolean entered;
+
+    ThrottleControl(Admission admission) {
+      this.admission = admission;
+    }
+    @Override
+    public KeepGoing tryAgain() {
+      return KeepGoing.OKAY;
+    }
+    @Override
+    public void beforeAttempt() throws InterruptedException {
+      int[] depth = admission.depth.get();
+      if (depth[0] == 0) {
+        admission.permits.acquire();
+      }
+      depth[0]++;
+      entered = true;
+    }
+    @Override
+    public boolean tryBeforeAttempt() {
+      int[] depth = admission.depth.get();
+      if (depth[0] == 0 && !admission.permits.tryAcquire()) {
+        return false;
+      }
+      depth[0]++;
+      entered = true;
+      return true;
+    }
+    @Override
+    public void afterAttempt(boolean succeeded) {
+      abandonAttempt();
+    }
+    @Override
+    public void abandonAttempt() {
+      if (entered) {
+        entered = false;
+        int[] depth = admission.depth.get();
+        if (--depth[0] == 0) {
+          admission.permits.release();
+        }
+      }
+    }
+  }
+
+  /*
+   * fieldName is "RecordType.field", as PubResultProxy names a conflicting
+   * field, or null to apply to any field.
+   */
+  static class ResolveOption implements PubOption {
+    final String fieldName;
+    final ConflictResolver<?> resolver;
+
+    ResolveOption(String fieldName, ConflictResolver<?> resolver) {
+      this.fieldName = fieldName;
+      this.resolver = resolver;
+    }
+  }
+
+  /*
+   * The resolveConflicts() options given to a publish(), looked up by
+   * PubResultProxy as each conflict is added.  A later option for the same
+   * field replaces an earlier one.
+   */
+  static class Resolvers {
+    private final Map<String, ConflictResolver<?>> byField = new HashMap<>();
+    private ConflictResolver<?> anyField;
+
+    // null if none of the options is a resolveConflicts()
+    static Resolvers of(Collection<? extends PubOption> options) {
+      Resolvers rs = null;
+      for (PubOption opt : options) {
+        if (opt instanceof ResolveOption) {
+          ResolveOption ro = (ResolveOption)opt;
+          if (rs == null) {
+            rs = new Resolvers();
+          }
+          if (ro.fieldName == null) {
+            rs.anyField = ro.resolver;
+          } else {
+            rs.byField.put(ro.fieldName, ro.resolver);
+          }
+        }
+      }
+      return rs;
+    }
+
+    ConflictResolver<?> forField(String fieldName) {
+      ConflictResolver<?> r = byField.get(fieldName);
+      return r == null ? anyField : r;
+    }
+
+    /*
+     * What pr_merge_result should do with a conflict on the field.  Fields
+     * whose proxies can't yet be made from a handle (record and array
+     * fields) only get the policies that don't need one.
+     */
+    ConflictPolicy policyFor(String fieldName, boolean numeric, boolean canCallBack) {
+      ConflictResolver<?> r = forField(fieldName);
+      if (r == null) {
+        return ConflictPolicy.NONE;
+      }
+      if (r instanceof ConflictPolicy) {
+        ConflictPolicy p = (ConflictPolicy)r;
+        return p.numericOnly() && !numeric ? ConflictPolicy.NONE : p;
+      }
+      return canCallBack ? ConflictPolicy.CUSTOM : ConflictPolicy.NONE;
+    }
+  }
 }
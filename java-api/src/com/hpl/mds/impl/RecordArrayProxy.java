@@ -43,17 +43,20 @@ import com.hpl.mds.usage.UsageScope;
 public class RecordArrayProxy<R extends ManagedRecord> extends ArrayProxy<R> {
 
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(RecordArrayProxy::release, RecordArrayProxy::releaseBatch);
   
   private final RecordArrayTypeProxy<R> type;
   private final RecordTypeProxy<R> eltType;
 
   private static native void release(long handle);
+  private static native void releaseBatch(long[] handles);
   private static native boolean isIdentical(long aHandle, long bHandle);
   private static native boolean isSameObject(long aHandle, long bHandle);
   private static native boolean isSameViewOfSameObject(long aHandle, long bHandle, long ctxtHandle);
   private static native long createArray(long ctxtHandle, long size, long typeHandle);
 
   private static native long readHandle(long handle, long ctxtHandle, long index);
+  private static native void readHandles(long handle, long ctxtHandle, long from, long[] handles, int len);
   private static native long writeHandle(long handle, long ctxtHandle, long index, long val);
   private static native long size(long handle);
   
@@ -68,8 +71,8 @@ public class RecordArrayProxy<R extends ManagedRecord> extends ArrayProxy<R> {
  
 
   @Override
-  void releaseHandleIndex(long index) {
-    release(index); 
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
 
   public enum FromHandle { FROM_HANDLE };
@@ -150,6 +153,21 @@ public class RecordArrayProxy<R extends ManagedRecord> extends ArrayProxy<R> {
 	  Task.addRead(this, index);
 	  return ManagedRecordProxy.fromHandle(readHandle(handleIndex(), IsoContextProxy.current().handleIndex(), index), eltType);
   }
+
+  /*
+   * The elements in [from, from+len), read in one native call.
+   */
+  void getRange(long from, Object[] dst, int off, int len) {
+    if (from < 0 || len < 0 || from + len > longSize()) {
+      throw new IndexOutOfBoundsException(String.format("[%d, %d) not in [0, %d)", from, from+len, longSize()));
+    }
+    Task.addReads(this, from, from+len);
+    long[] handles = new long[len];
+    readHandles(handleIndex(), IsoContextProxy.current().handleIndex(), from, handles, len);
+    for (int i = 0; i < len; i++) {
+      dst[off+i] = ManagedRecordProxy.fromHandle(handles[i], eltType);
+    }
+  }
   @Override
   public R set(long index, R val) {
 	  Task.addWrite(this, index);
@@ -224,6 +242,11 @@ public class RecordArrayProxy<R extends ManagedRecord> extends ArrayProxy<R> {
   public Change<R> createChange(long index) {
 	  return new Change<>(this, index);
   }
+
+  @Override
+  Class<?> changeClass() {
+	  return Change.class;
+  }
   
   @Override
   public void setToParent(long index) {
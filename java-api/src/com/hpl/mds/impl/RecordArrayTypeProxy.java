@@ -42,7 +42,6 @@ import com.hpl.mds.exceptions.UnboundNameException;
 import com.hpl.mds.naming.Namespace;
 import com.hpl.mds.naming.Prior;
 import com.hpl.mds.string.ManagedMapFromString;
-import com.hpl.mds.string.ManagedString;
 
 
 
@@ -50,6 +49,7 @@ import com.hpl.mds.string.ManagedString;
 public class RecordArrayTypeProxy<R extends ManagedRecord> extends Proxy implements ManagedTypeImpl<ManagedArray<R>>, ManagedArray.Type<R>
 {
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(RecordArrayTypeProxy::release);
   /**
    * @throws UnboundNameException when the name is not bound to anything in this context
    * @throws IncompatibleTypeException when the name is bound to something other than this type
@@ -79,8 +79,8 @@ public class RecordArrayTypeProxy<R extends ManagedRecord> extends Proxy impleme
   }
   
   @Override
-  void releaseHandleIndex(long index) {
-    proxyTable.release(index);
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
 
 
@@ -157,12 +157,12 @@ public class RecordArrayTypeProxy<R extends ManagedRecord> extends Proxy impleme
 
   @Override
   public <K extends ManagedObject> ManagedMap.Type<K, ManagedArray<R>> inMapFrom(ManagedType<K> keyType) {
-    return Stub.notImplemented(); 
+    return ManagedHashMapTypeProxy.forTypes(keyType, this);
   }
 
   @Override
   public ManagedMapFromString.Type<ManagedArray<R>> inMapFromString() {
-    return inMapFrom(ManagedString.TYPE);
+    return ManagedHashMapTypeProxy.fromString(this);
   }
 
   /**
@@ -43,6 +43,7 @@ import com.hpl.mds.task.Task;
 public class RecordFieldProxy<RT extends ManagedRecord, FT extends ManagedRecord> extends FieldProxy<RT, FT> implements RecordField<RT,FT> {
 
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(RecordFieldProxy::release);
   
   private RecordTypeProxy<FT> valueType_;
   
@@ -62,6 +63,10 @@ public class RecordFieldProxy<RT extends ManagedRecord, FT extends ManagedRecord
   private static native long setValueHandle(long handle, long ctxtHandle, long recHandle, long valHandle);
   private static native void setToParent(long handle, long ctxtHandle, long recHandle);
   private static native void rollback(long handle, long ctxtHandle, long recHandle);
+
+  static String describe(long handle) {
+    return describe(handle, RecordFieldProxy::getRecTypeHandle, RecordFieldProxy::getNameHandle);
+  }
       
   public void setToParent(RT rec) {
       setToParent(handleIndex_, IsoContextProxy.current().handleIndex(),
@@ -75,8 +80,8 @@ public class RecordFieldProxy<RT extends ManagedRecord, FT extends ManagedRecord
   
   
   @Override
-  void releaseHandleIndex(long index) {
-    release(index);
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
   
   @Override
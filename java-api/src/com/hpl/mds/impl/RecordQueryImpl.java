@@ -0,0 +1,527 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.hpl.mds.Field;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedNumber;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.NativeLibraryLoader;
+import com.hpl.mds.RecordQuery;
+import com.hpl.mds.task.Task;
+
+/*
+ * A RecordQuery, immutable, so that where() can share the conditions
+ * already there.
+ *
+ * When the records are in runs of RecordArrayProxys, each run is handed to
+ * the native layer in one call along with the handles of the fields, and
+ * the partial results from the runs combined here.  Values cross as longs:
+ * integral values as themselves and floating ones as their bits.  Within a
+ * task the reads have to be seen by the task, so the records are walked in
+ * Java, as they are when they're not in arrays (linked lists and sets).
+ */
+public final class RecordQueryImpl<R extends ManagedRecord> implements RecordQuery<R> {
+
+  private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+
+  /*
+   * Each condition is passed as field handle, kind, op and value.
+   */
+  static final int FILTER_STRIDE = 4;
+  /*
+   * Or'ed into the op when the comparison is done as doubles.
+   */
+  static final int AS_DOUBLE = 0x10;
+
+  private static native void summarize(long arrayHandle, long ctxtHandle, long from, long to,
+                                       long[] filters, long fieldHandle, int fieldKind, long[] summary);
+  private static native int top(long arrayHandle, long ctxtHandle, long from, long to,
+                                long[] filters, long fieldHandle, int fieldKind, boolean largest,
+                                long[] indices, long[] values);
+
+  /*
+   * The kinds of field the native layer can read, in the order it expects.
+   */
+  enum NumKind {
+    BYTE, SHORT, INT, LONG, FLOAT, DOUBLE;
+
+    boolean isIntegral() {
+      return compareTo(FLOAT) < 0;
+    }
+
+    /*
+     * Null if it's not one of our field proxies.
+     */
+    static NumKind of(Field<?,?> field) {
+      if (field instanceof LongFieldProxy) {
+        return LONG;
+      } else if (field instanceof IntFieldProxy) {
+        return INT;
+      } else if (field instanceof DoubleFieldProxy) {
+        return DOUBLE;
+      } else if (field instanceof FloatFieldProxy) {
+        return FLOAT;
+      } else if (field instanceof ShortFieldProxy) {
+        return SHORT;
+      } else if (field instanceof ByteFieldProxy) {
+        return BYTE;
+      }
+      return null;
+    }
+  }
+
+  /*
+   * Where the records come from.
+   */
+  private interface Source<R extends ManagedRecord> {
+    /*
+     * Passes sink the runs of array slots holding the records and returns
+     * true, or returns false if they aren't in arrays.
+     */
+    boolean forEachRun(ManagedListProxy.RunSink<R> sink);
+
+    Iterable<R> records();
+  }
+
+  private static final class Condition<R extends ManagedRecord> {
+    final Field<R, ? extends ManagedNumber> field;
+    final NumKind kind;
+    final Compare op;
+    final boolean asDouble;
+    final long longVal;
+    final double doubleVal;
+
+    Condition(Field<R, ? extends ManagedNumber> field, Compare op, boolean isDouble, long longVal, double doubleVal) {
+      this.field = field;
+      this.kind = NumKind.of(field);
+      this.op = op;
+      this.asDouble = isDouble || kind == null || !kind.isIntegral();
+      this.longVal = longVal;
+      this.doubleVal = doubleVal;
+    }
+
+    boolean test(R record) {
+      ManagedNumber v = field.get(record);
+      if (v == null) {
+        return false;
+      }
+      int c = asDouble ? Double.compare(v.doubleValue(), doubleVal) : Long.compare(v.longValue(), longVal);
+      switch (op) {
+      case LT:
+        return c < 0;
+      case LE:
+        return c <= 0;
+      case EQ:
+        return c == 0;
+      case NE:
+        return c != 0;
+      case GE:
+        return c >= 0;
+      default:
+        return c > 0;
+      }
+    }
+  }
+
+  private static final class Stats implements Summary {
+    private final boolean integral_;
+    private long count_;
+    private long longSum_;
+    private long longMin_ = Long.MAX_VALUE;
+    private long longMax_ = Long.MIN_VALUE;
+    private double sum_;
+    private double min_ = Double.POSITIVE_INFINITY;
+    private double max_ = Double.NEGATIVE_INFINITY;
+
+    Stats(boolean integral) {
+      integral_ = integral;
+    }
+
+    void accept(ManagedNumber v) {
+      if (integral_) {
+        accept(1, v.longValue(), v.longValue(), v.longValue());
+      } else {
+        accept(1, v.doubleValue(), v.doubleValue(), v.doubleValue());
+      }
+    }
+
+    void accept(long n, long sum, long min, long max) {
+      count_ += n;
+      longSum_ += sum;
+      longMin_ = Math.min(longMin_, min);
+      longMax_ = Math.max(longMax_, max);
+    }
+
+    void accept(long n, double sum, double min, double max) {
+      count_ += n;
+      sum_ += sum;
+      min_ = Math.min(min_, min);
+      max_ = Math.max(max_, max);
+    }
+
+    /*
+     * A run's count, sum, min and max, as the native layer returns them.
+     */
+    void accept(long[] summary) {
+      if (summary[0] == 0) {
+        return;
+      }
+      if (integral_) {
+        accept(summary[0], summary[1], summary[2], summary[3]);
+      } else {
+        accept(summary[0], Double.longBitsToDouble(summary[1]),
+               Double.longBitsToDouble(summary[2]), Double.longBitsToDouble(summary[3]));
+      }
+    }
+
+    @Override
+    public long count() {
+      return count_;
+    }
+
+    @Override
+    public boolean isIntegral() {
+      return integral_;
+    }
+
+    @Override
+    public long longSum() {
+      return integral_ ? longSum_ : (long)sum_;
+    }
+
+    @Override
+    public long longMin() {
+      return integral_ ? longMin_ : count_ == 0 ? Long.MAX_VALUE : (long)min_;
+    }
+
+    @Override
+    public long longMax() {
+      return integral_ ? longMax_ : count_ == 0 ? Long.MIN_VALUE : (long)max_;
+    }
+
+    @Override
+    public double sum() {
+      return integral_ ? longSum_ : sum_;
+    }
+
+    @Override
+    public double min() {
+      return integral_ ? count_ == 0 ? Double.POSITIVE_INFINITY : longMin_ : min_;
+    }
+
+    @Override
+    public double max() {
+      return integral_ ? count_ == 0 ? Double.NEGATIVE_INFINITY : longMax_ : max_;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("{count=%d, sum=%s, min=%s, max=%s}", count_,
+                           integral_ ? longSum_ : sum_, integral_ ? longMin_ : min_, integral_ ? longMax_ : max_);
+    }
+  }
+
+  /*
+   * A record in the running for top() or bottom().  Records found by the
+   * native layer are only read when they make the final list.
+   */
+  private static final class Candidate<R extends ManagedRecord> {
+    final long value;
+    final ManagedArray<R> array;
+    final long index;
+    R record;
+
+    Candidate(long value, ManagedArray<R> array, long index, R record) {
+      this.value = value;
+      this.array = array;
+      this.index = index;
+      this.record = record;
+    }
+
+    R record() {
+      if (record == null) {
+        record = array.get(index);
+      }
+      return record;
+    }
+  }
+
+  private static final class Run<R extends ManagedRecord> {
+    final ManagedArray<R> array;
+    final long from;
+    final long to;
+
+    Run(ManagedArray<R> array, long from, long to) {
+      this.array = array;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  private final Source<R> source_;
+  private final List<Condition<R>> conditions_;
+
+  private RecordQueryImpl(Source<R> source, List<Condition<R>> conditions) {
+    source_ = source;
+    conditions_ = conditions;
+  }
+
+  public static <R extends ManagedRecord> RecordQuery<R> over(ManagedArray<R> records) {
+    return new RecordQueryImpl<>(new Source<R>() {
+      @Override
+      public boolean forEachRun(ManagedListProxy.RunSink<R> sink) {
+        sink.run(records, 0, records.longSize());
+        return true;
+      }
+
+      @Override
+      public Iterable<R> records() {
+        return records;
+      }
+    }, Collections.emptyList());
+  }
+
+  public static <R extends ManagedRecord> RecordQuery<R> over(ManagedList<R> records) {
+    return new RecordQueryImpl<>(new Source<R>() {
+      @Override
+      public boolean forEachRun(ManagedListProxy.RunSink<R> sink) {
+        return records instanceof ManagedListProxy && ((ManagedListProxy<R>)records).forEachRun(sink);
+      }
+
+      @Override
+      public Iterable<R> records() {
+        return records;
+      }
+    }, Collections.emptyList());
+  }
+
+  public static <R extends ManagedRecord> RecordQuery<R> over(ManagedSet<R> records) {
+    return new RecordQueryImpl<>(new Source<R>() {
+      @Override
+      public boolean forEachRun(ManagedListProxy.RunSink<R> sink) {
+        return false;
+      }
+
+      @Override
+      public Iterable<R> records() {
+        return records;
+      }
+    }, Collections.emptyList());
+  }
+
+  @Override
+  public RecordQuery<R> where(Field<R, ? extends ManagedNumber> field, Compare op, long value) {
+    return where(new Condition<>(field, op, false, value, value));
+  }
+
+  @Override
+  public RecordQuery<R> where(Field<R, ? extends ManagedNumber> field, Compare op, double value) {
+    return where(new Condition<>(field, op, true, (long)value, value));
+  }
+
+  private RecordQuery<R> where(Condition<R> c) {
+    List<Condition<R>> cs = new ArrayList<>(conditions_);
+    cs.add(c);
+    return new RecordQueryImpl<>(source_, cs);
+  }
+
+  private boolean matches(R record) {
+    if (record == null) {
+      return false;
+    }
+    for (Condition<R> c : conditions_) {
+      if (!c.test(record)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * The runs to hand to the native layer, or null if the query has to be
+   * done in Java.
+   */
+  private List<Run<R>> nativeRuns(NumKind fieldKind) {
+    if ((Task.isTracking() && Task.current() != null) || fieldKind == null) {
+      return null;
+    }
+    for (Condition<R> c : conditions_) {
+      if (c.kind == null) {
+        return null;
+      }
+    }
+    List<Run<R>> runs = new ArrayList<>();
+    boolean[] inArrays = { true };
+    if (!source_.forEachRun((a, from, to) -> {
+          inArrays[0] &= a instanceof RecordArrayProxy;
+          runs.add(new Run<>(a, from, to));
+        })
+        || !inArrays[0]) {
+      return null;
+    }
+    return runs;
+  }
+
+  private long[] filters() {
+    long[] filters = new long[conditions_.size() * FILTER_STRIDE];
+    int i = 0;
+    for (Condition<R> c : conditions_) {
+      filters[i++] = ((Proxy)c.field).handleIndex();
+      filters[i++] = c.kind.ordinal();
+      filters[i++] = c.op.ordinal() | (c.asDouble ? AS_DOUBLE : 0);
+      filters[i++] = c.asDouble ? Double.doubleToRawLongBits(c.doubleVal) : c.longVal;
+    }
+    return filters;
+  }
+
+  @Override
+  public long count() {
+    // Any kind will do, as there's no field to read.
+    List<Run<R>> runs = nativeRuns(NumKind.LONG);
+    if (runs == null) {
+      long n = 0;
+      for (R r : source_.records()) {
+        if (matches(r)) {
+          n++;
+        }
+      }
+      return n;
+    }
+    return summarize(runs, 0, NumKind.LONG).count();
+  }
+
+  @Override
+  public Summary summarize(Field<R, ? extends ManagedNumber> field) {
+    NumKind kind = NumKind.of(field);
+    List<Run<R>> runs = nativeRuns(kind);
+    if (runs == null) {
+      Stats stats = new Stats(kind == null || kind.isIntegral());
+      for (R r : source_.records()) {
+        if (matches(r)) {
+          ManagedNumber v = field.get(r);
+          if (v != null) {
+            stats.accept(v);
+          }
+        }
+      }
+      return stats;
+    }
+    return summarize(runs, ((Proxy)field).handleIndex(), kind);
+  }
+
+  private Stats summarize(List<Run<R>> runs, long fieldHandle, NumKind kind) {
+    Stats stats = new Stats(kind.isIntegral());
+    long[] filters = filters();
+    long ctxt = IsoContextProxy.current().handleIndex();
+    long[] summary = new long[4];
+    for (Run<R> run : runs) {
+      summarize(RecordArrayProxy.handleOf(run.array), ctxt, run.from, run.to,
+                filters, fieldHandle, kind.ordinal(), summary);
+      stats.accept(summary);
+    }
+    return stats;
+  }
+
+  @Override
+  public List<R> top(int n, Field<R, ? extends ManagedNumber> field) {
+    return ranked(n, field, true);
+  }
+
+  @Override
+  public List<R> bottom(int n, Field<R, ? extends ManagedNumber> field) {
+    return ranked(n, field, false);
+  }
+
+  private List<R> ranked(int n, Field<R, ? extends ManagedNumber> field, boolean largest) {
+    if (n < 0) {
+      throw new IllegalArgumentException("n < 0: " + n);
+    }
+    NumKind kind = NumKind.of(field);
+    boolean integral = kind == null || kind.isIntegral();
+    Comparator<Candidate<R>> better = integral
+      ? (a, b) -> Long.compare(a.value, b.value)
+      : (a, b) -> Double.compare(Double.longBitsToDouble(a.value), Double.longBitsToDouble(b.value));
+    if (!largest) {
+      better = better.reversed();
+    }
+    // The worst of the best so far is at the head.
+    PriorityQueue<Candidate<R>> best = new PriorityQueue<>(Math.max(n, 1), better);
+    if (n == 0) {
+      return new ArrayList<>();
+    }
+    List<Run<R>> runs = nativeRuns(kind);
+    if (runs == null) {
+      for (R r : source_.records()) {
+        if (matches(r)) {
+          ManagedNumber v = field.get(r);
+          if (v != null) {
+            long bits = integral ? v.longValue() : Double.doubleToRawLongBits(v.doubleValue());
+            offer(best, n, new Candidate<>(bits, null, -1, r), better);
+          }
+        }
+      }
+    } else {
+      long[] filters = filters();
+      long ctxt = IsoContextProxy.current().handleIndex();
+      long[] indices = new long[n];
+      long[] values = new long[n];
+      for (Run<R> run : runs) {
+        int found = top(RecordArrayProxy.handleOf(run.array), ctxt, run.from, run.to,
+                        filters, ((Proxy)field).handleIndex(), kind.ordinal(), largest, indices, values);
+        for (int i = 0; i < found; i++) {
+          offer(best, n, new Candidate<>(values[i], run.array, indices[i], null), better);
+        }
+      }
+    }
+    List<Candidate<R>> sorted = new ArrayList<>(best);
+    sorted.sort(better.reversed());
+    List<R> result = new ArrayList<>(sorted.size());
+    for (Candidate<R> c : sorted) {
+      result.add(c.record());
+    }
+    return result;
+  }
+
+  private static <R extends ManagedRecord>
+  void offer(PriorityQueue<Candidate<R>> best, int n, Candidate<R> c, Comparator<Candidate<R>> better) {
+    if (best.size() < n) {
+      best.add(c);
+    } else if (better.compare(c, best.peek()) > 0) {
+      best.poll();
+      best.add(c);
+    }
+  }
+}
@@ -52,6 +52,7 @@ import com.hpl.mds.string.ManagedString;
 public class RecordTypeProxy <R extends ManagedRecord> extends Proxy implements ManagedTypeImpl<R>, RecordType<R> {
 
   private static final NativeLibraryLoader NATIVE_LIB_LOADER = NativeLibraryLoader.getInstance();
+  private static final ProxyReclaimer.Domain RECLAIM = new ProxyReclaimer.Domain(RecordTypeProxy::release);
   
   public static class RecordCreationError extends RuntimeException {
 
@@ -109,8 +110,8 @@ public class RecordTypeProxy <R extends ManagedRecord> extends Proxy implements
   //    }
 
   @Override
-  void releaseHandleIndex(long index) {
-    proxyTable.release(index);
+  ProxyReclaimer.Domain reclaimDomain() {
+    return RECLAIM;
   }
   
   RecordTypeProxy<R> forward() {
@@ -176,7 +177,7 @@ public class RecordTypeProxy <R extends ManagedRecord> extends Proxy implements
 
   @Override
   public ManagedList.Type<R> inList() {
-    return Stub.notImplemented();
+    return ManagedListTypeProxy.forType(this);
   }
   
   @Override
@@ -193,18 +194,18 @@ public class RecordTypeProxy <R extends ManagedRecord> extends Proxy implements
   
   @Override
   public ManagedSet.Type<R> inSet() {
-    return Stub.notImplemented();
+    return ManagedHashSetTypeProxy.forType(this);
   }
 
   @Override
   public <K extends ManagedObject> ManagedMap.Type<K, R> inMapFrom(
                                                                    ManagedType<K> keyType) {
-    return Stub.notImplemented();
+    return ManagedHashMapTypeProxy.forTypes(keyType, this);
   }
 
   @Override
   public ManagedMapFromString.Type<R> inMapFromString() {
-    return Stub.notImplemented();
+    return ManagedHashMapTypeProxy.fromString(this);
   }
 
 
@@ -234,6 +235,11 @@ public class RecordTypeProxy <R extends ManagedRecord> extends Proxy implements
     return Stub.notImplemented();
   }
 
+  @Override
+  public RecordType.Projection<R> projection() {
+    return new RecordProjectionImpl<>();
+  }
+
   protected RecordTypeProxy<? super R> supertype() {
     if (super_ == null) {
       RecordTypeProxy<? super R>[] supers = (RecordTypeProxy<? super R>[])supertypes();
@@ -0,0 +1,179 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.hpl.mds.Holder;
+import com.hpl.mds.ManagedObject;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.SetField;
+import com.hpl.mds.callbacks.ChangeHandler;
+import com.hpl.mds.callbacks.ChangeHandlerRemovalHook;
+import com.hpl.mds.callbacks.FieldChange;
+import com.hpl.mds.string.ManagedString;
+
+import com.hpl.mds.impl.ManagedHashMapProxy.Header;
+
+/*
+ * A field holding either kind of hash set.  As with MapFieldProxy, what's
+ * stored is the header record of the map behind the set, and the Set-like
+ * operations create the set the first time something is added to it.
+ */
+public class SetFieldProxy<RT extends ManagedRecord, T extends ManagedObject> implements SetField<RT,T> {
+
+  private final ManagedSet.Type<T> type_;
+  private final Function<Header, ? extends ManagedSet<T>> wrap_;
+  private final RecordFieldProxy<RT,Header> field_;
+
+  SetFieldProxy(ManagedSet.Type<T> type, Function<Header, ? extends ManagedSet<T>> wrap,
+                RecordFieldProxy<RT,Header> field) {
+    type_ = type;
+    wrap_ = wrap;
+    field_ = field;
+  }
+
+  @Override
+  public ManagedSet<T> get(RT record) {
+    return wrap_.apply(field_.get(record));
+  }
+
+  @Override
+  public ManagedSet<T> peek(RT record) {
+    return wrap_.apply(field_.peek(record));
+  }
+
+  @Override
+  public ManagedSet<T> set(RT rec, ManagedSet<T> val) {
+    field_.set(rec, ManagedHashSetProxy.headerOf(val));
+    return val;
+  }
+
+  @Override
+  public ManagedSet<T> getAndSet(RT rec, ManagedSet<T> val) {
+    return wrap_.apply(field_.getAndSet(rec, ManagedHashSetProxy.headerOf(val)));
+  }
+
+  @Override
+  public boolean change(RT rec, ManagedSet<T> expected, ManagedSet<T> val) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public boolean change(RT rec, Holder<ManagedSet<T>> holdsExpected, ManagedSet<T> val) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ManagedString name() {
+    return field_.name();
+  }
+
+  @Override
+  public RecordType<RT> recordType() {
+    return field_.recordType();
+  }
+
+  @Override
+  public ManagedSet.Type<T> valueType() {
+    return type_;
+  }
+
+  @Override
+  public ChangeHandlerRemovalHook afterChange(ChangeHandler<? super FieldChange<? super RT, ? super ManagedSet<T>>> handler) {
+    return Stub.notImplemented();
+  }
+
+  @Override
+  public ChangeBase createChange(RT record) {
+    return field_.createChange(record);
+  }
+
+  private ManagedSet<T> setFor(RT record) {
+    ManagedSet<T> s = get(record);
+    if (s == null) {
+      s = type_.create();
+      set(record, s);
+    }
+    return s;
+  }
+
+  private Set<T> setOrEmpty(RT record) {
+    ManagedSet<T> s = get(record);
+    return s == null ? Collections.emptySet() : s;
+  }
+
+  @Override
+  public int size(RT record) {
+    return setOrEmpty(record).size();
+  }
+
+  @Override
+  public long longSize(RT record) {
+    ManagedSet<T> s = get(record);
+    return s == null ? 0 : s.longSize();
+  }
+
+  @Override
+  public boolean contains(RT record, T o) {
+    return setOrEmpty(record).contains(o);
+  }
+
+  @Override
+  public Iterable<T> elements(RT record) {
+    return setOrEmpty(record);
+  }
+
+  @Override
+  public Iterator<T> iterator(RT record) {
+    return setOrEmpty(record).iterator();
+  }
+
+  @Override
+  public boolean add(RT record, T e) {
+    return setFor(record).add(e);
+  }
+
+  @Override
+  public boolean remove(RT record, T o) {
+    ManagedSet<T> s = get(record);
+    return s != null && s.remove(o);
+  }
+
+  @Override
+  public void clear(RT record) {
+    ManagedSet<T> s = get(record);
+    if (s != null) {
+      s.clear();
+    }
+  }
+}
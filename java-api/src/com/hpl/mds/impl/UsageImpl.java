@@ -0,0 +1,260 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.hpl.mds.usage.Operation;
+import com.hpl.mds.usage.UsageBase;
+import com.hpl.mds.usage.UsageMode;
+
+/*
+ * The state behind every Usage.  Each managed type has its own Usage
+ * interface, all with the same methods, so rather than a class per interface
+ * there's one handler, and usage() hands out a java.lang.reflect.Proxy for
+ * the interface asked for.  Every hint method records the hint and returns
+ * the same proxy, so chained hints build up a single set.  cast() returns a
+ * view of the same hints through another Usage interface, which is what the
+ * generated using(ManagedCollection.Usage) and the like rely on.
+ *
+ * Scopes and growth rates aren't acted on yet, so during() and the rate and
+ * bound of a growBy() are accepted and ignored.
+ */
+public final class UsageImpl implements InvocationHandler {
+  private final Set<Operation<?>> optimized_ = new LinkedHashSet<>();
+  private final Set<Operation<?>> unexpected_ = new LinkedHashSet<>();
+  private final Set<UsageMode<?>> modes_ = new LinkedHashSet<>();
+  private long expectedSize_ = -1;
+  private long maxSize_ = -1;
+  private long growBy_ = -1;
+  private double growByMultiple_ = -1;
+
+  private UsageImpl() {}
+
+  public static <U> U create(Class<U> clss) {
+    return clss.cast(new UsageImpl().as(clss));
+  }
+
+  /*
+   * The hints behind a Usage, or empty hints if it's null or not one of
+   * ours.
+   */
+  public static UsageImpl of(UsageBase<?,?> hints) {
+    if (hints != null && java.lang.reflect.Proxy.isProxyClass(hints.getClass())) {
+      InvocationHandler h = java.lang.reflect.Proxy.getInvocationHandler(hints);
+      if (h instanceof UsageImpl) {
+        return (UsageImpl)h;
+      }
+    }
+    return new UsageImpl();
+  }
+
+  private Object as(Class<?> clss) {
+    return java.lang.reflect.Proxy.newProxyInstance(clss.getClassLoader(), new Class<?>[] { clss }, this);
+  }
+
+  private UsageImpl copy() {
+    UsageImpl c = new UsageImpl();
+    c.merge(this);
+    return c;
+  }
+
+  private void merge(UsageImpl other) {
+    if (other == this) {
+      return;
+    }
+    Set<Operation<?>> optimized;
+    Set<Operation<?>> unexpected;
+    Set<UsageMode<?>> modes;
+    long expectedSize, maxSize, growBy;
+    double growByMultiple;
+    synchronized (other) {
+      optimized = new LinkedHashSet<>(other.optimized_);
+      unexpected = new LinkedHashSet<>(other.unexpected_);
+      modes = new LinkedHashSet<>(other.modes_);
+      expectedSize = other.expectedSize_;
+      maxSize = other.maxSize_;
+      growBy = other.growBy_;
+      growByMultiple = other.growByMultiple_;
+    }
+    synchronized (this) {
+      optimized_.removeAll(unexpected);
+      unexpected_.removeAll(optimized);
+      optimized_.addAll(optimized);
+      unexpected_.addAll(unexpected);
+      modes_.addAll(modes);
+      if (expectedSize >= 0) {
+        expectedSize_ = expectedSize;
+      }
+      if (maxSize >= 0) {
+        maxSize_ = maxSize;
+      }
+      if (growBy >= 0) {
+        growBy_ = growBy;
+      }
+      if (growByMultiple >= 0) {
+        growByMultiple_ = growByMultiple;
+      }
+    }
+  }
+
+  public synchronized boolean optimizesFor(Operation<?> op) {
+    return optimized_.contains(op);
+  }
+
+  public synchronized boolean doesNotExpect(Operation<?> op) {
+    return unexpected_.contains(op);
+  }
+
+  public synchronized boolean isUsedAs(UsageMode<?> mode) {
+    return modes_.contains(mode);
+  }
+
+  /*
+   * -1 for each of these if no hint was given.
+   */
+  public synchronized long expectedSize() {
+    return expectedSize_;
+  }
+
+  public synchronized long maxSize() {
+    return maxSize_;
+  }
+
+  public synchronized long growBy() {
+    return growBy_;
+  }
+
+  public synchronized double growByMultiple() {
+    return growByMultiple_;
+  }
+
+  private synchronized void add(String what, Object arg) {
+    switch (what) {
+    case "optimizeFor":
+      optimized_.add((Operation<?>)arg);
+      unexpected_.remove(arg);
+      break;
+    case "doNotExpect":
+      unexpected_.add((Operation<?>)arg);
+      optimized_.remove(arg);
+      break;
+    case "useAs":
+      modes_.add((UsageMode<?>)arg);
+      break;
+    default:
+      throw new IllegalArgumentException(what);
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) {
+    String name = method.getName();
+    Object arg = args == null || args.length == 0 ? null : args[0];
+    switch (name) {
+    case "concrete":
+    case "during":
+      return proxy;
+    case "optimizeFor":
+    case "doNotExpect":
+    case "useAs":
+      if (arg instanceof Collection) {
+        for (Object o : (Collection<?>)arg) {
+          add(name, o);
+        }
+      } else {
+        add(name, arg);
+      }
+      return proxy;
+    case "and":
+      if (arg instanceof Collection) {
+        for (Object o : (Collection<?>)arg) {
+          merge(of((UsageBase<?,?>)o));
+        }
+      } else {
+        merge(of((UsageBase<?,?>)arg));
+      }
+      return proxy;
+    case "map": {
+      @SuppressWarnings("unchecked")
+      Function<Object,?> fn = (Function<Object,?>)arg;
+      for (Object o : (Collection<?>)args[1]) {
+        fn.apply(o);
+      }
+      return proxy;
+    }
+    case "copy":
+      return copy().as(arg == null ? proxy.getClass().getInterfaces()[0] : (Class<?>)arg);
+    case "cast":
+      return as((Class<?>)arg);
+    case "expectedSize":
+      synchronized (this) {
+        expectedSize_ = (Long)arg;
+      }
+      return proxy;
+    case "maxSize":
+      synchronized (this) {
+        maxSize_ = (Long)arg;
+      }
+      return proxy;
+    case "growBy":
+      synchronized (this) {
+        growBy_ = (Long)arg;
+      }
+      return proxy;
+    case "growByMultiple":
+      synchronized (this) {
+        growByMultiple_ = (Double)arg;
+      }
+      return proxy;
+    case "growByPercent":
+      synchronized (this) {
+        growByMultiple_ = 1 + (Double)arg / 100;
+      }
+      return proxy;
+    case "equals":
+      return proxy == arg;
+    case "hashCode":
+      return System.identityHashCode(proxy);
+    case "toString":
+      return toString();
+    default:
+      return Stub.notImplemented();
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("Usage[modes=%s, optimizeFor=%s, doNotExpect=%s, expectedSize=%d, maxSize=%d]",
+                         modes_, optimized_, unexpected_, expectedSize_, maxSize_);
+  }
+}
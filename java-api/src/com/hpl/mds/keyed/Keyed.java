@@ -31,7 +31,8 @@ import java.util.function.Function;
 import com.hpl.mds.ManagedObject;
 import com.hpl.mds.ManagedType;
 import com.hpl.mds.ManagedValue;
-import com.hpl.mds.impl.Stub;
+import com.hpl.mds.impl.KeyedImpl;
+import com.hpl.mds.impl.KeyedTypeProxy;
 
 public interface Keyed<EK extends ManagedObject, V extends ManagedObject> extends ManagedValue {
   static interface Type<EK extends ManagedObject, V extends ManagedObject> extends ManagedType<Keyed<EK,V>> {
@@ -55,8 +56,7 @@ public interface Keyed<EK extends ManagedObject, V extends ManagedObject> extend
   
   static <EK extends ManagedObject, V extends ManagedObject>
   Keyed<EK,V> with(V val, EK key) {
-    // TODO
-    return Stub.notImplemented();
+    return new KeyedImpl<>(key, val);
   }
   
   static <V extends ManagedObject, EK extends ManagedObject>
@@ -71,8 +71,7 @@ public interface Keyed<EK extends ManagedObject, V extends ManagedObject> extend
   
   static <EK extends ManagedObject, V extends ManagedObject>
   Type<EK,V> keyedType(ManagedType<EK> keyType, ManagedType<V> valueType) {
-    // TODO
-    return Stub.notImplemented();
+    return KeyedTypeProxy.forTypes(keyType, valueType);
   }
   
   static <EK extends ManagedObject, V extends ManagedObject>
@@ -30,16 +30,15 @@ import com.hpl.mds.ManagedCollection;
 import com.hpl.mds.ManagedContainer;
 import com.hpl.mds.ManagedObject;
 import com.hpl.mds.ManagedSet;
-import com.hpl.mds.impl.Stub;
+import com.hpl.mds.impl.UsageImpl;
 
 public interface ManagedAutoKeyedSet<EK extends ManagedObject, V extends ManagedObject & AutoKeyed<? extends EK>> 
 extends ManagedKeyedSet<EK,V> {
   interface ForManagedAutoKeyedSet extends ManagedKeyedSet.ForManagedKeyedSet {}
-  interface UsageOps<UF extends ForManagedAutoKeyedSet, U extends UsageOps<UF,U>> {}
+  interface UsageOps<UF extends ForManagedAutoKeyedSet, U extends UsageOps<UF,U>> extends ManagedKeyedSet.UsageOps<UF,U> {}
   interface Usage extends UsageOps<ForManagedAutoKeyedSet, Usage> {}
   static Usage usage() {
-    // TODO
-    return Stub.notImplemented();
+    return UsageImpl.create(Usage.class);
   }
   
   interface Type<EK extends ManagedObject, V extends ManagedObject> extends ManagedKeyedSet.Type<EK,V> {
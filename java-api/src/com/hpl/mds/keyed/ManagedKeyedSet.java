@@ -32,15 +32,14 @@ import com.hpl.mds.ManagedCollection;
 import com.hpl.mds.ManagedContainer;
 import com.hpl.mds.ManagedObject;
 import com.hpl.mds.ManagedSet;
-import com.hpl.mds.impl.Stub;
+import com.hpl.mds.impl.UsageImpl;
 
 public interface ManagedKeyedSet<EK extends ManagedObject, V extends ManagedObject> extends ManagedSet<Keyed<EK,V>> {
   interface ForManagedKeyedSet extends ManagedSet.ForManagedSet {}
-  interface UsageOps<UF extends ForManagedKeyedSet, U extends UsageOps<UF,U>> {}
+  interface UsageOps<UF extends ForManagedKeyedSet, U extends UsageOps<UF,U>> extends ManagedSet.UsageOps<UF,U> {}
   interface Usage extends UsageOps<ForManagedKeyedSet, Usage> {}
   static Usage usage() {
-    // TODO
-    return Stub.notImplemented();
+    return UsageImpl.create(Usage.class);
   }
   
   interface Type<EK extends ManagedObject, V extends ManagedObject> extends ManagedSet.Type<Keyed<EK,V>> {
@@ -55,5 +54,15 @@ public interface ManagedKeyedSet<EK extends ManagedObject, V extends ManagedObje
   
   boolean addKeyed(V val, Function<? super V, ? extends EK> keyFn);
   
+  /*
+   * Lookups by key.  These don't need a Keyed to look for, and valueFor()
+   * and removeKey() return the value the set holds for the key, or null.
+   */
+  boolean containsKey(EK key);
+  
+  V valueFor(EK key);
+  
+  V removeKey(EK key);
+  
 
 }
@@ -31,12 +31,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 
 import com.hpl.mds.PubResult;
 import com.hpl.mds.impl.ChangeBase;
+import com.hpl.mds.impl.Location;
+import com.hpl.mds.impl.Metrics;
 import com.hpl.mds.impl.PubResultProxy;
 
 
@@ -83,14 +84,16 @@ public class IsoContextTasks {
 	// private Map<Long,Map<String,Set<Task>>> taskWrites = Collections.synchronizedMap(new HashMap<>());
 	// private Map<Long,Map<String,WriteTaskContainer>> writeTasks = Collections.synchronizedMap(new HashMap<>());
 	// private ConcurrentMap<Long,Map<String,WriteTaskContainer>> writeTasks = new ConcurrentHashMap<>();
-	private ConcurrentMap<ChangeBase,WriteTaskContainer> writeTasks = new ConcurrentHashMap<>();
+	// private ConcurrentMap<Location,WriteTaskContainer> writeTasks = new ConcurrentHashMap<>();
+	private final LocationIndex<WriteTaskContainer> writeTasks = new LocationIndex<>();
 
     /** Map<> readTasks
      * maps location to set of all tasks that have read this location
      */
 	// private Map<Long,Map<String,TaskContainer>> readTasks = Collections.synchronizedMap(new HashMap<>());
 	// private ConcurrentMap<Long,Map<String,TaskContainer>> readTasks = new ConcurrentHashMap<>();
-	private ConcurrentMap<ChangeBase,TaskContainer> readTasks = new ConcurrentHashMap<>();
+	// private ConcurrentMap<Location,TaskContainer> readTasks = new ConcurrentHashMap<>();
+	private final LocationIndex<TaskContainer> readTasks = new LocationIndex<>();
 
 	/**
 	 * taskConflicts
@@ -99,7 +102,7 @@ public class IsoContextTasks {
 	 * - to be resolved by rerunning conflicted tasks
 	 */
 	// private Conflicts conflicts = null;
-	private Set<ChangeBase> conflicts = null;
+	private Iterable<ChangeBase> conflicts = null;
 	
 	/** add(Task)
 	 * add the given task to the list of tasks (to be) run in the current IsolationContext
@@ -119,46 +122,68 @@ public class IsoContextTasks {
 	// }
 	
 	
-	public void addWrite(Task task, ChangeBase write) {
-		log.debug("IsoContextTasks: addWrite: " + write);
+	public void addWrite(Task task, Location write) {
+		if (log.isDebugEnabled()) {
+			log.debug("IsoContextTasks: addWrite: " + write);
+		}
 		// log.debug("IsoContextTasks: addWrite: " + write + 
         //                   " hashcode: " + write.hashCode());
+		// A plain put() could lose a task registered at the same time by
+		// another thread.  A container we create already holds the task.
 		WriteTaskContainer wtc = writeTasks.get(write);
 		if (wtc == null) {
-			wtc = new WriteTaskContainer(task);
-			writeTasks.put(write, wtc);
+			WriteTaskContainer made = new WriteTaskContainer(task);
+			wtc = writeTasks.putIfAbsent(write, made);
+			if (wtc != made) {
+				wtc.addTask(task);
+			}
+		} else {
+			wtc.addTask(task);
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("IsoContextTasks: addWrite: added to tasks: " + wtc);
 		}
-        else {
-            wtc.addTask(task);
-        }
-		log.debug("IsoContextTasks: addWrite: added to tasks: " + wtc);
 	}
 
 
-	public void addRead(Task task, ChangeBase read) {
-		log.debug("IsoContextTasks: addRead: " + read);
+	public void addRead(Task task, Location read) {
+		if (log.isDebugEnabled()) {
+			log.debug("IsoContextTasks: addRead: " + read);
+		}
 		// log.debug("IsoContextTasks: addRead: " + read + 
         //                   " hashcode: " + read.hashCode());
 		TaskContainer tc = readTasks.get(read);
-        if (tc == null) {
-            tc = new TaskContainer(task);
-	        readTasks.put(read, tc);
-        }
-        else {
-            tc.addTask(task);
-        }
-	    log.debug("IsoContextTasks: addRead: added to tasks: " + tc);
+		if (tc == null) {
+			TaskContainer made = new TaskContainer(task);
+			tc = readTasks.putIfAbsent(read, made);
+			if (tc != made) {
+				tc.addTask(task);
+			}
+		} else {
+			tc.addTask(task);
+		}
+	    if (log.isDebugEnabled()) {
+	        log.debug("IsoContextTasks: addRead: added to tasks: " + tc);
+	    }
 	}
 	
   
-	public Task lastWriter(ChangeBase change) {
-		log.debug("IsoContextTasks: lastWriter: " + change);
+	public Task lastWriter(Location change) {
+		if (log.isDebugEnabled()) {
+			log.debug("IsoContextTasks: lastWriter: " + change);
+		}
         WriteTaskContainer wtc = writeTasks.get(change);
         if (wtc != null) {
             return wtc.lastWriter();
         }
 		return null;
 	}
+
+	// lastWriter(), by the parts of the Location
+	public Task lastWriter(Class<?> kind, long objectId, long changeId) {
+        WriteTaskContainer wtc = writeTasks.get(kind, objectId, changeId);
+        return wtc == null ? null : wtc.lastWriter();
+	}
 	
 	public void rerunConflictedTasks(PubResult pubResult) {
 		conflicts = ((PubResultProxy)pubResult).conflicts();
@@ -186,7 +211,7 @@ public class IsoContextTasks {
      * 
      */
 	// private void identifyRerunTasks(Conflicts conflicts) {
-	private void identifyRerunTasks(Set<ChangeBase> conflicts) {
+	private void identifyRerunTasks(Iterable<ChangeBase> conflicts) {
  
         // Currently, task is rerun if it reads a conflicted location
         // and no differentiation is made between read and read-frozen.
@@ -208,7 +233,8 @@ public class IsoContextTasks {
         // - for each conflict, identify all tasks that read it 
 		for (ChangeBase conflict : conflicts) {
 			log.debug("identifyRerunTasks: conflict = " + conflict);
-			TaskContainer tc = readTasks.get(conflict);
+			Location loc = Location.of(conflict);
+			TaskContainer tc = loc == null ? null : readTasks.get(loc);
 			if (tc != null) {
                 Set<Task> tasks = tc.allTasks();
 		        if (tasks != null) {
@@ -224,7 +250,8 @@ public class IsoContextTasks {
 		// identify conflicted tasks - phase 2
         // - for each conflict, identify lastWriter to that location 
 		for (ChangeBase conflict : conflicts) {
-            Task lastWriter = lastWriter(conflict);
+			Location loc = Location.of(conflict);
+            Task lastWriter = loc == null ? null : lastWriter(loc);
             if (lastWriter != null) {
                 // taskGraph.addConflicted(lastWriter);
             	tmpTaskSet.add(lastWriter);
@@ -255,12 +282,23 @@ public class IsoContextTasks {
 	}
 	
 	private void runRerunTasks() {
-		log.debug("IsoContextTask.runRerunTasks: taskGraph.size: " + taskGraph.size());
-		for (TaskIterator tasks = new TaskIterator(taskGraph); tasks.hasNext(); ) {
-			Task task = tasks.nextBreadthFirst();
-			log.debug("IsoContextTask.runRerunTasks: task: " + task.id());
-			task.reRun();
+		if (log.isDebugEnabled()) {
+			log.debug("IsoContextTask.runRerunTasks: taskGraph.size: " + taskGraph.size());
 		}
+		if (Metrics.ENABLED) {
+			Metrics.global().noteRerun(taskGraph.size());
+		}
+		// independent tasks are rerun in parallel; each task waits for all its parents
+		RerunScheduler.run(taskGraph, task -> {
+			if (log.isDebugEnabled()) {
+				log.debug("IsoContextTask.runRerunTasks: task: " + task.id());
+			}
+			long start = Metrics.ENABLED ? System.nanoTime() : 0;
+			task.reRun();
+			if (Metrics.ENABLED) {
+				Metrics.global().noteTaskRerun(System.nanoTime() - start);
+			}
+		});
 	}
 
 
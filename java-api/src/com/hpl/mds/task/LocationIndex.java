@@ -0,0 +1,181 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.task;
+
+import java.util.concurrent.locks.StampedLock;
+
+import com.hpl.mds.impl.Location;
+
+
+// A concurrent map from Location to V, used for IsoContextTasks' indexes.
+//
+// Keys are kept as their parts, (kind, objectId, changeId), in open-addressed
+// arrays, so the Location passed in is never retained.  The table is split
+// into segments by hash.  get() doesn't lock: it reads a segment under an
+// optimistic StampedLock stamp and only takes the read lock if a writer got
+// in the way.  putIfAbsent() inserts atomically under the segment's write
+// lock, so concurrent first registrations of a location can't be lost.
+
+public class LocationIndex<V> {
+
+	private static final int N_SEGMENTS = 64;   // a power of two
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Segment<V>[] segments;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LocationIndex() {
+		segments = new Segment[N_SEGMENTS];
+		for (int i = 0; i < N_SEGMENTS; i++) {
+			segments[i] = new Segment<>();
+		}
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	private Segment<V> segmentFor(int hash) {
+		// the low bits pick the slot within a segment, so use high ones here
+		return segments[(hash >>> 26) & (N_SEGMENTS - 1)];
+	}
+
+	public V get(Location loc) {
+		return get(loc.kind(), loc.objectId(), loc.changeId());
+	}
+
+	// get(), for callers that have the parts but no Location
+	public V get(Class<?> kind, long objectId, long changeId) {
+		int hash = spread(Location.hash(kind, objectId, changeId));
+		return segmentFor(hash).get(hash, kind, objectId, changeId);
+	}
+
+	// returns the value now mapped: val if there wasn't one
+	public V putIfAbsent(Location loc, V val) {
+		int hash = spread(loc.hashCode());
+		return segmentFor(hash).putIfAbsent(hash, loc, val);
+	}
+
+	// The arrays of a segment.  Replaced, not resized, when the segment grows.
+	private static final class Table {
+		final int[] hashes;
+		final Class<?>[] kinds;      // null marks an empty slot
+		final long[] objectIds;
+		final long[] changeIds;
+		final Object[] vals;
+
+		Table(int capacity) {
+			hashes = new int[capacity];
+			kinds = new Class<?>[capacity];
+			objectIds = new long[capacity];
+			changeIds = new long[capacity];
+			vals = new Object[capacity];
+		}
+
+		// the slot holding loc, or the empty slot where it would go
+		int find(int hash, Class<?> kind, long objectId, long changeId) {
+			int mask = kinds.length - 1;
+			int i = hash & mask;
+			for (int n = 0; n <= mask; n++) {
+				Class<?> k = kinds[i];
+				if (k == null 
+					|| (k == kind && objectIds[i] == objectId && changeIds[i] == changeId)) {
+					return i;
+				}
+				i = (i + 1) & mask;
+			}
+			// only possible when read while being written; the stamp won't validate
+			return -1;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class Segment<V> extends StampedLock {
+		private volatile Table table = new Table(INITIAL_CAPACITY);
+		private int size;
+
+		@SuppressWarnings("unchecked")
+		V get(int hash, Class<?> kind, long objectId, long changeId) {
+			long stamp = tryOptimisticRead();
+			if (stamp != 0) {
+				Table t = table;
+				int i = t.find(hash, kind, objectId, changeId);
+				Object val = i < 0 ? null : t.vals[i];
+				if (validate(stamp)) {
+					return (V)val;
+				}
+			}
+			stamp = readLock();
+			try {
+				Table t = table;
+				int i = t.find(hash, kind, objectId, changeId);
+				return (V)t.vals[i];
+			} finally {
+				unlockRead(stamp);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		V putIfAbsent(int hash, Location loc, V val) {
+			long stamp = writeLock();
+			try {
+				Table t = table;
+				int i = t.find(hash, loc.kind(), loc.objectId(), loc.changeId());
+				if (t.kinds[i] != null) {
+					return (V)t.vals[i];
+				}
+				t.hashes[i] = hash;
+				t.objectIds[i] = loc.objectId();
+				t.changeIds[i] = loc.changeId();
+				t.vals[i] = val;
+				t.kinds[i] = loc.kind();
+				if (++size * 2 > t.kinds.length) {
+					table = grow(t);
+				}
+				return val;
+			} finally {
+				unlockWrite(stamp);
+			}
+		}
+
+		private static Table grow(Table old) {
+			Table t = new Table(old.kinds.length * 2);
+			for (int j = 0; j < old.kinds.length; j++) {
+				if (old.kinds[j] != null) {
+					int i = t.find(old.hashes[j], old.kinds[j], old.objectIds[j], old.changeIds[j]);
+					t.hashes[i] = old.hashes[j];
+					t.kinds[i] = old.kinds[j];
+					t.objectIds[i] = old.objectIds[j];
+					t.changeIds[i] = old.changeIds[j];
+					t.vals[i] = old.vals[j];
+				}
+			}
+			return t;
+		}
+	}
+
+}  // end class LocationIndex
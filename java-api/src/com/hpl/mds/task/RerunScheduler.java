@@ -0,0 +1,238 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package com.hpl.mds.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+
+// Runs the tasks in a rerun task graph.
+//
+// The graph built by TaskNode.addTasksAndDependencies is a DAG: a task node
+// lists every node it depends on in parents(), but only appears in the
+// children() of the first of them.  Run serially, tasks are taken in
+// breadth-first order, as IsoContextTasks always has.  Run in parallel, each
+// task starts on a ForkJoinPool as soon as all of its parents have finished,
+// so independent tasks (disjoint read and write sets) are rerun side by side.
+// Either way, each task is rerun with itself as Task.current, whatever the
+// thread had.  If one throws, the jobs not yet started are skipped, and
+// the first exception is rethrown once every step already running is done.
+
+public class RerunScheduler {
+
+	private static final Logger log = Logger.getLogger(RerunScheduler.class);
+
+	/** Set the system property mds.task.parallelRerun=false to always rerun serially. */
+	static final boolean PARALLEL = 
+		Boolean.parseBoolean(System.getProperty("mds.task.parallelRerun", "true"));
+
+	public static void run(TaskNode taskGraph, Consumer<Task> action) {
+		if (PARALLEL && ForkJoinPool.getCommonPoolParallelism() > 1) {
+			runInParallel(taskGraph, action, ForkJoinPool.commonPool());
+		}
+		else {
+			runSerially(taskGraph, action);
+		}
+	}
+
+	public static void runSerially(TaskNode taskGraph, Consumer<Task> action) {
+		Task prior = Task.current();
+		try {
+			for (TaskIterator tasks = new TaskIterator(taskGraph); tasks.hasNext(); ) {
+				Task task = tasks.nextBreadthFirst();
+				Task.setCurrent(task);
+				action.accept(task);
+			}
+		} finally {
+			Task.setCurrent(prior);
+		}
+	}
+
+	public static void runInParallel(TaskNode taskGraph, Consumer<Task> action, ForkJoinPool pool) {
+		List<Job> jobs = jobsFor(taskGraph, action);
+		if (jobs == null) {
+			// not a DAG; the serial order is the best we can do
+			log.warn("RerunScheduler: task graph has a cycle, rerunning serially");
+			runSerially(taskGraph, action);
+			return;
+		}
+		if (jobs.size() <= 1) {
+			runSerially(taskGraph, action);
+			return;
+		}
+		Root root = new Root(jobs);
+		pool.invoke(root);
+		Throwable failure = root.failure.get();
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException)failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error)failure;
+		}
+		if (failure != null) {
+			throw new RuntimeException(failure);
+		}
+	}
+
+	/*
+	 * One Job per node, with a count of the distinct parents it is still
+	 * waiting for and the jobs waiting on it.  Returns null if the graph
+	 * has a cycle, since then some jobs would never become ready.
+	 */
+	private static List<Job> jobsFor(TaskNode taskGraph, Consumer<Task> action) {
+		Map<TaskNode,Job> jobOf = new IdentityHashMap<>();
+		List<Job> jobs = new ArrayList<>();
+		for (TaskNodeIterator nodes = new TaskNodeIterator(taskGraph); nodes.hasNext(); ) {
+			TaskNode node = nodes.next();
+			Job job = new Job(node.task(), action);
+			jobOf.put(node, job);
+			jobs.add(job);
+		}
+		for (Map.Entry<TaskNode,Job> e : jobOf.entrySet()) {
+			Job job = e.getValue();
+			Map<Job,Boolean> seen = new IdentityHashMap<>();
+			for (TaskNode parent : e.getKey().parents()) {
+				Job pj = jobOf.get(parent);   // null for the root
+				if (pj != null && seen.put(pj, Boolean.TRUE) == null) {
+					pj.waiting.add(job);
+					job.nParents++;
+				}
+			}
+		}
+		// Kahn's algorithm, just to make sure every job can become ready
+		Map<Job,Integer> remaining = new IdentityHashMap<>();
+		Queue<Job> ready = new ArrayDeque<>();
+		for (Job job : jobs) {
+			remaining.put(job, job.nParents);
+			if (job.nParents == 0) {
+				ready.add(job);
+			}
+		}
+		int reached = 0;
+		while (!ready.isEmpty()) {
+			Job job = ready.remove();
+			reached++;
+			for (Job w : job.waiting) {
+				int r = remaining.get(w) - 1;
+				remaining.put(w, r);
+				if (r == 0) {
+					ready.add(w);
+				}
+			}
+		}
+		if (reached != jobs.size()) {
+			return null;
+		}
+		for (Job job : jobs) {
+			job.pending.set(job.nParents);
+		}
+		return jobs;
+	}
+
+	private static final class Job {
+		final Task task;
+		final Consumer<Task> action;
+		final List<Job> waiting = new ArrayList<>();
+		int nParents;
+		final AtomicInteger pending = new AtomicInteger();
+
+		Job(Task task, Consumer<Task> action) {
+			this.task = task;
+			this.action = action;
+		}
+	}
+
+	// Completes when every job has run.  Its pending count is the number of jobs.
+	@SuppressWarnings("serial")
+	private static final class Root extends CountedCompleter<Void> {
+		private final List<Job> jobs;
+		// the first exception thrown by a job
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		Root(List<Job> jobs) {
+			this.jobs = jobs;
+		}
+
+		@Override
+		public void compute() {
+			setPendingCount(jobs.size());
+			for (Job job : jobs) {
+				if (job.nParents == 0) {
+					new Step(this, job).fork();
+				}
+			}
+			tryComplete();
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class Step extends CountedCompleter<Void> {
+		private final Job job;
+
+		Step(Root root, Job job) {
+			super(root);
+			this.job = job;
+		}
+
+		@Override
+		public void compute() {
+			Root root = (Root)getCompleter();
+			if (root.failure.get() == null) {
+				if (log.isDebugEnabled()) {
+					log.debug("RerunScheduler: running task: " + job.task.id());
+				}
+				Task prior = Task.current();
+				Task.setCurrent(job.task);
+				try {
+					job.action.accept(job.task);
+				} catch (Throwable t) {
+					root.failure.compareAndSet(null, t);
+				} finally {
+					Task.setCurrent(prior);
+				}
+			}
+			for (Job w : job.waiting) {
+				if (w.pending.decrementAndGet() == 0) {
+					new Step(root, w).fork();
+				}
+			}
+			tryComplete();
+		}
+	}
+
+}  // end class RerunScheduler
@@ -31,6 +31,7 @@ package com.hpl.mds.task;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
@@ -41,6 +42,9 @@ import com.hpl.mds.ManagedObject;
 import com.hpl.mds.ManagedRecord;
 import com.hpl.mds.impl.ArrayProxy;
 import com.hpl.mds.impl.ChangeBase;
+import com.hpl.mds.impl.IsoContextProxy;
+import com.hpl.mds.impl.Location;
+import com.hpl.mds.impl.LocationSet;
 
 public class Task {
 
@@ -56,18 +60,26 @@ public class Task {
      */
     private static InheritableThreadLocal<Task> current_ = 
         new InheritableThreadLocal<>();
+
+    /** The number of tasks currently inside run() or reRun().
+     *  The static addRead/addWrite methods are called on every field and array
+     *  access, so they check this before looking at current_.  When no task is
+     *  running, that one volatile read is all tracking costs.
+     *  (Threads started by a task's code are tracked while any task is running.)
+     */
+    private static final AtomicInteger running_ = new AtomicInteger();
 	
     private String id; // Every task must have a unique id
     private TaskInterface taskCode;
-    private Set<ChangeBase> writeSet = Collections.newSetFromMap(new ConcurrentHashMap<ChangeBase, Boolean>());
-    private Set<ChangeBase>  readSet = Collections.newSetFromMap(new ConcurrentHashMap<ChangeBase, Boolean>());
+    private LocationSet writeSet = new LocationSet();
+    private LocationSet  readSet = new LocationSet();
     Set<Task> dependentTasks;
     
     private IsolationContext runTaskContext;  //the context in which this task has been run
     
     // for task rerun only: 
     // prevWriteSet: writeSet from last run, kept to compare with writeSet for this run
-    Set<ChangeBase> prevWriteSet;
+    LocationSet prevWriteSet;
 
     //tmp: while do some TaskTest tests...
     // private static List<TaskInterface> taskList = new ArrayList<>();
@@ -81,6 +93,14 @@ public class Task {
     public static void setCurrent(Task task) {
         current_.set(task);
     }    
+
+    /**
+     * Whether any task is running, and so whether reads and writes might need
+     * to be tracked at all.
+     */
+    public static boolean isTracking() {
+        return running_.get() != 0;
+    }
     
     
     public Task(String id, TaskInterface taskCode) {
@@ -96,8 +116,8 @@ public class Task {
         // dependentTasks = Collections.synchronizedSet(new HashSet<>());    	    	
     	// writeSet = new ConcurrentHashMap<>();
     	// readSet = new ConcurrentHashMap<>();
-    	writeSet = Collections.newSetFromMap(new ConcurrentHashMap<ChangeBase, Boolean>());
-    	readSet  = Collections.newSetFromMap(new ConcurrentHashMap<ChangeBase, Boolean>());
+    	writeSet = new LocationSet();
+    	readSet  = new LocationSet();
         dependentTasks = Collections.newSetFromMap(new ConcurrentHashMap<Task, Boolean>()); 	
     }
     
@@ -201,13 +221,17 @@ public class Task {
         setContext(currentContext);
         // ((IsoContextProxy)currentContext).setCurrentTask(this);
         setCurrent(this);
+        running_.incrementAndGet();
         
-        // execute the code of the current task
-    	taskCode.run(); 
-
-        // unset current task when code execution is complete
-        // ((IsoContextProxy)currentContext).setCurrentTask(null);
-        setCurrent(null);
+        try {
+            // execute the code of the current task
+            taskCode.run(); 
+        } finally {
+            // unset current task when code execution is complete
+            // ((IsoContextProxy)currentContext).setCurrentTask(null);
+            running_.decrementAndGet();
+            setCurrent(null);
+        }
     }
     
     /** 
@@ -224,7 +248,13 @@ public class Task {
     	
 		runTaskContext.call(() -> {
 	    	// log.debug("Task.reRun: calling code in context: " + IsolationContext.current());
-			taskCode.run();
+			// count as running, as in run(), or the rerun's reads and writes go untracked
+			running_.incrementAndGet();
+			try {
+				taskCode.run();
+			} finally {
+				running_.decrementAndGet();
+			}
 		});
     }
     
@@ -232,25 +262,50 @@ public class Task {
     void addRead(RT record, Field<RT,FT> field) {
         // add (currentId, fieldHandle) pair to current task read set
     	// Only track reads if we're executing code within a Task
-    	// log.debug("Task.addRead:");
-    	// Task currentTask = currentTask();
+    	if (!isTracking()) {
+    		return;
+    	}
     	Task currentTask = current();
     	if (currentTask != null) {
-    		log.debug("Task.addRead: currentTask = " + currentTask.id() + " fieldname: " + field.name());
-    		ChangeBase change = field.createChange(record);
-    		currentTask.addRead(change);
+    		if (log.isDebugEnabled()) {
+    			log.debug("Task.addRead: currentTask = " + currentTask.id() + " fieldname: " + field.name());
+    		}
+    		currentTask.trackRead(currentTask.readSet.add(record, field),
+    		                      Location.FIELD_KIND, Location.objectIdOf(record), Location.changeIdOf(field));
     	}
     }    
     
     public static <ET extends ManagedObject>
     void addRead(ArrayProxy<ET> array, long index) {
+    	if (!isTracking()) {
+    		return;
+    	}
     	Task currentTask = current();
     	if (currentTask != null) {
-    		ChangeBase change = array.createChange(index);
-    		currentTask.addRead(change);
+    		currentTask.trackRead(currentTask.readSet.add(array, index),
+    		                      Location.kindOf(array), Location.objectIdOf(array), index);
     	}
     }
     
+    /*
+     * Range versions, used by bulk array transfers.  Each index in
+     * [from, to) is recorded just as addRead(array, index) would.
+     */
+    public static <ET extends ManagedObject>
+    void addReads(ArrayProxy<ET> array, long from, long to) {
+    	if (!isTracking()) {
+    		return;
+    	}
+    	Task currentTask = current();
+    	if (currentTask != null) {
+    		Class<?> kind = Location.kindOf(array);
+    		long objectId = Location.objectIdOf(array);
+    		for (long i = from; i < to; i++) {
+    			currentTask.trackRead(currentTask.readSet.add(array, i), kind, objectId, i);
+    		}
+    	}
+    }
+
 //    public static void addRead(ManagedArray arr, int slot) {
 //    	Task currentTask = current();
 //    	if (currentTask != null) {
@@ -262,45 +317,77 @@ public class Task {
     public static <RT extends ManagedRecord, FT extends ManagedObject>
     void addWrite(RT record, Field<RT,FT> field) {
     	// Only track writes if we're executing code within a Task
-    	// log.debug("Task.addWrite:");
-    	// Task currentTask = currentTask();
+    	if (!isTracking()) {
+    		return;
+    	}
     	Task currentTask = current();
     	if (currentTask != null) {
-    		log.debug("Task.addWrite: currentTask = " + currentTask.id() + " fieldname: " + field.name());
-    		ChangeBase change = field.createChange(record);
-	    	currentTask.addWrite(change);
+    		if (log.isDebugEnabled()) {
+    			log.debug("Task.addWrite: currentTask = " + currentTask.id() + " fieldname: " + field.name());
+    		}
+    		if (currentTask.writeSet.add(record, field)) {
+    			currentTask.trackWrite(Location.of(record, field));
+    		}
     	}
     }
 
     public static <ET extends ManagedObject>
     void addWrite(ArrayProxy<ET> array, long index) {
+    	if (!isTracking()) {
+    		return;
+    	}
+    	Task currentTask = current();
+    	if (currentTask != null && currentTask.writeSet.add(array, index)) {
+    		currentTask.trackWrite(Location.of(array, index));
+    	}
+    }
+
+    public static <ET extends ManagedObject>
+    void addWrites(ArrayProxy<ET> array, long from, long to) {
+    	if (!isTracking()) {
+    		return;
+    	}
     	Task currentTask = current();
     	if (currentTask != null) {
-    		ChangeBase change = array.createChange(index);
-    		currentTask.addWrite(change);
+    		for (long i = from; i < to; i++) {
+    			if (currentTask.writeSet.add(array, i)) {
+    				currentTask.trackWrite(Location.of(array, i));
+    			}
+    		}
     	}
     }
 
     public static <RT extends ManagedRecord, FT extends ManagedObject> 
     void addReadWrite(RT record, Field<RT,FT> field) {
     	// Only track reads, writes if we're executing code within a Task
-    	// log.debug("Task.addReadWrite:");
-    	// Task currentTask = currentTask();
+    	if (!isTracking()) {
+    		return;
+    	}
     	Task currentTask = current();
     	if (currentTask != null) {
-    		log.debug("Task.addReadWrite: currentTask = " + currentTask.id() + " fieldname: " + field.name());
-    		ChangeBase change = field.createChange(record);
-	    	currentTask.addRead(change);
-	    	currentTask.addWrite(change);    	}
+    		if (log.isDebugEnabled()) {
+    			log.debug("Task.addReadWrite: currentTask = " + currentTask.id() + " fieldname: " + field.name());
+    		}
+    		currentTask.trackRead(currentTask.readSet.add(record, field),
+    		                      Location.FIELD_KIND, Location.objectIdOf(record), Location.changeIdOf(field));
+    		if (currentTask.writeSet.add(record, field)) {
+    			currentTask.trackWrite(Location.of(record, field));
+    		}
+    	}
     }
 
     public static <ET extends ManagedObject>
     void addReadWrite(ArrayProxy<ET> array, long index) {
+    	if (!isTracking()) {
+    		return;
+    	}
     	Task currentTask = current();
     	if (currentTask != null) {
-    		ChangeBase change = array.createChange(index);
-    		currentTask.addRead(change);
-    		currentTask.addWrite(change);
+    		currentTask.trackRead(currentTask.readSet.add(array, index),
+    		                      Location.kindOf(array), Location.objectIdOf(array), index);
+    		if (currentTask.writeSet.add(array, index)) {
+    			currentTask.trackWrite(Location.of(array, index));
+    		}
     	}
     }
 
@@ -311,17 +398,20 @@ public class Task {
      */
     public void addWrite(ChangeBase write) {
     	// add this write to this task's writeSet, if the writeSet doesn't already contain it
-    	if ( addChange(write, writeSet) ) {
-    	    // addChange returns true if writeSet didn't already contain this change
-    		// now add write->task mapping to current IsolationContext for future reference
-    		log.debug("Task.addWrite: now adding task-write mapping to context");
-	    	IsolationContext.addTaskWrite(this, write);    
+    	if ( writeSet.add(write) ) {
+    	    // add returns true if writeSet didn't already contain this change
+    		trackWrite(Location.of(write));
     	}
     	// else if writeSet already contains given change
 		//     there's no need to add taskWrite mapping to the current IsolationContext 
 		//     because it should already be there too.
     }
 
+    private void trackWrite(Location write) {
+		// now add write->task mapping to current IsolationContext for future reference
+		log.debug("Task.addWrite: now adding task-write mapping to context");
+    	IsolationContext.addTaskWrite(this, write);    
+    }
     
     
     /**
@@ -330,8 +420,22 @@ public class Task {
      * - add (recordID, fieldName)->Task mapping to current IsolationContext 
      */
     public void addRead(ChangeBase read) {
+    	Location loc = Location.of(read);
+    	if (loc != null) {
+    		trackRead(readSet.add(read), loc.kind(), loc.objectId(), loc.changeId());
+    	}
+    }
+
+    /*
+     * isNew says whether the read was just added to this task's readSet.
+     * The dependency check is made on every read, since the last writer
+     * may have changed since this task last read the location, but it's
+     * made on the location's parts, and a Location is only created when
+     * the read is new and has to be indexed.
+     */
+    private void trackRead(boolean isNew, Class<?> kind, long objectId, long changeId) {
     	// capture dependency if this read reads a location that was last written by a different task
-        Task lastWriter = IsolationContext.lastWriterTask(read);   
+        Task lastWriter = IsoContextProxy.current().lastWriter(kind, objectId, changeId);
         if (lastWriter != null) {
             if ( ! (this.equals(lastWriter)) ) { 
                 // "this" task and lastWriter task are not the same task:
@@ -342,12 +446,10 @@ public class Task {
             }    	
         }
 
-    	// add this read to this task's readSet, if the readSet doesn't already contain it
-    	if (addChange(read, readSet) ) {
-    	    // addChange returns true if readSet didn't already contain read
+    	if (isNew) {
     	    // now add read->task mapping to current IsolationContext for future reference
             log.debug("Task.addRead: now adding loctask mapping to context");
-            IsolationContext.addTaskRead(this, read);    
+            IsolationContext.addTaskRead(this, Location.of(kind, objectId, changeId));
             
         }  
     	// else readSet, current IsolationContext already contain given read
@@ -370,12 +472,15 @@ public class Task {
      *   setToParent
      */
 	public void setRerunState() {
-		for (ChangeBase write : writeSet) {
-        	log.debug("setRerunState: write: " + write);
+		// the Changes are only created here, now that a conflict is being resolved
+		writeSet.forEachChange(write -> {
+        	if (log.isDebugEnabled()) {
+        		log.debug("setRerunState: write: " + write);
+        	}
         	runTaskContext.call(() -> {
         		write.setToParent();
         	});
-		}
+		});
 	}
 		
 
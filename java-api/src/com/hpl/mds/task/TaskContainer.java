@@ -27,8 +27,11 @@
 
 package com.hpl.mds.task;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import com.hpl.mds.task.Task;
 
@@ -48,19 +51,43 @@ public class TaskContainer {
         }
     }
 
-    private Set<Task> allTasks;
+    // Most locations are only touched by one task, so that one is held directly
+    // and the set of any others is only created when a second task turns up.
+    // Tasks may be added by several threads at once.
+    private final Task firstTask;
+    private volatile Set<Task> otherTasks;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<TaskContainer, Set> OTHER_TASKS =
+        AtomicReferenceFieldUpdater.newUpdater(TaskContainer.class, Set.class, "otherTasks");
 
     public TaskContainer(Task task) {
-        allTasks = new HashSet<>();
-        addTask(task);
+        firstTask = task;
     }
 
     public void addTask(Task task) {
-        allTasks.add(task);
+        if (task == firstTask) {
+            return;
+        }
+        Set<Task> others = otherTasks;
+        if (others == null) {
+            others = Collections.newSetFromMap(new ConcurrentHashMap<Task, Boolean>());
+            if (!OTHER_TASKS.compareAndSet(this, null, others)) {
+                others = otherTasks;
+            }
+        }
+        others.add(task);
     }
 
+    // a snapshot of the tasks added so far
     public Set<Task> allTasks() {
-        return allTasks;
+        Set<Task> all = new HashSet<>();
+        all.add(firstTask);
+        Set<Task> others = otherTasks;
+        if (others != null) {
+            all.addAll(others);
+        }
+        return all;
     }
 
 } // end class TaskContainer
@@ -152,24 +152,31 @@ public class TaskNode {
                 // if the task we're trying to add is a dependent task
                 // we need to add its parent to the list of parent tasks 
                 // that the currentTaskNode is dependent on.
+                //
+                // Its dependencies were added when it was, so there's no
+                // need to add them again.
                 currentTaskNode.addParent(parentTaskNode);
-                log.debug("TaskNode.addTasksAndDeps: existingTask: " + 
-                   currentTask.id() + 
-                   " addParent: " + parentTaskNode.task().id()); 
+                if (log.isDebugEnabled()) {
+                    log.debug("TaskNode.addTasksAndDeps: existingTask: " + 
+                       currentTask.id() + 
+                       " addParent: " + parentTaskNode.task().id()); 
+                }
+                continue;
             }
-            else {
-                // task not already in the taskGraph
-                // so add it as child of parentTaskNode
-                currentTaskNode = parentTaskNode.add(currentTask);
+
+            // task not already in the taskGraph
+            // so add it as child of parentTaskNode
+            currentTaskNode = parentTaskNode.add(currentTask);
+            if (log.isDebugEnabled()) {
                 log.debug("TaskNode.addTasksAndDeps: addTask: " + 
                    currentTask.id());
             }
  
-            // recursively add dependent tasks
+            // recursively add dependent tasks, as children of currentTaskNode.
+            // (parentTaskNode stays as it is for the rest of tasks.)
             if (currentTask.dependentTasks() != null) {
-                parentTaskNode = currentTaskNode; //just illustrating transition
                 TaskNode.addTasksAndDependencies(
-                    taskGraph, parentTaskNode, currentTask.dependentTasks());
+                    taskGraph, currentTaskNode, currentTask.dependentTasks());
             }
         }
     }
@@ -31,7 +31,8 @@ package com.hpl.mds.task;
 
 public class WriteTaskContainer extends TaskContainer {
     
-    private Task lastWriter;
+    // Set without locking on every registration; the most recent one wins.
+    private volatile Task lastWriter;
 
     public WriteTaskContainer(Task task) {
         super(task);
@@ -30,5 +30,14 @@ import com.hpl.mds.ManagedObject;
 
 
 public class Operation<UF extends ManagedObject.ForManagedObject> {
+  private final String name_;
 
+  public Operation(String name) {
+    name_ = name;
+  }
+
+  @Override
+  public String toString() {
+    return name_;
+  }
 }
@@ -30,5 +30,14 @@ import com.hpl.mds.ManagedObject;
 
 
 public class UsageMode<UF extends ManagedObject.ForManagedObject> {
+  private final String name_;
 
+  public UsageMode(String name) {
+    name_ = name;
+  }
+
+  @Override
+  public String toString() {
+    return name_;
+  }
 }
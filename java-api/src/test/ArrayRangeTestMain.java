@@ -0,0 +1,99 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.prim.container.array.ManagedLongArray;
+
+/*
+ * Exercises getRange(), setRange() and fill() on both array layouts:
+ * copies into and out of the middle of Java arrays, ranges of length
+ * zero, and slices and ranges whose ends overflow, which must throw
+ * IndexOutOfBoundsException without touching either array.
+ */
+public class ArrayRangeTestMain {
+
+  static boolean throwsIOOBE(Runnable r) {
+    try {
+      r.run();
+      return false;
+    } catch (IndexOutOfBoundsException e) {
+      return true;
+    }
+  }
+
+  static void checkLayout(String label, Function<long[], ManagedLongArray> create) {
+    long[] init = new long[100];
+    for (int i = 0; i < init.length; i++) {
+      init[i] = i;
+    }
+    ManagedLongArray array = create.apply(init);
+
+    long[] src = { -1, -2, -3, -4, -5 };
+    array.setRange(10, src, 1, 3);
+    long[] dst = new long[7];
+    array.getRange(9, dst, 2, 5);
+    Checks.check(label + ": in-range copy",
+                 Arrays.equals(dst, new long[] { 0, 0, 9, -2, -3, -4, 13 }));
+
+    array.fill(20, 25, 7);
+    Checks.check(label + ": fill",
+                 array.getLong(19) == 19 && array.getLong(20) == 7
+                 && array.getLong(24) == 7 && array.getLong(25) == 25);
+
+    long[] untouched = dst.clone();
+    array.getRange(init.length, dst, dst.length, 0);
+    array.setRange(init.length, src, src.length, 0);
+    array.fill(50, 50, 99);
+    Checks.check(label + ": zero-length ranges",
+                 Arrays.equals(dst, untouched) && array.getLong(50) == 50);
+
+    Checks.check(label + ": slice offset+length overflows",
+                 throwsIOOBE(() -> array.getRange(0, dst, 1, Integer.MAX_VALUE))
+                 && throwsIOOBE(() -> array.setRange(0, src, 1, Integer.MAX_VALUE))
+                 && Arrays.equals(dst, untouched));
+    Checks.check(label + ": range from+length overflows",
+                 throwsIOOBE(() -> array.getRange(Long.MAX_VALUE, dst, 0, 1))
+                 && throwsIOOBE(() -> array.setRange(Long.MAX_VALUE, src, 0, 1))
+                 && throwsIOOBE(() -> array.fill(Long.MAX_VALUE, Long.MIN_VALUE, 0))
+                 && Arrays.equals(dst, untouched));
+    Checks.check(label + ": range past the end",
+                 throwsIOOBE(() -> array.getRange(init.length - 1, dst, 0, 2))
+                 && throwsIOOBE(() -> array.fill(90, init.length + 1, 0))
+                 && array.getLong(90) == 90);
+  }
+
+  public static void main(String[] args) {
+    checkLayout("msv", ManagedLongArray::create);
+    checkLayout("read-mostly", v -> ManagedLongArray.create(v, ManagedArray.useAs(ManagedArray.READ_MOSTLY)));
+
+    Checks.report();
+  }
+}
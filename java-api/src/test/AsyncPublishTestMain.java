@@ -0,0 +1,92 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.PubResult;
+import com.hpl.mds.prim.container.array.ManagedLongArray;
+
+/*
+ * Starts many isolated increments of a few shared counters at once with
+ * callIsolatedAsync(), on a pool smaller than the number in flight, so
+ * that they conflict and retry with backoff, and checks that every
+ * increment landed.  Then publishes a batch of contexts with
+ * publishAsync().
+ *
+ * args: [calls [counters [threads]]]
+ */
+public class AsyncPublishTestMain {
+
+  public static void main(String[] args) throws Exception {
+    int nCalls = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int nCounters = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int nThreads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+    ManagedLongArray counters = ManagedLongArray.TYPE.create(nCounters);
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    PubOption[] options = {
+      PubOption.reRunNTimes(1000),
+      PubOption.withBackoff(Duration.ofNanos(1000), Duration.ofMillis(1))
+    };
+    long start = System.nanoTime();
+    List<CompletableFuture<Long>> calls = new ArrayList<>(nCalls);
+    for (int i = 0; i < nCalls; i++) {
+      int which = i % nCounters;
+      calls.add(IsolationContext.current()
+                .callIsolatedAsync(() -> counters.inc(which, 1), pool, options));
+    }
+    CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get();
+    long elapsed = System.nanoTime() - start;
+    System.out.format("%,d calls in %,.1f ms%n", nCalls, elapsed / 1e6);
+    long total = counters.longStream().sum();
+    Checks.check("all increments published", total == nCalls);
+
+    List<CompletableFuture<PubResult>> pubs = new ArrayList<>(nCounters);
+    for (int i = 0; i < nCounters; i++) {
+      long index = i;
+      IsolationContext child = IsolationContext.nestedFromCurrent();
+      child.run(() -> counters.set(index, -1));
+      pubs.add(child.publishAsync(pool, PubOption.groupCommit()));
+    }
+    boolean allSucceeded = true;
+    for (CompletableFuture<PubResult> f : pubs) {
+      allSucceeded &= f.get().succeeded();
+    }
+    Checks.check("publishAsync", allSucceeded && counters.longStream().allMatch(v -> v == -1));
+
+    pool.shutdown();
+    Checks.report();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.field.IntField;
+
+/*
+ * Compares reading and writing an int field through the field itself,
+ * which resolves the current isolation context on every call, with doing
+ * the same through an accessor bound to the context once, outside the loop.
+ */
+public class BoundAccessorBench {
+  public static class Counter extends ManagedRecordProxy {
+    static final RecordType<Counter> TYPE = RecordType.declare("test.BoundAccessorBench.Counter", Counter.class);
+    static final IntField<Counter> COUNT = TYPE.intField("count");
+
+    public Counter() {
+      super(TYPE);
+    }
+
+    public Counter(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static long unbound(Counter[] recs, int reps) {
+    IntField<Counter> f = Counter.COUNT;
+    long sum = 0;
+    for (int r = 0; r < reps; r++) {
+      for (Counter c : recs) {
+        int v = f.getInt(c);
+        f.set(c, v + 1);
+        sum += v;
+      }
+    }
+    return sum;
+  }
+
+  static long bound(Counter[] recs, int reps) {
+    IntField.Bound<Counter> f = Counter.COUNT.bound();
+    long sum = 0;
+    for (int r = 0; r < reps; r++) {
+      for (Counter c : recs) {
+        int v = f.getInt(c);
+        f.set(c, v + 1);
+        sum += v;
+      }
+    }
+    return sum;
+  }
+
+  interface Loop {
+    long run(Counter[] recs, int reps);
+  }
+
+  static void time(String label, Loop loop, Counter[] recs, int reps) {
+    long[] sum = new long[1];
+    long start = System.nanoTime();
+    IsolationContext.current().run(() -> sum[0] = loop.run(recs, reps));
+    long elapsed = System.nanoTime() - start;
+    long ops = 2L * recs.length * reps;
+    System.out.format("%-8s %,12d ops %,10.1f ns/op (sum %,d)%n", label, ops, (double) elapsed / ops, sum[0]);
+  }
+
+  public static void main(String[] args) {
+    int nRecs = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int reps = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    Counter[] recs = new Counter[nRecs];
+    for (int i = 0; i < nRecs; i++) {
+      recs[i] = new Counter();
+    }
+    for (int i = 0; i < rounds; i++) {
+      time("unbound", BoundAccessorBench::unbound, recs, reps);
+      time("bound", BoundAccessorBench::bound, recs, reps);
+    }
+  }
+}
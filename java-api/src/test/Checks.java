@@ -0,0 +1,54 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+/*
+ * The pass/fail bookkeeping shared by the test mains.  Each check prints a
+ * line and is counted; report() prints the tally and exits non-zero if any
+ * check failed, so a scripted run sees the failure.
+ */
+public class Checks {
+  private static int passed = 0;
+  private static int failed = 0;
+
+  static synchronized boolean check(String what, boolean ok) {
+    System.out.format("%-40s %s%n", what, ok ? "ok" : "FAILED");
+    if (ok) {
+      passed++;
+    } else {
+      failed++;
+    }
+    return ok;
+  }
+
+  static synchronized void report() {
+    System.out.format("%d of %d passed%n", passed, passed + failed);
+    if (failed > 0) {
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.MergeReport;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.field.DoubleField;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * A stock-in/order-out mix on a few hot products: each transaction either
+ * restocks a product or sells some of it, counting the units sold and the
+ * revenue.  Run once with plain counters and once with them declared
+ * commutative, comparing the number of attempts it took and checking that
+ * the totals come out the same.  Then checks, with the counters declared,
+ * that mult() and a stock check in a context nested in one with pending
+ * deltas see those deltas too.
+ *
+ * args: [transactions [products [threads]]]
+ */
+public class CommutativeCounterTestMain {
+  public static class Product extends ManagedRecordProxy {
+    static final RecordType<Product> TYPE = RecordType.declare("test.CommutativeCounterTestMain.Product", Product.class);
+    static final LongField<Product> count = TYPE.longField("count");
+    static final LongField<Product> nbrSold = TYPE.longField("nbrSold");
+    static final DoubleField<Product> revenue = TYPE.doubleField("revenue");
+
+    public Product() {
+      super(TYPE);
+    }
+
+    public Product(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  /*
+   * Returns the total number of attempts.
+   */
+  static long run(Product[] products, int nTx, int nThreads) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    List<Future<Integer>> futures = new ArrayList<>(nTx);
+    for (int i = 0; i < nTx; i++) {
+      boolean restock = i % 4 == 0;
+      Product p = products[i % products.length];
+      futures.add(pool.submit(() -> {
+            MergeReport report = MergeReport.create();
+            IsolationContext.isolated(() -> {
+                if (restock) {
+                  Product.count.inc(p, 10);
+                } else {
+                  Product.count.dec(p, 2);
+                  Product.nbrSold.inc(p, 2);
+                  Product.revenue.inc(p, 2 * 2.5);
+                }
+              }, report, PubOption.reRunNTimes(1000));
+            return report.attempts();
+          }));
+    }
+    long attempts = 0;
+    for (Future<Integer> f : futures) {
+      attempts += f.get();
+    }
+    pool.shutdown();
+    return attempts;
+  }
+
+  static Product[] create(int n) {
+    Product[] products = new Product[n];
+    for (int i = 0; i < n; i++) {
+      products[i] = new Product();
+      Product.count.set(products[i], ThreadLocalRandom.current().nextInt(100));
+    }
+    return products;
+  }
+
+  static long[] totals(Product[] products) {
+    long[] t = new long[3];
+    for (Product p : products) {
+      t[0] += Product.count.getLong(p);
+      t[1] += Product.nbrSold.getLong(p);
+      t[2] += (long)Product.revenue.getDouble(p);
+    }
+    return t;
+  }
+
+  /*
+   * The outer context has +2 pending and the inner +1 when the inner one
+   * multiplies, so the count should be (5+2+1)*10, not 5*10+2+1*10.
+   */
+  static boolean nestedMult() {
+    Product p = new Product();
+    Product.count.set(p, 5);
+    IsolationContext.isolated(() -> {
+        Product.count.inc(p, 2);
+        IsolationContext.isolated(() -> {
+            Product.count.inc(p, 1);
+            Product.count.mult(p, 10);
+          });
+      });
+    return Product.count.getLong(p) == (5 + 2 + 1) * 10;
+  }
+
+  /*
+   * The stock is restocked in an outer context, where it's pending, and
+   * then many more nested contexts than there are units each sell one if
+   * the count says there's one left.  Only the stock should be sold.
+   */
+  static boolean nestedStockCheck(int stock, int nThreads) throws Exception {
+    Product p = new Product();
+    IsolationContext outer = IsolationContext.current().createNested();
+    outer.run(() -> Product.count.inc(p, stock));
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    for (int i = 0; i < 4 * stock; i++) {
+      pool.execute(() -> outer.run(() -> {
+            IsolationContext.isolated(() -> {
+                if (Product.count.getLong(p) > 0) {
+                  Product.count.dec(p, 1);
+                  Product.nbrSold.inc(p, 1);
+                }
+              }, PubOption.reRunNTimes(1000));
+          }));
+    }
+    pool.shutdown();
+    pool.awaitTermination(1, TimeUnit.MINUTES);
+    outer.publish();
+    return Product.count.getLong(p) == 0 && Product.nbrSold.getLong(p) == stock;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int nTx = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int nProducts = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int nThreads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+    Product[] plain = create(nProducts);
+    long[] before = totals(plain);
+    long plainAttempts = run(plain, nTx, nThreads);
+    long[] plainTotals = totals(plain);
+    System.out.format("plain:       %,d attempts for %,d transactions%n", plainAttempts, nTx);
+
+    Product.count.commutative();
+    Product.nbrSold.commutative();
+    Product.revenue.commutative();
+    Product[] counted = create(nProducts);
+    long[] countedBefore = totals(counted);
+    long countedAttempts = run(counted, nTx, nThreads);
+    long[] countedTotals = totals(counted);
+    System.out.format("commutative: %,d attempts for %,d transactions%n", countedAttempts, nTx);
+
+    for (int i = 0; i < 3; i++) {
+      plainTotals[i] -= before[i];
+      countedTotals[i] -= countedBefore[i];
+    }
+    Checks.check("same totals", Arrays.equals(plainTotals, countedTotals));
+    Checks.check("no reruns when commutative", countedAttempts == nTx);
+    Checks.check("nested mult sees outer deltas", nestedMult());
+    Checks.check("nested stock check doesn't oversell", nestedStockCheck(20, nThreads));
+    Checks.report();
+  }
+}
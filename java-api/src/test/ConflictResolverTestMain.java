@@ -0,0 +1,114 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.function.LongUnaryOperator;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.PubResult;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.conflicts.ConflictResolver;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.ManagedLong;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Two sibling contexts each read and change the same field; the first
+ * publishes, so the second conflicts.  Publishing the second with each of
+ * the built-in resolvers, and with a custom one, checks that it then
+ * succeeds without a rerun and leaves the value the resolver calls for.
+ */
+public class ConflictResolverTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.ConflictResolverTestMain.Item", Item.class);
+    static final LongField<Item> value = TYPE.longField("value");
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static final long START = 100;
+  static final long FAILED = Long.MIN_VALUE;
+
+  static void change(IsolationContext ctxt, Item item, LongUnaryOperator op) {
+    ctxt.run(() -> Item.value.set(item, op.applyAsLong(Item.value.getLong(item))));
+  }
+
+  /*
+   * Returns the value after the second publish, or FAILED.
+   */
+  static long race(LongUnaryOperator first, LongUnaryOperator second, PubOption... options) {
+    Item item = new Item();
+    Item.value.set(item, START);
+    IsolationContext a = IsolationContext.nestedFromCurrent();
+    IsolationContext b = IsolationContext.nestedFromCurrent();
+    change(a, item, first);
+    change(b, item, second);
+    a.publish();
+    PubResult result = b.publish(options);
+    return result.succeeded() ? Item.value.getLong(item) : FAILED;
+  }
+
+  static boolean expect(String what, long expected, PubOption... options) {
+    long got = race(x -> x + 30, x -> x + 20, options);
+    return Checks.check(String.format("%s (%d)", what, got), got == expected);
+  }
+
+  public static void main(String[] args) {
+    expect("unresolved fails", FAILED);
+    expect("lastWriterWins", START + 20,
+           PubOption.resolveConflicts(ConflictResolver.lastWriterWins()));
+    expect("parentWins", START + 30,
+           PubOption.resolveConflicts(ConflictResolver.parentWins()));
+    expect("sum", START + 30 + 20,
+           PubOption.resolveConflicts(ConflictResolver.sum()));
+    expect("max", START + 30,
+           PubOption.resolveConflicts(ConflictResolver.max()));
+    expect("min", START + 20,
+           PubOption.resolveConflicts(ConflictResolver.min()));
+    expect("field's own resolver preferred", START + 30,
+           PubOption.resolveConflicts(ConflictResolver.lastWriterWins()),
+           PubOption.resolveConflicts(Item.value, ConflictResolver.parentWins()));
+    expect("custom", (START + 20) + (START + 30),
+           PubOption.resolveConflicts(Item.value, c -> {
+               long mine = c.valueInSource().asLong();
+               long theirs = c.valueInTarget().asLong();
+               c.resolveTo(ManagedLong.valueOf(mine + theirs));
+             }));
+    expect("custom declining fails", FAILED,
+           PubOption.resolveConflicts(c -> {}));
+
+    Checks.report();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ChangeBase;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.impl.PubResultProxy;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Two sibling contexts each bump a field of many records, and one of them
+ * also another field of every other record; the first publishes, so the
+ * second conflicts on all of them.  Checks that the counts, the iteration
+ * and the per-field and per-type filters over the conflicts the publish
+ * kept natively all agree, and times a failed publish whose caller only
+ * looks at succeeded() against one that walks the conflicts.
+ *
+ * args: [records]
+ */
+public class ConflictStreamTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.ConflictStreamTestMain.Item", Item.class);
+    static final LongField<Item> hits = TYPE.longField("hits");
+    static final LongField<Item> misses = TYPE.longField("misses");
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static int count(Iterable<ChangeBase> conflicts) {
+    int n = 0;
+    for (@SuppressWarnings("unused") ChangeBase c : conflicts) {
+      n++;
+    }
+    return n;
+  }
+
+  static void bump(IsolationContext ctxt, Item[] items, boolean alsoMisses) {
+    ctxt.run(() -> {
+        for (int i = 0; i < items.length; i++) {
+          Item.hits.inc(items[i], 1);
+          if (alsoMisses && i % 2 == 0) {
+            Item.misses.inc(items[i], 1);
+          }
+        }
+      });
+  }
+
+  static PubResultProxy conflicted(Item[] items) {
+    IsolationContext a = IsolationContext.nestedFromCurrent();
+    IsolationContext b = IsolationContext.nestedFromCurrent();
+    bump(a, items, true);
+    bump(b, items, true);
+    a.publish();
+    return (PubResultProxy)b.publish();
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int half = (n + 1) / 2;
+
+    Item[] items = new Item[n];
+    for (int i = 0; i < n; i++) {
+      items[i] = new Item();
+    }
+
+    PubResultProxy pr = conflicted(items);
+    Checks.check("publish failed", !pr.succeeded());
+    Checks.check("numConflicts", pr.numConflicts() == n + half);
+    Checks.check("iterated all", count(pr.conflicts()) == n + half);
+    Checks.check("filtered by field", count(pr.conflicts(Item.misses)) == half
+                 && pr.numConflicts(Item.misses) == half);
+    Checks.check("filtered by record type", count(pr.conflicts(Item.TYPE)) == n + half
+                 && pr.numConflicts(Item.TYPE) == n + half);
+    Checks.check("nothing resolved", pr.numConflictsRemaining() == n + half
+                 && pr.numConflictsResolved() == 0);
+
+    long start = System.nanoTime();
+    boolean ok = conflicted(items).succeeded();
+    long checkOnly = System.nanoTime() - start;
+    start = System.nanoTime();
+    PubResultProxy walked = conflicted(items);
+    int seen = count(walked.conflicts());
+    long walking = System.nanoTime() - start;
+    System.out.format("failed publish, succeeded() only: %,d us%n", checkOnly / 1000);
+    System.out.format("failed publish, %,d conflicts walked: %,d us%n", seen, walking / 1000);
+    Checks.check("timed publishes failed", !ok && !walked.succeeded());
+
+    Checks.report();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.MemStats;
+import com.hpl.mds.prim.container.array.ManagedDoubleArray;
+
+/*
+ * Loads the same table of doubles into an ordinary managed array and into
+ * one hinted as READ_MOSTLY, then compares the heap each takes and how
+ * long a sequential scan and a nested-context update of a few elements
+ * take on each.  It also checks, on each, that two sibling contexts that
+ * both increment an element the parent hasn't written don't both publish
+ * and lose one of the increments.
+ */
+public class DenseArrayBench {
+  interface Maker {
+    ManagedDoubleArray make(double[] vals);
+  }
+
+  static double scan(ManagedDoubleArray a, double[] buf) {
+    double sum = 0;
+    long n = a.longSize();
+    for (long from = 0; from < n; from += buf.length) {
+      int len = (int)Math.min(buf.length, n - from);
+      a.getRange(from, buf, 0, len);
+      for (int i = 0; i < len; i++) {
+        sum += buf[i];
+      }
+    }
+    return sum;
+  }
+
+  static void run(String label, Maker maker, double[] vals, int updates) {
+    long before = new MemStats().bytesInUse();
+    long start = System.nanoTime();
+    ManagedDoubleArray a = maker.make(vals);
+    long loaded = System.nanoTime();
+    long bytes = new MemStats().bytesInUse() - before;
+
+    double[] buf = new double[4096];
+    double sum = scan(a, buf);
+    long scanned = System.nanoTime();
+
+    IsolationContext.nestedFromCurrent().run(() -> {
+        for (int i = 0; i < updates; i++) {
+          a.set((long)i * 7919 % vals.length, -1.0);
+        }
+      });
+    long updated = System.nanoTime();
+
+    System.out.format("%-12s %,14d bytes (%5.1f/elt)  load %,8.1f ms  scan %,8.1f ms  update %,8.1f ms  (sum %.1f)%n",
+                      label, bytes, (double) bytes / vals.length,
+                      (loaded - start) / 1e6, (scanned - loaded) / 1e6, (updated - scanned) / 1e6, sum);
+  }
+
+  static boolean siblingIncs(String label, Maker maker, double[] vals) {
+    ManagedDoubleArray a = maker.make(vals);
+    IsolationContext first = IsolationContext.nestedFromCurrent();
+    IsolationContext second = IsolationContext.nestedFromCurrent();
+    first.run(() -> a.inc(0, 1.0));
+    second.run(() -> a.inc(0, 1.0));
+    boolean firstOk = first.publish().succeeded();
+    boolean secondOk = second.publish().succeeded();
+    double expected = vals[0] + (firstOk ? 1 : 0) + (secondOk ? 1 : 0);
+    boolean ok = firstOk && a.getDouble(0) == expected;
+    System.out.format("%-12s sibling incs: published %b/%b, %.1f -> %.1f  %s%n",
+                      label, firstOk, secondOk, vals[0], a.getDouble(0), ok ? "ok" : "FAILED");
+    return ok;
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    int updates = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+    double[] vals = new double[n];
+    for (int i = 0; i < n; i++) {
+      vals[i] = i * 0.5;
+    }
+    run("msv", ManagedDoubleArray::create, vals, updates);
+    run("read-mostly", v -> ManagedDoubleArray.create(v, ManagedArray.useAs(ManagedArray.READ_MOSTLY)), vals, updates);
+
+    double[] small = { 10.0, 20.0 };
+    siblingIncs("msv", ManagedDoubleArray::create, small);
+    siblingIncs("read-mostly", v -> ManagedDoubleArray.create(v, ManagedArray.useAs(ManagedArray.READ_MOSTLY)), small);
+  }
+}
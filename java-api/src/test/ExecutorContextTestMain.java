@@ -0,0 +1,84 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.prim.container.array.ManagedLongArray;
+
+/*
+ * Writes in a nested context without publishing, then reads from a thread
+ * pool and from CompletableFutures: through executors wrapped for the
+ * context, the writes should be seen; through the bare pool, afterward,
+ * they shouldn't, as the pool's threads aren't left in the context.
+ *
+ * args: [threads [tasks]]
+ */
+public class ExecutorContextTestMain {
+
+  public static void main(String[] args) throws Exception {
+    int nThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    int nTasks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+    ManagedLongArray values = ManagedLongArray.TYPE.create(nTasks);
+    IsolationContext ctxt = IsolationContext.nestedFromCurrent();
+    ctxt.run(() -> {
+        for (int i = 0; i < nTasks; i++) {
+          values.set(i, i + 1);
+        }
+      });
+
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    ExecutorService inCtxt = ctxt.wrap(pool);
+    List<Future<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < nTasks; i++) {
+      int index = i;
+      futures.add(inCtxt.submit(() -> values.getLong(index)));
+    }
+    boolean allSeen = true;
+    for (int i = 0; i < nTasks; i++) {
+      allSeen &= futures.get(i).get() == i + 1;
+    }
+
+    Checks.check("wrapped pool sees context", allSeen);
+    Checks.check("bare pool doesn't", pool.submit(() -> values.getLong(0)).get() == 0);
+
+    CompletableFuture<Long> sum = ctxt.callAsync(() -> values.longStream().sum())
+      .thenApplyAsync(s -> s + values.getLong(0), ctxt.wrap(pool));
+    Checks.check("CompletableFuture stages see context",
+                 sum.get() == (long)nTasks * (nTasks + 1) / 2 + 1);
+
+    pool.shutdown();
+    Checks.report();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.PubResult;
+import com.hpl.mds.prim.container.array.ManagedLongArray;
+
+/*
+ * Publishes many small sibling contexts, first all at once with
+ * publishAll(), then from a pool of threads each publishing its own, with
+ * and without the groupCommit() option, timing each and checking that
+ * every write made it.
+ *
+ * args: [contexts [threads]]
+ */
+public class GroupCommitTestMain {
+
+  static boolean allSet(ManagedLongArray values, long expected) {
+    for (long i = 0; i < values.size(); i++) {
+      if (values.getLong(i) != expected) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void report(String what, int n, long nanos) {
+    System.out.format("%-40s %,10.1f us/publish%n", what, nanos / 1000.0 / n);
+  }
+
+  static long fromThreads(ManagedLongArray values, long value, int nThreads, PubOption... options)
+    throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    List<Future<Boolean>> futures = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int i = 0; i < values.size(); i++) {
+      long index = i;
+      futures.add(pool.submit(() -> {
+            IsolationContext child = IsolationContext.nestedFromCurrent();
+            child.run(() -> values.set(index, value));
+            return child.publish(options).succeeded();
+          }));
+    }
+    boolean ok = true;
+    for (Future<Boolean> f : futures) {
+      ok &= f.get();
+    }
+    long elapsed = System.nanoTime() - start;
+    pool.shutdown();
+    return ok ? elapsed : -1;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int nThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+    ManagedLongArray values = ManagedLongArray.TYPE.create(n);
+    List<IsolationContext> children = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      long index = i;
+      IsolationContext child = IsolationContext.nestedFromCurrent();
+      child.run(() -> values.set(index, 1));
+      children.add(child);
+    }
+    long start = System.nanoTime();
+    List<PubResult> results = IsolationContext.publishAll(children);
+    report("publishAll", n, System.nanoTime() - start);
+    Checks.check("publishAll results all succeeded",
+                 results.size() == n && results.stream().allMatch(PubResult::succeeded));
+    Checks.check("publishAll writes all seen", allSet(values, 1));
+
+    long one = fromThreads(values, 2, nThreads);
+    Checks.check("one at a time", one >= 0 && allSet(values, 2));
+    report("one at a time", n, one);
+
+    long grouped = fromThreads(values, 3, nThreads, PubOption.groupCommit());
+    Checks.check("groupCommit", grouped >= 0 && allSet(values, 3));
+    report("groupCommit", n, grouped);
+
+    Checks.report();
+  }
+}
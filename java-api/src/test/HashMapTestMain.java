@@ -0,0 +1,161 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedMap;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.field.LongField;
+import com.hpl.mds.string.ManagedMapFromString;
+import com.hpl.mds.string.ManagedString;
+
+/*
+ * Checks put, get and remove on a map keyed by records and on one keyed by
+ * strings, with enough keys that both grow their buckets several times.
+ * Then has pairs of sibling contexts put into a string-keyed map, to check
+ * that they conflict only when they touch the same bucket or entry: "Aa"
+ * and "BB" have the same hash, so always share a bucket.
+ *
+ * args: [keys]
+ */
+public class HashMapTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.HashMapTestMain.Item", Item.class);
+    static final LongField<Item> ID = TYPE.longField("id");
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+
+    static Item of(long id) {
+      Item item = new Item();
+      ID.set(item, id);
+      return item;
+    }
+  }
+
+  static long id(Item item) {
+    return item == null ? -1 : Item.ID.getLong(item);
+  }
+
+  static void recordKeys(int n) {
+    ManagedMap<Item,Item> map = Item.TYPE.createMapFrom(Item.TYPE);
+    Item[] keys = new Item[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = Item.of(i);
+      map.put(keys[i], Item.of(-i));
+    }
+    boolean allFound = map.size() == n;
+    for (int i = 0; i < n; i++) {
+      allFound &= id(map.get(keys[i])) == -i;
+    }
+    Checks.check("record keys: all found after growing", allFound);
+    Checks.check("record keys: replace returns old value",
+                 id(map.put(keys[0], Item.of(7))) == 0 && id(map.get(keys[0])) == 7 && map.size() == n);
+    Checks.check("record keys: absent key", map.get(Item.of(0)) == null && !map.containsKey(Item.of(0)));
+
+    for (int i = 0; i < n; i += 2) {
+      map.remove(keys[i]);
+    }
+    boolean halfLeft = map.size() == n / 2;
+    for (int i = 0; i < n; i++) {
+      halfLeft &= map.containsKey(keys[i]) == (i % 2 == 1);
+    }
+    Checks.check("record keys: remove", halfLeft && map.remove(keys[0]) == null);
+  }
+
+  static void stringKeys(int n) {
+    ManagedMapFromString<Item> map = Item.TYPE.createMapFromString();
+    for (int i = 0; i < n; i++) {
+      map.put(ManagedString.valueOf("key-" + i), Item.of(i));
+    }
+    boolean allFound = map.size() == n;
+    for (int i = 0; i < n; i++) {
+      allFound &= id(map.get("key-" + i)) == i && id(map.get(ManagedString.valueOf("key-" + i))) == i;
+    }
+    Checks.check("string keys: all found after growing", allFound);
+    String never = "never-put-" + System.nanoTime();
+    Checks.check("string keys: absent key", map.get(never) == null && !map.containsKey(never));
+
+    for (int i = 0; i < n; i += 2) {
+      map.remove("key-" + i);
+    }
+    boolean halfLeft = map.size() == n / 2;
+    for (int i = 0; i < n; i++) {
+      halfLeft &= map.containsKey("key-" + i) == (i % 2 == 1);
+    }
+    Checks.check("string keys: remove", halfLeft);
+  }
+
+  /*
+   * Whether the second of two siblings, each putting one key, still
+   * publishes after the first.
+   */
+  static boolean bothPublish(ManagedMapFromString<Item> map, String k1, long v1, String k2, long v2) {
+    IsolationContext a = IsolationContext.nestedFromCurrent();
+    IsolationContext b = IsolationContext.nestedFromCurrent();
+    a.run(() -> map.put(ManagedString.valueOf(k1), Item.of(v1)));
+    b.run(() -> map.put(ManagedString.valueOf(k2), Item.of(v2)));
+    return a.publish().succeeded() && b.publish().succeeded();
+  }
+
+  // the bucket a key goes to differs with the low bit of its spread hash
+  static int lowBit(String s) {
+    int h = s.hashCode();
+    return (h ^ (h >>> 16)) & 1;
+  }
+
+  static void conflicts() {
+    ManagedMapFromString<Item> map = Item.TYPE.createMapFromString();
+    String other = lowBit("p") != lowBit("q") ? "q" : "r";
+    Checks.check("siblings: new keys, different buckets", bothPublish(map, "p", 1, other, 2));
+    Checks.check("siblings: new keys, same bucket conflict", !bothPublish(map, "Aa", 1, "BB", 2));
+
+    map.put(ManagedString.valueOf("Aa"), Item.of(0));
+    map.put(ManagedString.valueOf("BB"), Item.of(0));
+    Checks.check("siblings: existing keys, same bucket", bothPublish(map, "Aa", 3, "BB", 4)
+                 && id(map.get("Aa")) == 3 && id(map.get("BB")) == 4);
+    Checks.check("siblings: same existing key conflict", !bothPublish(map, "Aa", 5, "Aa", 6)
+                 && id(map.get("Aa")) == 5);
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+    recordKeys(n);
+    stringKeys(n);
+    conflicts();
+
+    Checks.report();
+  }
+}
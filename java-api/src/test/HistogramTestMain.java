@@ -0,0 +1,122 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.hpl.mds.impl.Histogram;
+
+/*
+ * Checks Histogram's counts, mean, max and percentiles against values
+ * whose answers are known: exact for values under eight, within an eighth
+ * above, for values either side of every power of two, and with threads
+ * recording at once.  Doesn't need the native library.
+ */
+public class HistogramTestMain {
+
+  static boolean within(long got, long exact) {
+    return got >= exact && got - exact <= exact / 8;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Histogram.Snapshot empty = new Histogram().snapshot();
+    Checks.check("empty", empty.count() == 0 && empty.mean() == 0
+                 && empty.percentile(0.5) == 0 && empty.max() == 0);
+
+    Histogram small = new Histogram();
+    for (long v = 0; v < 8; v++) {
+      small.record(v);
+    }
+    Histogram.Snapshot s = small.snapshot();
+    boolean exact = true;
+    for (int i = 1; i <= 8; i++) {
+      exact &= s.percentile(i / 8.0) == i - 1;
+    }
+    Checks.check("values under 8 exact", exact && s.max() == 7 && s.mean() == 3.5);
+
+    Histogram linear = new Histogram();
+    for (long v = 1; v <= 1000; v++) {
+      linear.record(v);
+    }
+    Histogram.Snapshot l = linear.snapshot();
+    Checks.check("count, sum, mean and max", l.count() == 1000 && l.sum() == 500_500
+                 && l.mean() == 500.5 && l.max() == 1000);
+    Checks.check(String.format("p50 %d, p99 %d", l.percentile(0.5), l.percentile(0.99)),
+                 within(l.percentile(0.5), 500) && within(l.percentile(0.99), 990));
+    Checks.check("p100 is the max", l.percentile(1.0) == 1000 && l.percentile(2.0) == 1000);
+    Checks.check("p0 is the least", within(l.percentile(0.0), 1));
+
+    // alone with a much bigger value, so the percentile is the top of v's bucket, not the max
+    boolean bounded = true;
+    for (int k = 3; k < 62; k++) {
+      for (long v : new long[] { (1L << k) - 1, 1L << k, (1L << k) + 1 }) {
+        Histogram h = new Histogram();
+        h.record(v);
+        h.record(Long.MAX_VALUE);
+        long p = h.snapshot().percentile(0.5);
+        if (!within(p, v)) {
+          System.out.format("  %,d reported as %,d%n", v, p);
+          bounded = false;
+        }
+      }
+    }
+    Checks.check("within an eighth at powers of two", bounded);
+
+    Histogram extremes = new Histogram();
+    extremes.record(-5);
+    extremes.record(Long.MAX_VALUE);
+    Histogram.Snapshot e = extremes.snapshot();
+    Checks.check("negative as zero, Long.MAX_VALUE kept",
+                 e.count() == 2 && e.percentile(0.5) == 0 && e.percentile(1.0) == Long.MAX_VALUE
+                 && e.max() == Long.MAX_VALUE);
+
+    Histogram shared = new Histogram();
+    int nThreads = 4;
+    int perThread = 100_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < nThreads; t++) {
+      Thread th = new Thread(() -> {
+          for (int i = 1; i <= perThread; i++) {
+            shared.record(i);
+          }
+        });
+      threads.add(th);
+      th.start();
+    }
+    for (Thread th : threads) {
+      th.join();
+    }
+    Histogram.Snapshot c = shared.snapshot();
+    Checks.check("concurrent recording",
+                 c.count() == (long)nThreads * perThread
+                 && c.sum() == nThreads * ((long)perThread * (perThread + 1) / 2)
+                 && c.max() == perThread && within(c.percentile(0.5), perThread / 2));
+
+    Checks.report();
+  }
+}
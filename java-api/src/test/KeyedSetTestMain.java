@@ -0,0 +1,115 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.PubResult;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.keyed.Keyed;
+import com.hpl.mds.keyed.ManagedKeyedSet;
+import com.hpl.mds.string.ManagedString;
+
+/*
+ * Adds elements to a hash set and a keyed set from several sibling
+ * contexts, each adding its own elements, then publishes them all.  With
+ * the sets sized for what's added, the contexts should seldom conflict, and
+ * every element should be found, by key for the keyed set, in the end.
+ *
+ * args: [contexts [perContext]]
+ */
+public class KeyedSetTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.KeyedSetTestMain.Item", Item.class);
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  public static void main(String[] args) {
+    int nContexts = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    int perContext = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int total = nContexts * perContext;
+
+    ManagedSet<Item> set = Item.TYPE.createSet(ManagedSet.expectedSize(total));
+    ManagedKeyedSet<ManagedString,Item> byName
+      = Keyed.keyedType(ManagedString.TYPE, Item.TYPE).inSet().create(ManagedKeyedSet.usage().expectedSize(total));
+
+    List<IsolationContext> contexts = new ArrayList<>();
+    Item[][] added = new Item[nContexts][perContext];
+    for (int c = 0; c < nContexts; c++) {
+      IsolationContext ctxt = IsolationContext.nestedFromCurrent();
+      Item[] mine = added[c];
+      int base = c * perContext;
+      ctxt.run(() -> {
+          for (int i = 0; i < perContext; i++) {
+            mine[i] = new Item();
+            set.add(mine[i]);
+            byName.addKeyed(mine[i], ManagedString.valueOf("item-" + (base + i)));
+          }
+        });
+      contexts.add(ctxt);
+    }
+
+    int failed = 0;
+    long conflicts = 0;
+    for (IsolationContext ctxt : contexts) {
+      PubResult r = ctxt.publish();
+      if (!r.succeeded()) {
+        failed++;
+      }
+      conflicts += r.numConflicts();
+    }
+    System.out.format("%d of %d publishes failed, %,d conflicts%n", failed, nContexts, conflicts);
+
+    int missing = 0;
+    for (int c = 0; c < nContexts; c++) {
+      for (int i = 0; i < perContext; i++) {
+        Item item = added[c][i];
+        ManagedString key = ManagedString.valueOf("item-" + (c * perContext + i));
+        if (!set.contains(item) || !item.equals(byName.valueFor(key))) {
+          missing++;
+        }
+      }
+    }
+    System.out.format("%,d elements in the set, %,d in the keyed set, %,d of the published ones missing%n",
+                      set.longSize(), byName.longSize(), missing);
+    if (byName.addKeyed(new Item(), ManagedString.valueOf("item-0"))) {
+      System.out.println("FAILED: added a second element under the same key");
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.Random;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.usage.UsageMode;
+
+/*
+ * Runs the same list workloads against lists created with each of the
+ * layout hints, to show what each layout is good (and bad) at.
+ */
+public class ListLayoutBench {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.ListLayoutBench.Item", Item.class);
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  interface Workload {
+    long run(ManagedList<Item> list, Item[] items);
+  }
+
+  static long append(ManagedList<Item> list, Item[] items) {
+    for (Item item : items) {
+      list.add(item);
+    }
+    return items.length;
+  }
+
+  static long randomRead(ManagedList<Item> list, Item[] items) {
+    append(list, items);
+    Random r = new Random(42);
+    long hits = 0;
+    for (int i = 0; i < items.length; i++) {
+      if (list.get(r.nextInt(items.length)) != null) {
+        hits++;
+      }
+    }
+    return items.length + hits;
+  }
+
+  static long queue(ManagedList<Item> list, Item[] items) {
+    ManagedList.DequeView<Item> q = list.asDeque();
+    int window = Math.min(100, items.length);
+    for (int i = 0; i < window; i++) {
+      q.addLast(items[i]);
+    }
+    for (int i = window; i < items.length; i++) {
+      q.addLast(items[i]);
+      q.removeFirst();
+    }
+    return 2L * items.length - window;
+  }
+
+  static long insertMiddle(ManagedList<Item> list, Item[] items) {
+    for (Item item : items) {
+      list.add(list.size() / 2, item);
+    }
+    return items.length;
+  }
+
+  static void time(String label, UsageMode<? super ManagedList.ForManagedList> mode, Workload w, Item[] items) {
+    long[] ops = new long[1];
+    long start = System.nanoTime();
+    IsolationContext.current().run(() -> {
+        ManagedList<Item> list = Item.TYPE.createList(ManagedList.useAs(mode));
+        ops[0] = w.run(list, items);
+      });
+    long elapsed = System.nanoTime() - start;
+    System.out.format("%-14s %-12s %,10d ops %,10.1f ns/op%n", label, mode, ops[0], (double) elapsed / ops[0]);
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    Item[] items = new Item[n];
+    for (int i = 0; i < n; i++) {
+      items[i] = new Item();
+    }
+    @SuppressWarnings("unchecked")
+    UsageMode<? super ManagedList.ForManagedList>[] modes = new UsageMode[] {
+      ManagedList.ARRAY_LIST, ManagedList.QUEUE, ManagedList.LINKED_LIST
+    };
+    for (int r = 0; r < rounds; r++) {
+      for (UsageMode<? super ManagedList.ForManagedList> mode : modes) {
+        time("append", mode, ListLayoutBench::append, items);
+        time("random read", mode, ListLayoutBench::randomRead, items);
+        time("queue", mode, ListLayoutBench::queue, items);
+        time("insert middle", mode, ListLayoutBench::insertMiddle, items);
+      }
+      System.out.println();
+    }
+  }
+}
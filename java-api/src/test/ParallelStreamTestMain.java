@@ -0,0 +1,96 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.container.array.ManagedLongArray;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Writes a long array and a record array in a nested context, without
+ * publishing, and sums them there with sequential and parallel streams.
+ * The parallel sums only match if the worker threads read in the nested
+ * context.  Then times both.
+ *
+ * args: [size]
+ */
+public class ParallelStreamTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.ParallelStreamTestMain.Item", Item.class);
+    static final LongField<Item> VALUE = TYPE.longField("value");
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+    ManagedLongArray longs = ManagedLongArray.TYPE.create(n);
+    ManagedArray<Item> items = Item.TYPE.createArray(n / 10);
+    long expected = (long)n * (n - 1) / 2;
+    long expectedItems = (long)(n / 10) * (n / 10 - 1) / 2;
+
+    IsolationContext ctxt = IsolationContext.nestedFromCurrent();
+    ctxt.run(() -> {
+        for (int i = 0; i < n; i++) {
+          longs.set(i, i);
+        }
+        for (int i = 0; i < n / 10; i++) {
+          Item item = new Item();
+          Item.VALUE.set(item, i);
+          items.set(i, item);
+        }
+      });
+
+    ctxt.run(() -> {
+        long start = System.nanoTime();
+        long seq = longs.longStream().sum();
+        long seqNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long par = longs.longStream().parallel().sum();
+        long parNanos = System.nanoTime() - start;
+        Checks.check("sequential long sum", seq == expected);
+        Checks.check("parallel long sum", par == expected);
+        Checks.check("parallel record sum",
+                     items.stream().parallel().mapToLong(Item.VALUE::getLong).sum() == expectedItems);
+        System.out.format("sum of %,d longs: sequential %,d ns, parallel %,d ns%n", n, seqNanos, parNanos);
+      });
+    Checks.check("unpublished outside", longs.longStream().sum() == 0);
+
+    Checks.report();
+  }
+}
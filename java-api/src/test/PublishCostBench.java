@@ -0,0 +1,115 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Times publishing a nested context that has written to a given number of
+ * records, out of a heap of many more, for a range of transaction sizes.
+ * Reading every record in the heap first shows whether publish cost
+ * depends on what a context has read or only on what it has written.  A
+ * size of zero is a context that only reads, which publishes without
+ * running a merge.
+ *
+ * args: [records] [reps] [sizes...]
+ */
+public class PublishCostBench {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.PublishCostBench.Item", Item.class);
+    static final LongField<Item> value = TYPE.longField("value");
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  /*
+   * Returns the nanoseconds spent in publish() alone, summed over reps
+   * transactions, each writing size records starting at a different place.
+   */
+  static long run(Item[] items, int size, int reps, boolean readAll) {
+    long publishNanos = 0;
+    long[] sum = new long[1];
+    for (int r = 0; r < reps; r++) {
+      int from = (int)((long)r * size % items.length);
+      IsolationContext ctxt = IsolationContext.nestedFromCurrent();
+      ctxt.run(() -> {
+          if (readAll) {
+            for (Item item : items) {
+              sum[0] += Item.value.getLong(item);
+            }
+          }
+          for (int i = 0; i < size; i++) {
+            Item.value.inc(items[(from + i) % items.length], 1);
+          }
+        });
+      long start = System.nanoTime();
+      boolean ok = ctxt.publish().succeeded();
+      publishNanos += System.nanoTime() - start;
+      if (!ok) {
+        throw new IllegalStateException("uncontended publish failed");
+      }
+    }
+    return publishNanos;
+  }
+
+  public static void main(String[] args) {
+    int nItems = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int reps = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    int[] sizes = { 0, 1, 10, 100, 1_000, 10_000 };
+    if (args.length > 2) {
+      sizes = new int[args.length - 2];
+      for (int i = 2; i < args.length; i++) {
+        sizes[i - 2] = Integer.parseInt(args[i]);
+      }
+    }
+    Item[] items = new Item[nItems];
+    for (int i = 0; i < nItems; i++) {
+      items[i] = new Item();
+    }
+    // warm up
+    run(items, 10, reps, false);
+
+    System.out.format("%,d records, %,d publishes per size%n", nItems, reps);
+    System.out.format("%10s %14s %14s %14s%n", "writes", "us/publish", "ns/write", "read all, us");
+    for (int size : sizes) {
+      double us = run(items, size, reps, false) / 1000.0 / reps;
+      double readUs = run(items, size, Math.max(1, reps / 10), true) / 1000.0 / Math.max(1, reps / 10);
+      String perWrite = size == 0 ? "-" : String.format("%,.1f", us * 1000 / size);
+      System.out.format("%,10d %,14.2f %14s %,14.2f%n", size, us, perWrite, readUs);
+    }
+  }
+}
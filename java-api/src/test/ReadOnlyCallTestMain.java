@@ -0,0 +1,148 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.MdsStats;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.exceptions.ReadOnlyContextException;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.impl.Metrics;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Checks that isolated calls that only read succeed, with and without
+ * readOnly(), that writing under readOnly() throws, and that a call that
+ * writes is still published.  With metrics on, it also checks from the
+ * publish counts that a call that only read skipped the merge, and one
+ * that wrote didn't.  Then times calls that read a few records
+ * each: ones that write, ones that only read, and ones that only read
+ * under readOnly().
+ *
+ * args: [records] [calls] [reads per call]
+ */
+public class ReadOnlyCallTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.ReadOnlyCallTestMain.Item", Item.class);
+    static final LongField<Item> value = TYPE.longField("value");
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static long sum(Item[] items, int from, int n) {
+    long s = 0;
+    for (int i = 0; i < n; i++) {
+      s += Item.value.getLong(items[(from + i) % items.length]);
+    }
+    return s;
+  }
+
+  interface Call {
+    long run(int from);
+  }
+
+  static void time(String label, Call call, int calls) {
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < calls; i++) {
+      sink += call.run(i);
+    }
+    long elapsed = System.nanoTime() - start;
+    System.out.format("%-20s %,10.2f us/call (sum %,d)%n", label, elapsed / 1000.0 / calls, sink);
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int calls = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    int reads = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+    Item[] items = new Item[n];
+    for (int i = 0; i < n; i++) {
+      items[i] = new Item();
+      Item.value.set(items[i], i);
+    }
+    IsolationContext ctxt = IsolationContext.current();
+    long expected = sum(items, 0, reads);
+
+    MdsStats before = new MdsStats();
+    Checks.check("read-only call", ctxt.callIsolated(() -> sum(items, 0, reads)) == expected);
+    MdsStats after = new MdsStats();
+    if (Metrics.ENABLED) {
+      Checks.check("read-only call didn't merge",
+                   after.publishes() - before.publishes() == 1
+                   && after.publishesWithoutMerge() - before.publishesWithoutMerge() == 1);
+    }
+
+    before = after;
+    Checks.check("read-only call, readOnly()",
+                 ctxt.callIsolated(() -> sum(items, 0, reads), PubOption.readOnly()) == expected);
+    after = new MdsStats();
+    if (Metrics.ENABLED) {
+      Checks.check("readOnly() call didn't publish", after.publishes() == before.publishes());
+    }
+
+    boolean threw = false;
+    try {
+      ctxt.callIsolated((Runnable)() -> Item.value.set(items[0], -1), PubOption.readOnly());
+    } catch (ReadOnlyContextException e) {
+      threw = true;
+    }
+    Checks.check("write under readOnly() throws", threw && Item.value.getLong(items[0]) == 0);
+
+    before = new MdsStats();
+    ctxt.callIsolated((Runnable)() -> Item.value.inc(items[0], 1));
+    after = new MdsStats();
+    Checks.check("writing call published", Item.value.getLong(items[0]) == 1);
+    if (Metrics.ENABLED) {
+      Checks.check("writing call merged",
+                   after.publishes() - before.publishes() == 1
+                   && after.publishesWithoutMerge() == before.publishesWithoutMerge());
+    }
+    Item.value.set(items[0], 0);
+
+    for (int round = 0; round < 3; round++) {
+      time("writes", from -> ctxt.callIsolated(() -> {
+            long s = sum(items, from, reads);
+            Item.value.set(items[from % n], Item.value.getLong(items[from % n]));
+            return s;
+          }), calls);
+      time("reads", from -> ctxt.callIsolated(() -> sum(items, from, reads)), calls);
+      time("reads, readOnly()", from -> ctxt.callIsolated(() -> sum(items, from, reads), PubOption.readOnly()),
+           calls);
+    }
+
+    Checks.report();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.Arrays;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.field.DoubleField;
+import com.hpl.mds.prim.field.IntField;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Reads three columns of different kinds from more records than fit in
+ * one native chunk, with projection(), and checks them against field by
+ * field reads, both published and in a nested context with unpublished
+ * changes.  Then checks that short and missing columns are refused.
+ *
+ * args: [records]
+ */
+public class RecordProjectionTestMain {
+  public static class Row extends ManagedRecordProxy {
+    static final RecordType<Row> TYPE = RecordType.declare("test.RecordProjectionTestMain.Row", Row.class);
+    static final LongField<Row> ID = TYPE.longField("id");
+    static final IntField<Row> COUNT = TYPE.intField("count");
+    static final DoubleField<Row> WEIGHT = TYPE.doubleField("weight");
+
+    public Row() {
+      super(TYPE);
+    }
+
+    public Row(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static boolean matches(Row[] rows) {
+    long[] ids = new long[rows.length];
+    int[] counts = new int[rows.length];
+    double[] weights = new double[rows.length];
+    int n = Row.TYPE.projection()
+      .column(Row.ID, ids)
+      .column(Row.COUNT, counts)
+      .column(Row.WEIGHT, weights)
+      .read(rows);
+    if (n != rows.length) {
+      return false;
+    }
+    for (int i = 0; i < rows.length; i++) {
+      if (ids[i] != Row.ID.getLong(rows[i])
+          || counts[i] != Row.COUNT.getInt(rows[i])
+          || weights[i] != Row.WEIGHT.getDouble(rows[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean throwsAny(Class<? extends RuntimeException> type, Runnable r) {
+    try {
+      r.run();
+      return false;
+    } catch (RuntimeException e) {
+      return type.isInstance(e);
+    }
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+    Row[] rows = new Row[n];
+    for (int i = 0; i < n; i++) {
+      Row r = new Row();
+      Row.ID.set(r, i * 1_000_003L);
+      Row.COUNT.set(r, i % 17);
+      Row.WEIGHT.set(r, i / 4.0);
+      rows[i] = r;
+    }
+
+    Checks.check("published columns", matches(rows));
+    Checks.check("no records", matches(new Row[0]));
+
+    IsolationContext ctxt = IsolationContext.nestedFromCurrent();
+    ctxt.run(() -> {
+        for (int i = 0; i < n; i += 3) {
+          Row.COUNT.set(rows[i], -i);
+        }
+      });
+    Checks.check("unpublished changes in context", ctxt.call(() -> matches(rows)));
+    Checks.check("not seen outside", Row.COUNT.getInt(rows[3]) == 3 && matches(rows));
+
+    Checks.check("short column refused",
+                 throwsAny(ArrayIndexOutOfBoundsException.class,
+                           () -> Row.TYPE.projection().column(Row.ID, new long[n - 1]).read(rows)));
+    Checks.check("missing column refused",
+                 throwsAny(NullPointerException.class,
+                           () -> Row.TYPE.projection().column(Row.ID, (long[])null)));
+    long[] untouched = new long[n];
+    Row[] withNull = Arrays.copyOf(rows, n);
+    withNull[n / 2] = null;
+    Checks.check("null record refused",
+                 throwsAny(NullPointerException.class,
+                           () -> Row.TYPE.projection().column(Row.ID, untouched).read(withNull))
+                 && untouched[0] == 0);
+
+    Checks.report();
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedArray;
+import com.hpl.mds.ManagedList;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.ManagedSet;
+import com.hpl.mds.RecordQuery;
+import com.hpl.mds.RecordQuery.Compare;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.field.DoubleField;
+import com.hpl.mds.prim.field.IntField;
+import com.hpl.mds.prim.field.LongField;
+
+/*
+ * Runs the same queries over products held in an array, lists of each
+ * layout and a set, in a read-only snapshot, and checks them against what
+ * was put there.  Then times the sum of revenue as a query and as a walk
+ * over the list.
+ *
+ * args: [products]
+ */
+public class RecordQueryTestMain {
+  public static class Product extends ManagedRecordProxy {
+    static final RecordType<Product> TYPE = RecordType.declare("test.RecordQueryTestMain.Product", Product.class);
+    static final LongField<Product> REVENUE = TYPE.longField("revenue");
+    static final IntField<Product> NBR_SOLD = TYPE.intField("nbrSold");
+    static final DoubleField<Product> PRICE = TYPE.doubleField("price");
+
+    public Product() {
+      super(TYPE);
+    }
+
+    public Product(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static void checkAll(String label, RecordQuery<Product> q, Product[] products) {
+    long sold = 0;
+    long revenue = 0;
+    long maxRevenue = Long.MIN_VALUE;
+    double minPrice = Double.POSITIVE_INFINITY;
+    List<Product> selling = new ArrayList<>();
+    for (Product p : products) {
+      if (Product.NBR_SOLD.getInt(p) > 0) {
+        sold++;
+        revenue += Product.REVENUE.getLong(p);
+        maxRevenue = Math.max(maxRevenue, Product.REVENUE.getLong(p));
+        minPrice = Math.min(minPrice, Product.PRICE.getDouble(p));
+        selling.add(p);
+      }
+    }
+    selling.sort(Comparator.comparingLong(p -> -Product.REVENUE.getLong(p)));
+    List<Long> top = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      top.add(Product.REVENUE.getLong(selling.get(i)));
+    }
+
+    RecordQuery<Product> selling_q = q.where(Product.NBR_SOLD, Compare.GT, 0);
+    RecordQuery.Summary revenues = selling_q.summarize(Product.REVENUE);
+    RecordQuery.Summary prices = selling_q.summarize(Product.PRICE);
+    List<Long> topFound = new ArrayList<>();
+    for (Product p : selling_q.top(5, Product.REVENUE)) {
+      topFound.add(Product.REVENUE.getLong(p));
+    }
+    Checks.check(label + ": count", q.count() == products.length && selling_q.count() == sold);
+    Checks.check(label + ": sum and max",
+                 revenues.longSum() == revenue && revenues.longMax() == maxRevenue);
+    Checks.check(label + ": min of double", prices.min() == minPrice);
+    Checks.check(label + ": top 5", topFound.equals(top));
+  }
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+
+    Product[] products = new Product[n];
+    ManagedArray<Product> array = Product.TYPE.createArray(n);
+    List<ManagedList<Product>> lists = new ArrayList<>();
+    String[] labels = { "ARRAY_LIST", "QUEUE", "LINKED_LIST" };
+    lists.add(Product.TYPE.createList(ManagedList.useAs(ManagedList.ARRAY_LIST)));
+    lists.add(Product.TYPE.createList(ManagedList.useAs(ManagedList.QUEUE)));
+    lists.add(Product.TYPE.createList(ManagedList.useAs(ManagedList.LINKED_LIST)));
+    ManagedSet<Product> set = Product.TYPE.createSet(ManagedSet.expectedSize(n));
+    for (int i = 0; i < n; i++) {
+      Product p = new Product();
+      Product.NBR_SOLD.set(p, i % 3);
+      Product.REVENUE.set(p, (i * 7919L) % 100_003);
+      Product.PRICE.set(p, 1 + (i * 31) % 997 / 10.0);
+      products[i] = p;
+      array.set(i, p);
+      for (ManagedList<Product> list : lists) {
+        list.add(p);
+      }
+      set.add(p);
+    }
+    // so that the queue's elements wrap around the end of its ring
+    ManagedList<Product> queue = lists.get(1);
+    for (int i = 0; i < 3; i++) {
+      queue.add(queue.remove(0));
+    }
+
+    IsolationContext.inReadOnlySnapshot(() -> {
+        checkAll("array", RecordQuery.over(array), products);
+        for (int i = 0; i < lists.size(); i++) {
+          checkAll(labels[i], RecordQuery.over(lists.get(i)), products);
+        }
+        checkAll("set", RecordQuery.over(set), products);
+
+        ManagedList<Product> list = lists.get(0);
+        long start = System.nanoTime();
+        long sum = RecordQuery.over(list).summarize(Product.REVENUE).longSum();
+        long queryNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long walked = 0;
+        for (Product p : list) {
+          walked += Product.REVENUE.getLong(p);
+        }
+        long walkNanos = System.nanoTime() - start;
+        System.out.format("sum of %,d: query %,d ns, walk %,d ns%s%n", n, queryNanos, walkNanos,
+                          sum == walked ? "" : " (DIFFERENT)");
+      });
+
+    Checks.report();
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import com.hpl.mds.task.RerunScheduler;
+import com.hpl.mds.task.Task;
+import com.hpl.mds.task.TaskNode;
+
+/*
+ * Checks that RerunScheduler.runInParallel() runs every task of a layered
+ * task graph exactly once, after all the tasks it depends on, and ends in
+ * the same state as the serial breadth-first rerun.  Then times the two on
+ * a wide graph.  The tasks only simulate work, so no native library is needed.
+ *
+ * args: [width [depth [workMicros [threads]]]]
+ */
+public class RerunSchedulerTestMain {
+
+	private static final int TOTAL_TEST = 3;
+
+	private int passedTests = 0;
+
+	private interface Test {
+		public boolean run() throws Exception;
+	}
+
+	static class Graph {
+		final TaskNode root = new TaskNode();
+		final List<Task> tasks = new ArrayList<>();
+		final Map<Task,List<Task>> dependsOn = new IdentityHashMap<>();
+	}
+
+	/*
+	 * depth layers of width tasks.  Each task below the first layer depends
+	 * on one or two tasks in the layer above.  The first layer plays the
+	 * part of the conflicted tasks.
+	 */
+	static Graph layered(int width, int depth, long seed) {
+		Random rnd = new Random(seed);
+		Graph g = new Graph();
+		List<Task> above = null;
+		for (int d = 0; d < depth; d++) {
+			List<Task> layer = new ArrayList<>();
+			for (int w = 0; w < width; w++) {
+				Task t = new Task(String.format("L%d-T%d", d, w), () -> {});
+				List<Task> deps = new ArrayList<>();
+				if (above != null) {
+					Task p = above.get(rnd.nextInt(width));
+					deps.add(p);
+					Task q = above.get(rnd.nextInt(width));
+					if (q != p && rnd.nextBoolean()) {
+						deps.add(q);
+					}
+					for (Task dep : deps) {
+						dep.addDependentTask(t);
+					}
+				}
+				g.dependsOn.put(t, deps);
+				layer.add(t);
+				g.tasks.add(t);
+			}
+			above = layer;
+		}
+		Set<Task> conflicted = new HashSet<>(g.tasks.subList(0, width));
+		TaskNode.addTasksAndDependencies(g.root, g.root, conflicted);
+		return g;
+	}
+
+	/*
+	 * A task's result depends on those of the tasks it depends on, so any
+	 * out-of-order run shows up in the final state.
+	 */
+	static Consumer<Task> action(Graph g, Map<Task,Long> state, long workMicros) {
+		return task -> {
+			long v = task.id().hashCode();
+			for (Task dep : g.dependsOn.get(task)) {
+				Long dv = state.get(dep);
+				if (dv == null) {
+					throw new IllegalStateException(task.id() + " ran before " + dep.id());
+				}
+				v = v * 31 + dv;
+			}
+			spin(workMicros);
+			if (state.put(task, v) != null) {
+				throw new IllegalStateException(task.id() + " ran twice");
+			}
+		};
+	}
+
+	static void spin(long micros) {
+		long end = System.nanoTime() + micros * 1000;
+		while (System.nanoTime() < end) {
+			// busy, like a rerun task doing real work
+		}
+	}
+
+	static Map<Task,Long> runSerially(Graph g, long workMicros) {
+		Map<Task,Long> state = new ConcurrentHashMap<>();
+		RerunScheduler.runSerially(g.root, action(g, state, workMicros));
+		return state;
+	}
+
+	static Map<Task,Long> runInParallel(Graph g, long workMicros, ForkJoinPool pool) {
+		Map<Task,Long> state = new ConcurrentHashMap<>();
+		RerunScheduler.runInParallel(g.root, action(g, state, workMicros), pool);
+		return state;
+	}
+
+	public static void main(String[] args) {
+		int width = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		long workMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		ForkJoinPool pool = new ForkJoinPool(Math.max(2, threads));
+
+		RerunSchedulerTestMain test = new RerunSchedulerTestMain();
+		test.testSameFinalState(pool);
+		test.testIndependentTasks(pool);
+		test.testFailurePropagates(pool);
+		test.printResults();
+
+		benchmark(width, depth, workMicros, pool);
+		pool.shutdown();
+	}
+
+	/**
+	 * Verifies that parallel and serial reruns of a layered graph reach the same state
+	 */
+	private void testSameFinalState(ForkJoinPool pool) {
+		runTest(() -> {
+			for (long seed = 0; seed < 20; seed++) {
+				Graph g = layered(50, 4, seed);
+				Map<Task,Long> serial = runSerially(g, 0);
+				Map<Task,Long> parallel = runInParallel(g, 0, pool);
+				if (serial.size() != g.tasks.size() || !serial.equals(parallel)) {
+					System.out.println("testSameFinalState: states differ for seed " + seed);
+					return false;
+				}
+			}
+			return true;
+		});
+	}
+
+	/**
+	 * Verifies that a single layer of unrelated tasks all run
+	 */
+	private void testIndependentTasks(ForkJoinPool pool) {
+		runTest(() -> {
+			Graph g = layered(1000, 1, 0);
+			return runInParallel(g, 0, pool).size() == 1000;
+		});
+	}
+
+	/**
+	 * Verifies that a task throwing fails the rerun, and that nothing waiting
+	 * on it runs
+	 */
+	private void testFailurePropagates(ForkJoinPool pool) {
+		runTest(() -> {
+			Graph g = layered(10, 3, 1);
+			Task bad = g.tasks.get(3);
+			Set<Task> ran = Collections.newSetFromMap(new ConcurrentHashMap<>());
+			try {
+				RerunScheduler.runInParallel(g.root, task -> {
+					for (Task dep : g.dependsOn.get(task)) {
+						if (!ran.contains(dep)) {
+							throw new IllegalStateException(task.id() + " ran without " + dep.id());
+						}
+					}
+					if (task == bad) {
+						throw new UnsupportedOperationException("expected");
+					}
+					ran.add(task);
+				}, pool);
+			} catch (UnsupportedOperationException e) {
+				return !ran.contains(bad);
+			}
+			return false;
+		});
+	}
+
+	private static void benchmark(int width, int depth, long workMicros, ForkJoinPool pool) {
+		Graph g = layered(width, depth, 42);
+		System.out.format("Rerun of %,d tasks (%d layers of %,d, %,d us each), %d threads%n",
+		                  g.tasks.size(), depth, width, workMicros, pool.getParallelism());
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			runSerially(g, workMicros);
+			long serial = System.nanoTime() - start;
+			start = System.nanoTime();
+			runInParallel(g, workMicros, pool);
+			long parallel = System.nanoTime() - start;
+			System.out.format("  serial %,8.1f ms  parallel %,8.1f ms  speedup %.2fx%n",
+			                  serial / 1e6, parallel / 1e6, (double) serial / parallel);
+		}
+	}
+
+	/**
+	 * Prints the test results
+	 */
+	private void printResults() {
+		System.out.println("test passed: " + passedTests + " / " + TOTAL_TEST);
+	}
+
+	/**
+	 * Runs the given test safely, printing any exception and counting the
+	 * passed tests
+	 * 
+	 * @param test
+	 */
+	private void runTest(Test test) {
+		try {
+			if (test.run()) {
+				passedTests++;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+}
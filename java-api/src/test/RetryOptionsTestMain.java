@@ -0,0 +1,184 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedRecord;
+import com.hpl.mds.MergeReport;
+import com.hpl.mds.PubOption;
+import com.hpl.mds.RecordType;
+import com.hpl.mds.exceptions.FailedTransactionException;
+import com.hpl.mds.impl.ManagedRecordProxy;
+import com.hpl.mds.prim.container.array.ManagedLongArray;
+
+/*
+ * Exercises the withBackoff(), reRunAdaptively() and throttle() options.
+ * Calls are made to conflict by having a sibling publish a change to what
+ * they read before they publish.  Backoff should wait between attempts,
+ * adaptive reruns should get fewer as conflicts mount, and throttled calls
+ * should never run more at once than allowed, even when one is nested in
+ * another on the same thread.
+ */
+public class RetryOptionsTestMain {
+  public static class Item extends ManagedRecordProxy {
+    static final RecordType<Item> TYPE = RecordType.declare("test.RetryOptionsTestMain.Item", Item.class);
+
+    public Item() {
+      super(TYPE);
+    }
+
+    public Item(FromHandle keyword, long handle, RecordType<? extends ManagedRecord> type) {
+      super(keyword, handle, type);
+    }
+  }
+
+  static final ManagedLongArray counter = ManagedLongArray.TYPE.create(1);
+
+  /*
+   * Increments the counter, first having a sibling of the calling context
+   * increment it too, so the publish conflicts, while conflictsLeft is
+   * positive.
+   */
+  static long conflictingInc(IsolationContext parent, AtomicInteger conflictsLeft) {
+    long v = counter.getLong(0);
+    if (conflictsLeft.getAndDecrement() > 0) {
+      IsolationContext sibling = parent.createNested();
+      sibling.run(() -> counter.set(0, counter.getLong(0) + 1));
+      sibling.publish();
+    }
+    counter.set(0, v + 1);
+    return v;
+  }
+
+  /*
+   * The number of attempts a call that always conflicts is allowed.
+   */
+  static int attemptsAllowed(IsolationContext top, PubOption... options) {
+    AtomicInteger always = new AtomicInteger(Integer.MAX_VALUE);
+    MergeReport mr = MergeReport.create();
+    try {
+      top.callIsolated(() -> conflictingInc(top, always), mr, options);
+    } catch (FailedTransactionException e) {
+      // expected
+    }
+    return mr.attempts();
+  }
+
+  static boolean throwsIAE(Runnable r) {
+    try {
+      r.run();
+      return false;
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+
+  static void backoff(IsolationContext top) {
+    MergeReport mr = MergeReport.create();
+    AtomicInteger left = new AtomicInteger(3);
+    top.callIsolated(() -> conflictingInc(top, left), mr,
+                     PubOption.reRunNTimes(5), PubOption.withBackoff(Duration.ofMillis(1), Duration.ofMillis(4)));
+    Checks.check("backoff: succeeded after conflicts", mr.succeeded() && mr.attempts() == 4);
+    Checks.check("backoff: waited between attempts", !mr.backoffTime().isZero());
+    Checks.check("backoff: bad range refused",
+                 throwsIAE(() -> PubOption.withBackoff(Duration.ofMillis(2), Duration.ofMillis(1)))
+                 && throwsIAE(() -> PubOption.withBackoff(Duration.ofMillis(-1), Duration.ofMillis(1))));
+  }
+
+  static void adaptive(IsolationContext top) {
+    PubOption adaptive = PubOption.reRunAdaptively(4);
+    int first = attemptsAllowed(top, adaptive);
+    int last = first;
+    for (int i = 0; i < 10; i++) {
+      last = attemptsAllowed(top, adaptive);
+    }
+    Checks.check(String.format("adaptive: %d attempts, then %d", first, last), first == 5 && last == 2);
+    Checks.check("adaptive: rate kept per option", attemptsAllowed(top, PubOption.reRunAdaptively(4)) == 5);
+  }
+
+  static void throttle(IsolationContext top) throws Exception {
+    PubOption one = PubOption.throttle(Item.TYPE, 1);
+    Checks.check("throttle: same limit again is fine", PubOption.throttle(Item.TYPE, 1) != null);
+    Checks.check("throttle: different limit refused", throwsIAE(() -> PubOption.throttle(Item.TYPE, 2)));
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    Supplier<Integer> inner = () -> 42;
+    Supplier<Integer> outer = () -> IsolationContext.current().callIsolated(inner, one);
+    Future<Integer> nested = pool.submit(() -> top.callIsolated(outer, one));
+    boolean finished;
+    try {
+      finished = nested.get(10, TimeUnit.SECONDS) == 42;
+    } catch (TimeoutException e) {
+      finished = false;
+    }
+    Checks.check("throttle: nested call on same thread runs", finished);
+
+    AtomicInteger inside = new AtomicInteger();
+    AtomicInteger most = new AtomicInteger();
+    List<CompletableFuture<Void>> runs = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      runs.add(CompletableFuture.runAsync(() -> {
+          for (int i = 0; i < 20; i++) {
+            top.callIsolated(() -> {
+                int n = inside.incrementAndGet();
+                most.accumulateAndGet(n, Math::max);
+                try {
+                  Thread.sleep(1);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                inside.decrementAndGet();
+              }, one);
+          }
+        }, pool));
+    }
+    CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).get();
+    Checks.check(String.format("throttle: at most %d at once", most.get()), most.get() == 1);
+    pool.shutdown();
+  }
+
+  public static void main(String[] args) throws Exception {
+    IsolationContext top = IsolationContext.current();
+    backoff(top);
+    adaptive(top);
+    throttle(top);
+
+    Checks.report();
+  }
+}
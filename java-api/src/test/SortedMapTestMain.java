@@ -0,0 +1,131 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the
+ *  Application containing code generated by the Library and added to the
+ *  Application during this compilation process under terms of your choice,
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+package test;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.hpl.mds.IsolationContext;
+import com.hpl.mds.ManagedSortedMap;
+import com.hpl.mds.impl.ManagedStringProxy;
+import com.hpl.mds.prim.ManagedLong;
+import com.hpl.mds.string.ManagedString;
+
+/*
+ * Fills a ManagedSortedMap from several sibling contexts, each putting
+ * every nth key, publishes them, and then checks range reads against what
+ * was put, both directly and in a read-only snapshot taken before more keys
+ * are added.  Finally times a short range read against a walk of the whole
+ * map.
+ *
+ * args: [contexts [perContext]]
+ */
+public class SortedMapTestMain {
+
+  static ManagedString key(int i) {
+    return ManagedString.valueOf(String.format("k%08d", i));
+  }
+
+  static boolean inOrder(SortedMap<ManagedString, ManagedLong> m, int from, int to) {
+    int i = from;
+    for (Map.Entry<ManagedString, ManagedLong> e : m.entrySet()) {
+      if (!e.getKey().equals(key(i)) || e.getValue().asLong() != i) {
+        return false;
+      }
+      i++;
+    }
+    return i == to;
+  }
+
+  public static void main(String[] args) {
+    int nContexts = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    int perContext = args.length > 1 ? Integer.parseInt(args[1]) : 2500;
+    int total = nContexts * perContext;
+
+    ManagedSortedMap<ManagedString, ManagedLong> map
+      = ManagedSortedMap.create(ManagedString.TYPE, ManagedLong.TYPE);
+
+    IsolationContext[] contexts = new IsolationContext[nContexts];
+    for (int c = 0; c < nContexts; c++) {
+      int first = c;
+      contexts[c] = IsolationContext.nestedFromCurrent();
+      contexts[c].run(() -> {
+          for (int i = first; i < total; i += nContexts) {
+            map.put(key(i), ManagedLong.valueOf(i));
+          }
+        });
+    }
+    long conflicts = 0;
+    for (IsolationContext ctxt : contexts) {
+      conflicts += ctxt.publish().numConflicts();
+    }
+    System.out.format("%,d conflicts publishing %,d interleaved keys from %d contexts%n",
+                      conflicts, total, nContexts);
+
+    // the interleaved keys conflict, so put whatever didn't make it
+    for (int i = 0; i < total; i++) {
+      if (!map.containsKey(key(i))) {
+        map.put(key(i), ManagedLong.valueOf(i));
+      }
+    }
+    int lo = total / 3;
+    int hi = lo + 100;
+    Checks.check("whole map in order", inOrder(map, 0, total));
+    Checks.check("subMap", inOrder(map.subMap(key(lo), key(hi)), lo, hi));
+    Checks.check("headMap", inOrder(map.headMap(key(lo)), 0, lo));
+    Checks.check("tailMap", inOrder(map.tailMap(key(hi)), hi, total));
+    Checks.check("firstKey/lastKey",
+                 map.firstKey().equals(key(0)) && map.lastKey().equals(key(total - 1)));
+
+    IsolationContext snapshot = IsolationContext.current().createReadOnlySnapshot();
+    map.put(key(total), ManagedLong.valueOf(total));
+    map.remove(key(lo));
+    Checks.check("range in snapshot",
+                 snapshot.call(() -> inOrder(map.subMap(key(lo), key(hi)), lo, hi))
+                 && snapshot.call(() -> !map.containsKey(key(total))));
+
+    Iterator<Map.Entry<ManagedString, ManagedLong>> top = map.descendingIterator();
+    Checks.check("descending", top.next().getKey().equals(key(total))
+                 && top.next().getKey().equals(key(total - 1)));
+
+    String absent = "absent-" + System.nanoTime();
+    Checks.check("absent string key not interned",
+                 map.get(absent) == null && !map.containsKey(absent) && map.remove(absent) == null
+                 && ManagedStringProxy.find(absent) == null);
+
+    long start = System.nanoTime();
+    int n = map.subMap(key(hi), key(hi + 10)).size();
+    long rangeNanos = System.nanoTime() - start;
+    start = System.nanoTime();
+    long all = map.longSize();
+    long allNanos = System.nanoTime() - start;
+    System.out.format("range of %d: %,d ns, whole map of %,d: %,d ns%n", n, rangeNanos, all, allNanos);
+
+    Checks.report();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ *  Managed Data Structures
+ *  Copyright © 2016 Hewlett Packard Enterprise Development Company LP.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  As an exception, the copyright holders of this Library grant you permission
+ *  to (i) compile an Application with the Library, and (ii) distribute the 
+ *  Application containing code generated by the Library and added to the 
+ *  Application during this compilation process under terms of your choice, 
+ *  provided you also meet the terms and conditions of the Application license.
+ *
+ */
+
+/*
+ * handle_store_bench.cpp
+ *
+ * Measures per-access latency of handle_store::get() and
+ * unique_handle_store::get() as the number of threads grows.  Each thread
+ * repeatedly looks up random indices from a shared pool (the way the JNI
+ * field accessors do), with an occasional store()/free() pair mixed in to
+ * keep the free lists busy.  With lock-free reads the ns/op column should
+ * stay roughly flat from 1 thread up to the core count.
+ *
+ * Usage: handle_store_bench [max_threads [ops_per_thread [pool_size]]]
+ */
+
+#include "mds_core_api.h"
+
+#include <chrono>
+#include <cstdlib>
+#include <iomanip>
+#include <iostream>
+#include <random>
+#include <thread>
+#include <vector>
+
+using namespace mds::api;
+
+namespace {
+  /*
+   * Something hashable and comparable that stands in for a handle, so the
+   * benchmark exercises only the store and not the managed heap.
+   */
+  using fake_handle = std::uintptr_t;
+
+  template <typename Store>
+  std::vector<std::size_t> fill(std::size_t n) {
+    std::vector<std::size_t> indices;
+    indices.reserve(n);
+    for (std::size_t i = 1; i <= n; i++) {
+      indices.push_back(Store::store(fake_handle(i)));
+    }
+    return indices;
+  }
+
+  template <typename Store>
+  double run(unsigned n_threads, std::size_t ops, const std::vector<std::size_t> &pool) {
+    std::vector<std::thread> threads;
+    std::atomic<unsigned> ready{0};
+    std::atomic<bool> go{false};
+    std::atomic<std::uintptr_t> sink{0};
+    auto start = std::chrono::steady_clock::now();
+    for (unsigned t = 0; t < n_threads; t++) {
+      threads.emplace_back([&, t] {
+          std::minstd_rand rand(t+1);
+          std::uniform_int_distribution<std::size_t> pick(0, pool.size()-1);
+          std::uintptr_t sum = 0;
+          ready++;
+          while (!go.load()) {
+            std::this_thread::yield();
+          }
+          for (std::size_t i = 0; i < ops; i++) {
+            sum += Store::get(pool[pick(rand)]);
+            if ((i & 0xff) == 0) {
+              auto ix = Store::store(fake_handle(pool.size() + 1 + t*ops + i));
+              Store::free(ix);
+            }
+          }
+          sink += sum;
+        });
+    }
+    while (ready.load() < n_threads) {
+      std::this_thread::yield();
+    }
+    start = std::chrono::steady_clock::now();
+    go = true;
+    for (auto &th : threads) {
+      th.join();
+    }
+    auto elapsed = std::chrono::steady_clock::now() - start;
+    double ns = std::chrono::duration<double, std::nano>(elapsed).count();
+    // Each thread does ops accesses concurrently, so wall time / ops is the
+    // latency a single thread sees.
+    return ns / ops;
+  }
+
+  template <typename Store>
+  void bench(const char *name, unsigned max_threads, std::size_t ops, std::size_t pool_size) {
+    std::vector<std::size_t> pool = fill<Store>(pool_size);
+    std::cout << name << std::endl;
+    std::cout << std::setw(10) << "threads" << std::setw(12) << "ns/op" << std::endl;
+    for (unsigned n = 1; n <= max_threads; n *= 2) {
+      double ns = run<Store>(n, ops, pool);
+      std::cout << std::setw(10) << n << std::setw(12) << std::fixed << std::setprecision(2)
+                << ns << std::endl;
+    }
+    for (std::size_t ix : pool) {
+      Store::free(ix);
+    }
+  }
+}
+
+int main(int argc, char *argv[]) {
+  unsigned max_threads = argc > 1 ? std::atoi(argv[1]) : 64;
+  std::size_t ops = argc > 2 ? std::atol(argv[2]) : 10000000;
+  std::size_t pool_size = argc > 3 ? std::atol(argv[3]) : 100000;
+
+  bench<handle_store<fake_handle>>("handle_store", max_threads, ops, pool_size);
+  bench<unique_handle_store<fake_handle>>("unique_handle_store", max_threads, ops, pool_size);
+  return 0;
+}